@@ -172,6 +172,7 @@ CREATE INDEX IX_oc_job_date_created ON oc_job (date_created);
 CREATE INDEX IX_oc_job_date_completed ON oc_job (date_completed);
 CREATE INDEX IX_oc_job_dispatchable ON oc_job (dispatchable);
 CREATE INDEX IX_oc_job_operation ON oc_job (operation);
+CREATE INDEX IX_oc_job_operation_date_created ON oc_job (operation, date_created, id);
 CREATE INDEX IX_oc_job_statistics ON oc_job (processor_service, status, queue_time, run_time);
 
 CREATE TABLE oc_job_argument (
@@ -349,6 +350,15 @@ CREATE INDEX IX_oc_user_action_outpoint ON oc_user_action (outpoint);
 CREATE INDEX IX_oc_user_action_mediapackage_id ON oc_user_action (mediapackage);
 CREATE INDEX IX_oc_user_action_type ON oc_user_action (type);
 
+CREATE TABLE oc_user_footprint_change (
+  id BIGINT NOT NULL,
+  mediapackage VARCHAR(128) NOT NULL,
+  timepoint INTEGER NOT NULL,
+  delta INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT UNQ_oc_user_footprint_change UNIQUE (mediapackage, timepoint)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 CREATE TABLE oc_oaipmh_harvesting (
   url VARCHAR(255) NOT NULL,
   last_harvested datetime,
@@ -381,6 +391,7 @@ CREATE TABLE oc_assets_asset (
   mediapackage_element_id VARCHAR(128) NOT NULL,
   mime_type VARCHAR(64),
   size BIGINT NOT NULL,
+  storage_extension VARCHAR(64),
   --
   INDEX IX_oc_assets_asset_checksum (checksum),
   INDEX IX_oc_assets_asset_mediapackage_element_id (mediapackage_element_id)
@@ -0,0 +1,31 @@
+ALTER TABLE oc_assets_asset ADD COLUMN storage_extension VARCHAR(64);
+
+CREATE TABLE oc_user_footprint_change (
+  id BIGINT NOT NULL,
+  mediapackage VARCHAR(128) NOT NULL,
+  timepoint INTEGER NOT NULL,
+  delta INTEGER NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT UNQ_oc_user_footprint_change UNIQUE (mediapackage, timepoint)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+# Aggregate the footprints recorded so far, one view more at the start and one less at the end of each footprint.
+# The IDs are taken from the sequence generator, which is moved past them afterwards.
+SET @oc_user_footprint_change_id := (SELECT SEQ_COUNT FROM SEQUENCE WHERE SEQ_NAME = 'SEQ_GEN');
+INSERT INTO oc_user_footprint_change (id, mediapackage, timepoint, delta)
+SELECT @oc_user_footprint_change_id := @oc_user_footprint_change_id + 1, c.mediapackage, c.timepoint, c.delta
+FROM (SELECT mediapackage, timepoint, SUM(delta) AS delta
+      FROM (SELECT mediapackage, inpoint AS timepoint, COUNT(*) AS delta
+            FROM oc_user_action
+            WHERE type = 'FOOTPRINT' AND mediapackage IS NOT NULL AND inpoint < outpoint
+            GROUP BY mediapackage, inpoint
+            UNION ALL
+            SELECT mediapackage, outpoint AS timepoint, -COUNT(*) AS delta
+            FROM oc_user_action
+            WHERE type = 'FOOTPRINT' AND mediapackage IS NOT NULL AND inpoint < outpoint
+            GROUP BY mediapackage, outpoint) footprints
+      GROUP BY mediapackage, timepoint
+      HAVING SUM(delta) <> 0) c;
+UPDATE SEQUENCE SET SEQ_COUNT = @oc_user_footprint_change_id WHERE SEQ_NAME = 'SEQ_GEN';
+
+CREATE INDEX IX_oc_job_operation_date_created ON oc_job (operation, date_created, id);
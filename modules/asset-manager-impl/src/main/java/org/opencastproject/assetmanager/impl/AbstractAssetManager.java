@@ -23,7 +23,6 @@ package org.opencastproject.assetmanager.impl;
 import static com.entwinemedia.fn.Prelude.chuck;
 import static com.entwinemedia.fn.Stream.$;
 import static java.lang.String.format;
-import static org.opencastproject.mediapackage.MediaPackageSupport.Filters.hasNoChecksum;
 import static org.opencastproject.mediapackage.MediaPackageSupport.Filters.isNotPublication;
 import static org.opencastproject.mediapackage.MediaPackageSupport.getFileName;
 import static org.opencastproject.mediapackage.MediaPackageSupport.getMediaPackageElementId;
@@ -57,16 +56,16 @@ import org.opencastproject.util.NotFoundException;
 import org.opencastproject.workspace.api.Workspace;
 
 import com.entwinemedia.fn.Fn;
-import com.entwinemedia.fn.Fx;
 import com.entwinemedia.fn.P1;
 import com.entwinemedia.fn.P1Lazy;
 import com.entwinemedia.fn.Pred;
 import com.entwinemedia.fn.data.Opt;
 import com.entwinemedia.fn.fns.Booleans;
-import com.entwinemedia.fn.fns.Strings;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,7 +74,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Core implementation of the asset manager interface.
@@ -104,6 +108,19 @@ public abstract class AbstractAssetManager implements AssetManager {
   /** Return the organization ID of the currently executing thread. */
   protected abstract String getCurrentOrgId();
 
+  /**
+   * Run the tasks archiving the elements of a media package and wait for all of them to finish. The default
+   * implementation runs them one after the other in the calling thread.
+   *
+   * @throws Exception
+   *           the first exception thrown by any of the tasks
+   */
+  protected void runArchivalTasks(List<Callable<Void>> tasks) throws Exception {
+    for (Callable<Void> task : tasks) {
+      task.call();
+    }
+  }
+
   /* ------------------------------------------------------------------------------------------------------------------ */
 
   @Override public Snapshot takeSnapshot(final String owner, final MediaPackage mp) {
@@ -153,7 +170,9 @@ public abstract class AbstractAssetManager implements AssetManager {
   @Override public Opt<Asset> getAsset(Version version, final String mpId, final String mpeId) {
     // try to fetch the asset
     for (final AssetDtos.Medium asset : getDb().getAsset(RuntimeTypes.convert(version), mpId, mpeId)) {
-      for (final InputStream assetStream : getAssetStore().get(StoragePath.mk(asset.getOrganizationId(), mpId, version, mpeId))) {
+      final StoragePath path = StoragePath.mk(asset.getOrganizationId(), mpId, version, mpeId)
+              .withExtension(asset.getAssetDto().getStorageExtension());
+      for (final InputStream assetStream : getAssetStore().get(path)) {
         final Asset a = new AssetImpl(
                 AssetId.mk(version, mpId, mpeId),
                 assetStream,
@@ -176,13 +195,6 @@ public abstract class AbstractAssetManager implements AssetManager {
 
   /* ------------------------------------------------------------------------------------------------------------------ */
 
-  /**
-   * Make sure each of the elements has a checksum.
-   */
-  void calcChecksumsForMediaPackageElements(PartialMediaPackage pmp) {
-    pmp.getElements().filter(hasNoChecksum.toFn()).each(addChecksum).run();
-  }
-
   /** Mutates mp and its elements, so make sure to work on a copy. */
   private SnapshotDto addInternal(String owner, final MediaPackage mp) throws Exception {
     final Date now = new Date();
@@ -191,15 +203,13 @@ public abstract class AbstractAssetManager implements AssetManager {
     final VersionImpl version = getDb().claimVersion(mpId);
     logger.info("Creating new version {} of media package {}", version, mp);
     final PartialMediaPackage pmp = assetsOnly(mp);
-    // make sure they have a checksum
-    calcChecksumsForMediaPackageElements(pmp);
-    // download and archive elements
-    storeAssets(pmp, version);
+    // download and archive elements, making sure they have a checksum
+    final Map<String, String> extensions = storeAssets(pmp, version);
     // store mediapackage in db
     final SnapshotDto snapshotDto;
     try {
       rewriteUrisForArchival(pmp, version);
-      snapshotDto = getDb().saveSnapshot(getCurrentOrgId(), pmp, now, version, Availability.ONLINE, owner);
+      snapshotDto = getDb().saveSnapshot(getCurrentOrgId(), pmp, now, version, Availability.ONLINE, owner, extensions);
     } catch (AssetManagerException e) {
       logger.error("Could not take snapshot {}: {}", mpId, e);
       throw new AssetManagerException(e);
@@ -210,54 +220,97 @@ public abstract class AbstractAssetManager implements AssetManager {
     return snapshotDto;
   }
 
-  private final Fx<MediaPackageElement> addChecksum = new Fx<MediaPackageElement>() {
-    @Override public void apply(MediaPackageElement mpe) {
-      File file = null;
-      try {
-        logger.trace("Calculate checksum for {}", mpe.getURI());
-        file = getWorkspace().get(mpe.getURI(), true);
-        mpe.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
-      } catch (IOException | NotFoundException e) {
-        throw new AssetManagerException(format("Cannot calculate checksum for media package element %s", mpe.getURI()), e);
-      } finally {
-        if (file != null) {
-          FileUtils.deleteQuietly(file);
-        }
-      }
-    }
-  };
-
   /**
    * Store all elements of <code>pmp</code> under the given version.
+   *
+   * @return the extensions the elements have been stored with by element id, as far as they are known
    */
-  private void storeAssets(final PartialMediaPackage pmp, final Version version) throws Exception {
+  private Map<String, String> storeAssets(final PartialMediaPackage pmp, final Version version) throws Exception {
     final String mpId = pmp.getMediaPackage().getIdentifier().toString();
     final String orgId = getCurrentOrgId();
+    final Map<String, String> extensions = new ConcurrentHashMap<>();
+    final List<Callable<Void>> tasks = new ArrayList<>();
     for (final MediaPackageElement e : pmp.getElements()) {
-      logger.debug(format("Archiving %s %s %s", e.getFlavor(), e.getMimeType(), e.getURI()));
-      final StoragePath storagePath = StoragePath.mk(orgId, mpId, version, e.getIdentifier());
+      tasks.add(new Callable<Void>() {
+        @Override public Void call() throws Exception {
+          for (String extension : storeAsset(e, StoragePath.mk(orgId, mpId, version, e.getIdentifier()))) {
+            extensions.put(e.getIdentifier(), extension);
+          }
+          return null;
+        }
+      });
+    }
+    runArchivalTasks(tasks);
+    return extensions;
+  }
+
+  /**
+   * Store a single element under the given storage path. If the element does not have a checksum yet, it is
+   * calculated from a local copy which is then handed to the asset store, so that the content is fetched only once.
+   *
+   * @return the extension the element has been stored with or none, if it is not known
+   */
+  private Opt<String> storeAsset(final MediaPackageElement e, final StoragePath storagePath) throws Exception {
+    logger.debug(format("Archiving %s %s %s", e.getFlavor(), e.getMimeType(), e.getURI()));
+    File file = null;
+    try {
+      if (e.getChecksum() == null) {
+        file = getUniqueFileFromWorkspace(e);
+        logger.trace("Calculate checksum for {}", e.getURI());
+        try {
+          e.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, file));
+        } catch (IOException ex) {
+          throw new AssetManagerException(
+                  format("Cannot calculate checksum for media package element %s", e.getURI()), ex);
+        }
+      }
       final Opt<StoragePath> existingAssetOpt = findAssetInVersions(e.getChecksum().toString());
       if (existingAssetOpt.isSome()) {
         final StoragePath existingAsset = existingAssetOpt.get();
         logger.debug("Content of asset {} with checksum {} has been archived before",
                     existingAsset.getMediaPackageElementId(), e.getChecksum());
-        if (!getAssetStore().copy(existingAsset, storagePath)) {
+        // keep the extension of the existing asset so that both can be looked up directly
+        if (!getAssetStore().copy(existingAsset, storagePath.withExtension(existingAsset.getExtension()))) {
           throw new AssetManagerException(
                   format("An asset with checksum %s has already been archived but trying to copy or link asset %s to it failed",
                          e.getChecksum(), existingAsset));
         }
+        return existingAsset.getExtension();
       } else {
+        final Opt<String> extension = Opt.some(storageExtension(e.getURI()));
         final Opt<Long> size = e.getSize() > 0 ? Opt.some(e.getSize()) : Opt.<Long>none();
-        getAssetStore().put(storagePath, Source.mk(e.getURI(), size, Opt.nul(e.getMimeType())));
+        getAssetStore().put(storagePath.withExtension(extension),
+                Source.mk(e.getURI(), size, Opt.nul(e.getMimeType()), Opt.nul(file)));
+        return extension;
+      }
+    } finally {
+      if (file != null) {
+        FileUtils.deleteQuietly(file);
       }
     }
   }
 
+  /** Return the extension of the path of <code>uri</code> or an empty string, if it has none. */
+  static String storageExtension(URI uri) {
+    return StringUtils.trimToEmpty(FilenameUtils.getExtension(uri.getRawPath()));
+  }
+
+  /** Get a copy of the element's content from the workspace that can be safely deleted afterwards. */
+  private File getUniqueFileFromWorkspace(MediaPackageElement e) {
+    try {
+      return getWorkspace().get(e.getURI(), true);
+    } catch (IOException | NotFoundException ex) {
+      throw new AssetManagerException(format("Cannot calculate checksum for media package element %s", e.getURI()), ex);
+    }
+  }
+
   /** Check if element <code>e</code> is already part of the history. */
   private Opt<StoragePath> findAssetInVersions(final String checksum) throws Exception {
     return getDb().findAssetByChecksum(checksum).map(new Fn<AssetDtos.Full, StoragePath>() {
       @Override public StoragePath apply(AssetDtos.Full dto) {
-        return StoragePath.mk(dto.getOrganizationId(), dto.getMediaPackageId(), dto.getVersion(), dto.getAssetDto().getMediaPackageElementId());
+        return StoragePath.mk(dto.getOrganizationId(), dto.getMediaPackageId(), dto.getVersion(),
+                dto.getAssetDto().getMediaPackageElementId())
+                .withExtension(dto.getAssetDto().getStorageExtension());
       }
     });
   }
@@ -356,25 +409,6 @@ public abstract class AbstractAssetManager implements AssetManager {
     };
   }
 
-  /**
-   * Extract the file name from a media package elements URN.
-   *
-   * @return the file name or none if it could not be determined
-   */
-  public static Opt<String> getFileNameFromUrn(MediaPackageElement mpe) {
-    Opt<URI> uri = Opt.nul(mpe.getURI());
-    if (uri.isSome() && "urn".equals(uri.get().getScheme()))
-      return uri.toStream().map(toString).bind(Strings.split(":")).drop(1).reverse().head();
-    return Opt.none();
-  }
-
-  private static final Fn<URI, String> toString = new Fn<URI, String>() {
-    @Override
-    public String apply(URI uri) {
-      return uri.toString();
-    }
-  };
-
   /**
    * Rewrite URIs of assets of media package elements. Please note that this method modifies the given media package.
    */
@@ -33,18 +33,31 @@ import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.message.broker.api.MessageReceiver;
 import org.opencastproject.message.broker.api.MessageSender;
 import org.opencastproject.security.api.AuthorizationService;
+import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
 import org.opencastproject.security.util.SecurityUtil;
 import org.opencastproject.util.persistencefn.PersistenceEnvs;
 import org.opencastproject.workspace.api.Workspace;
 
 import com.entwinemedia.fn.data.Opt;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import javax.persistence.EntityManagerFactory;
 
 /**
@@ -57,6 +70,18 @@ public class OsgiAssetManager implements AssetManager {
   /** Log facility */
   private static final Logger logger = LoggerFactory.getLogger(OsgiAssetManager.class);
 
+  /** The configuration key for the number of media package elements archived in parallel */
+  public static final String SNAPSHOT_THREADS_KEY = "org.opencastproject.assetmanager.snapshot.threads";
+
+  /** The default number of media package elements archived in parallel */
+  private static final int DEFAULT_SNAPSHOT_THREADS = 4;
+
+  /** The number of assets whose storage extension is recorded per transaction */
+  private static final int STORAGE_EXTENSION_BATCH_SIZE = 500;
+
+  /** The file in the bundle's data area marking that the storage extensions of all assets have been recorded */
+  private static final String STORAGE_EXTENSION_MARKER = "storage-extensions-recorded";
+
   private SecurityService secSvc;
   private AuthorizationService authSvc;
   private OrganizationDirectoryService orgDir;
@@ -72,11 +97,43 @@ public class OsgiAssetManager implements AssetManager {
 
   private AssetManager delegate;
 
+  /** Archives the elements of media packages in parallel, or <code>null</code> to archive them one after the other */
+  private ExecutorService snapshotExecutor;
+
+  /** Records the storage extensions of assets archived by earlier versions */
+  private ExecutorService migrationExecutor;
+
   /** OSGi callback. */
   public void activate(ComponentContext cc) {
     logger.info("Activating AssetManager");
     final Database db = new Database(PersistenceEnvs.mk(emf));
     final String systemUserName = SecurityUtil.getSystemUserName(cc);
+    int snapshotThreads = DEFAULT_SNAPSHOT_THREADS;
+    final String snapshotThreadsString = StringUtils.trimToNull(cc.getBundleContext().getProperty(SNAPSHOT_THREADS_KEY));
+    if (snapshotThreadsString != null) {
+      try {
+        snapshotThreads = Integer.parseInt(snapshotThreadsString);
+      } catch (NumberFormatException e) {
+        logger.warn("Number of snapshot threads '{}' is malformed, setting to {}", snapshotThreadsString,
+                DEFAULT_SNAPSHOT_THREADS);
+      }
+    }
+    if (snapshotThreads > 1) {
+      logger.info("Archiving up to {} media package elements in parallel", snapshotThreads);
+      snapshotExecutor = Executors.newFixedThreadPool(snapshotThreads);
+    }
+    // record the storage extensions of legacy assets in the background, so that the asset store can find them directly.
+    // Assets archived from now on have their storage extension recorded anyway, so this is only needed once.
+    final File storageExtensionMarker = cc.getBundleContext().getDataFile(STORAGE_EXTENSION_MARKER);
+    if (storageExtensionMarker == null || !storageExtensionMarker.exists()) {
+      migrationExecutor = Executors.newSingleThreadExecutor();
+      migrationExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          backfillStorageExtensions(db, storageExtensionMarker);
+        }
+      });
+    }
     // create the core asset manager
     final AssetManager core = new AbstractAssetManager() {
       @Override
@@ -103,6 +160,44 @@ public class OsgiAssetManager implements AssetManager {
       protected String getCurrentOrgId() {
         return secSvc.getOrganization().getId();
       }
+
+      @Override
+      protected void runArchivalTasks(List<Callable<Void>> tasks) throws Exception {
+        if (snapshotExecutor == null || tasks.size() < 2) {
+          super.runArchivalTasks(tasks);
+          return;
+        }
+        final Organization organization = secSvc.getOrganization();
+        final User user = secSvc.getUser();
+        final List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        for (final Callable<Void> task : tasks) {
+          futures.add(snapshotExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              secSvc.setOrganization(organization);
+              secSvc.setUser(user);
+              try {
+                return task.call();
+              } finally {
+                secSvc.setOrganization(null);
+                secSvc.setUser(null);
+              }
+            }
+          }));
+        }
+        // wait for all tasks, so that no task is still running when the snapshot fails
+        Exception failure = null;
+        for (Future<Void> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            if (failure == null)
+              failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+          }
+        }
+        if (failure != null)
+          throw failure;
+      }
     };
     // compose with ActiveMQ messaging
     final AssetManagerWithMessaging withMessaging = new AssetManagerWithMessaging(
@@ -127,9 +222,43 @@ public class OsgiAssetManager implements AssetManager {
 
   /** OSGi callback. Close the database. */
   public void deactivate(ComponentContext cc) throws Exception {
+    if (snapshotExecutor != null)
+      snapshotExecutor.shutdown();
+    if (migrationExecutor != null)
+      migrationExecutor.shutdownNow();
     toClose.close();
   }
 
+  /**
+   * Record the storage extension of all assets archived before storage extensions have been recorded. Once done, the
+   * given marker file is created so that later activations skip searching for such assets.
+   */
+  private void backfillStorageExtensions(Database db, File marker) {
+    try {
+      long total = 0;
+      int updated;
+      while ((updated = db.backfillStorageExtensions(STORAGE_EXTENSION_BATCH_SIZE)) > 0) {
+        total += updated;
+        logger.debug("Recorded the storage extension of {} assets so far", total);
+        if (Thread.currentThread().isInterrupted())
+          return;
+      }
+      if (total > 0)
+        logger.info("Recorded the storage extension of {} assets", total);
+    } catch (Exception e) {
+      logger.warn("Unable to record the storage extensions of existing assets, they will be searched for instead", e);
+      return;
+    }
+    if (marker != null) {
+      try {
+        marker.createNewFile();
+      } catch (IOException e) {
+        logger.warn("Unable to mark the storage extensions as recorded, they will be checked again on the next start",
+                e);
+      }
+    }
+  }
+
   //
   // AssetManager impl
   //
@@ -21,7 +21,7 @@
 package org.opencastproject.assetmanager.impl.endpoint;
 
 import static org.apache.commons.io.FilenameUtils.getBaseName;
-import static org.opencastproject.assetmanager.impl.AbstractAssetManager.getFileNameFromUrn;
+import static org.opencastproject.assetmanager.impl.persistence.Conversions.getFileNameFromUrn;
 import static org.opencastproject.util.MimeTypeUtil.Fns.suffix;
 import static org.opencastproject.util.OsgiUtil.getComponentContextProperty;
 import static org.opencastproject.util.OsgiUtil.getContextProperty;
@@ -65,14 +65,20 @@ public class AssetDto {
   @Column(name = "size", nullable = false)
   private Long size;
 
+  // extension of the file in the asset store, empty if the file has none, null if unknown
+  @Column(name = "storage_extension", nullable = true, length = 64)
+  private String storageExtension;
+
   /** Create a new DTO. */
-  public static AssetDto mk(String mediaPackageElementId, long snapshotId, String checksum, Opt<MimeType> mimeType, long size) {
+  public static AssetDto mk(String mediaPackageElementId, long snapshotId, String checksum, Opt<MimeType> mimeType,
+          long size, Opt<String> storageExtension) {
     final AssetDto dto = new AssetDto();
     dto.snapshotId = snapshotId;
     dto.mediaPackageElementId = mediaPackageElementId;
     dto.checksum = checksum;
     dto.mimeType = mimeType.isSome() ? mimeType.get().toString() : null;
     dto.size = size;
+    dto.storageExtension = storageExtension.isSome() ? storageExtension.get() : null;
     return dto;
   }
 
@@ -91,5 +97,21 @@ public class AssetDto {
   public Long getSize() {
     return size;
   }
+
+  public Long getSnapshotId() {
+    return snapshotId;
+  }
+
+  /**
+   * Return the extension of the file in the asset store. An empty string denotes a file without extension, none an
+   * asset archived before the extension has been recorded.
+   */
+  public Opt<String> getStorageExtension() {
+    return Opt.nul(storageExtension);
+  }
+
+  public void setStorageExtension(String storageExtension) {
+    this.storageExtension = storageExtension;
+  }
 }
 
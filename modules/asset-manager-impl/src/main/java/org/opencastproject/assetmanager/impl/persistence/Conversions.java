@@ -24,12 +24,17 @@ import static org.opencastproject.util.data.functions.Functions.chuck;
 
 import org.opencastproject.assetmanager.impl.VersionImpl;
 import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageElement;
 import org.opencastproject.mediapackage.MediaPackageException;
 import org.opencastproject.mediapackage.MediaPackageParser;
 import org.opencastproject.util.MimeType;
 import org.opencastproject.util.MimeTypes;
 
+import com.entwinemedia.fn.Fn;
 import com.entwinemedia.fn.data.Opt;
+import com.entwinemedia.fn.fns.Strings;
+
+import java.net.URI;
 
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -65,4 +70,23 @@ public final class Conversions {
       return Opt.none();
     }
   }
+
+  /**
+   * Extract the file name from a media package elements URN.
+   *
+   * @return the file name or none if it could not be determined
+   */
+  public static Opt<String> getFileNameFromUrn(MediaPackageElement mpe) {
+    Opt<URI> uri = Opt.nul(mpe.getURI());
+    if (uri.isSome() && "urn".equals(uri.get().getScheme()))
+      return uri.toStream().map(toString).bind(Strings.split(":")).drop(1).reverse().head();
+    return Opt.none();
+  }
+
+  private static final Fn<URI, String> toString = new Fn<URI, String>() {
+    @Override
+    public String apply(URI uri) {
+      return uri.toString();
+    }
+  };
 }
@@ -47,11 +47,16 @@ import com.mysema.query.jpa.impl.JPAQueryFactory;
 import com.mysema.query.jpa.impl.JPAUpdateClause;
 import com.mysema.query.types.expr.BooleanExpression;
 
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.DatabaseMetaData;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.inject.Provider;
@@ -181,6 +186,9 @@ public class Database implements EntityPaths {
 
   /**
    * Save a snapshot and all of its assets.
+   *
+   * @param extensions
+   *          the extensions the assets have been stored with by element id, as far as they are known
    */
   public SnapshotDto saveSnapshot(
           final String orgId,
@@ -188,7 +196,8 @@ public class Database implements EntityPaths {
           final Date archivalDate,
           final VersionImpl version,
           final Availability availability,
-          final String owner) {
+          final String owner,
+          final Map<String, String> extensions) {
     final SnapshotDto snapshotDto = SnapshotDto.mk(
             pmp.getMediaPackage(),
             version,
@@ -207,7 +216,8 @@ public class Database implements EntityPaths {
                   snapshotDto.getId(),
                   e.getChecksum().toString(),
                   Opt.nul(e.getMimeType()),
-                  e.getSize());
+                  e.getSize(),
+                  Opt.nul(extensions.get(e.getIdentifier())));
           em.persist(a);
         }
         return snapshotDto;
@@ -215,6 +225,48 @@ public class Database implements EntityPaths {
     });
   }
 
+  /**
+   * Record the storage extension of a batch of assets that have been archived before storage extensions have been
+   * recorded. The extension is derived from the file name kept in the URN of the asset's media package element.
+   *
+   * @param batchSize
+   *          the maximum number of assets to update
+   * @return the number of updated assets, <code>0</code> if there are no assets left to update
+   */
+  public int backfillStorageExtensions(final int batchSize) {
+    return penv.tx(new Fn<EntityManager, Integer>() {
+      @Override public Integer apply(EntityManager em) {
+        final List<AssetDto> assets = new JPAQuery(em, TEMPLATES)
+                .from(Q_ASSET)
+                .where(Q_ASSET.storageExtension.isNull())
+                .orderBy(Q_ASSET.snapshotId.asc())
+                .limit(batchSize)
+                .list(Q_ASSET);
+        final Map<Long, Map<String, String>> extensionsBySnapshot = new HashMap<>();
+        for (AssetDto asset : assets) {
+          Map<String, String> extensions = extensionsBySnapshot.get(asset.getSnapshotId());
+          if (extensions == null) {
+            extensions = new HashMap<>();
+            final SnapshotDto snapshot = em.find(SnapshotDto.class, asset.getSnapshotId());
+            if (snapshot != null) {
+              for (MediaPackageElement e : snapshot.toSnapshot().getMediaPackage().getElements()) {
+                for (String fileName : Conversions.getFileNameFromUrn(e)) {
+                  extensions.put(e.getIdentifier(), StringUtils.trimToEmpty(FilenameUtils.getExtension(fileName)));
+                }
+              }
+            }
+            extensionsBySnapshot.put(asset.getSnapshotId(), extensions);
+          }
+          // an asset without file name gets the empty extension, too, since a wrong extension only means that the
+          // asset store has to search for the file like it did before
+          final String extension = extensions.get(asset.getMediaPackageElementId());
+          asset.setStorageExtension(extension != null ? extension : "");
+        }
+        return assets.size();
+      }
+    });
+  }
+
   public void setAvailability(final VersionImpl version, final String mpId, final Availability availability) {
     penv.tx(new Fx<EntityManager>() {
       @Override public void apply(EntityManager em) {
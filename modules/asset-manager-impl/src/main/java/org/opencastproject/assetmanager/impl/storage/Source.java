@@ -24,6 +24,7 @@ import org.opencastproject.util.MimeType;
 
 import com.entwinemedia.fn.data.Opt;
 
+import java.io.File;
 import java.net.URI;
 
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -36,11 +37,17 @@ public final class Source {
   private final URI uri;
   private final Opt<Long> size;
   private final Opt<MimeType> mimeType;
+  private final Opt<File> file;
 
   public Source(URI uri, Opt<Long> size, Opt<MimeType> mimeType) {
+    this(uri, size, mimeType, Opt.<File>none());
+  }
+
+  public Source(URI uri, Opt<Long> size, Opt<MimeType> mimeType, Opt<File> file) {
     this.uri = uri;
     this.size = size;
     this.mimeType = mimeType;
+    this.file = file;
   }
 
   /** Create a new source. */
@@ -63,6 +70,14 @@ public final class Source {
     return new Source(uri, size, mimeType);
   }
 
+  /**
+   * Create a new source whose content has already been fetched to a local file. The file is owned by the caller, so
+   * the asset store must neither move nor delete it.
+   */
+  public static Source mk(URI uri, Opt<Long> size, Opt<MimeType> mimeType, Opt<File> file) {
+    return new Source(uri, size, mimeType, file);
+  }
+
   public URI getUri() {
     return uri;
   }
@@ -74,4 +89,9 @@ public final class Source {
   public Opt<MimeType> getMimeType() {
     return mimeType;
   }
+
+  /** Return a local copy of the content that may be used instead of fetching the URI. */
+  public Opt<File> getFile() {
+    return file;
+  }
 }
@@ -25,14 +25,19 @@ import static com.entwinemedia.fn.Equality.eq;
 import org.opencastproject.assetmanager.api.Version;
 
 import com.entwinemedia.fn.Equality;
+import com.entwinemedia.fn.data.Opt;
 
 import java.io.Serializable;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.annotation.concurrent.Immutable;
 
 /**
  * A vector that uniquely identifies a stored media package asset.
+ * <p>
+ * A storage path may also carry the extension the asset has been stored with. This is a hint only which allows an
+ * asset store to locate the asset directly. It is not part of the identity of the path.
  */
 @ParametersAreNonnullByDefault
 @Immutable
@@ -43,12 +48,20 @@ public final class StoragePath implements Serializable {
   private final String mediaPackageElementId;
   private final String organizationId;
   private final Version version;
+  @Nullable
+  private final String extension;
 
   public StoragePath(String organizationId, String mediaPackageId, Version version, String mediaPackageElementId) {
+    this(organizationId, mediaPackageId, version, mediaPackageElementId, null);
+  }
+
+  private StoragePath(String organizationId, String mediaPackageId, Version version, String mediaPackageElementId,
+          @Nullable String extension) {
     this.mediaPackageId = mediaPackageId;
     this.mediaPackageElementId = mediaPackageElementId;
     this.organizationId = organizationId;
     this.version = version;
+    this.extension = extension;
   }
 
   public static StoragePath mk(
@@ -72,6 +85,20 @@ public final class StoragePath implements Serializable {
     return version;
   }
 
+  /**
+   * Return the extension the asset is stored with, if known. An empty string denotes an asset stored without
+   * extension.
+   */
+  public Opt<String> getExtension() {
+    return Opt.nul(extension);
+  }
+
+  /** Return a copy of this path carrying the given extension hint. */
+  public StoragePath withExtension(Opt<String> extension) {
+    return new StoragePath(organizationId, mediaPackageId, version, mediaPackageElementId,
+            extension.isSome() ? extension.get() : null);
+  }
+
   @Override
   public boolean equals(Object that) {
     return (this == that) || (that instanceof StoragePath && eqFields((StoragePath) that));
@@ -94,6 +121,7 @@ public final class StoragePath implements Serializable {
             + ", mpId=" + mediaPackageId
             + ", version=" + version
             + ", mpeId=" + mediaPackageElementId
+            + (extension != null ? ", extension=" + extension : "")
             + ")";
   }
 }
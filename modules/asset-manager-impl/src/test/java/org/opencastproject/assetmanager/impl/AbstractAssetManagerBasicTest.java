@@ -34,6 +34,7 @@ import org.opencastproject.assetmanager.api.PropertyId;
 import org.opencastproject.assetmanager.api.Value;
 import org.opencastproject.assetmanager.api.Version;
 import org.opencastproject.assetmanager.api.query.AResult;
+import org.opencastproject.assetmanager.impl.persistence.Conversions;
 import org.opencastproject.assetmanager.impl.persistence.QSnapshotDto;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
@@ -124,15 +125,15 @@ public class AbstractAssetManagerBasicTest extends AbstractAssetManagerTestBase
     MediaPackageElement element = new MediaPackageElementBuilderImpl().newElement(Type.Track,
             MediaPackageElements.PRESENTER_SOURCE);
 
-    Opt<String> fileNameFromUrn = AbstractAssetManager.getFileNameFromUrn(element);
+    Opt<String> fileNameFromUrn = Conversions.getFileNameFromUrn(element);
     assertTrue(fileNameFromUrn.isNone());
 
     element.setURI(URI.create("file://test.txt"));
-    fileNameFromUrn = AbstractAssetManager.getFileNameFromUrn(element);
+    fileNameFromUrn = Conversions.getFileNameFromUrn(element);
     assertTrue(fileNameFromUrn.isNone());
 
     element.setURI(URI.create("urn:matterhorn:uuid:22:uuid2:caption-ger.vtt"));
-    fileNameFromUrn = AbstractAssetManager.getFileNameFromUrn(element);
+    fileNameFromUrn = Conversions.getFileNameFromUrn(element);
     assertTrue(fileNameFromUrn.isSome());
     assertEquals("caption-ger.vtt", fileNameFromUrn.get());
   }
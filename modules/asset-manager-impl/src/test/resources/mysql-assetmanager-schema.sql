@@ -22,6 +22,7 @@ CREATE TABLE `oc_assets_asset` (
   `snapshot_id` bigint(20) NOT NULL,
   `mime_type` varchar(64) DEFAULT NULL,
   `size` bigint(20) NOT NULL,
+  `storage_extension` varchar(64) DEFAULT NULL,
   PRIMARY KEY (`id`),
   KEY `IX_oc_assets_asset_checksum` (`checksum`),
   KEY `IX_oc_assets_asset_mediapackage_element_id` (`mediapackage_element_id`)
@@ -73,7 +73,9 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
     // working file repository. In the very few cases where the file is not in the working file repository,
     // this strategy leads to a minor overhead because the file not only gets downloaded and stored in the file system
     // but also a hard link needs to be created (or if that's not possible, a copy of the file.
-    final File origin = getUniqueFileFromWorkspace(source);
+    // If the caller already fetched the content, that copy is used instead.
+    final boolean fetched = source.getFile().isNone();
+    final File origin = fetched ? getUniqueFileFromWorkspace(source) : source.getFile().get();
     final File destination = createFile(storagePath, source);
     try {
       mkParent(destination);
@@ -82,7 +84,7 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
       logger.error("Error while linking/copying file {} to {}: {}", origin, destination, getMessage(e));
       throw new AssetStoreException(e);
     } finally {
-      if (origin != null) {
+      if (fetched && origin != null) {
         FileUtils.deleteQuietly(origin);
       }
     }
@@ -194,14 +196,29 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
     }
   }
 
-  /** Create a file from a storage path and the extension of file <code>f</code>. */
+  /**
+   * Create a file from a storage path and the extension of file <code>f</code> unless the storage path carries an
+   * extension itself.
+   */
   private File createFile(StoragePath p, File f) {
-    return createFile(p, extension(f));
+    return createFile(p, p.getExtension().isSome() ? extensionHint(p) : extension(f));
   }
 
-  /** Create a file from a storage path and the extension of the URI of <code>s</code>. */
+  /**
+   * Create a file from a storage path and the extension of the URI of <code>s</code> unless the storage path carries
+   * an extension itself.
+   */
   private File createFile(StoragePath p, Source s) {
-    return createFile(p, extension(s.getUri()));
+    return createFile(p, p.getExtension().isSome() ? extensionHint(p) : extension(s.getUri()));
+  }
+
+  /** Return the extension hint of a storage path, mapping the empty extension to none. */
+  private Opt<String> extensionHint(StoragePath p) {
+    return p.getExtension().bind(new Fn<String, Opt<String>>() {
+      @Override public Opt<String> apply(String extension) {
+        return trimToNone(extension).toOpt();
+      }
+    });
   }
 
   /** Create a file from a storage path and an optional extension. */
@@ -216,13 +233,22 @@ public abstract class AbstractFileSystemAssetStore implements AssetStore {
   }
 
   /**
-   * Returns a file {@link Option} from a storage path if one is found or an empty {@link Option}
+   * Returns a file {@link Option} from a storage path if one is found or an empty {@link Option}. If the storage path
+   * carries the extension of the file, the file is looked up directly. Otherwise, or if there is no such file, the
+   * directory of the version is searched for a file with the element's id as base name.
    *
    * @param storagePath
    *          the storage path
    * @return the file {@link Option}
    */
   private Opt<File> findStoragePathFile(final StoragePath storagePath) {
+    if (storagePath.getExtension().isSome()) {
+      final File file = createFile(storagePath, extensionHint(storagePath));
+      if (file.isFile()) {
+        return some(file);
+      }
+      logger.debug("Asset {} not found at {}, searching its directory", storagePath, file);
+    }
     final FilenameFilter filter = new FilenameFilter() {
       @Override
       public boolean accept(File dir, String name) {
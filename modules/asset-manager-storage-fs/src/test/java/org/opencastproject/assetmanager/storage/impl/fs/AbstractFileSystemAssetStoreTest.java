@@ -30,6 +30,7 @@ import org.opencastproject.assetmanager.impl.storage.DeletionSelector;
 import org.opencastproject.assetmanager.impl.storage.Source;
 import org.opencastproject.assetmanager.impl.storage.StoragePath;
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.MimeType;
 import org.opencastproject.util.PathSupport;
 import org.opencastproject.workspace.api.Workspace;
 
@@ -134,6 +135,22 @@ public class AbstractFileSystemAssetStoreTest {
     }
   }
 
+  @Test
+  public void testPutFetchedFile() throws Exception {
+    final File fetched = tmpFolder.newFile();
+    FileUtils.copyFile(IoSupport.classPathResourceAsFile("/" + FILE_NAME).get(), fetched);
+    StoragePath storagePath = new StoragePath(ORG_ID, MP_ID, VERSION_1, MP_ELEM_ID);
+    repo.put(storagePath, Source.mk(getClass().getClassLoader().getResource(FILE_NAME).toURI(), Opt.<Long>none(),
+            Opt.none(MimeType.class), Opt.some(fetched)));
+
+    File dir = new File(PathSupport.concat(new String[] { tmpRoot.toString(), ORG_ID, MP_ID, VERSION_1.toString() }));
+    assertEquals(1, dir.listFiles().length);
+    assertEquals(FileUtils.readFileToString(fetched, "UTF-8"),
+            FileUtils.readFileToString(dir.listFiles()[0], "UTF-8"));
+    // the file is owned by the caller
+    assertTrue(fetched.exists());
+  }
+
   @Test
   public void testCopy() throws Exception {
     StoragePath from = new StoragePath(ORG_ID, MP_ID, VERSION_2, MP_ELEM_ID);
@@ -161,6 +178,39 @@ public class AbstractFileSystemAssetStoreTest {
     }
   }
 
+  @Test
+  public void testPutWithExtension() throws Exception {
+    StoragePath storagePath = new StoragePath(ORG_ID, MP_ID, VERSION_1, MP_ELEM_ID).withExtension(Opt.some("txt"));
+    repo.put(storagePath, Source.mk(getClass().getClassLoader().getResource(FILE_NAME).toURI()));
+
+    File file = new File(PathSupport.concat(new String[] { tmpRoot.toString(), ORG_ID, MP_ID, VERSION_1.toString(),
+            MP_ELEM_ID + ".txt" }));
+    assertTrue(file.exists());
+    assertTrue(repo.contains(storagePath));
+    assertTrue(repo.contains(new StoragePath(ORG_ID, MP_ID, VERSION_1, MP_ELEM_ID)));
+  }
+
+  @Test
+  public void testCopyWithoutExtension() throws Exception {
+    StoragePath from = new StoragePath(ORG_ID, MP_ID, VERSION_2, MP_ELEM_ID).withExtension(Opt.some("xml"));
+    StoragePath to = new StoragePath(ORG_ID, MP_ID, VERSION_1, MP_ELEM_ID).withExtension(Opt.some(""));
+    assertTrue(repo.copy(from, to));
+
+    File copyFile = new File(PathSupport.concat(new String[] { tmpRoot.toString(), ORG_ID, MP_ID, VERSION_1.toString(),
+            MP_ELEM_ID }));
+    assertTrue(copyFile.exists());
+    assertTrue(repo.get(to).isSome());
+  }
+
+  @Test
+  public void testGetWithWrongExtension() throws Exception {
+    // assets with a wrong extension hint are still found by searching their directory
+    StoragePath storagePath = new StoragePath(ORG_ID, MP_ID, VERSION_2, MP_ELEM_ID).withExtension(Opt.some("mp4"));
+    Opt<InputStream> option = repo.get(storagePath);
+    assertTrue(option.isSome());
+    IOUtils.closeQuietly(option.get());
+  }
+
   @Test
   public void testCopyBad() throws Exception {
     StoragePath from = new StoragePath(ORG_ID, MP_ID, VERSION_1, MP_ELEM_ID);
@@ -0,0 +1,74 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+import com.google.common.cache.Cache;
+
+public class AclCacheStatistics implements AclCacheStatisticsMXBean {
+
+  private final Cache<?, ?> cache;
+
+  public AclCacheStatistics(Cache<?, ?> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.AclCacheStatisticsMXBean#getSize()
+   */
+  @Override
+  public long getSize() {
+    return cache.size();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.AclCacheStatisticsMXBean#getHits()
+   */
+  @Override
+  public long getHits() {
+    return cache.stats().hitCount();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.AclCacheStatisticsMXBean#getMisses()
+   */
+  @Override
+  public long getMisses() {
+    return cache.stats().missCount();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.AclCacheStatisticsMXBean#getHitRate()
+   */
+  @Override
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.AclCacheStatisticsMXBean#getEvictions()
+   */
+  @Override
+  public long getEvictions() {
+    return cache.stats().evictionCount();
+  }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.authorization.xacml;
+
+/**
+ * JMX Bean interface exposing statistics of the cache of parsed XACML policies.
+ */
+public interface AclCacheStatisticsMXBean {
+
+  /**
+   * Gets the number of cached access control lists
+   *
+   * @return the number of cached access control lists
+   */
+  long getSize();
+
+  /**
+   * Gets the number of lookups served from the cache
+   *
+   * @return the number of cache hits
+   */
+  long getHits();
+
+  /**
+   * Gets the number of lookups that required parsing a XACML policy
+   *
+   * @return the number of cache misses
+   */
+  long getMisses();
+
+  /**
+   * Gets the ratio of lookups served from the cache
+   *
+   * @return the hit rate between <code>0</code> and <code>1</code>
+   */
+  double getHitRate();
+
+  /**
+   * Gets the number of access control lists evicted because the cache was full
+   *
+   * @return the number of evictions
+   */
+  long getEvictions();
+
+}
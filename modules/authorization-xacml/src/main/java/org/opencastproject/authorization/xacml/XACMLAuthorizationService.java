@@ -45,15 +45,23 @@ import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
 import org.opencastproject.series.api.SeriesService;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Function0;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,8 +70,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import javax.management.ObjectInstance;
 import javax.xml.bind.JAXBException;
 
 /**
@@ -77,6 +87,15 @@ public class XACMLAuthorizationService implements AuthorizationService {
   /** The default filename for XACML attachments */
   public static final String XACML_FILENAME = "xacml.xml";
 
+  /** The configuration key for the maximum number of parsed access control lists to keep in memory */
+  public static final String CACHE_SIZE_KEY = "org.opencastproject.authorization.xacml.cache.size";
+
+  /** The default maximum number of parsed access control lists to keep in memory */
+  private static final int DEFAULT_CACHE_SIZE = 1000;
+
+  /** The JMX type of the cache statistics bean */
+  private static final String JMX_CACHE_STATISTICS_TYPE = "XACMLCacheStatistics";
+
   /** The workspace */
   protected Workspace workspace;
 
@@ -86,6 +105,46 @@ public class XACMLAuthorizationService implements AuthorizationService {
   /** The series service */
   protected SeriesService seriesService;
 
+  /** Parsed access control lists by XACML attachment URI and checksum */
+  private Cache<String, AccessControlList> aclCache = createCache(DEFAULT_CACHE_SIZE);
+
+  /** The JMX bean exposing the cache statistics */
+  private ObjectInstance cacheStatisticsBean;
+
+  /**
+   * OSGi callback on component activation.
+   *
+   * @param cc
+   *          the component context
+   */
+  public void activate(ComponentContext cc) {
+    int cacheSize = DEFAULT_CACHE_SIZE;
+    String cacheSizeString = StringUtils.trimToNull(cc.getBundleContext().getProperty(CACHE_SIZE_KEY));
+    if (cacheSizeString != null) {
+      try {
+        cacheSize = Integer.parseInt(cacheSizeString);
+      } catch (NumberFormatException e) {
+        logger.warn("ACL cache size '{}' is malformed, setting to {}", cacheSizeString, DEFAULT_CACHE_SIZE);
+      }
+    }
+    logger.info("Caching up to {} parsed XACML policies", cacheSize);
+    aclCache = createCache(cacheSize);
+    cacheStatisticsBean = JmxUtil.registerMXBean(new AclCacheStatistics(aclCache), JMX_CACHE_STATISTICS_TYPE);
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  public void deactivate() {
+    if (cacheStatisticsBean != null)
+      JmxUtil.unregisterMXBean(cacheStatisticsBean);
+    aclCache.invalidateAll();
+  }
+
+  private static Cache<String, AccessControlList> createCache(int size) {
+    return CacheBuilder.newBuilder().maximumSize(Math.max(0, size)).recordStats().build();
+  }
+
   @Override
   public Tuple<AccessControlList, AclScope> getActiveAcl(final MediaPackage mp) {
     logger.debug("getActiveACl for media package {}", mp.getIdentifier());
@@ -120,7 +179,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
 
     for (Tuple<AclScope, MediaPackageElementFlavor> currentScope: scopes) {
       for (Attachment xacml : mp.getAttachments(currentScope.getB())) {
-        Option<AccessControlList> acl = loadAcl(xacml.getURI());
+        Option<AccessControlList> acl = loadAcl(xacml);
         if (acl.isSome()) {
           return tuple(acl.get(), currentScope.getA());
         }
@@ -146,6 +205,8 @@ public class XACMLAuthorizationService implements AuthorizationService {
 
         // Remove the old xacml file(s)
         Attachment attachment = removeFromMediaPackageAndWorkspace(mp, toFlavors(scope)).getB();
+        if (attachment != null)
+          invalidateAcl(attachment.getURI());
 
         // add attachment
         final String elementId = toElementId(scope);
@@ -163,8 +224,9 @@ public class XACMLAuthorizationService implements AuthorizationService {
         attachment.setURI(uri);
         attachment.setIdentifier(elementId);
         attachment.setMimeType(MimeTypes.XML);
-        // setting the URI to a new source so the checksum will most like be invalid
-        attachment.setChecksum(null);
+        // the content has changed, so the checksum needs to be updated. It also allows the parsed ACL to be cached.
+        attachment.setChecksum(Checksum.createFor(ChecksumType.DEFAULT_TYPE, xacmlContent));
+        invalidateAcl(uri);
         mp.add(attachment);
 
         logger.debug("Saved XACML as {}", uri);
@@ -293,6 +355,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
     Attachment attachment = null;
     for (Attachment a : getAttachments(mp, flavors)) {
       attachment = (Attachment) a.clone();
+      invalidateAcl(a.getURI());
       try {
         workspace.delete(a.getURI());
       } catch (Exception e) {
@@ -303,6 +366,28 @@ public class XACMLAuthorizationService implements AuthorizationService {
     return Tuple.tuple(mp, attachment);
   }
 
+  /**
+   * Load an ACL from the given XACML attachment. Parsed ACLs of attachments with a checksum are cached, since the
+   * checksum guarantees that the content has not changed.
+   */
+  private Option<AccessControlList> loadAcl(final Attachment attachment) {
+    final URI uri = attachment.getURI();
+    final String key = attachment.getChecksum() == null ? null : toCacheKey(uri, attachment.getChecksum());
+    if (key != null) {
+      AccessControlList cached = aclCache.getIfPresent(key);
+      if (cached != null) {
+        logger.debug("Using cached Acl of {}", uri);
+        // hand out a copy, as access control lists are mutable
+        return Option.some(new AccessControlList(new ArrayList<>(cached.getEntries())));
+      }
+    }
+
+    Option<AccessControlList> acl = loadAcl(uri);
+    if (key != null && acl.isSome())
+      aclCache.put(key, new AccessControlList(new ArrayList<>(acl.get().getEntries())));
+    return acl;
+  }
+
   /** Load an ACL from the given URI. */
   private Option<AccessControlList> loadAcl(final URI uri) {
     logger.debug("Load Acl from {}", uri);
@@ -319,6 +404,22 @@ public class XACMLAuthorizationService implements AuthorizationService {
     return Option.none();
   }
 
+  /** Removes all cached ACLs of the given XACML file, regardless of their checksum. */
+  private void invalidateAcl(URI uri) {
+    if (uri == null)
+      return;
+    String prefix = toCacheKey(uri, null);
+    Iterator<String> keys = aclCache.asMap().keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(prefix))
+        keys.remove();
+    }
+  }
+
+  private static String toCacheKey(URI uri, Checksum checksum) {
+    return uri.toString() + "#" + (checksum == null ? "" : checksum.toString());
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -337,13 +438,12 @@ public class XACMLAuthorizationService implements AuthorizationService {
       return false;
     }
     Attachment attachment = xacml.get();
-    AccessControlList acl;
-    try {
-      acl = XACMLUtils.parseXacml(workspace.read(attachment.getURI()));
-    } catch (XACMLParsingException | NotFoundException | IOException e) {
-      logger.warn("Error reading XACML file {}", attachment.getURI(), e);
+    Option<AccessControlList> parsedAcl = loadAcl(attachment);
+    if (parsedAcl.isNone()) {
+      logger.warn("Error reading XACML file {}", attachment.getURI());
       return false;
     }
+    AccessControlList acl = parsedAcl.get();
     boolean allowed = false;
     final User user = securityService.getUser();
     for (AccessControlEntry entry: acl.getEntries()) {
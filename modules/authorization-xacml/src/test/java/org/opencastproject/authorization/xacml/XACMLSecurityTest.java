@@ -21,6 +21,7 @@
 
 package org.opencastproject.authorization.xacml;
 
+import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
 import org.opencastproject.security.api.AccessControlEntry;
@@ -199,4 +200,22 @@ public class XACMLSecurityTest {
     Assert.assertTrue(authzService.hasPermission(mediapackage, "read"));
     Assert.assertFalse(authzService.hasPermission(mediapackage, "comment"));
   }
+
+  @Test
+  public void testAclCache() throws Exception {
+    MediaPackage mediapackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    AccessControlList acl = new AccessControlList(new AccessControlEntry("admin", "read", true));
+    Attachment attachment = authzService.setAcl(mediapackage, AclScope.Episode, acl).getB();
+    Assert.assertNotNull(attachment.getChecksum());
+    Assert.assertEquals(acl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+
+    // The parsed ACL is cached as long as the checksum does not change
+    FileUtils.writeStringToFile(new File(attachment.getURI()), "not xacml", "UTF-8");
+    Assert.assertEquals(acl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+
+    // Changing the ACL invalidates the cache
+    AccessControlList updatedAcl = new AccessControlList(new AccessControlEntry("student", "read", true));
+    authzService.setAcl(mediapackage, AclScope.Episode, updatedAcl);
+    Assert.assertEquals(updatedAcl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+  }
 }
@@ -91,6 +91,13 @@ import javax.persistence.Version;
                 + "j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.payload", query = "SELECT j.payload FROM Job j where j.operation = :operation "
                 + "order by j.dateCreated"),
+        @NamedQuery(name = "Job.payload.first", query = "SELECT j.id, j.dateCreated, j.payload FROM Job j "
+                + "where j.operation = :operation order by j.dateCreated, j.id"),
+        @NamedQuery(name = "Job.payload.after", query = "SELECT j.id, j.dateCreated, j.payload FROM Job j "
+                + "where j.operation = :operation and (j.dateCreated > :dateCreated or "
+                + "(j.dateCreated = :dateCreated and j.id > :id)) order by j.dateCreated, j.id"),
+        @NamedQuery(name = "Job.countByOperationOnly", query = "SELECT COUNT(j) FROM Job j "
+                + "where j.operation = :operation"),
         @NamedQuery(name = "Job.processinghost.status", query = "SELECT j FROM Job j "
                 + "where j.status in :statuses and j.processorServiceRegistration is not null and "
                 + "j.processorServiceRegistration.serviceType = :serviceType and "
@@ -98,6 +105,10 @@ import javax.persistence.Version;
         @NamedQuery(name = "Job.root.children", query = "SELECT j FROM Job j WHERE j.rootJob.id = :id ORDER BY j.dateCreated"),
         @NamedQuery(name = "Job.children", query = "SELECT j FROM Job j WHERE j.parentJob.id = :id ORDER BY j.dateCreated"),
         @NamedQuery(name = "Job.withoutParent", query = "SELECT j FROM Job j WHERE j.parentJob IS NULL"),
+        @NamedQuery(name = "Job.parents.children", query = "SELECT j.id, j.parentJob.id, j.status FROM Job j "
+                + "WHERE j.parentJob.id IN :ids"),
+        @NamedQuery(name = "Job.roots.childstatus", query = "SELECT DISTINCT j.rootJob.id FROM Job j "
+                + "WHERE j.status = :status AND j.rootJob.id IN :ids"),
         @NamedQuery(name = "Job.avgOperation", query = "SELECT j.operation, AVG(j.runTime), AVG(j.queueTime) FROM Job j GROUP BY j.operation"),
 
         // Job count queries
@@ -0,0 +1,77 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.api;
+
+import java.util.Date;
+
+/**
+ * The payload of a job together with the key jobs are ordered by when their payloads are read page by page.
+ */
+public final class JobPayload {
+
+  /** The job identifier */
+  private final long id;
+
+  /** The job's creation date */
+  private final Date dateCreated;
+
+  /** The job payload */
+  private final String payload;
+
+  /**
+   * Creates a job payload.
+   *
+   * @param id
+   *          the job identifier
+   * @param dateCreated
+   *          the job's creation date
+   * @param payload
+   *          the job payload
+   */
+  public JobPayload(long id, Date dateCreated, String payload) {
+    this.id = id;
+    this.dateCreated = dateCreated;
+    this.payload = payload;
+  }
+
+  /**
+   * @return the job identifier
+   */
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * @return the job's creation date
+   */
+  public Date getDateCreated() {
+    return dateCreated;
+  }
+
+  /**
+   * @return the job payload
+   */
+  public String getPayload() {
+    return payload;
+  }
+
+}
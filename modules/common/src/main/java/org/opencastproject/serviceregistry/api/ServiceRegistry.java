@@ -503,6 +503,33 @@ public interface ServiceRegistry {
    */
   List<String> getJobPayloads(String operation) throws ServiceRegistryException;
 
+  /**
+   * Return a page of the payloads of all jobs for a specified operation type, ordered by creation date and identifier.
+   * To get the next page, pass the last payload of the previous page.
+   *
+   * @param operation
+   *          Operation type to get payload for
+   * @param limit
+   *          The maximum number of payloads to return
+   * @param after
+   *          The last payload of the previous page, or <code>null</code> to get the first page
+   * @return Serialized workflows
+   * @throws ServiceRegistryException
+   *          if there is a problem accessing the service registry
+   */
+  List<JobPayload> getJobPayloads(String operation, int limit, JobPayload after) throws ServiceRegistryException;
+
+  /**
+   * Return the number of jobs for a specified operation type.
+   *
+   * @param operation
+   *          Operation type to count jobs for
+   * @return the number of jobs
+   * @throws ServiceRegistryException
+   *          if there is a problem accessing the service registry
+   */
+  int getJobCount(String operation) throws ServiceRegistryException;
+
   /**
    * Get the list of active jobs.
    *
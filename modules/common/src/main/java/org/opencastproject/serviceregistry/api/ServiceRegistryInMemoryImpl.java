@@ -35,6 +35,7 @@ import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
 import org.opencastproject.util.NotFoundException;
 
+import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -723,6 +724,47 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return result;
   }
 
+  @Override
+  public List<JobPayload> getJobPayloads(String operation, int limit, JobPayload after)
+          throws ServiceRegistryException {
+    List<JobPayload> payloads = new ArrayList<>();
+    for (String serializedJob : jobs.values()) {
+      try {
+        Job job = JobParser.parseJob(serializedJob);
+        if (operation.equals(job.getOperation())) {
+          payloads.add(new JobPayload(job.getId(), job.getDateCreated(), job.getPayload()));
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Error unmarshaling job", e);
+      }
+    }
+    Collections.sort(payloads, new Comparator<JobPayload>() {
+      @Override
+      public int compare(JobPayload a, JobPayload b) {
+        return compareJobPayloads(a, b);
+      }
+    });
+    List<JobPayload> result = new ArrayList<>();
+    for (JobPayload payload : payloads) {
+      if (result.size() >= limit)
+        break;
+      if (after == null || compareJobPayloads(payload, after) > 0)
+        result.add(payload);
+    }
+    return result;
+  }
+
+  /** Orders job payloads by creation date and identifier. */
+  private static int compareJobPayloads(JobPayload a, JobPayload b) {
+    int result = ObjectUtils.compare(a.getDateCreated(), b.getDateCreated());
+    return result != 0 ? result : Long.compare(a.getId(), b.getId());
+  }
+
+  @Override
+  public int getJobCount(String operation) throws ServiceRegistryException {
+    return getJobPayloads(operation).size();
+  }
+
   /**
    * {@inheritDoc}
    *
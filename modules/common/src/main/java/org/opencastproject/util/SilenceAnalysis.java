@@ -0,0 +1,235 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util;
+
+import org.opencastproject.mediapackage.Track;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The silent sequences of a track as found by the FFmpeg silencedetect filter.
+ * <p>
+ * Services decoding the audio of a track anyway may run the silencedetect filter in the same FFmpeg process and keep
+ * the result in the workspace collection {@link #COLLECTION_ID} under the name returned by
+ * {@link #getFileName(Track, String)}, so that the silence detection does not need to decode the track again.
+ */
+public final class SilenceAnalysis {
+
+  /** The workspace collection holding silence analyses of tracks */
+  public static final String COLLECTION_ID = "silenceanalysis";
+
+  /** Prefix of the line holding the minimum silence length of a serialized analysis */
+  private static final String MIN_LENGTH_PREFIX = "min.length=";
+
+  /** Pattern matching the start of a silence as printed by FFmpeg */
+  private static final Pattern START_PATTERN = Pattern.compile("silence_start\\: (\\d+\\.\\d+)");
+
+  /** Pattern matching the end of a silence as printed by FFmpeg */
+  private static final Pattern END_PATTERN = Pattern.compile("silence_end\\: (\\d+\\.\\d+)");
+
+  /** The minimum length in milliseconds of the silences which have been detected */
+  private final long minLength;
+
+  /** The silences as pairs of start and end time in milliseconds */
+  private final List<long[]> silences;
+
+  /**
+   * Creates a silence analysis.
+   *
+   * @param minLength
+   *          the minimum length in milliseconds of the silences which have been detected
+   * @param silences
+   *          the silences as pairs of start and end time in milliseconds, the end being <code>-1</code> if the silence
+   *          lasts until the end of the track
+   */
+  public SilenceAnalysis(long minLength, List<long[]> silences) {
+    this.minLength = minLength;
+    this.silences = Collections.unmodifiableList(silences);
+  }
+
+  /** Returns the minimum length in milliseconds of the silences which have been detected */
+  public long getMinLength() {
+    return minLength;
+  }
+
+  /**
+   * Returns the silences in chronological order as pairs of start and end time in milliseconds. The end is
+   * <code>-1</code> if the silence lasts until the end of the track.
+   */
+  public List<long[]> getSilences() {
+    return silences;
+  }
+
+  /**
+   * Returns the silences that are at least as long as the given length.
+   *
+   * @param length
+   *          the minimum silence length in milliseconds
+   * @param trackDuration
+   *          the duration of the track in milliseconds
+   * @return the silences
+   */
+  public List<long[]> getSilences(long length, long trackDuration) {
+    if (length <= minLength)
+      return silences;
+    List<long[]> result = new ArrayList<>();
+    for (long[] silence : silences) {
+      long end = silence[1] < 0 ? trackDuration : silence[1];
+      if (end - silence[0] >= length)
+        result.add(silence);
+    }
+    return result;
+  }
+
+  /**
+   * Creates the FFmpeg silencedetect filter.
+   *
+   * @param noise
+   *          the noise tolerance, e.g. <code>-40dB</code>
+   * @param minLength
+   *          the minimum silence length in milliseconds
+   * @return the filter
+   */
+  public static String createFilter(String noise, long minLength) {
+    DecimalFormat decimalFmt = new DecimalFormat("0.000", new DecimalFormatSymbols(Locale.US));
+    return "silencedetect=noise=" + noise + ":duration=" + decimalFmt.format((double) minLength / 1000.0);
+  }
+
+  /**
+   * Parses the output of the FFmpeg silencedetect filter:
+   *
+   * <pre>
+   * [silencedetect @ 0x2968e40] silence_start: 466.486
+   * [silencedetect @ 0x2968e40] silence_end: 469.322 | silence_duration: 2.83592
+   * </pre>
+   *
+   * @param minLength
+   *          the minimum silence length in milliseconds the filter has been configured with
+   * @param lines
+   *          the FFmpeg output
+   * @return the silence analysis
+   */
+  public static SilenceAnalysis parseFFmpegOutput(long minLength, List<String> lines) {
+    List<long[]> silences = new ArrayList<>();
+    long[] current = null;
+    long lastEnd = 0;
+    for (String line : lines) {
+      Matcher matcher = END_PATTERN.matcher(line);
+      if (matcher.find()) {
+        long end = (long) (Double.parseDouble(matcher.group(1)) * 1000);
+        if (current == null) {
+          // the start has not been reported (e.g. since it was negative), so assume it right after the last silence
+          current = new long[] { lastEnd, -1 };
+          silences.add(current);
+        }
+        current[1] = end;
+        lastEnd = end;
+        current = null;
+        continue;
+      }
+      matcher = START_PATTERN.matcher(line);
+      if (matcher.find()) {
+        current = new long[] { (long) (Double.parseDouble(matcher.group(1)) * 1000), -1 };
+        silences.add(current);
+      }
+    }
+    return new SilenceAnalysis(minLength, silences);
+  }
+
+  /**
+   * Returns the name under which the silence analysis of a track is kept in the workspace collection
+   * {@link #COLLECTION_ID}.
+   *
+   * @param track
+   *          the track
+   * @param noise
+   *          the noise tolerance the silencedetect filter has been configured with
+   * @return the file name or <code>null</code> if the track has no checksum to identify it
+   */
+  public static String getFileName(Track track, String noise) {
+    Checksum checksum = track.getChecksum();
+    if (checksum == null || noise == null)
+      return null;
+    return "silence-" + checksum.getType().getName() + "-" + checksum.getValue() + "-"
+            + noise.replaceAll("[^A-Za-z0-9.-]", "_") + ".txt";
+  }
+
+  /**
+   * Reads a silence analysis as written by {@link #toString()}.
+   *
+   * @param in
+   *          the input stream, which is not closed
+   * @return the silence analysis
+   * @throws IOException
+   *           if reading fails or the input is malformed
+   */
+  public static SilenceAnalysis read(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    String line = reader.readLine();
+    if (line == null || !line.startsWith(MIN_LENGTH_PREFIX))
+      throw new IOException("Malformed silence analysis");
+    try {
+      long minLength = Long.parseLong(line.substring(MIN_LENGTH_PREFIX.length()).trim());
+      List<long[]> silences = new ArrayList<>();
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().isEmpty())
+          continue;
+        String[] values = line.trim().split("\\s+");
+        if (values.length != 2)
+          throw new IOException("Malformed silence '" + line + "'");
+        silences.add(new long[] { Long.parseLong(values[0]), Long.parseLong(values[1]) });
+      }
+      return new SilenceAnalysis(minLength, silences);
+    } catch (NumberFormatException e) {
+      throw new IOException("Malformed silence analysis", e);
+    }
+  }
+
+  /**
+   * Returns the minimum silence length on the first line followed by one silence per line, consisting of start and
+   * end time in milliseconds.
+   *
+   * @return the serialized analysis
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(MIN_LENGTH_PREFIX).append(minLength).append('\n');
+    for (long[] silence : silences) {
+      sb.append(silence[0]).append(' ').append(silence[1]).append('\n');
+    }
+    return sb.toString();
+  }
+
+}
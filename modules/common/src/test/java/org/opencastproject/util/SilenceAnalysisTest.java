@@ -0,0 +1,81 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+public class SilenceAnalysisTest {
+
+  private static final List<String> FFMPEG_OUTPUT = Arrays.asList(
+          "[silencedetect @ 0x2968e40] silence_end: 3.500 | silence_duration: 3.60133",
+          "[silencedetect @ 0x2968e40] silence_start: 466.486",
+          "[silencedetect @ 0x2968e40] silence_end: 469.322 | silence_duration: 2.83592",
+          "[silencedetect @ 0x2968e40] silence_start: 1000.000");
+
+  @Test
+  public void testParseFFmpegOutput() throws Exception {
+    SilenceAnalysis analysis = SilenceAnalysis.parseFFmpegOutput(1000L, FFMPEG_OUTPUT);
+    assertEquals(1000L, analysis.getMinLength());
+    assertEquals(3, analysis.getSilences().size());
+    assertArrayEquals(new long[] { 0L, 3500L }, analysis.getSilences().get(0));
+    assertArrayEquals(new long[] { 466486L, 469322L }, analysis.getSilences().get(1));
+    assertArrayEquals(new long[] { 1000000L, -1L }, analysis.getSilences().get(2));
+  }
+
+  @Test
+  public void testFilterSilences() throws Exception {
+    SilenceAnalysis analysis = SilenceAnalysis.parseFFmpegOutput(1000L, FFMPEG_OUTPUT);
+    assertEquals(3, analysis.getSilences(500L, 1005000L).size());
+    List<long[]> silences = analysis.getSilences(3000L, 1005000L);
+    assertEquals(2, silences.size());
+    assertArrayEquals(new long[] { 0L, 3500L }, silences.get(0));
+    assertArrayEquals(new long[] { 1000000L, -1L }, silences.get(1));
+    assertEquals(0, analysis.getSilences(6000L, 1005000L).size());
+  }
+
+  @Test
+  public void testReadWrittenAnalysis() throws Exception {
+    SilenceAnalysis analysis = SilenceAnalysis.parseFFmpegOutput(1000L, FFMPEG_OUTPUT);
+    SilenceAnalysis read = SilenceAnalysis.read(
+            new ByteArrayInputStream(analysis.toString().getBytes(StandardCharsets.UTF_8)));
+    assertEquals(analysis.getMinLength(), read.getMinLength());
+    assertEquals(analysis.getSilences().size(), read.getSilences().size());
+    for (int i = 0; i < analysis.getSilences().size(); i++) {
+      assertArrayEquals(analysis.getSilences().get(i), read.getSilences().get(i));
+    }
+  }
+
+  @Test
+  public void testCreateFilter() throws Exception {
+    assertEquals("silencedetect=noise=-40dB:duration=5.000", SilenceAnalysis.createFilter("-40dB", 5000L));
+  }
+
+}
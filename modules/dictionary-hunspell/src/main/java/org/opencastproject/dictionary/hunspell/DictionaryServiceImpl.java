@@ -27,26 +27,33 @@ import org.opencastproject.dictionary.api.DictionaryService;
 import org.opencastproject.metadata.mpeg7.Textual;
 import org.opencastproject.metadata.mpeg7.TextualImpl;
 import org.opencastproject.util.ReadinessIndicator;
+import org.opencastproject.util.jmx.JmxUtil;
 
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectInstance;
 
 /**
  * This dictionary implementation is a dummy implementation which which will
  * just let the whole text pass through without any kind of filtering.
  */
-public class DictionaryServiceImpl implements DictionaryService {
+public class DictionaryServiceImpl implements DictionaryService, HunspellMXBean {
 
   /** The logging facility */
   private static final Logger logger =
@@ -58,14 +65,54 @@ public class DictionaryServiceImpl implements DictionaryService {
   public static final String HUNSPELL_COMMAND_CONFIG_KEY =
     "org.opencastproject.dictionary.hunspell.command";
 
+  public static final String HUNSPELL_PROCESSES_CONFIG_KEY =
+    "org.opencastproject.dictionary.hunspell.processes";
+
+  public static final String HUNSPELL_TIMEOUT_CONFIG_KEY =
+    "org.opencastproject.dictionary.hunspell.timeout";
+
+  /** The default number of hunspell processes kept running */
+  public static final int DEFAULT_PROCESSES = 2;
+
+  /** The default number of seconds to wait for hunspell to start or to check a batch of words */
+  public static final int DEFAULT_TIMEOUT = 60;
+
+  /** The JMX bean type */
+  private static final String JMX_HUNSPELL_TYPE = "DictionaryHunspell";
+
   /* The hunspell binary to execute */
   private String binary = "hunspell";
 
   /* The regular command line options for filtering */
   private String command = " -i utf-8 -d de_DE,en_GB,en_US -G";
 
+  /* The maximum number of hunspell processes kept running */
+  private int maxProcesses = DEFAULT_PROCESSES;
+
+  /* The milliseconds to wait for hunspell before killing it */
+  private long timeout = TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT);
+
+  /* The running hunspell processes not currently checking any text */
+  private final BlockingQueue<HunspellProcess> idleProcesses = new LinkedBlockingQueue<HunspellProcess>();
+
+  /* The number of running hunspell processes */
+  private final AtomicInteger processes = new AtomicInteger();
+
+  /* The number of hunspell processes restarted after a failure */
+  private final AtomicLong restarts = new AtomicLong();
+
+  /* The number of words filtered */
+  private final AtomicLong words = new AtomicLong();
+
+  /* The time spent filtering words in nanoseconds */
+  private final AtomicLong filterTime = new AtomicLong();
+
+  /* The registered JMX bean */
+  private ObjectInstance registeredMXBean;
+
   public void setBinary(String b) {
     binary = b;
+    stopProcesses();
   }
 
   public String getBinary() {
@@ -74,6 +121,7 @@ public class DictionaryServiceImpl implements DictionaryService {
 
   public void setCommand(String c) {
     command = c;
+    stopProcesses();
   }
 
   public String getCommand() {
@@ -108,58 +156,157 @@ public class DictionaryServiceImpl implements DictionaryService {
       logger.info("Setting hunspell command line options to '{}'", command);
       this.command = command;
     }
+
+    /* Get the number of hunspell processes from config file */
+    String processes = StringUtils.trimToNull((String) ctx.getProperty(HUNSPELL_PROCESSES_CONFIG_KEY));
+    if (processes != null) {
+      try {
+        maxProcesses = Math.max(1, Integer.parseInt(processes));
+      } catch (NumberFormatException e) {
+        logger.warn("Number of hunspell processes '{}' is malformed, setting to {}", processes, DEFAULT_PROCESSES);
+        maxProcesses = DEFAULT_PROCESSES;
+      }
+    }
+    logger.info("Keeping up to {} hunspell processes running", maxProcesses);
+
+    /* Get the hunspell timeout from config file */
+    String timeout = StringUtils.trimToNull((String) ctx.getProperty(HUNSPELL_TIMEOUT_CONFIG_KEY));
+    if (timeout != null) {
+      try {
+        this.timeout = TimeUnit.SECONDS.toMillis(Math.max(1, Integer.parseInt(timeout)));
+      } catch (NumberFormatException e) {
+        logger.warn("Hunspell timeout '{}' is malformed, setting to {}", timeout, DEFAULT_TIMEOUT);
+        this.timeout = TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT);
+      }
+    }
+
+    registeredMXBean = JmxUtil.registerMXBean(this, JMX_HUNSPELL_TYPE);
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  void deactivate() {
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
+    stopProcesses();
   }
 
+  private String getCommandLine() {
+    return binary + ' ' + command;
+  }
 
   /**
-   * Run hunspell with text as input.
-   **/
-  public LinkedList<String> runHunspell(String text) throws Throwable {
+   * Takes a running hunspell process from the pool, starting a new one if the pool is not exhausted yet. Processes
+   * which died in the meantime are replaced.
+   */
+  private HunspellProcess borrowProcess() throws IOException, InterruptedException {
+    while (true) {
+      HunspellProcess process = idleProcesses.poll();
+      if (process == null) {
+        int running = processes.get();
+        if (running < maxProcesses) {
+          if (processes.compareAndSet(running, running + 1)) {
+            try {
+              return new HunspellProcess(getCommandLine(), timeout);
+            } catch (IOException e) {
+              processes.decrementAndGet();
+              throw e;
+            }
+          }
+          continue;
+        }
+        /* Processes may be discarded while waiting, so check for free slots from time to time */
+        process = idleProcesses.poll(1, TimeUnit.SECONDS);
+        if (process == null)
+          continue;
+      }
+      if (process.isAlive())
+        return process;
+      logger.warn("Hunspell process died, restarting it");
+      restarts.incrementAndGet();
+      discardProcess(process);
+    }
+  }
 
-    // create a new list of arguments for our process
-    String commandLine = binary + ' ' + command;
-    String[] commandList = commandLine.split("\\s+");
-
-
-    InputStream  stdout = null;
-    InputStream  stderr = null;
-    OutputStream stdin  = null;
-    Process p = null;
-    BufferedReader bufr = null;
-    LinkedList<String> words = new LinkedList<String>();
-
-    logger.info("Executing hunspell command '{}'", StringUtils.join(commandList, " "));
-    p = new ProcessBuilder(commandList).start();
-    stderr = p.getErrorStream();
-    stdout = p.getInputStream();
-    stdin  = p.getOutputStream();
-
-    /* Pipe text through hunspell for filtering */
-    stdin.write(text.getBytes("UTF-8"));
-    stdin.flush();
-    stdin.close();
-
-    /* Get output of hunspell */
-    String line;
-    bufr = new BufferedReader(new InputStreamReader(stdout, "UTF-8"));
-    while ((line = bufr.readLine()) != null) {
-      words.add(line);
+  /** Puts a process back into the pool unless the configuration has changed in the meantime. */
+  private void releaseProcess(HunspellProcess process) {
+    if (getCommandLine().equals(process.getCommandLine()) && processes.get() <= maxProcesses) {
+      idleProcesses.add(process);
+    } else {
+      discardProcess(process);
     }
-    bufr.close();
+  }
 
-    /* Get error messages */
-    bufr = new BufferedReader(new InputStreamReader(stderr));
-    while ((line = bufr.readLine()) != null) {
-      logger.warn(line);
+  private void discardProcess(HunspellProcess process) {
+    process.destroy();
+    processes.decrementAndGet();
+  }
+
+  /** Terminates all idle hunspell processes. Busy ones are terminated once they are released. */
+  private void stopProcesses() {
+    HunspellProcess process;
+    while ((process = idleProcesses.poll()) != null) {
+      discardProcess(process);
+    }
+  }
+
+  /**
+   * Splits a text into words, removing leading and trailing punctuation. Hunspell splits the words further if they
+   * contain characters the dictionary does not consider part of a word, see {@link HunspellProcess#check(List)}.
+   *
+   * @param text
+   *          the text to split
+   * @return the words of the text
+   */
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<String>();
+    for (String token : text.split("\\s+")) {
+      int start = 0;
+      int end = token.length();
+      while (start < end && !Character.isLetterOrDigit(token.charAt(start)))
+        start++;
+      while (end > start && !Character.isLetterOrDigit(token.charAt(end - 1)))
+        end--;
+      if (start < end)
+        tokens.add(token.substring(start, end));
     }
-    bufr.close();
+    return tokens;
+  }
 
-    if (p.waitFor() != 0) {
-      logger.error("Hunspell reported an error (Missing dictionaries?)");
-      throw new IllegalStateException("Hunspell returned error code");
+
+  /**
+   * Run hunspell with text as input.
+   **/
+  public LinkedList<String> runHunspell(String text) throws Throwable {
+    List<String> tokens = tokenize(text);
+
+    HunspellProcess process = borrowProcess();
+    long start = System.nanoTime();
+    List<String> correct;
+    try {
+      correct = process.check(tokens);
+    } catch (IOException e) {
+      /* Retry once with a fresh process */
+      logger.warn("Hunspell process failed, restarting it: {}", e.getMessage());
+      restarts.incrementAndGet();
+      discardProcess(process);
+      process = borrowProcess();
+      try {
+        correct = process.check(tokens);
+      } catch (IOException e2) {
+        discardProcess(process);
+        throw e2;
+      }
+    } catch (RuntimeException e) {
+      discardProcess(process);
+      throw e;
     }
+    releaseProcess(process);
 
-    return words;
+    words.addAndGet(tokens.size());
+    filterTime.addAndGet(System.nanoTime() - start);
+    return new LinkedList<String>(correct);
   }
 
 
@@ -191,4 +338,30 @@ public class DictionaryServiceImpl implements DictionaryService {
     return new TextualImpl(result);
   }
 
+  @Override
+  public int getMaxProcesses() {
+    return maxProcesses;
+  }
+
+  @Override
+  public int getProcesses() {
+    return processes.get();
+  }
+
+  @Override
+  public long getRestarts() {
+    return restarts.get();
+  }
+
+  @Override
+  public long getWords() {
+    return words.get();
+  }
+
+  @Override
+  public double getWordsPerSecond() {
+    long nanos = filterTime.get();
+    return nanos == 0 ? 0 : words.get() * 1e9 / nanos;
+  }
+
 }
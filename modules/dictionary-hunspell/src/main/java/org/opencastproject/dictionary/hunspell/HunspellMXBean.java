@@ -0,0 +1,43 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.dictionary.hunspell;
+
+/**
+ * An MXBean that exposes the hunspell process pool and its throughput to a JMX agent
+ */
+public interface HunspellMXBean {
+  /** Gets the maximum number of hunspell processes */
+  int getMaxProcesses();
+
+  /** Gets the number of running hunspell processes */
+  int getProcesses();
+
+  /** Gets the number of hunspell processes restarted after a failure */
+  long getRestarts();
+
+  /** Gets the number of words filtered */
+  long getWords();
+
+  /** Gets the number of words filtered per second of hunspell processing time */
+  double getWordsPerSecond();
+}
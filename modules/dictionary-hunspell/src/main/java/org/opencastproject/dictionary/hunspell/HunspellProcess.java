@@ -0,0 +1,309 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.dictionary.hunspell;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * A long-running hunspell process in pipe mode (<code>-a</code>), which loads its dictionaries only once and then
+ * checks words line by line.
+ * <p>
+ * Words are sent in batches and the results of each batch are read before the next one is sent, so that neither
+ * hunspell nor this process block on a full pipe. A process that does not answer within the timeout is killed.
+ * <p>
+ * Like the filter option, hunspell splits each word at characters the dictionary does not consider part of a word and
+ * checks each of the parts. Since pipe mode does not report the parts, words that hunspell splits are split here as
+ * well and their parts are checked on their own, so that the correct parts are kept just like the filter would.
+ * <p>
+ * Instances are not thread safe, they need to be used by one thread at a time.
+ */
+class HunspellProcess {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(HunspellProcess.class);
+
+  /** The option making hunspell print a list of correct words, which does not work with long-running processes */
+  static final String FILTER_OPTION = "-G";
+
+  /** The option starting hunspell in pipe mode */
+  static final String PIPE_OPTION = "-a";
+
+  /** The prefix making hunspell check the rest of the line without interpreting it as a command */
+  private static final char WORD_PREFIX = '^';
+
+  /** The maximum number of words sent to hunspell before reading its results */
+  static final int BATCH_SIZE = 100;
+
+  /** Kills processes which do not answer in time */
+  private static final Timer WATCHDOG = new Timer("Hunspell watchdog", true);
+
+  private final String commandLine;
+  private final long timeout;
+  private final Process process;
+  private final BufferedReader stdout;
+  private final BufferedWriter stdin;
+
+  /**
+   * Starts a new hunspell process and waits for it to be ready.
+   *
+   * @param commandLine
+   *          the hunspell binary and its options
+   * @param timeout
+   *          the milliseconds to wait for hunspell to start up or to check a batch of words
+   * @throws IOException
+   *           if hunspell could not be started or did not start up in pipe mode in time
+   */
+  HunspellProcess(String commandLine, long timeout) throws IOException {
+    this.commandLine = commandLine;
+    this.timeout = timeout;
+    List<String> command = getPipeCommand(commandLine);
+    logger.info("Starting hunspell process '{}'", command);
+    process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+    /* Hunspell greets with its version once the dictionaries are loaded */
+    String banner;
+    Watchdog watchdog = new Watchdog();
+    try {
+      banner = stdout.readLine();
+    } catch (IOException e) {
+      banner = null;
+    } finally {
+      watchdog.cancel();
+    }
+    if (watchdog.fired) {
+      destroy();
+      throw new IOException("Hunspell did not start within " + timeout + " ms");
+    }
+    if (banner == null || !banner.startsWith("@(#)")) {
+      destroy();
+      throw new IOException("Hunspell did not start in pipe mode (Missing dictionaries?): " + banner);
+    }
+    logger.debug("Hunspell process started: {}", banner);
+  }
+
+  /**
+   * Turns the configured command line into a command line for pipe mode, replacing the filter option if present.
+   *
+   * @param commandLine
+   *          the hunspell binary and its options
+   * @return the command to execute
+   */
+  static List<String> getPipeCommand(String commandLine) {
+    List<String> command = new ArrayList<>(Arrays.asList(commandLine.trim().split("\\s+")));
+    command.remove(FILTER_OPTION);
+    if (!command.contains(PIPE_OPTION))
+      command.add(PIPE_OPTION);
+    return command;
+  }
+
+  /**
+   * Checks the given words and returns the ones hunspell knows.
+   *
+   * @param words
+   *          the words to check, none of them containing whitespace
+   * @return the correct words in their original order
+   * @throws IOException
+   *           if the communication with hunspell failed or hunspell did not answer in time, in which case the process
+   *           has been killed
+   */
+  List<String> check(List<String> words) throws IOException {
+    List<String> correct = new ArrayList<>();
+    for (int from = 0; from < words.size(); from += BATCH_SIZE) {
+      List<String> batch = words.subList(from, Math.min(from + BATCH_SIZE, words.size()));
+      Watchdog watchdog = new Watchdog();
+      try {
+        check(batch, correct);
+      } catch (IOException e) {
+        if (watchdog.fired)
+          throw new IOException("Hunspell did not answer within " + timeout + " ms", e);
+        throw e;
+      } finally {
+        watchdog.cancel();
+      }
+    }
+    return correct;
+  }
+
+  private void check(List<String> batch, List<String> correct) throws IOException {
+    List<List<Boolean>> results = send(batch);
+
+    /* Check the parts of words hunspell has split on their own */
+    List<String> parts = new ArrayList<>();
+    for (int i = 0; i < batch.size(); i++) {
+      if (results.get(i).size() > 1)
+        parts.addAll(split(batch.get(i)));
+    }
+    List<List<Boolean>> partResults = parts.isEmpty() ? new ArrayList<List<Boolean>>() : send(parts);
+
+    int part = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      if (results.get(i).size() == 1) {
+        if (isCorrect(results.get(i)))
+          correct.add(batch.get(i));
+      } else if (results.get(i).size() > 1) {
+        for (String word : split(batch.get(i))) {
+          if (isCorrect(partResults.get(part++)))
+            correct.add(word);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends the given words to hunspell and reads the results.
+   *
+   * @return for each word, whether each of the words hunspell has found in it is correct
+   */
+  private List<List<Boolean>> send(List<String> words) throws IOException {
+    for (String word : words) {
+      stdin.write(WORD_PREFIX);
+      stdin.write(word);
+      stdin.newLine();
+    }
+    stdin.flush();
+
+    List<List<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < words.size(); i++) {
+      /* Hunspell reports one line per word found and terminates the results with an empty line */
+      List<Boolean> result = new ArrayList<>();
+      String line;
+      while (!(line = readLine()).isEmpty()) {
+        result.add(isCorrect(line));
+      }
+      results.add(result);
+    }
+    return results;
+  }
+
+  /**
+   * Returns whether hunspell has found at least one word and all words it found are correct. Tokens without any words,
+   * like punctuation or numbers if the dictionary does not consider digits as part of words, are not correct.
+   */
+  private static boolean isCorrect(List<Boolean> result) {
+    return !result.isEmpty() && !result.contains(false);
+  }
+
+  /**
+   * Splits a word into its parts consisting of letters and digits. Apostrophes between letters or digits are kept
+   * since hunspell keeps them as well.
+   *
+   * @param word
+   *          the word to split
+   * @return the parts of the word
+   */
+  static List<String> split(String word) {
+    List<String> parts = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= word.length(); i++) {
+      boolean letter = i < word.length() && (Character.isLetterOrDigit(word.charAt(i))
+              || start >= 0 && isApostrophe(word.charAt(i)) && i + 1 < word.length()
+                      && Character.isLetterOrDigit(word.charAt(i + 1)));
+      if (letter && start < 0) {
+        start = i;
+      } else if (!letter && start >= 0) {
+        parts.add(word.substring(start, i));
+        start = -1;
+      }
+    }
+    return parts;
+  }
+
+  private static boolean isApostrophe(char c) {
+    return c == '\'' || c == '\u2019';
+  }
+
+  /**
+   * Returns whether a pipe mode result line denotes a correct word. Correct words are reported as <code>*</code>,
+   * <code>+ root</code> or <code>-</code> while misspelled ones start with <code>&amp;</code>, <code>?</code> or
+   * <code>#</code>.
+   *
+   * @param line
+   *          the result line
+   * @return whether the word is correct
+   */
+  static boolean isCorrect(String line) {
+    char result = line.charAt(0);
+    return result == '*' || result == '+' || result == '-';
+  }
+
+  private String readLine() throws IOException {
+    String line = stdout.readLine();
+    if (line == null)
+      throw new IOException("Hunspell process terminated unexpectedly");
+    return line;
+  }
+
+  /** Returns the command line this process was started with */
+  String getCommandLine() {
+    return commandLine;
+  }
+
+  /** Returns whether the process is still running */
+  boolean isAlive() {
+    return process.isAlive();
+  }
+
+  /** Terminates the process */
+  void destroy() {
+    try {
+      stdin.close();
+    } catch (IOException e) {
+      logger.debug("Unable to close the input of hunspell: {}", e.getMessage());
+    }
+    process.destroy();
+  }
+
+  /** Kills the process unless cancelled before the timeout */
+  private final class Watchdog extends TimerTask {
+
+    private volatile boolean fired = false;
+
+    Watchdog() {
+      WATCHDOG.schedule(this, timeout);
+    }
+
+    @Override
+    public void run() {
+      fired = true;
+      logger.warn("Hunspell process '{}' did not answer within {} ms, killing it", commandLine, timeout);
+      process.destroyForcibly();
+    }
+
+  }
+
+}
@@ -21,10 +21,19 @@
 
 package org.opencastproject.dictionary.hunspell;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class DictionaryServiceImplTest {
 
   private static boolean hunspellInstalled = true;
@@ -100,16 +109,87 @@ public class DictionaryServiceImplTest {
     }
   }
 
+  @Test
+  public void testCleanUpLongText() throws Exception {
+    if (hunspellEngDictAvailable) {
+      DictionaryServiceImpl service = new DictionaryServiceImpl();
+      service.setCommand("-d en_US -G");
+      String in = StringUtils.repeat("This is a tset. ", HunspellProcess.BATCH_SIZE);
+      String out = StringUtils.repeat("This is a", " ", HunspellProcess.BATCH_SIZE);
+      Assert.assertEquals(out, service.cleanUpText(in).getText());
+    }
+  }
+
   @Test
   public void testSpecialCharacters() throws Exception {
     if (hunspellDeuDictAvailable) {
       DictionaryServiceImpl service = new DictionaryServiceImpl();
       service.setCommand("-i utf-8 -d de_DE -G");
       String in  = "Ich hab' hier bloß ein Amt und keine Meinung.";
-      String out = "Ich hab hier bloß ein Amt und keine Meinung.";
+      String out = "Ich hab hier bloß ein Amt und keine Meinung";
       Assert.assertEquals(out, service.cleanUpText(in).getText());
     }
   }
 
+  @Test
+  public void testCleanUpLikeFilter() throws Exception {
+    if (hunspellEngDictAvailable) {
+      String in = "In 2018, the well-known co-author's e-mail (sent 3.5 times) -- wasn't hte 1st one! #42 ...";
+
+      /* Let hunspell filter the text itself */
+      Process process = new ProcessBuilder("hunspell", "-i", "utf-8", "-d", "en_US", "-G").start();
+      try (OutputStream stdin = process.getOutputStream()) {
+        stdin.write(in.getBytes(StandardCharsets.UTF_8));
+      }
+      List<String> filtered = new ArrayList<String>();
+      try (BufferedReader stdout = new BufferedReader(
+              new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = stdout.readLine()) != null) {
+          if (StringUtils.isNotBlank(line))
+            filtered.add(line.trim());
+        }
+      }
+      process.waitFor();
+
+      DictionaryServiceImpl service = new DictionaryServiceImpl();
+      service.setCommand("-i utf-8 -d en_US -G");
+      Assert.assertEquals(StringUtils.join(filtered, " "), service.cleanUpText(in).getText());
+    }
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    Assert.assertEquals(Arrays.asList("well", "known"), HunspellProcess.split("well-known"));
+    Assert.assertEquals(Arrays.asList("co", "author's"), HunspellProcess.split("co-author's"));
+    Assert.assertEquals(Arrays.asList("3", "5"), HunspellProcess.split("3.5"));
+    Assert.assertEquals(Arrays.asList("z", "B"), HunspellProcess.split("z.B."));
+    Assert.assertEquals(Arrays.asList("rock'n'roll"), HunspellProcess.split("'rock'n'roll'"));
+    Assert.assertTrue(HunspellProcess.split("--").isEmpty());
+  }
+
+  @Test
+  public void testTokenize() throws Exception {
+    Assert.assertEquals(Arrays.asList("Ich", "hab", "hier", "bloß", "z.B", "2018"),
+            DictionaryServiceImpl.tokenize(" Ich hab'  hier\n\"bloß\" -- z.B. (2018)"));
+    Assert.assertTrue(DictionaryServiceImpl.tokenize("").isEmpty());
+  }
+
+  @Test
+  public void testPipeCommand() throws Exception {
+    Assert.assertEquals(Arrays.asList("hunspell", "-i", "utf-8", "-d", "en_US", "-a"),
+            HunspellProcess.getPipeCommand("hunspell  -i utf-8 -d en_US -G"));
+    Assert.assertEquals(Arrays.asList("hunspell", "-a", "-d", "en_US"),
+            HunspellProcess.getPipeCommand("hunspell -a -d en_US"));
+  }
+
+  @Test
+  public void testIsCorrect() throws Exception {
+    Assert.assertTrue(HunspellProcess.isCorrect("*"));
+    Assert.assertTrue(HunspellProcess.isCorrect("+ test"));
+    Assert.assertTrue(HunspellProcess.isCorrect("-"));
+    Assert.assertFalse(HunspellProcess.isCorrect("& tset 2 0: test, set"));
+    Assert.assertFalse(HunspellProcess.isCorrect("# xyzzy 0"));
+  }
 
 }
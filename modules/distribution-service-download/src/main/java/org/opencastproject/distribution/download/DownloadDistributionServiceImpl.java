@@ -36,7 +36,11 @@ import org.opencastproject.mediapackage.MediaPackageElement;
 import org.opencastproject.mediapackage.MediaPackageElementParser;
 import org.opencastproject.mediapackage.MediaPackageException;
 import org.opencastproject.mediapackage.MediaPackageParser;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.User;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.FileSupport;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
@@ -50,7 +54,7 @@ import com.google.gson.reflect.TypeToken;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
@@ -60,22 +64,24 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -120,6 +126,18 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   /** Interval time in millis for checking distributed file request */
   private static final long INTERVAL = 300L;
 
+  /** The key to look for in the service configuration file for the number of elements distributed in parallel */
+  public static final String DISTRIBUTE_THREADS_KEY = "distribute.threads";
+
+  /** The default number of elements distributed in parallel */
+  public static final int DEFAULT_DISTRIBUTE_THREADS = 4;
+
+  /** Distributes the elements of a job in parallel, or <code>null</code> to distribute them one after the other */
+  private ExecutorService distributeExecutor = null;
+
+  /** The number of threads of the distribute executor */
+  private int distributeThreads = 1;
+
   private Gson gson = new Gson();
 
   /**
@@ -151,6 +169,13 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     this.distributionChannel = OsgiUtil.getComponentContextProperty(cc, CONFIG_KEY_STORE_TYPE);
   }
 
+  /**
+   * Deactivate method for this OSGi service implementation.
+   */
+  public void deactivate() {
+    setDistributeThreads(1);
+  }
+
   public String getDistributionType() {
     return this.distributionChannel;
   }
@@ -240,10 +265,52 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     final Set<MediaPackageElement> elements = getElements(mediapackage, elementIds);
     List<MediaPackageElement> distributedElements = new ArrayList<MediaPackageElement>();
 
-    for (MediaPackageElement element : elements) {
-      MediaPackageElement distributedElement = distributeElement(channelId, mediapackage, element, checkAvailability, preserveReference);
-      distributedElements.add(distributedElement);
+    final ExecutorService executor = distributeExecutor;
+    if (executor == null || elements.size() < 2) {
+      for (MediaPackageElement element : elements) {
+        MediaPackageElement distributedElement = distributeElement(channelId, mediapackage, element, checkAvailability, preserveReference);
+        distributedElements.add(distributedElement);
+      }
+      return distributedElements.toArray(new MediaPackageElement[distributedElements.size()]);
+    }
+
+    final Organization organization = securityService.getOrganization();
+    final User user = securityService.getUser();
+    final List<Future<MediaPackageElement>> futures = new ArrayList<>(elements.size());
+    for (final MediaPackageElement element : elements) {
+      futures.add(executor.submit(new Callable<MediaPackageElement>() {
+        @Override
+        public MediaPackageElement call() throws Exception {
+          securityService.setOrganization(organization);
+          securityService.setUser(user);
+          try {
+            return distributeElement(channelId, mediapackage, element, checkAvailability, preserveReference);
+          } finally {
+            securityService.setOrganization(null);
+            securityService.setUser(null);
+          }
+        }
+      }));
+    }
+
+    // wait for all elements, so that nothing is still being distributed when the job fails
+    DistributionException failure = null;
+    for (Future<MediaPackageElement> future : futures) {
+      try {
+        distributedElements.add(future.get());
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof DistributionException ? (DistributionException) e.getCause()
+                  : new DistributionException(e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (failure == null)
+          failure = new DistributionException("Interrupted while distributing elements", e);
+      }
     }
+    if (failure != null)
+      throw failure;
     return distributedElements.toArray(new MediaPackageElement[distributedElements.size()]);
   }
 
@@ -304,8 +371,10 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
       }
 
       // Try to find a duplicated element source
+      Checksum checksum = null;
       try {
-        source = findDuplicatedElementSource(source, mediapackageId);
+        checksum = getChecksum(element, source);
+        source = findDuplicatedElementSource(source, checksum, mediapackageId);
       } catch (IOException e) {
         logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
       }
@@ -321,11 +390,16 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
         logger.debug("Distributing element {} of media package {} to publication channel {} ({})", elementId,
             mediapackageId, channelId, destination);
 
+        // Remove the checksum of a previously distributed file first, so that it never describes the wrong content
+        if (checksum != null)
+          FileUtils.deleteQuietly(getChecksumFile(destination, checksum.getType()));
         try {
           FileSupport.link(source, destination, true);
         } catch (IOException e) {
           throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
         }
+        if (checksum != null)
+          writeChecksumFile(destination, checksum);
       }
       // Create a media package element representation of the distributed file
       MediaPackageElement distributedElement = (MediaPackageElement) element.clone();
@@ -534,66 +608,124 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
   }
 
   /**
-   * Try to find the same file being already distributed in one of the other channels
+   * Calculates the checksum of an element's file, using the type of the element's checksum if present. The checksum
+   * of the element itself is not trusted since duplicates are looked up and recorded by checksum, so a checksum not
+   * matching the file is only logged.
+   *
+   * @param element
+   *          the element
+   * @param source
+   *          the element's file
+   * @return the checksum
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  private Checksum getChecksum(MediaPackageElement element, File source) throws IOException {
+    Checksum declared = element.getChecksum();
+    Checksum checksum = Checksum.create(declared != null ? declared.getType() : ChecksumType.DEFAULT_TYPE, source);
+    if (declared != null && !declared.getValue().equalsIgnoreCase(checksum.getValue()))
+      logger.warn("Checksum {} of element {} does not match its file {}", declared.getValue(),
+              element.getIdentifier(), source);
+    return checksum;
+  }
+
+  /**
+   * Returns the hidden file next to a distributed file which holds the distributed file's checksum, e.g.
+   * <code>.media.mov.md5</code> for <code>media.mov</code>.
+   *
+   * @param file
+   *          the distributed file
+   * @param type
+   *          the checksum type
+   * @return the checksum file
+   */
+  static File getChecksumFile(File file, ChecksumType type) {
+    return new File(file.getParentFile(), "." + file.getName() + "." + type.getName());
+  }
+
+  /**
+   * Records the checksum of a distributed file, so that it can be found by {@link #findDuplicatedElementSource}.
+   *
+   * @param file
+   *          the distributed file
+   * @param checksum
+   *          the file's checksum
+   */
+  private void writeChecksumFile(File file, Checksum checksum) {
+    File checksumFile = getChecksumFile(file, checksum.getType());
+    try {
+      Files.write(checksumFile.toPath(), checksum.getValue().getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      logger.warn("Unable to write checksum file {}: {}", checksumFile, ExceptionUtils.getMessage(e));
+      FileUtils.deleteQuietly(checksumFile);
+    }
+  }
+
+  /**
+   * Try to find the same file being already distributed in one of the other channels. Instead of comparing file
+   * contents, only the checksum files written next to the distributed files of the media package are read.
    *
    * @param source
    *          the source file
+   * @param checksum
+   *          the source file's checksum
    * @param mpId
    *          the element's mediapackage id
    * @return the found duplicated file or the given source if nothing has been found
    * @throws IOException
    *           if an I/O error occurs
    */
-  private File findDuplicatedElementSource(final File source, final String mpId) throws IOException {
+  private File findDuplicatedElementSource(final File source, final Checksum checksum, final String mpId)
+          throws IOException {
     String orgId = securityService.getOrganization().getId();
     final Path rootPath = Paths.get(distributionDirectory.getAbsolutePath(), orgId);
 
     if (!Files.exists(rootPath))
       return source;
 
-    List<Path> mediaPackageDirectories = new ArrayList<>();
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(rootPath)) {
-      for (Path path : directoryStream) {
-        Path mpDir = path.resolve(mpId);
-        if (Files.exists(mpDir)) {
-          mediaPackageDirectories.add(mpDir);
-        }
-      }
-    }
-
-    if (mediaPackageDirectories.isEmpty())
-      return source;
-
+    final String suffix = "." + checksum.getType().getName();
     final long size = Files.size(source.toPath());
-
-    final File[] result = new File[1];
-    for (Path p : mediaPackageDirectories) {
-      Files.walkFileTree(p, new SimpleFileVisitor<Path>() {
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-          if (attrs.isDirectory())
-            return FileVisitResult.CONTINUE;
-
-          if (size != attrs.size())
-            return FileVisitResult.CONTINUE;
-
-          try (InputStream is1 = Files.newInputStream(source.toPath()); InputStream is2 = Files.newInputStream(file)) {
-            if (!IOUtils.contentEquals(is1, is2))
-              return FileVisitResult.CONTINUE;
+    try (DirectoryStream<Path> channelDirectories = Files.newDirectoryStream(rootPath)) {
+      for (Path channelDirectory : channelDirectories) {
+        Path mpDir = channelDirectory.resolve(mpId);
+        if (!Files.isDirectory(mpDir))
+          continue;
+        try (DirectoryStream<Path> elementDirectories = Files.newDirectoryStream(mpDir)) {
+          for (Path elementDirectory : elementDirectories) {
+            if (!Files.isDirectory(elementDirectory))
+              continue;
+            File duplicate = findDuplicate(elementDirectory, suffix, checksum.getValue(), size);
+            if (duplicate != null)
+              return duplicate;
           }
-          result[0] = file.toFile();
-          return FileVisitResult.TERMINATE;
         }
-      });
-      if (result[0] != null)
-        break;
+      }
     }
-    if (result[0] != null)
-      return result[0];
-
     return source;
   }
 
+  /**
+   * Looks for a distributed file with the given checksum and size in an element directory.
+   *
+   * @return the distributed file or <code>null</code> if there is none
+   */
+  private File findDuplicate(Path elementDirectory, String suffix, String value, long size) throws IOException {
+    try (DirectoryStream<Path> checksumFiles = Files.newDirectoryStream(elementDirectory, ".*" + suffix)) {
+      for (Path checksumFile : checksumFiles) {
+        String name = checksumFile.getFileName().toString();
+        if (name.length() <= suffix.length() + 1)
+          continue;
+        String recorded = StringUtils.trimToEmpty(new String(Files.readAllBytes(checksumFile), StandardCharsets.UTF_8));
+        if (!recorded.equalsIgnoreCase(value))
+          continue;
+        Path file = elementDirectory.resolve(name.substring(1, name.length() - suffix.length()));
+        if (Files.isRegularFile(file) && Files.size(file) == size)
+          return file.toFile();
+      }
+    }
+    return null;
+  }
+
   /**
    * Gets the destination file to copy the contents of a mediapackage element.
    *
@@ -647,8 +779,35 @@ public class DownloadDistributionServiceImpl extends AbstractDistributionService
     return new URI(destinationURI);
   }
 
+  /**
+   * Sets the number of elements of a job which are distributed in parallel.
+   *
+   * @param threads
+   *          the number of threads, <code>1</code> to distribute the elements one after the other
+   */
+  private synchronized void setDistributeThreads(int threads) {
+    if (threads == distributeThreads)
+      return;
+    if (distributeExecutor != null)
+      distributeExecutor.shutdown();
+    distributeExecutor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    distributeThreads = threads;
+    logger.info("Distributing up to {} elements of a job in parallel", threads);
+  }
+
   @Override
   public void updated(@SuppressWarnings("rawtypes") Dictionary properties) throws ConfigurationException {
+    int threads = DEFAULT_DISTRIBUTE_THREADS;
+    String threadsValue = StringUtils.trimToNull((String) properties.get(DISTRIBUTE_THREADS_KEY));
+    if (threadsValue != null) {
+      try {
+        threads = Math.max(1, Integer.parseInt(threadsValue));
+      } catch (NumberFormatException e) {
+        logger.warn("Configuration value {} for {} is malformed, setting to {}", threadsValue, DISTRIBUTE_THREADS_KEY,
+                DEFAULT_DISTRIBUTE_THREADS);
+      }
+    }
+    setDistributeThreads(threads);
     distributeJobLoad = LoadUtil.getConfiguredLoadValue(properties, DISTRIBUTE_JOB_LOAD_KEY,
             DEFAULT_DISTRIBUTE_JOB_LOAD, serviceRegistry);
     retractJobLoad = LoadUtil.getConfiguredLoadValue(properties, RETRACT_JOB_LOAD_KEY, DEFAULT_RETRACT_JOB_LOAD,
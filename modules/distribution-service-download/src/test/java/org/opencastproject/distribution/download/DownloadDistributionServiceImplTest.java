@@ -41,6 +41,7 @@ import org.opencastproject.security.util.StandAloneTrustedHttpClientImpl;
 import org.opencastproject.serviceregistry.api.IncidentService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryInMemoryImpl;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.PathSupport;
 import org.opencastproject.util.UrlSupport;
 import org.opencastproject.util.data.Either;
@@ -63,7 +64,11 @@ import org.osgi.service.component.ComponentContext;
 
 import java.io.File;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Dictionary;
+import java.util.HashSet;
 import java.util.Hashtable;
 
 import javax.servlet.http.HttpServletResponse;
@@ -302,4 +307,29 @@ public class DownloadDistributionServiceImplTest {
     Assert.assertTrue(service.getDistributionFile("oai-pmh", mp, mp.getElementById("notes")).isFile());
   }
 
+  @Test
+  public void testParallelDistributionWritesChecksums() throws Exception {
+    Dictionary<String, Object> properties = new Hashtable<String, Object>();
+    properties.put(DownloadDistributionServiceImpl.DISTRIBUTE_THREADS_KEY, "2");
+    service.updated(properties);
+    try {
+      for (String channelId : Arrays.asList("engage-player", "oai-pmh")) {
+        MediaPackageElement[] distributed = service.distributeElements(channelId, mp,
+                new HashSet<String>(Arrays.asList("track-1", "catalog-1", "notes")), false);
+        Assert.assertEquals(3, distributed.length);
+        for (String elementId : Arrays.asList("track-1", "catalog-1", "notes")) {
+          MediaPackageElement element = mp.getElementById(elementId);
+          File file = service.getDistributionFile(channelId, mp, element);
+          Assert.assertTrue(file.isFile());
+          // The checksums in the media package do not match the files, so the checksum files have to be calculated
+          File checksumFile = DownloadDistributionServiceImpl.getChecksumFile(file, element.getChecksum().getType());
+          Assert.assertEquals(Checksum.create(element.getChecksum().getType(), file).getValue(),
+                  new String(Files.readAllBytes(checksumFile.toPath()), StandardCharsets.UTF_8));
+        }
+      }
+    } finally {
+      service.deactivate();
+    }
+  }
+
 }
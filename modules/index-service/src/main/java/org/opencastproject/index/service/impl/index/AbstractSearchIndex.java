@@ -64,6 +64,7 @@ import org.opencastproject.util.data.Option;
 import com.entwinemedia.fn.Fn;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -80,6 +81,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -217,6 +219,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
             break;
           case End:
             done = true;
+            flushIndex();
             logger.info("Finished re-creating data for service '{}'", indexRecreateObject.getService());
             break;
           case Error:
@@ -262,7 +265,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      updateDeferred(doc);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + event + " to index", t);
     }
@@ -293,7 +296,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      updateDeferred(doc);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + group + " to index", t);
     }
@@ -322,7 +325,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      updateDeferred(doc);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + series + " to index", t);
     }
@@ -353,7 +356,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      updateDeferred(doc);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + theme + " to index", t);
     }
@@ -363,6 +366,9 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
   public boolean delete(String documentType, String uid) throws SearchIndexException {
     logger.debug("Removing element with id '{}' from searching index '{}'", uid, getIndexName());
 
+    // Make sure a pending update does not bring the document back
+    flush(documentType, Collections.singletonList(uid));
+
     DeleteRequestBuilder deleteRequest = getSearchClient().prepareDelete(getIndexName(), documentType, uid);
     deleteRequest.setRefresh(true);
     DeleteResponse delete = deleteRequest.execute().actionGet();
@@ -494,6 +500,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    */
   public SearchResult<Event> getByQuery(EventSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using event query '{}'", query);
+    flush(Event.DOCUMENT_TYPE, query.getIdentifier(), query.getOrganization());
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new EventQueryBuilder(query));
 
@@ -523,6 +530,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
   public SearchResult<Group> getByQuery(GroupSearchQuery query) throws SearchIndexException {
 
     logger.debug("Searching index using group query '{}'", query);
+    flush(Group.DOCUMENT_TYPE, query.getIdentifier(), query.getOrganization());
 
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new GroupQueryBuilder(query));
@@ -552,6 +560,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    */
   public SearchResult<Series> getByQuery(SeriesSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using series query '{}'", query);
+    flush(Series.DOCUMENT_TYPE, query.getIdentifier(), query.getOrganization());
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new SeriesQueryBuilder(query));
     try {
@@ -579,6 +588,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    */
   public SearchResult<Theme> getByQuery(ThemeSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using theme query '{}'", query);
+    flush();
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new ThemeQueryBuilder(query));
 
@@ -608,6 +618,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    * @return the list of terms
    */
   public List<String> getTermsForField(String field, Option<String[]> types) {
+    flushIndex();
     final String facetName = "terms";
     TermsBuilder aggBuilder = AggregationBuilders.terms(facetName).field(field);
     SearchRequestBuilder search = getSearchClient().prepareSearch(getIndexName()).addAggregation(aggBuilder);
@@ -627,6 +638,43 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     return terms;
   }
 
+  /**
+   * Makes sure that pending writes of the documents a query is looking for are searchable. If the query is not
+   * limited to certain documents, all pending writes are made searchable.
+   *
+   * @param documentType
+   *          the document type
+   * @param identifiers
+   *          the identifiers the query is limited to, may be empty
+   * @param organization
+   *          the organization of the query
+   * @throws SearchIndexException
+   *           if writing the pending documents fails
+   */
+  private void flush(String documentType, String[] identifiers, String organization) throws SearchIndexException {
+    if (identifiers.length == 0) {
+      flush();
+      return;
+    }
+    List<String> uids = new ArrayList<>(identifiers.length);
+    for (String identifier : identifiers) {
+      uids.add(identifier.concat(organization));
+    }
+    flush(documentType, uids);
+  }
+
+  /**
+   * Makes all pending writes searchable, logging rather than throwing errors.
+   */
+  private void flushIndex() {
+    try {
+      flush();
+    } catch (SearchIndexException e) {
+      logger.error("Error writing pending documents to index '{}': {}", getIndexName(),
+              ExceptionUtils.getStackTrace(e));
+    }
+  }
+
   /**
    * Execute a query on the index.
    *
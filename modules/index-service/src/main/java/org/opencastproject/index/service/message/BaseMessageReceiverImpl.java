@@ -29,10 +29,14 @@ import org.opencastproject.message.broker.api.MessageSender;
 import org.opencastproject.message.broker.api.MessageSender.DestinationType;
 import org.opencastproject.message.broker.api.index.IndexRecreateObject;
 import org.opencastproject.message.broker.api.index.IndexRecreateObject.Status;
+import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
 import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.data.Effect2;
+import org.opencastproject.util.jmx.JmxUtil;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
@@ -45,9 +49,24 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
 
+import javax.management.ObjectInstance;
+
 public abstract class BaseMessageReceiverImpl<T extends Serializable> {
 
   private static final String DESTINATION_ID_KEY = "destinationId";
+
+  /**
+   * The key to find the number of threads processing messages in parallel. Messages concerning the same media package
+   * or series are always processed by the same thread, in the order they were received.
+   */
+  private static final String WORKERS_KEY = "org.opencastproject.index.message.workers";
+
+  /** The default number of threads processing messages, which processes all messages one after the other */
+  private static final int DEFAULT_WORKERS = 1;
+
+  /** The number of received messages per worker that may wait to be processed before receiving is paused */
+  private static final int MESSAGES_WAITING_PER_WORKER = 100;
+
   private static final Logger logger = LoggerFactory.getLogger(BaseMessageReceiverImpl.class);
   private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
 
@@ -59,6 +78,8 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
   private MessageReceiverLockService lockService;
   private String destinationId;
   private MessageSender.DestinationType destinationType;
+  private PartitionedExecutor workers;
+  private ObjectInstance statisticsBean;
 
   public BaseMessageReceiverImpl(MessageSender.DestinationType destinationType) {
     this.destinationType = destinationType;
@@ -68,6 +89,13 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     logger.info("Activating {}", this.getClass().getName());
     destinationId = OsgiUtil.getComponentContextProperty(cc, DESTINATION_ID_KEY);
     logger.info("The {} for this message receiver is '{}'", DESTINATION_ID_KEY, destinationId);
+    int workerCount = getWorkerCount(cc);
+    if (workerCount > 1) {
+      logger.info("Processing messages from '{}' with {} workers", destinationId, workerCount);
+      workers = new PartitionedExecutor(workerCount, workerCount * MESSAGES_WAITING_PER_WORKER);
+      statisticsBean = JmxUtil.registerMXBean(new MessageReceiverStatistics(workers),
+              "MessageReceiverStatistics." + destinationId);
+    }
     messageWatcher = new MessageWatcher(lockService);
     singleThreadExecutor.execute(messageWatcher);
   }
@@ -78,6 +106,28 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
       messageWatcher.stopListening();
 
     singleThreadExecutor.shutdown();
+    if (workers != null)
+      workers.shutdown();
+    if (statisticsBean != null)
+      JmxUtil.unregisterMXBean(statisticsBean);
+  }
+
+  /**
+   * Returns the number of threads processing messages, as configured for this component or, if not, for all message
+   * receivers.
+   */
+  private int getWorkerCount(ComponentContext cc) {
+    String workersString = StringUtils.trimToNull((String) cc.getProperties().get(WORKERS_KEY));
+    if (workersString == null)
+      workersString = StringUtils.trimToNull(cc.getBundleContext().getProperty(WORKERS_KEY));
+    if (workersString == null)
+      return DEFAULT_WORKERS;
+    try {
+      return Math.max(1, Integer.parseInt(workersString));
+    } catch (NumberFormatException e) {
+      logger.warn("Number of message workers '{}' is malformed, setting to {}", workersString, DEFAULT_WORKERS);
+      return DEFAULT_WORKERS;
+    }
   }
 
   protected abstract void execute(T messageContent);
@@ -132,9 +182,15 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
           securityService.setUser(baseMessage.getUser());
           if (baseMessage.getObject() instanceof IndexRecreateObject) {
             IndexRecreateObject obj = (IndexRecreateObject) baseMessage.getObject();
-            if (Status.End.equals(obj.getStatus()))
+            if (Status.End.equals(obj.getStatus())) {
+              // Make sure all messages of the index rebuild have been processed before reporting it as done
+              if (workers != null)
+                workers.awaitCompletion();
               messageSender.sendObjectMessage(IndexProducer.RESPONSE_QUEUE, MessageSender.DestinationType.Queue,
                       IndexRecreateObject.end(obj.getIndexName(), obj.getService()));
+            }
+          } else if (workers != null) {
+            workers.execute(baseMessage.getId().orNull(), new MessageTask(baseMessage));
           } else {
             lockService.synchronize(baseMessage.getId().get(), execute.curry(baseMessage.getObject()).toFn());
           }
@@ -155,6 +211,35 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     }
   }
 
+  /** Processes a single message on one of the workers */
+  private class MessageTask implements Runnable {
+
+    private final BaseMessage baseMessage;
+    private final Organization organization;
+    private final User user;
+
+    MessageTask(BaseMessage baseMessage) {
+      this.baseMessage = baseMessage;
+      this.organization = baseMessage.getOrganization();
+      this.user = baseMessage.getUser();
+    }
+
+    @Override
+    public void run() {
+      try {
+        securityService.setOrganization(organization);
+        securityService.setUser(user);
+        lockService.synchronize(baseMessage.getId().get(), execute.curry(baseMessage.getObject()).toFn());
+      } catch (Throwable t) {
+        logger.error("Problem while processing {} message {}", BaseMessageReceiverImpl.this.getClass().getName(),
+                ExceptionUtils.getStackTrace(t));
+      } finally {
+        securityService.setOrganization(null);
+        securityService.setUser(null);
+      }
+    }
+  }
+
   private final Effect2<Serializable, String> execute = new Effect2<Serializable, String>() {
     @Override
     @SuppressWarnings("unchecked")
@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.message;
+
+public class MessageReceiverStatistics implements MessageReceiverStatisticsMXBean {
+
+  private final PartitionedExecutor workers;
+
+  public MessageReceiverStatistics(PartitionedExecutor workers) {
+    this.workers = workers;
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverStatisticsMXBean#getWorkers()
+   */
+  @Override
+  public int getWorkers() {
+    return workers.getPartitions();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverStatisticsMXBean#getMessagesWaiting()
+   */
+  @Override
+  public int getMessagesWaiting() {
+    return workers.getWaiting();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverStatisticsMXBean#getOldestMessageAge()
+   */
+  @Override
+  public long getOldestMessageAge() {
+    return workers.getOldestWaitingAge();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.MessageReceiverStatisticsMXBean#getMessagesProcessed()
+   */
+  @Override
+  public long getMessagesProcessed() {
+    return workers.getProcessed();
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.message;
+
+/**
+ * JMX Bean interface exposing how far a message receiver lags behind.
+ */
+public interface MessageReceiverStatisticsMXBean {
+
+  /**
+   * Gets the number of worker threads processing messages
+   *
+   * @return the number of workers
+   */
+  int getWorkers();
+
+  /**
+   * Gets the number of received messages waiting to be processed
+   *
+   * @return the number of waiting messages
+   */
+  int getMessagesWaiting();
+
+  /**
+   * Gets the time the oldest waiting message has been waiting to be processed
+   *
+   * @return the age of the oldest message in milliseconds
+   */
+  long getOldestMessageAge();
+
+  /**
+   * Gets the number of processed messages
+   *
+   * @return the number of processed messages
+   */
+  long getMessagesProcessed();
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.message;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs tasks on a fixed number of single threaded partitions. Tasks with the same key always end up in the same
+ * partition and are therefore run one after the other in the order they were submitted, while tasks with different
+ * keys may run in parallel.
+ * <p>
+ * The number of tasks waiting to be run is limited, submitting further tasks blocks until some of them are done.
+ */
+public class PartitionedExecutor {
+
+  /** The single threaded partitions */
+  private final ThreadPoolExecutor[] partitions;
+
+  /** Limits the number of tasks waiting to be run */
+  private final Semaphore capacity;
+
+  /** The number of tasks that have been run */
+  private final AtomicLong processed = new AtomicLong();
+
+  /**
+   * Creates a new executor.
+   *
+   * @param partitions
+   *          the number of partitions, i.e. of threads
+   * @param capacity
+   *          the maximum number of tasks waiting to be run
+   */
+  public PartitionedExecutor(int partitions, int capacity) {
+    this.partitions = new ThreadPoolExecutor[partitions];
+    for (int i = 0; i < partitions; i++) {
+      this.partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<Runnable>());
+    }
+    this.capacity = new Semaphore(capacity);
+  }
+
+  /**
+   * Queues a task, blocking while too many tasks are waiting to be run.
+   *
+   * @param key
+   *          the key determining the partition, may be <code>null</code>
+   * @param task
+   *          the task
+   * @throws InterruptedException
+   *           if interrupted while waiting for capacity
+   */
+  public void execute(Object key, Runnable task) throws InterruptedException {
+    capacity.acquire();
+    try {
+      partitions[getPartition(key)].execute(new TimedTask(task));
+    } catch (RuntimeException e) {
+      capacity.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Waits until all tasks submitted so far have been run.
+   *
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  public void awaitCompletion() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(partitions.length);
+    for (ThreadPoolExecutor partition : partitions) {
+      partition.execute(new Runnable() {
+        @Override
+        public void run() {
+          latch.countDown();
+        }
+      });
+    }
+    latch.await();
+  }
+
+  /** Stops all partitions, tasks that are still waiting are not run */
+  public void shutdown() {
+    for (ThreadPoolExecutor partition : partitions) {
+      partition.shutdownNow();
+    }
+  }
+
+  /** Returns the number of partitions */
+  public int getPartitions() {
+    return partitions.length;
+  }
+
+  /** Returns the number of tasks waiting to be run */
+  public int getWaiting() {
+    int waiting = 0;
+    for (ThreadPoolExecutor partition : partitions) {
+      waiting += partition.getQueue().size();
+    }
+    return waiting;
+  }
+
+  /** Returns the time in milliseconds the longest waiting task has been waiting, or <code>0</code> */
+  public long getOldestWaitingAge() {
+    long now = System.currentTimeMillis();
+    long oldest = 0L;
+    for (ThreadPoolExecutor partition : partitions) {
+      Runnable head = partition.getQueue().peek();
+      if (head instanceof TimedTask)
+        oldest = Math.max(oldest, now - ((TimedTask) head).queued);
+    }
+    return oldest;
+  }
+
+  /** Returns the number of tasks that have been run */
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  int getPartition(Object key) {
+    if (key == null)
+      return 0;
+    return (key.hashCode() & Integer.MAX_VALUE) % partitions.length;
+  }
+
+  /** A task that remembers when it was queued */
+  private final class TimedTask implements Runnable {
+
+    private final Runnable task;
+    private final long queued = System.currentTimeMillis();
+
+    TimedTask(Runnable task) {
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      try {
+        task.run();
+      } finally {
+        processed.incrementAndGet();
+        capacity.release();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PartitionedExecutorTest {
+
+  private PartitionedExecutor executor;
+
+  @Before
+  public void setUp() {
+    executor = new PartitionedExecutor(4, 10);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void testSameKeySamePartition() {
+    assertEquals(executor.getPartition("mp-1"), executor.getPartition("mp-1"));
+    assertEquals(0, executor.getPartition(null));
+    for (int i = 0; i < 100; i++) {
+      int partition = executor.getPartition("mp-" + i);
+      assertTrue(partition >= 0 && partition < executor.getPartitions());
+    }
+  }
+
+  @Test
+  public void testOrderPerKey() throws Exception {
+    final List<String> done = Collections.synchronizedList(new ArrayList<String>());
+    for (int i = 0; i < 200; i++) {
+      final String item = "mp-" + (i % 5) + ":" + i;
+      executor.execute("mp-" + (i % 5), new Runnable() {
+        @Override
+        public void run() {
+          done.add(item);
+        }
+      });
+    }
+    executor.awaitCompletion();
+    assertEquals(200, done.size());
+    assertEquals(200L, executor.getProcessed());
+    for (int key = 0; key < 5; key++) {
+      int last = -1;
+      for (String item : done) {
+        String[] parts = item.split(":");
+        if (!parts[0].equals("mp-" + key))
+          continue;
+        int current = Integer.parseInt(parts[1]);
+        assertTrue("Messages of the same key must be processed in order", current > last);
+        last = current;
+      }
+    }
+  }
+
+  @Test
+  public void testAwaitCompletion() throws Exception {
+    final AtomicInteger counter = new AtomicInteger();
+    for (int i = 0; i < 50; i++) {
+      executor.execute(i, new Runnable() {
+        @Override
+        public void run() {
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          counter.incrementAndGet();
+        }
+      });
+    }
+    executor.awaitCompletion();
+    assertEquals(50, counter.get());
+    assertEquals(0, executor.getWaiting());
+  }
+
+}
@@ -21,10 +21,14 @@
 
 package org.opencastproject.kernel.http.impl;
 
-
-
 import org.opencastproject.kernel.http.api.HttpClient;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.pool.PoolStats;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -32,12 +36,52 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Dictionary;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /** Creates HttpClients that can be used for making requests such as GET, POST etc.*/
 public class HttpClientFactory implements ManagedService {
   /** The logger */
   private static final Logger logger = LoggerFactory.getLogger(HttpClientFactory.class);
 
+  /** The configuration property specifying the maximum number of connections kept open in total */
+  public static final String MAX_CONNECTIONS_KEY = "org.opencastproject.http.connections.max";
+
+  /** The configuration property specifying the maximum number of connections kept open to a single host */
+  public static final String MAX_CONNECTIONS_PER_HOST_KEY = "org.opencastproject.http.connections.max.per.host";
+
+  /** The configuration property specifying the number of seconds after which idle connections are closed */
+  public static final String IDLE_TIMEOUT_KEY = "org.opencastproject.http.connections.idle.timeout";
+
+  /**
+   * The configuration property specifying the number of seconds a request waits for a free connection before it fails
+   */
+  public static final String LEASE_TIMEOUT_KEY = "org.opencastproject.http.connections.lease.timeout";
+
+  /** The default maximum number of connections */
+  public static final int DEFAULT_MAX_CONNECTIONS = 200;
+
+  /**
+   * The default maximum number of connections to a single host. Most requests go to a few nodes only, e.g. the admin
+   * node, so a single host may use all of the connections by default.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = DEFAULT_MAX_CONNECTIONS;
+
+  /** The default number of seconds after which idle connections are closed */
+  public static final int DEFAULT_IDLE_TIMEOUT = 30;
+
+  /** The default number of seconds a request waits for a free connection */
+  public static final int DEFAULT_LEASE_TIMEOUT = 60;
+
+  /** The connections shared by all clients, or <code>null</code> if each client uses its own connection */
+  private PoolingClientConnectionManager connectionPool = null;
+
+  /** The milliseconds a request waits for a free connection */
+  private long leaseTimeout = DEFAULT_LEASE_TIMEOUT * 1000L;
+
+  /** Closes idle connections */
+  private ScheduledExecutorService idleConnectionMonitor = null;
 
   /**
    * Callback from the OSGi container once this service is started. This is where we register our shell commands.
@@ -47,6 +91,30 @@ public class HttpClientFactory implements ManagedService {
    */
   public void activate(ComponentContext componentContext) {
     logger.debug("Starting up");
+    final int maxConnections = getIntProperty(componentContext, MAX_CONNECTIONS_KEY, DEFAULT_MAX_CONNECTIONS);
+    final int maxConnectionsPerHost = Math.min(getIntProperty(componentContext, MAX_CONNECTIONS_PER_HOST_KEY,
+            DEFAULT_MAX_CONNECTIONS_PER_HOST), maxConnections);
+    final int idleTimeout = getIntProperty(componentContext, IDLE_TIMEOUT_KEY, DEFAULT_IDLE_TIMEOUT);
+    leaseTimeout = TimeUnit.SECONDS.toMillis(getIntProperty(componentContext, LEASE_TIMEOUT_KEY,
+            DEFAULT_LEASE_TIMEOUT));
+
+    final SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
+    HttpClientImpl.installSslSupport(schemeRegistry);
+    final PoolingClientConnectionManager pool = new PoolingClientConnectionManager(schemeRegistry);
+    pool.setMaxTotal(maxConnections);
+    pool.setDefaultMaxPerRoute(maxConnectionsPerHost);
+    connectionPool = pool;
+
+    idleConnectionMonitor = Executors.newSingleThreadScheduledExecutor();
+    idleConnectionMonitor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        pool.closeExpiredConnections();
+        pool.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+      }
+    }, idleTimeout, idleTimeout, TimeUnit.SECONDS);
+    logger.info("Keeping up to {} http connections open, up to {} per host, waiting up to {} seconds for a free one",
+            maxConnections, maxConnectionsPerHost, TimeUnit.MILLISECONDS.toSeconds(leaseTimeout));
   }
 
   /**
@@ -54,6 +122,14 @@ public class HttpClientFactory implements ManagedService {
    */
   public void deactivate() {
     logger.debug("Shutting down");
+    if (idleConnectionMonitor != null) {
+      idleConnectionMonitor.shutdownNow();
+      idleConnectionMonitor = null;
+    }
+    if (connectionPool != null) {
+      connectionPool.shutdown();
+      connectionPool = null;
+    }
   }
 
   /** Updates the properties for this service. */
@@ -63,8 +139,43 @@ public class HttpClientFactory implements ManagedService {
 
   }
 
-  /** Creates a new HttpClient to make requests.*/
+  /**
+   * Creates a new HttpClient to make requests. Clients sharing the connection pool fail their requests with a
+   * {@link org.apache.http.conn.ConnectionPoolTimeoutException} if no connection becomes available within the lease
+   * timeout.
+   */
   public HttpClient makeHttpClient() {
-    return new HttpClientImpl();
+    final PoolingClientConnectionManager pool = connectionPool;
+    if (pool == null)
+      return new HttpClientImpl();
+    final HttpClient client = new HttpClientImpl(new LeaseTrackingConnectionManager(pool));
+    client.getParams().setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, leaseTimeout);
+    return client;
+  }
+
+  /**
+   * Returns the statistics of the shared connections.
+   *
+   * @return the statistics or <code>null</code> if connections are not shared
+   */
+  public PoolStats getConnectionStats() {
+    final PoolingClientConnectionManager pool = connectionPool;
+    return pool == null ? null : pool.getTotalStats();
+  }
+
+  private static int getIntProperty(ComponentContext cc, String key, int defaultValue) {
+    final String value = StringUtils.trimToNull(cc.getBundleContext().getProperty(key));
+    if (value == null)
+      return defaultValue;
+    int result;
+    try {
+      result = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      result = -1;
+    }
+    if (result > 0)
+      return result;
+    logger.warn("{} '{}' is malformed, setting to {}", key, value, defaultValue);
+    return defaultValue;
   }
 }
@@ -57,7 +57,23 @@ public class HttpClientImpl implements HttpClient {
   private static final Logger logger = LoggerFactory.getLogger(HttpClientImpl.class);
 
   /** client used for all http requests. */
-  private DefaultHttpClient defaultHttpClient = makeHttpClient();
+  private final DefaultHttpClient defaultHttpClient;
+
+  /** Creates a client with its own connection. */
+  public HttpClientImpl() {
+    defaultHttpClient = makeHttpClient();
+  }
+
+  /**
+   * Creates a client using connections of the given connection manager. The connection manager is expected to be set up
+   * with {@link #installSslSupport(SchemeRegistry)}.
+   *
+   * @param connectionManager
+   *          the connection manager
+   */
+  public HttpClientImpl(ClientConnectionManager connectionManager) {
+    defaultHttpClient = new DefaultHttpClient(connectionManager);
+  }
 
   /** See org.opencastproject.kernel.http.api.HttpClient */
   @Override
@@ -89,8 +105,18 @@ public class HttpClientImpl implements HttpClient {
    * @return the client
    */
   private DefaultHttpClient makeHttpClient() {
-
     DefaultHttpClient defaultHttpClient = new DefaultHttpClient();
+    installSslSupport(defaultHttpClient.getConnectionManager().getSchemeRegistry());
+    return defaultHttpClient;
+  }
+
+  /**
+   * Registers support for https connections that can deal with all kinds of oddities.
+   *
+   * @param sr
+   *          the scheme registry of a connection manager
+   */
+  static void installSslSupport(SchemeRegistry sr) {
     try {
       logger.debug("Installing forgiving hostname verifier and trust managers");
       X509TrustManager trustManager = createTrustManager();
@@ -98,16 +124,12 @@ public class HttpClientImpl implements HttpClient {
       SSLContext sslContext = SSLContext.getInstance("TLS");
       sslContext.init(null, new TrustManager[] { trustManager }, new SecureRandom());
       SSLSocketFactory ssf = new SSLSocketFactory(sslContext, hostNameVerifier);
-      ClientConnectionManager ccm = defaultHttpClient.getConnectionManager();
-      SchemeRegistry sr = ccm.getSchemeRegistry();
       sr.register(new Scheme("https", 443, ssf));
     } catch (NoSuchAlgorithmException e) {
       logger.error("Error creating context to handle TLS connections: {}", e.getMessage());
     } catch (KeyManagementException e) {
       logger.error("Error creating context to handle TLS connections: {}", e.getMessage());
     }
-
-    return defaultHttpClient;
   }
 
   /**
@@ -116,7 +138,7 @@ public class HttpClientImpl implements HttpClient {
    *
    * @return the trust manager
    */
-  private X509TrustManager createTrustManager() {
+  private static X509TrustManager createTrustManager() {
     X509TrustManager trustManager = new X509TrustManager() {
 
       /**
@@ -157,7 +179,7 @@ public class HttpClientImpl implements HttpClient {
    *
    * @return the host name verifier
    */
-  private X509HostnameVerifier createHostNameVerifier() {
+  private static X509HostnameVerifier createHostNameVerifier() {
     X509HostnameVerifier verifier = new X509HostnameVerifier() {
 
       /**
@@ -0,0 +1,125 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.kernel.http.impl;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A view of a shared connection pool for a single client.
+ * <p>
+ * Connections which have been fully read are returned to the pool to be kept alive as usual. Shutting down this
+ * connection manager only aborts the connections of this client which have not been returned to the pool yet, e.g.
+ * because their response has not been read completely. The shared pool itself is never shut down by its clients.
+ */
+final class LeaseTrackingConnectionManager implements ClientConnectionManager {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(LeaseTrackingConnectionManager.class);
+
+  /** The shared connection pool */
+  private final ClientConnectionManager pool;
+
+  /** The connections leased by this client */
+  private final List<ManagedClientConnection> leased = new ArrayList<>();
+
+  LeaseTrackingConnectionManager(ClientConnectionManager pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public SchemeRegistry getSchemeRegistry() {
+    return pool.getSchemeRegistry();
+  }
+
+  @Override
+  public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+    final ClientConnectionRequest request = pool.requestConnection(route, state);
+    return new ClientConnectionRequest() {
+      @Override
+      public ManagedClientConnection getConnection(long timeout, TimeUnit tunit)
+              throws InterruptedException, ConnectionPoolTimeoutException {
+        ManagedClientConnection connection = request.getConnection(timeout, tunit);
+        synchronized (leased) {
+          leased.add(connection);
+        }
+        return connection;
+      }
+
+      @Override
+      public void abortRequest() {
+        request.abortRequest();
+      }
+    };
+  }
+
+  @Override
+  public void releaseConnection(ManagedClientConnection conn, long validDuration, TimeUnit timeUnit) {
+    synchronized (leased) {
+      leased.remove(conn);
+    }
+    pool.releaseConnection(conn, validDuration, timeUnit);
+  }
+
+  @Override
+  public void closeIdleConnections(long idletime, TimeUnit tunit) {
+    pool.closeIdleConnections(idletime, tunit);
+  }
+
+  @Override
+  public void closeExpiredConnections() {
+    pool.closeExpiredConnections();
+  }
+
+  /**
+   * Aborts the connections of this client which have not been returned to the pool. Aborting a connection that has
+   * already been returned to the pool, e.g. after its response has been read completely, has no effect.
+   */
+  @Override
+  public void shutdown() {
+    final List<ManagedClientConnection> connections;
+    synchronized (leased) {
+      connections = new ArrayList<>(leased);
+      leased.clear();
+    }
+    for (ManagedClientConnection connection : connections) {
+      try {
+        connection.abortConnection();
+      } catch (IOException e) {
+        logger.debug("Unable to abort connection {}: {}", connection, e.getMessage());
+      }
+    }
+  }
+
+}
@@ -22,9 +22,36 @@
 package org.opencastproject.kernel.security;
 
 /**
- * An MxBean that exposes the number of open http connections to a JXM agent
+ * An MxBean that exposes the http connections and their usage to a JXM agent
  */
 public interface HttpConnectionMXBean {
   /** Gets the number of open http connections */
   int getOpenConnections();
+
+  /** Gets the number of pooled connections currently in use */
+  int getLeasedConnections();
+
+  /** Gets the number of pooled connections kept alive for reuse */
+  int getAvailableConnections();
+
+  /** Gets the number of requests waiting for a pooled connection */
+  int getPendingConnections();
+
+  /** Gets the maximum number of pooled connections */
+  int getMaxConnections();
+
+  /** Gets the number of requests executed */
+  long getRequests();
+
+  /** Gets the number of extra round trips made to obtain a digest authentication nonce */
+  long getAuthRoundTrips();
+
+  /** Gets the number of requests authenticated with a cached nonce */
+  long getPreemptiveAuthentications();
+
+  /** Gets the upper bounds in milliseconds of the buckets of {@link #getLatencyHistogram()} */
+  long[] getLatencyHistogramBounds();
+
+  /** Gets the number of requests per latency bucket, measured until the response headers have been received */
+  long[] getLatencyHistogram();
 }
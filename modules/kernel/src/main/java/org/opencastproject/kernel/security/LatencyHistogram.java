@@ -0,0 +1,74 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.kernel.security;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets with fixed upper bounds.
+ */
+public class LatencyHistogram {
+
+  /** The upper bounds of the buckets in milliseconds, the last bucket collects everything above */
+  private static final long[] BOUNDS = { 5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L, 30000L,
+          Long.MAX_VALUE };
+
+  /** The number of durations per bucket */
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length);
+
+  /**
+   * Records a duration.
+   *
+   * @param millis
+   *          the duration in milliseconds
+   */
+  public void record(long millis) {
+    int bucket = Arrays.binarySearch(BOUNDS, Math.max(millis, 0L));
+    counts.incrementAndGet(bucket < 0 ? -bucket - 1 : bucket);
+  }
+
+  /**
+   * Returns the upper bounds of the buckets in milliseconds. A duration is counted in the first bucket whose bound is
+   * greater than or equal to it.
+   *
+   * @return the upper bounds
+   */
+  public long[] getBounds() {
+    return BOUNDS.clone();
+  }
+
+  /**
+   * Returns the number of durations recorded per bucket.
+   *
+   * @return the counts in the order of {@link #getBounds()}
+   */
+  public long[] getCounts() {
+    long[] result = new long[counts.length()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = counts.get(i);
+    }
+    return result;
+  }
+
+}
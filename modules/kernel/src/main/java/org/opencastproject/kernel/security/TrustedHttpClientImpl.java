@@ -49,8 +49,11 @@ import com.entwinemedia.fn.data.Opt;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthenticationException;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.ResponseHandler;
@@ -60,15 +63,19 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.auth.DigestScheme;
 import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.net.URI;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -109,6 +116,12 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   public static final String NONCE_TIMEOUT_RETRY_MAXIMUM_VARIABLE_TIME_KEY =
     "org.opencastproject.security.digest.nonce.variable.time";
 
+  /**
+   * The configuration property specifying the number of seconds a nonce is reused for further requests to the same
+   * host. This needs to be shorter than the time the nonce is valid on the remote host.
+   */
+  public static final String NONCE_CACHE_TIME_KEY = "org.opencastproject.security.digest.nonce.cache.time";
+
   /** The default time until a connection attempt fails */
   public static final int DEFAULT_CONNECTION_TIMEOUT = 60 * 1000;
 
@@ -127,6 +140,9 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** Default maximum amount of time in a random range between 0 and this value to add to the base time. */
   public static final int DEFAULT_RETRY_MAXIMUM_VARIABLE_TIME = 300;
 
+  /** The default number of seconds a nonce is reused, well below the default nonce validity of 300 seconds. */
+  public static final int DEFAULT_NONCE_CACHE_TIME = 240;
+
   /**
    * The default time before a piece of signed content expires. 1 Minute. These are internal calls to another server, if
    * we can't make the request in under a minute something has gone horribly wrong.
@@ -160,6 +176,24 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** The duration a signed url will remain valid for. */
   private long signedUrlExpiresDuration = DEFAULT_URL_SIGNING_EXPIRES_DURATION;
 
+  /** The number of seconds a nonce is reused, <code>0</code> to always ask for a new one. */
+  private int nonceCacheTime = DEFAULT_NONCE_CACHE_TIME;
+
+  /** The most recent nonce of each host */
+  private final Map<String, CachedNonce> nonces = new ConcurrentHashMap<String, CachedNonce>();
+
+  /** The number of requests executed */
+  private final AtomicLong requests = new AtomicLong();
+
+  /** The number of extra round trips made to obtain a nonce */
+  private final AtomicLong authRoundTrips = new AtomicLong();
+
+  /** The number of requests authenticated with a cached nonce */
+  private final AtomicLong preemptiveAuthentications = new AtomicLong();
+
+  /** The time until the response headers have been received */
+  private final LatencyHistogram latencies = new LatencyHistogram();
+
   /** The service registry */
   private ServiceRegistry serviceRegistry = null;
 
@@ -179,6 +213,7 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     getRetryNumber(cc);
     getRetryBaseTime(cc);
     getRetryMaximumVariableTime(cc);
+    nonceCacheTime = getIntFromComponentContext(cc, NONCE_CACHE_TIME_KEY, DEFAULT_NONCE_CACHE_TIME);
 
     // register with jmx
     try {
@@ -348,6 +383,17 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   @Override
   public HttpResponse execute(HttpUriRequest httpUriRequest, int connectionTimeout, int socketTimeout)
           throws TrustedHttpClientException {
+    final long start = System.currentTimeMillis();
+    requests.incrementAndGet();
+    try {
+      return executeAuthenticated(httpUriRequest, connectionTimeout, socketTimeout);
+    } finally {
+      latencies.record(System.currentTimeMillis() - start);
+    }
+  }
+
+  private HttpResponse executeAuthenticated(HttpUriRequest httpUriRequest, int connectionTimeout, int socketTimeout)
+          throws TrustedHttpClientException {
     final HttpClient httpClient = makeHttpClient(connectionTimeout, socketTimeout);
     // Add the request header to elicit a digest auth response
     httpUriRequest.setHeader(REQUESTED_AUTH_HEADER, DIGEST_AUTH);
@@ -369,20 +415,38 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     }
 
     if ("GET".equalsIgnoreCase(httpUriRequest.getMethod()) || "HEAD".equalsIgnoreCase(httpUriRequest.getMethod())) {
-      // Set the user/pass
-      final UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
-      httpClient.getCredentialsProvider().setCredentials(AuthScope.ANY, creds);
-      // Run the request (the http client handles the multiple back-and-forth requests)
       try {
         Opt<HttpUriRequest> optSignedHttpUriRequest = getSignedUrl(httpUriRequest);
-        HttpResponse response;
+        HttpUriRequest request;
         if (optSignedHttpUriRequest.isSome()) {
           logger.debug("Adding url signing to request {} so that it is {}", httpUriRequest.getURI().toString(),
                   optSignedHttpUriRequest.get().getURI().toString());
-          response = new HttpResponseWrapper(httpClient.execute(optSignedHttpUriRequest.get()));
+          request = optSignedHttpUriRequest.get();
         } else {
           logger.debug("Not adding url signing to request {}", httpUriRequest.getURI().toString());
-          response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
+          request = httpUriRequest;
+        }
+        HttpResponse response = null;
+        // Authenticate right away if we know a nonce of the host
+        if (setCachedDigestAuthentication(request)) {
+          response = new HttpResponseWrapper(httpClient.execute(request));
+          if (response.getStatusLine().getStatusCode() == 401) {
+            logger.debug("Cached nonce for {} has been rejected", request.getURI());
+            authRoundTrips.incrementAndGet();
+            forgetNonce(request.getURI());
+            EntityUtils.consumeQuietly(response.getEntity());
+            request.removeHeaders(AUTHORIZATION_HEADER_NAME);
+            response = null;
+          } else {
+            preemptiveAuthentications.incrementAndGet();
+          }
+        }
+        if (response == null) {
+          // Set the user/pass
+          final UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
+          httpClient.getCredentialsProvider().setCredentials(AuthScope.ANY, creds);
+          // Run the request (the http client handles the multiple back-and-forth requests)
+          response = new HttpResponseWrapper(httpClient.execute(request));
         }
         responseMap.put(response, httpClient);
         return response;
@@ -393,12 +457,27 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
       }
     } else {
       // HttpClient doesn't handle the request dynamics for other verbs (especially when sending a streamed multipart
-      // request), so we need to handle the details of the digest auth back-and-forth manually
-      manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
+      // request), so we need to handle the details of the digest auth back-and-forth manually. A cached nonce is only
+      // used if the request can be sent again in case the nonce is rejected.
+      final boolean preemptive = isRepeatable(httpUriRequest) && setCachedDigestAuthentication(httpUriRequest);
+      if (!preemptive) {
+        manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
+      }
       HttpResponse response = null;
       try {
         response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
+        if (preemptive && response.getStatusLine().getStatusCode() == 401) {
+          logger.debug("Cached nonce for {} has been rejected", httpUriRequest.getURI());
+          forgetNonce(httpUriRequest.getURI());
+          EntityUtils.consumeQuietly(response.getEntity());
+          httpUriRequest.removeHeaders(AUTHORIZATION_HEADER_NAME);
+          manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
+          response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
+        } else if (preemptive) {
+          preemptiveAuthentications.incrementAndGet();
+        }
         if (nonceTimeoutRetries > 0 && hadNonceTimeoutResponse(response)) {
+          forgetNonce(httpUriRequest.getURI());
           httpClient.getConnectionManager().shutdown();
           response = retryAuthAndRequestAfterNonceTimeout(httpUriRequest, response);
         }
@@ -537,17 +616,11 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     String[] realmAndNonce = getRealmAndNonce(digestRequest);
 
     if (realmAndNonce != null) {
-      // Set the user/pass
-      UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
-
-      // Set up the digest authentication with the required values
-      DigestScheme digestAuth = new DigestScheme();
-      digestAuth.overrideParamter("realm", realmAndNonce[0]);
-      digestAuth.overrideParamter("nonce", realmAndNonce[1]);
+      cacheNonce(httpUriRequest.getURI(), realmAndNonce);
 
       // Add the authentication header
       try {
-        httpUriRequest.setHeader(digestAuth.authenticate(creds, httpUriRequest));
+        httpUriRequest.setHeader(createDigestHeader(httpUriRequest, realmAndNonce));
       } catch (Exception e) {
         // close the http connection(s)
         httpClient.getConnectionManager().shutdown();
@@ -556,6 +629,86 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     }
   }
 
+  /**
+   * Creates the digest authentication header for a request.
+   *
+   * @param httpUriRequest
+   *         The request to authenticate.
+   * @param realmAndNonce
+   *         The realm and nonce sent by the host.
+   * @return The authentication header.
+   * @throws AuthenticationException
+   *         Thrown if the header cannot be created.
+   */
+  private Header createDigestHeader(HttpUriRequest httpUriRequest, String[] realmAndNonce)
+          throws AuthenticationException {
+    // Set the user/pass
+    UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
+
+    // Set up the digest authentication with the required values
+    DigestScheme digestAuth = new DigestScheme();
+    digestAuth.overrideParamter("realm", realmAndNonce[0]);
+    digestAuth.overrideParamter("nonce", realmAndNonce[1]);
+    return digestAuth.authenticate(creds, httpUriRequest);
+  }
+
+  /**
+   * Adds the digest authentication header based on the cached nonce of the host, saving the round trip to obtain a
+   * nonce.
+   *
+   * @param httpUriRequest
+   *         The request to authenticate.
+   * @return true if the header has been added, false if no nonce of the host is known
+   */
+  private boolean setCachedDigestAuthentication(HttpUriRequest httpUriRequest) {
+    final String host = getHostKey(httpUriRequest.getURI());
+    final CachedNonce cached = host == null ? null : nonces.get(host);
+    if (cached == null)
+      return false;
+    if (cached.expires < System.currentTimeMillis()) {
+      nonces.remove(host, cached);
+      return false;
+    }
+    try {
+      httpUriRequest.setHeader(createDigestHeader(httpUriRequest, cached.realmAndNonce));
+      return true;
+    } catch (AuthenticationException e) {
+      logger.debug("Unable to authenticate {} with the cached nonce: {}", httpUriRequest.getURI(), e.getMessage());
+      return false;
+    }
+  }
+
+  private void cacheNonce(URI uri, String[] realmAndNonce) {
+    final String host = getHostKey(uri);
+    if (nonceCacheTime > 0 && host != null && realmAndNonce[0] != null && realmAndNonce[1] != null) {
+      nonces.put(host, new CachedNonce(realmAndNonce,
+              System.currentTimeMillis() + nonceCacheTime * (long) MILLISECONDS_IN_SECONDS));
+    }
+  }
+
+  private void forgetNonce(URI uri) {
+    final String host = getHostKey(uri);
+    if (host != null) {
+      nonces.remove(host);
+    }
+  }
+
+  /** Returns the scheme, host and port of a URI, or <code>null</code> if the URI is not absolute. */
+  private static String getHostKey(URI uri) {
+    if (uri == null || uri.getScheme() == null || uri.getHost() == null)
+      return null;
+    return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+  }
+
+  /** Returns whether the request can be sent more than once. */
+  private static boolean isRepeatable(HttpUriRequest httpUriRequest) {
+    if (httpUriRequest instanceof HttpEntityEnclosingRequest) {
+      final HttpEntity entity = ((HttpEntityEnclosingRequest) httpUriRequest).getEntity();
+      return entity == null || entity.isRepeatable();
+    }
+    return true;
+  }
+
   @Override
   public <T> T execute(HttpUriRequest httpUriRequest, ResponseHandler<T> responseHandler, int connectionTimeout,
                        int socketTimeout) throws TrustedHttpClientException {
@@ -605,12 +758,15 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   protected String[] getRealmAndNonce(HttpRequestBase request) throws TrustedHttpClientException {
     HttpClient httpClient = makeHttpClient(DEFAULT_CONNECTION_TIMEOUT, DEFAULT_SOCKET_TIMEOUT);
     HttpResponse response;
+    authRoundTrips.incrementAndGet();
     try {
       response = new HttpResponseWrapper(httpClient.execute(request));
     } catch (IOException e) {
       httpClient.getConnectionManager().shutdown();
       throw new TrustedHttpClientException(e);
     }
+    // Read the response so that its connection can be reused
+    EntityUtils.consumeQuietly(response.getEntity());
     Header[] headers = response.getHeaders("WWW-Authenticate");
     if (headers == null || headers.length == 0) {
       logger.warn("URI {} does not support digest authentication", request.getURI());
@@ -636,6 +792,59 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     return responseMap.size();
   }
 
+  @Override
+  public int getLeasedConnections() {
+    final PoolStats stats = getConnectionStats();
+    return stats == null ? 0 : stats.getLeased();
+  }
+
+  @Override
+  public int getAvailableConnections() {
+    final PoolStats stats = getConnectionStats();
+    return stats == null ? 0 : stats.getAvailable();
+  }
+
+  @Override
+  public int getPendingConnections() {
+    final PoolStats stats = getConnectionStats();
+    return stats == null ? 0 : stats.getPending();
+  }
+
+  @Override
+  public int getMaxConnections() {
+    final PoolStats stats = getConnectionStats();
+    return stats == null ? 0 : stats.getMax();
+  }
+
+  private PoolStats getConnectionStats() {
+    return httpClientFactory == null ? null : httpClientFactory.getConnectionStats();
+  }
+
+  @Override
+  public long getRequests() {
+    return requests.get();
+  }
+
+  @Override
+  public long getAuthRoundTrips() {
+    return authRoundTrips.get();
+  }
+
+  @Override
+  public long getPreemptiveAuthentications() {
+    return preemptiveAuthentications.get();
+  }
+
+  @Override
+  public long[] getLatencyHistogramBounds() {
+    return latencies.getBounds();
+  }
+
+  @Override
+  public long[] getLatencyHistogram() {
+    return latencies.getCounts();
+  }
+
   /**
    * @return Returns the number of times the TrustedHttpClient will retry a request if nonce timeouts are occuring.
    */
@@ -657,4 +866,17 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     return retryMaximumVariableTime;
   }
 
+  /** A nonce of a host and the time until it is reused */
+  private static final class CachedNonce {
+
+    private final String[] realmAndNonce;
+    private final long expires;
+
+    CachedNonce(String[] realmAndNonce, long expires) {
+      this.realmAndNonce = realmAndNonce;
+      this.expires = expires;
+    }
+
+  }
+
 }
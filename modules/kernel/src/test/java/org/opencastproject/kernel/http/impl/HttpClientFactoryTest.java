@@ -0,0 +1,90 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.kernel.http.impl;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.kernel.http.api.HttpClient;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+
+import java.util.concurrent.TimeUnit;
+
+public class HttpClientFactoryTest {
+
+  private HttpClientFactory factory;
+
+  @Before
+  public void setUp() {
+    BundleContext bundleContext = createNiceMock(BundleContext.class);
+    expect(bundleContext.getProperty(HttpClientFactory.MAX_CONNECTIONS_KEY)).andReturn("1").anyTimes();
+    expect(bundleContext.getProperty(HttpClientFactory.LEASE_TIMEOUT_KEY)).andReturn("1").anyTimes();
+    ComponentContext cc = createNiceMock(ComponentContext.class);
+    expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    replay(bundleContext, cc);
+    factory = new HttpClientFactory();
+    factory.activate(cc);
+  }
+
+  @After
+  public void tearDown() {
+    factory.deactivate();
+  }
+
+  @Test
+  public void testLeaseTimesOutWhenPoolIsExhausted() throws Exception {
+    HttpClient first = factory.makeHttpClient();
+    HttpClient second = factory.makeHttpClient();
+    long leaseTimeout = second.getParams().getLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, 0);
+    assertEquals(1000L, leaseTimeout);
+
+    HttpRoute route = new HttpRoute(new HttpHost("localhost", 8080));
+    ClientConnectionManager firstConnections = first.getConnectionManager();
+    ManagedClientConnection connection = firstConnections.requestConnection(route, null).getConnection(0,
+            TimeUnit.MILLISECONDS);
+    try {
+      second.getConnectionManager().requestConnection(route, null).getConnection(leaseTimeout, TimeUnit.MILLISECONDS);
+      fail("The pool only holds a single connection");
+    } catch (ConnectionPoolTimeoutException e) {
+      // expected
+    }
+
+    firstConnections.releaseConnection(connection, 0, TimeUnit.MILLISECONDS);
+    second.getConnectionManager().requestConnection(route, null).getConnection(leaseTimeout, TimeUnit.MILLISECONDS);
+  }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.kernel.security;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testRecord() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-1L);
+    histogram.record(5L);
+    histogram.record(6L);
+    histogram.record(Long.MAX_VALUE);
+    long[] bounds = histogram.getBounds();
+    long[] counts = histogram.getCounts();
+    assertEquals(bounds.length, counts.length);
+    assertEquals(2L, counts[0]);
+    assertEquals(1L, counts[1]);
+    assertEquals(1L, counts[counts.length - 1]);
+    long total = 0L;
+    for (long count : counts) {
+      total += count;
+    }
+    assertEquals(4L, total);
+  }
+
+  @Test
+  public void testBoundsAreCopied() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    long[] bounds = histogram.getBounds();
+    bounds[0] = 0L;
+    assertArrayEquals(new long[] { 5L, 10L }, new long[] { histogram.getBounds()[0], histogram.getBounds()[1] });
+  }
+
+}
@@ -612,6 +612,39 @@ public class TrustedHttpClientImplTest {
     Assert.assertEquals(200, response.getStatusLine().getStatusCode());
   }
 
+  @Test
+  public void nonceIsReusedForFurtherRequests() throws ClientProtocolException, IOException {
+    HttpParams httpParams = createNiceMock(HttpParams.class);
+    replay(httpParams);
+    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
+
+    HttpClient httpClient = createMock("Request", HttpClient.class);
+    expect(httpClient.getParams()).andReturn(httpParams).anyTimes();
+    // Security handshake and close.
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
+    // First request.
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    // Second request to the same host without a handshake.
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    replay(httpClient);
+
+    HttpClientFactory httpClientFactory = createMock(HttpClientFactory.class);
+    expect(httpClientFactory.makeHttpClient()).andReturn(httpClient).atLeastOnce();
+    replay(httpClientFactory);
+    client.setHttpClientFactory(httpClientFactory);
+
+    assertEquals(200, client.execute(new HttpPost("http://localhost:8080/fake")).getStatusLine().getStatusCode());
+    HttpPost secondRequest = new HttpPost("http://localhost:8080/other");
+    assertEquals(200, client.execute(secondRequest).getStatusLine().getStatusCode());
+    assertTrue(secondRequest.getFirstHeader(TrustedHttpClientImpl.AUTHORIZATION_HEADER_NAME).getValue()
+            .contains("dcd98b7102dd2f0e8b11d0f600bfb0c093"));
+    verify(httpClient);
+    assertEquals(2, client.getRequests());
+    assertEquals(1, client.getAuthRoundTrips());
+    assertEquals(1, client.getPreemptiveAuthentications());
+  }
+
   @Test
   public void testNotAcceptsUrlSigningService() throws IOException {
     String notAcceptsUrl = "http://notaccepts.com";
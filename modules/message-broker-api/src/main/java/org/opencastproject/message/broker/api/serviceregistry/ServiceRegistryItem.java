@@ -0,0 +1,120 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.message.broker.api.serviceregistry;
+
+import org.opencastproject.message.broker.api.MessageItem;
+
+import java.io.Serializable;
+
+/**
+ * {@link Serializable} class that represents all of the possible messages sent through the ServiceRegistry topic.
+ */
+public class ServiceRegistryItem implements MessageItem, Serializable {
+
+  private static final long serialVersionUID = -2415907823611359147L;
+
+  /** The topic every node dispatching jobs listens to, since each of them needs to see every message */
+  public static final String SERVICEREGISTRY_TOPIC = "SERVICEREGISTRY.TOPIC";
+
+  private final long jobId;
+  private final String jobType;
+  private final String host;
+  private final float load;
+
+  /** The type of the message being sent. */
+  private final Type type;
+
+  public enum Type {
+    JobQueued, JobLoadAdded, JobLoadRemoved
+  };
+
+  /**
+   * @param jobId
+   *          The identifier of the job that has been queued
+   * @param jobType
+   *          The type of the job that has been queued
+   * @return Builds {@link ServiceRegistryItem} for a job which is waiting to be dispatched.
+   */
+  public static ServiceRegistryItem jobQueued(long jobId, String jobType) {
+    return new ServiceRegistryItem(jobId, jobType, null, 0.0f, Type.JobQueued);
+  }
+
+  /**
+   * @param jobId
+   *          The identifier of the job that started loading a host
+   * @param jobType
+   *          The type of the job
+   * @param host
+   *          The host processing the job
+   * @param load
+   *          The job's load
+   * @return Builds {@link ServiceRegistryItem} for a job which started loading a host.
+   */
+  public static ServiceRegistryItem jobLoadAdded(long jobId, String jobType, String host, float load) {
+    return new ServiceRegistryItem(jobId, jobType, host, load, Type.JobLoadAdded);
+  }
+
+  /**
+   * @param jobId
+   *          The identifier of the job that stopped loading a host
+   * @param jobType
+   *          The type of the job
+   * @return Builds {@link ServiceRegistryItem} for a job which is no longer loading any host.
+   */
+  public static ServiceRegistryItem jobLoadRemoved(long jobId, String jobType) {
+    return new ServiceRegistryItem(jobId, jobType, null, 0.0f, Type.JobLoadRemoved);
+  }
+
+  private ServiceRegistryItem(long jobId, String jobType, String host, float load, Type type) {
+    this.jobId = jobId;
+    this.jobType = jobType;
+    this.host = host;
+    this.load = load;
+    this.type = type;
+  }
+
+  @Override
+  public String getId() {
+    return Long.toString(jobId);
+  }
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  public String getJobType() {
+    return jobType;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public float getLoad() {
+    return load;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+}
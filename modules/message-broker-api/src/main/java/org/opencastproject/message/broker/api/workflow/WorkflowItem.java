@@ -72,6 +72,17 @@ public class WorkflowItem implements MessageItem, Serializable {
     return new WorkflowItem(workflowInstance);
   }
 
+  /**
+   * @param workflowInstance
+   *          The workflow instance to update.
+   * @param workflowInstanceXml
+   *          The workflow instance, already serialized using {@link WorkflowParser#toXml(WorkflowInstance)}.
+   * @return Builds {@link WorkflowItem} for updating a workflow instance.
+   */
+  public static WorkflowItem updateInstance(WorkflowInstance workflowInstance, String workflowInstanceXml) {
+    return new WorkflowItem(workflowInstance.getMediaPackage().getIdentifier().compact(), workflowInstanceXml);
+  }
+
   /**
    * @param workflowInstanceId
    *          The unique id of the workflow instance to delete.
@@ -132,6 +143,23 @@ public class WorkflowItem implements MessageItem, Serializable {
     this.type = Type.UpdateInstance;
   }
 
+  /**
+   * Constructor to build an update workflow instance {@link WorkflowItem} from a serialized workflow instance.
+   *
+   * @param mediaPackageId
+   *          The identifier of the workflow instance's media package.
+   * @param workflowInstanceXml
+   *          The serialized workflow instance to update.
+   */
+  private WorkflowItem(String mediaPackageId, String workflowInstanceXml) {
+    this.id = mediaPackageId;
+    this.workflowDefinitionId = null;
+    this.workflowDefinition = null;
+    this.workflowInstanceId = -1;
+    this.workflowInstance = workflowInstanceXml;
+    this.type = Type.UpdateInstance;
+  }
+
   /**
    * Constructor to build a delete workflow {@link WorkflowItem}.
    *
@@ -109,6 +109,7 @@ public class MessageBaseFacility {
         connectionFactory.setUserName(username);
         connectionFactory.setPassword(password);
       }
+      configure(connectionFactory);
       connectionFactory.setTransportListener(new TransportListener() {
         @Override
         public void transportResumed() {
@@ -159,6 +160,7 @@ public class MessageBaseFacility {
 
   /** Closes all open sessions and connections to the message broker */
   protected synchronized void disconnectMessageBroker(final boolean verbose) {
+    closePooledResources();
     if (producer != null || session != null || connection != null) {
       if (verbose) {
         logger.info("Stopping connection to ActiveMQ message broker...");
@@ -211,6 +213,34 @@ public class MessageBaseFacility {
     return session;
   }
 
+  /**
+   * Opens a new session which is owned by the caller, or returns {@code null} if the facility is not yet connected.
+   * <p>
+   * Sessions must not be used by more than one thread at the same time, so every long-lived consumer or pooled producer
+   * needs a session of its own.
+   */
+  protected synchronized Session createSession() throws JMSException {
+    if (connection == null)
+      return null;
+    return connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+  }
+
+  /**
+   * Lets subclasses adjust the connection factory before a connection is established.
+   *
+   * @param connectionFactory
+   *          the connection factory
+   */
+  protected void configure(ActiveMQConnectionFactory connectionFactory) {
+  }
+
+  /**
+   * Closes the sessions, consumers and producers that subclasses keep for reuse. This is called whenever the connection
+   * to the message broker is closed.
+   */
+  protected void closePooledResources() {
+  }
+
   /**
    * Return if there is a connection to the message broker.
    */
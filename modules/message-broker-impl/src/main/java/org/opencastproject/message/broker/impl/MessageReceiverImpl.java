@@ -23,12 +23,17 @@ package org.opencastproject.message.broker.impl;
 
 import org.opencastproject.message.broker.api.MessageReceiver;
 import org.opencastproject.message.broker.api.MessageSender.DestinationType;
+import org.opencastproject.message.broker.impl.jmx.MessageStatistics;
+import org.opencastproject.util.jmx.JmxUtil;
 
+import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.FutureTask;
 
 import javax.jms.Destination;
@@ -37,9 +42,12 @@ import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.ObjectMessage;
 import javax.jms.Session;
+import javax.management.ObjectInstance;
 
 /**
  * A class to receive messages from a ActiveMQ Message Broker.
+ * <p>
+ * Consumers are kept open per destination and reused for subsequent messages, each with a session of its own.
  */
 public class MessageReceiverImpl extends MessageBaseFacility implements MessageReceiver {
 
@@ -49,20 +57,55 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
   /** The OSGi service PID */
   private static final String SERVICE_PID = "org.opencastproject.message.broker.impl.MessageReceiverImpl";
 
+  /** Message receiver statistics JMX type */
+  private static final String JMX_MESSAGE_RECEIVER_STATISTICS_TYPE = "MessageReceiverStatistics";
+
+  /** The long-lived consumers by destination */
+  private final ConcurrentMap<String, PooledConsumer> consumers = new ConcurrentHashMap<String, PooledConsumer>();
+
+  /** The number of messages received per destination */
+  private final MessageStatistics statistics = new MessageStatistics();
+
+  /** The registered JMX bean */
+  private ObjectInstance statisticsBean = null;
+
+  @Override
+  public void activate(BundleContext bc) throws Exception {
+    statisticsBean = JmxUtil.registerMXBean(statistics, JMX_MESSAGE_RECEIVER_STATISTICS_TYPE);
+    super.activate(bc);
+  }
+
+  @Override
+  public void deactivate() {
+    super.deactivate();
+    if (statisticsBean != null) {
+      JmxUtil.unregisterMXBean(statisticsBean);
+      statisticsBean = null;
+    }
+  }
+
   /**
-   * Wait for a connection and then create a consumer from it
+   * Wait for a connection and then return the consumer for the destination, creating it if necessary
    * @param destinationId
    *          The destination queue or topic to create the consumer from.
    * @param type
    *          The type of the destination either queue or topic.
    * @return A consumer or <code>null</code> if there was a problem creating it.
    */
-  private MessageConsumer createConsumer(String destinationId, DestinationType type) throws JMSException {
+  private PooledConsumer getConsumer(String destinationId, DestinationType type) throws JMSException {
     waitForConnection();
+    String key = type + ":" + destinationId;
+    PooledConsumer consumer = consumers.get(key);
+    if (consumer != null)
+      return consumer;
     synchronized (this) {
+      consumer = consumers.get(key);
+      if (consumer != null)
+        return consumer;
+
       // Create the destination (Topic or Queue)
       Destination destination;
-      Session session = getSession();
+      Session session = createSession();
       // This shouldn't happen after a connection has been successfully
       // established at least once, but better be safe than sorry.
       if (session == null) {
@@ -76,7 +119,9 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
       }
 
       // Create a MessageConsumer from the Session to the Topic or Queue
-      return session.createConsumer(destination);
+      consumer = new PooledConsumer(key, session, session.createConsumer(destination));
+      consumers.put(key, consumer);
+      return consumer;
     }
   }
 
@@ -90,22 +135,45 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
    * @return A message or none if there was a problem getting the message.
    */
   private Message waitForMessage(String destinationId, DestinationType type) throws JMSException {
-    waitForConnection();
-    MessageConsumer consumer = null;
-    try {
-      consumer = createConsumer(destinationId, type);
-      if (consumer != null)
-          return consumer.receive();
+    PooledConsumer consumer = getConsumer(destinationId, type);
+    if (consumer == null) {
       logger.trace("Consumer could not be created.");
       return null;
-    } finally {
-      if (consumer != null) {
-        try {
-          consumer.close();
-        } catch (JMSException e) {
-          logger.error("Unable to close connections after receipt of message", e);
-        }
+    }
+    Message message;
+    try {
+      // A session may only be used by one thread at a time
+      synchronized (consumer) {
+        message = consumer.consumer.receive();
       }
+    } catch (JMSException e) {
+      closeConsumer(consumer);
+      throw e;
+    }
+    if (message == null) {
+      // The consumer has been closed
+      closeConsumer(consumer);
+    } else {
+      statistics.increment(destinationId);
+    }
+    return message;
+  }
+
+  /**
+   * Closes a consumer and removes it from the consumers in use.
+   *
+   * @param consumer
+   *          the consumer
+   */
+  private void closeConsumer(PooledConsumer consumer) {
+    consumers.remove(consumer.key, consumer);
+    consumer.close();
+  }
+
+  @Override
+  protected void closePooledResources() {
+    for (PooledConsumer consumer : consumers.values()) {
+      closeConsumer(consumer);
     }
   }
 
@@ -141,4 +209,28 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
     return futureTask;
   }
 
+  /** A session together with its consumer */
+  private static final class PooledConsumer {
+
+    private final String key;
+    private final Session session;
+    private final MessageConsumer consumer;
+
+    PooledConsumer(String key, Session session, MessageConsumer consumer) {
+      this.key = key;
+      this.session = session;
+      this.consumer = consumer;
+    }
+
+    void close() {
+      try {
+        consumer.close();
+        session.close();
+      } catch (JMSException e) {
+        logger.debug("Unable to close message consumer", e);
+      }
+    }
+
+  }
+
 }
@@ -23,20 +23,36 @@ package org.opencastproject.message.broker.impl;
 
 import org.opencastproject.message.broker.api.BaseMessage;
 import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.message.broker.impl.jmx.MessageStatistics;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.util.jmx.JmxUtil;
 
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.jms.DeliveryMode;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.MessageProducer;
 import javax.jms.Session;
+import javax.management.ObjectInstance;
 
 /**
  * A class built to send JMS messages through ActiveMQ.
+ * <p>
+ * Messages are sent through a pool of sessions, each with a producer of its own, so that several threads can send
+ * messages at the same time.
  */
 public class MessageSenderImpl extends MessageBaseFacility implements MessageSender {
 
@@ -46,9 +62,73 @@ public class MessageSenderImpl extends MessageBaseFacility implements MessageSen
   /** The OSGi service PID */
   private static final String SERVICE_PID = "org.opencastproject.message.broker.impl.MessageSenderImpl";
 
+  /** The key to find the maximum number of sessions used to send messages at the same time */
+  protected static final String ACTIVEMQ_SENDER_SESSIONS_KEY = "activemq.sender.sessions";
+
+  /** The key to find whether messages are sent asynchronously */
+  protected static final String ACTIVEMQ_SENDER_ASYNC_KEY = "activemq.sender.async";
+
+  /** The default maximum number of sessions used to send messages at the same time */
+  private static final int DEFAULT_SENDER_SESSIONS = 4;
+
+  /** Message sender statistics JMX type */
+  private static final String JMX_MESSAGE_SENDER_STATISTICS_TYPE = "MessageSenderStatistics";
+
   /** The security service */
   private SecurityService securityService;
 
+  /** Producers that are currently not in use */
+  private final BlockingQueue<PooledProducer> idleProducers = new LinkedBlockingQueue<PooledProducer>();
+
+  /** Incremented whenever the pooled producers are closed, so that producers in use are not returned to the pool */
+  private final AtomicLong generation = new AtomicLong();
+
+  /** Limits the number of producers in use */
+  private Semaphore producerPermits = new Semaphore(DEFAULT_SENDER_SESSIONS);
+
+  /** Whether to send messages asynchronously */
+  private boolean asyncSend = false;
+
+  /** The number of messages sent per destination */
+  private final MessageStatistics statistics = new MessageStatistics();
+
+  /** The registered JMX bean */
+  private ObjectInstance statisticsBean = null;
+
+  @Override
+  public void activate(BundleContext bc) throws Exception {
+    int sessions = DEFAULT_SENDER_SESSIONS;
+    String sessionsString = StringUtils.trimToNull(bc.getProperty(ACTIVEMQ_SENDER_SESSIONS_KEY));
+    if (sessionsString != null) {
+      try {
+        sessions = Math.max(1, Integer.parseInt(sessionsString));
+      } catch (NumberFormatException e) {
+        logger.warn("Number of sender sessions '{}' is malformed, setting to {}", sessionsString,
+                DEFAULT_SENDER_SESSIONS);
+      }
+    }
+    producerPermits = new Semaphore(sessions);
+    asyncSend = BooleanUtils.toBoolean(StringUtils.trimToNull(bc.getProperty(ACTIVEMQ_SENDER_ASYNC_KEY)));
+    logger.info("Sending messages {} through up to {} sessions", asyncSend ? "asynchronously" : "synchronously",
+            sessions);
+    statisticsBean = JmxUtil.registerMXBean(statistics, JMX_MESSAGE_SENDER_STATISTICS_TYPE);
+    super.activate(bc);
+  }
+
+  @Override
+  public void deactivate() {
+    super.deactivate();
+    if (statisticsBean != null) {
+      JmxUtil.unregisterMXBean(statisticsBean);
+      statisticsBean = null;
+    }
+  }
+
+  @Override
+  protected void configure(ActiveMQConnectionFactory connectionFactory) {
+    connectionFactory.setUseAsyncSend(asyncSend);
+  }
+
   @Override
   public void sendObjectMessage(String destinationId, DestinationType type, Serializable object) {
     if (!isConnected()) {
@@ -56,32 +136,76 @@ public class MessageSenderImpl extends MessageBaseFacility implements MessageSen
       return;
     }
     try {
-      synchronized (this) {
-        Session session = getSession();
+      producerPermits.acquire();
+    } catch (InterruptedException e) {
+      logger.warn("Interrupted while waiting to send a message to {}", destinationId);
+      Thread.currentThread().interrupt();
+      return;
+    }
+    PooledProducer producer = null;
+    try {
+      producer = idleProducers.poll();
+      if (producer == null) {
+        producer = createProducer();
         // This shouldn't happen after a connection has been successfully
         // established at least once, but better be safe than sorry.
-        if (session == null)
+        if (producer == null)
           return;
-        // Create a message or use the provided one.
-        Message message = session.createObjectMessage(
-                new BaseMessage(securityService.getOrganization(), securityService.getUser(), object));
-
-        Destination destination;
-        // Create the destination (Topic or Queue)
-        if (type.equals(DestinationType.Queue)) {
-          destination = session.createQueue(destinationId);
-        } else {
-          destination = session.createTopic(destinationId);
-        }
-
-        // Tell the producer to send the message
-        logger.trace("Sent message: " + message.hashCode() + " : " + Thread.currentThread().getName());
-
-        // Send the message
-        getMessageProducer().send(destination, message);
+      }
+      Session session = producer.session;
+      // Create a message or use the provided one.
+      Message message = session.createObjectMessage(
+              new BaseMessage(securityService.getOrganization(), securityService.getUser(), object));
+
+      Destination destination;
+      // Create the destination (Topic or Queue)
+      if (type.equals(DestinationType.Queue)) {
+        destination = session.createQueue(destinationId);
+      } else {
+        destination = session.createTopic(destinationId);
+      }
+
+      // Tell the producer to send the message
+      logger.trace("Sent message: " + message.hashCode() + " : " + Thread.currentThread().getName());
+
+      // Send the message
+      producer.producer.send(destination, message);
+      statistics.increment(destinationId);
+
+      if (producer.generation == generation.get()) {
+        idleProducers.offer(producer);
+        producer = null;
       }
     } catch (JMSException e) {
       logger.error("Had an exception while trying to send a message", e);
+    } finally {
+      // A producer that has not been returned to the pool has failed or is outdated and is not reused
+      if (producer != null)
+        producer.close();
+      producerPermits.release();
+    }
+  }
+
+  /**
+   * Creates a new session with an anonymous producer.
+   *
+   * @return the producer or <code>null</code> if there is no connection to the message broker
+   */
+  private PooledProducer createProducer() throws JMSException {
+    Session session = createSession();
+    if (session == null)
+      return null;
+    MessageProducer producer = session.createProducer(null);
+    producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+    return new PooledProducer(session, producer, generation.get());
+  }
+
+  @Override
+  protected void closePooledResources() {
+    generation.incrementAndGet();
+    PooledProducer producer;
+    while ((producer = idleProducers.poll()) != null) {
+      producer.close();
     }
   }
 
@@ -90,4 +214,28 @@ public class MessageSenderImpl extends MessageBaseFacility implements MessageSen
     this.securityService = securityService;
   }
 
+  /** A session together with its producer */
+  private static final class PooledProducer {
+
+    private final Session session;
+    private final MessageProducer producer;
+    private final long generation;
+
+    PooledProducer(Session session, MessageProducer producer, long generation) {
+      this.session = session;
+      this.producer = producer;
+      this.generation = generation;
+    }
+
+    void close() {
+      try {
+        producer.close();
+        session.close();
+      } catch (JMSException e) {
+        logger.debug("Unable to close message producer", e);
+      }
+    }
+
+  }
+
 }
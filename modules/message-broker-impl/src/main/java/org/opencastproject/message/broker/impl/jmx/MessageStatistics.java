@@ -0,0 +1,77 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.message.broker.impl.jmx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MessageStatistics implements MessageStatisticsMXBean {
+
+  private static final String DELIMITER = ";";
+
+  private final ConcurrentMap<String, AtomicLong> counts = new ConcurrentHashMap<String, AtomicLong>();
+  private final AtomicLong total = new AtomicLong();
+  private final long started = System.currentTimeMillis();
+
+  /**
+   * Counts a message sent to or received from the given destination.
+   *
+   * @param destinationId
+   *          the destination
+   */
+  public void increment(String destinationId) {
+    AtomicLong count = counts.get(destinationId);
+    if (count == null) {
+      counts.putIfAbsent(destinationId, new AtomicLong());
+      count = counts.get(destinationId);
+    }
+    count.incrementAndGet();
+    total.incrementAndGet();
+  }
+
+  /**
+   * @see org.opencastproject.message.broker.impl.jmx.MessageStatisticsMXBean#getTotal()
+   */
+  @Override
+  public long getTotal() {
+    return total.get();
+  }
+
+  /**
+   * @see org.opencastproject.message.broker.impl.jmx.MessageStatisticsMXBean#getDestinations()
+   */
+  @Override
+  public String[] getDestinations() {
+    double seconds = Math.max(1L, System.currentTimeMillis() - started) / 1000.0;
+    List<String> destinations = new ArrayList<String>();
+    for (Entry<String, AtomicLong> entry : counts.entrySet()) {
+      long count = entry.getValue().get();
+      destinations.add(entry.getKey() + DELIMITER + count + DELIMITER + String.format("%.2f", count / seconds));
+    }
+    return destinations.toArray(new String[destinations.size()]);
+  }
+
+}
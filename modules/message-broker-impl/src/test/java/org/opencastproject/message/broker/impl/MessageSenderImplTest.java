@@ -31,6 +31,7 @@ import org.junit.Test;
 
 import java.io.Serializable;
 
+import javax.jms.DeliveryMode;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MessageProducer;
@@ -59,13 +60,15 @@ public class MessageSenderImplTest {
     MessageProducer messageProducer = EasyMock.createMock(MessageProducer.class);
     messageProducer.send(EasyMock.anyObject(Destination.class), EasyMock.eq(objectMessage));
     EasyMock.expectLastCall();
+    messageProducer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+    EasyMock.expectLastCall();
     // Create queue.
     Queue queue = EasyMock.createMock(Queue.class);
 
     // Create session.
     Session session = EasyMock.createMock(Session.class);
     EasyMock.expect(session.createQueue(destinationId)).andReturn(queue);
-    EasyMock.expect(session.createProducer(queue)).andReturn(messageProducer);
+    EasyMock.expect(session.createProducer(null)).andReturn(messageProducer);
     EasyMock.expect(session.createObjectMessage((Serializable) EasyMock.anyObject())).andReturn(objectMessage);
     session.close();
     EasyMock.expectLastCall();
@@ -77,6 +80,7 @@ public class MessageSenderImplTest {
     messageSenderImpl.setSecurityService(securityService);
     messageSenderImpl.enable(true);
     messageSenderImpl.sendObjectMessage(destinationId, DestinationType.Queue, serailizableObject);
+    EasyMock.verify(messageProducer);
   }
 
 }
@@ -44,4 +44,9 @@ public class MockMessageReceiver extends MessageReceiverImpl {
     return session;
   }
 
+  @Override
+  protected Session createSession() {
+    return session;
+  }
+
 }
@@ -47,6 +47,11 @@ public class MockMessageSender extends MessageSenderImpl {
     return session;
   }
 
+  @Override
+  protected Session createSession() {
+    return session;
+  }
+
   @Override
   protected MessageProducer getMessageProducer() {
     return producer;
@@ -40,6 +40,12 @@ public interface Query {
   /** The date is inclusive. */
   Option<Date> getModifiedBefore();
 
+  /**
+   * The identifier of the last media package of the previous page. Only considered for subsequent requests, where
+   * media packages modified exactly at {@link #getModifiedAfter()} are skipped up to and including this one.
+   */
+  Option<String> getLastMediaPackageId();
+
   Option<Integer> getLimit();
 
   Option<Integer> getOffset();
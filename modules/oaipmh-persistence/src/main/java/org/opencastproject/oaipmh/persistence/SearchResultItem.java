@@ -35,7 +35,11 @@ public interface SearchResultItem {
   /** @return the media package id */
   String getId();
 
-  /** @return the media package */
+  /**
+   * @return the media package
+   * @throws UnreadableMediaPackageException
+   *           if the stored media package cannot be read
+   */
   MediaPackage getMediaPackage();
 
   /** @return the serialized media package */
@@ -0,0 +1,40 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package org.opencastproject.oaipmh.persistence;
+
+/**
+ * Thrown if the media package stored with an OAI-PMH entity cannot be read.
+ */
+public class UnreadableMediaPackageException extends RuntimeException {
+
+  private static final long serialVersionUID = 4182658326441733519L;
+
+  /**
+   * Create exception with a message and a cause.
+   *
+   * @param message
+   * @param cause
+   */
+  public UnreadableMediaPackageException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -244,14 +244,21 @@ public abstract class AbstractOaiPmhDatabase implements OaiPmhDatabase {
         for (Date p : query.getModifiedAfter())
           predicates.add(cb.greaterThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
       } else {
-        for (Date p : query.getModifiedAfter())
-          predicates.add(cb.greaterThan(c.get("modificationDate").as(Date.class), p));
+        // continue right after the last item of the previous page, using the media package id as tie-breaker
+        for (Date p : query.getModifiedAfter()) {
+          Predicate after = cb.greaterThan(c.get("modificationDate").as(Date.class), p);
+          for (String id : query.getLastMediaPackageId()) {
+            after = cb.or(after, cb.and(cb.equal(c.get("modificationDate").as(Date.class), p),
+                    cb.greaterThan(c.get("mediaPackageId").as(String.class), id)));
+          }
+          predicates.add(after);
+        }
       }
       for (Date p : query.getModifiedBefore())
         predicates.add(cb.lessThanOrEqualTo(c.get("modificationDate").as(Date.class), p));
 
       q.where(cb.and(predicates.toArray(new Predicate[predicates.size()])));
-      q.orderBy(cb.asc(c.get("modificationDate")));
+      q.orderBy(cb.asc(c.get("modificationDate")), cb.asc(c.get("mediaPackageId")));
 
       TypedQuery<OaiPmhEntity> typedQuery = em.createQuery(q);
       for (int maxResult : query.getLimit())
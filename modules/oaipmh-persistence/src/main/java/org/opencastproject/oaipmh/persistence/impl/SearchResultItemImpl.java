@@ -29,6 +29,7 @@ import org.opencastproject.oaipmh.persistence.OaiPmhElementEntity;
 import org.opencastproject.oaipmh.persistence.OaiPmhEntity;
 import org.opencastproject.oaipmh.persistence.SearchResultElementItem;
 import org.opencastproject.oaipmh.persistence.SearchResultItem;
+import org.opencastproject.oaipmh.persistence.UnreadableMediaPackageException;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -37,7 +38,7 @@ import java.util.List;
 public class SearchResultItemImpl implements SearchResultItem {
 
   private final String mediaPackageId;
-  private final MediaPackage mediaPackage;
+  private MediaPackage mediaPackage;
   private final String mediaPackageXml;
   private final String organization;
   private final String repoId;
@@ -47,14 +48,13 @@ public class SearchResultItemImpl implements SearchResultItem {
   private DublinCoreCatalog dublincoreEpisode;
   private DublinCoreCatalog dublincoreSeries;
 
-  public SearchResultItemImpl(final OaiPmhEntity entity) throws MediaPackageException {
+  public SearchResultItemImpl(final OaiPmhEntity entity) {
     this.mediaPackageId = entity.getMediaPackageId();
     this.mediaPackageXml = entity.getMediaPackageXML();
     this.organization = entity.getOrganization();
     this.repoId = entity.getRepositoryId();
     this.modificationDate = entity.getModificationDate();
     this.isDeleted = entity.isDeleted();
-    this.mediaPackage = MediaPackageParser.getFromXml(mediaPackageXml);
     this.mediaPackageElements = new ArrayList<>();
     for (OaiPmhElementEntity elementEntity : entity.getMediaPackageElements()) {
       SearchResultElementItemImpl searchResultElementItem = new SearchResultElementItemImpl(elementEntity);
@@ -67,8 +67,16 @@ public class SearchResultItemImpl implements SearchResultItem {
     return mediaPackageId;
   }
 
+  /** The media package is parsed from its stored XML only once it is asked for. */
   @Override
-  public MediaPackage getMediaPackage() {
+  public synchronized MediaPackage getMediaPackage() {
+    if (mediaPackage == null) {
+      try {
+        mediaPackage = MediaPackageParser.getFromXml(mediaPackageXml);
+      } catch (MediaPackageException e) {
+        throw new UnreadableMediaPackageException("Unable to read media package " + mediaPackageId, e);
+      }
+    }
     return mediaPackage;
   }
 
@@ -222,6 +222,43 @@ public class OaiPmhPersistenceTest {
     Assert.assertEquals(mp2.getIdentifier().toString(), search.getItems().get(0).getId());
   }
 
+  @Test
+  public void testResumingAfterLastResult() throws Exception {
+    oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
+    MediaPackage mp2 = (MediaPackage) mp1.clone();
+    mp2.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew());
+    oaiPmhDatabase.store(mp2, REPOSITORY_ID_1);
+
+    SearchResult search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).limit(1).build());
+    Assert.assertEquals(1, search.size());
+    SearchResultItem last = search.getItems().get(0);
+    Assert.assertEquals(mp1.getIdentifier().toString(), last.getId());
+
+    // Modification dates are unique, so ties are exercised by resuming at the date of the first item itself:
+    // whether that item is returned again depends on the media package id tie-breaker only.
+    final SearchResultItem first = last;
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).modifiedAfter(first.getModificationDate())
+            .lastMediaPackageId("").subsequentRequest(true).build());
+    Assert.assertEquals(2, search.size());
+    Assert.assertEquals(first.getId(), search.getItems().get(0).getId());
+    Assert.assertEquals(mp2.getIdentifier().toString(), search.getItems().get(1).getId());
+
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).modifiedAfter(first.getModificationDate())
+            .lastMediaPackageId(first.getId()).subsequentRequest(true).build());
+    Assert.assertEquals(1, search.size());
+    Assert.assertEquals(mp2.getIdentifier().toString(), search.getItems().get(0).getId());
+
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).modifiedAfter(last.getModificationDate())
+            .lastMediaPackageId(last.getId()).limit(1).subsequentRequest(true).build());
+    Assert.assertEquals(1, search.size());
+    last = search.getItems().get(0);
+    Assert.assertEquals(mp2.getIdentifier().toString(), last.getId());
+
+    search = oaiPmhDatabase.search(queryRepo(REPOSITORY_ID_1).modifiedAfter(last.getModificationDate())
+            .lastMediaPackageId(last.getId()).limit(1).subsequentRequest(true).build());
+    Assert.assertEquals(0, search.size());
+  }
+
   @Test
   public void testRemovalOfOrphanedElements() throws Exception {
     oaiPmhDatabase.store(mp1, REPOSITORY_ID_1);
@@ -31,6 +31,8 @@ import org.opencastproject.oaipmh.server.MetadataFormat;
 import org.opencastproject.oaipmh.server.MetadataProvider;
 import org.opencastproject.oaipmh.server.OaiPmhRepository;
 import org.opencastproject.oaipmh.util.XmlGen;
+import org.opencastproject.util.XmlUtil;
+import org.opencastproject.util.data.Either;
 import org.opencastproject.util.data.Option;
 
 import org.w3c.dom.Document;
@@ -70,7 +72,10 @@ public class MatterhornMetadataProvider implements MetadataProvider {
 
   @Override
   public Element createMetadata(OaiPmhRepository repository, final SearchResultItem item, Option<String> set) {
-    final Document mp = MediaPackageParser.getAsXmlDocument(item.getMediaPackage());
+    // Use the stored media package XML instead of parsing and serializing the media package again
+    final Either<Exception, Document> stored = XmlUtil.parseNs(item.getMediaPackageXml());
+    final Document mp = stored.isRight() ? stored.right().value()
+            : MediaPackageParser.getAsXmlDocument(item.getMediaPackage());
     XmlGen xml = new XmlGen(Option.<String>none()) {
       @Override
       public Element create() {
@@ -39,6 +39,7 @@ import org.opencastproject.oaipmh.persistence.OaiPmhDatabase;
 import org.opencastproject.oaipmh.persistence.OaiPmhDatabaseException;
 import org.opencastproject.oaipmh.persistence.SearchResult;
 import org.opencastproject.oaipmh.persistence.SearchResultItem;
+import org.opencastproject.oaipmh.persistence.UnreadableMediaPackageException;
 import org.opencastproject.oaipmh.util.XmlGen;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Function0;
@@ -127,7 +128,6 @@ public abstract class OaiPmhRepository {
 
   /** Add an item to the repository. */
   public void addItem(MediaPackage mp) {
-    getPersistence().search(queryRepo(getRepositoryId()).build());
     try {
       getPersistence().store(mp, getRepositoryId());
     } catch (OaiPmhDatabaseException e) {
@@ -186,13 +186,15 @@ public abstract class OaiPmhRepository {
             return createIdDoesNotExistResponse(p);
           case 1:
             final SearchResultItem item = items.get(0);
+            // create the metadata for this item
+            final Option<Element> metadata = createMetadata(metadataProvider, item, p.getSet());
+            if (metadata.isNone())
+              return createIdDoesNotExistResponse(p);
             return new OaiVerbXmlGen(OaiPmhRepository.this, p) {
               @Override
               public Element create() {
-                // create the metadata for this item
-                Element metadata = metadataProvider.createMetadata(OaiPmhRepository.this, item, p.getSet());
                 return oai(request($a("identifier", p.getIdentifier().get()), metadataPrefixAttr(p)),
-                           verb(record(item, metadata)));
+                           verb(record(item, metadata.get())));
               }
             };
           default:
@@ -259,11 +261,13 @@ public abstract class OaiPmhRepository {
         return new ListXmlGen(listParams) {
           @Override
           protected List<Node> createContent(final Option<String> set) {
-            return mlist(params.getResult().getItems()).map(new Function<SearchResultItem, Node>() {
+            return mlist(params.getResult().getItems()).bind(new Function<SearchResultItem, Option<Node>>() {
               @Override
-              public Node apply(SearchResultItem item) {
-                final Element metadata = params.getMetadataProvider().createMetadata(OaiPmhRepository.this, item, set);
-                return record(item, metadata);
+              public Option<Node> apply(SearchResultItem item) {
+                for (Element metadata : createMetadata(params.getMetadataProvider(), item, set)) {
+                  return some(record(item, metadata));
+                }
+                return Option.none();
               }
             }).value();
           }
@@ -273,6 +277,21 @@ public abstract class OaiPmhRepository {
     return env.apply(p);
   }
 
+  /**
+   * Create the metadata of a record. Records whose stored media package cannot be read are skipped with a warning
+   * instead of failing the whole response.
+   */
+  private Option<Element> createMetadata(MetadataProvider metadataProvider, SearchResultItem item,
+          Option<String> set) {
+    try {
+      return some(metadataProvider.createMetadata(this, item, set));
+    } catch (UnreadableMediaPackageException e) {
+      logger.warn("Skipping OAI-PMH record {} since its media package cannot be read: {}", item.getId(),
+              e.getMessage());
+      return Option.none();
+    }
+  }
+
   private XmlGen handleListIdentifiers(final Params p) {
     final ListItemsEnv env = new ListItemsEnv() {
       @Override
@@ -487,6 +506,7 @@ public abstract class OaiPmhRepository {
                 return getPersistence().search(
                         queryRepo(getRepositoryId())
                                 .modifiedAfter(rq.getLastResult())
+                                .lastMediaPackageId(rq.getLastResultId())
                                 .modifiedBefore(rq.getUntil())
                                 .limit(getResultLimit())
                                 .subsequentRequest(true).build());
@@ -34,12 +34,18 @@ public class ResumableQuery {
   private final String metadataPrefix;
   private final Date until;
   private final Date lastResult;
+  private final Option<String> lastResultId;
   private final Option<String> set;
 
   ResumableQuery(String metadataPrefix, Date lastResult, Date until, Option<String> set) {
+    this(metadataPrefix, lastResult, Option.<String>none(), until, set);
+  }
+
+  ResumableQuery(String metadataPrefix, Date lastResult, Option<String> lastResultId, Date until, Option<String> set) {
     this.until = until;
     this.metadataPrefix = metadataPrefix;
     this.lastResult = lastResult;
+    this.lastResultId = lastResultId;
     this.set = set;
   }
 
@@ -55,6 +61,11 @@ public class ResumableQuery {
     return lastResult;
   }
 
+  /** The media package identifier of the last result, used to tell apart results modified at the same time. */
+  Option<String> getLastResultId() {
+    return lastResultId;
+  }
+
   Option<String> getSet() {
     return set;
   }
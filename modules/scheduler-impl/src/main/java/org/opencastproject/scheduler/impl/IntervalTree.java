@@ -0,0 +1,206 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.scheduler.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An interval tree of values scheduled from a start to an end time.
+ * <p>
+ * The tree is a randomized binary search tree ordered by start time, where each node knows the latest end time of its
+ * subtree. This allows to find all intervals intersecting a given time range in logarithmic time plus the number of
+ * matches, instead of comparing the range with every single interval.
+ * <p>
+ * This class is not thread safe. Trees which are shared between threads must not be modified after they have been
+ * published.
+ */
+public final class IntervalTree<A> {
+
+  /** Source of node priorities keeping the tree balanced */
+  private final Random random = new Random();
+
+  /** The root node or <code>null</code> if the tree is empty */
+  private Node<A> root;
+
+  /** The number of intervals in the tree */
+  private int size = 0;
+
+  /**
+   * Adds an interval to the tree.
+   *
+   * @param start
+   *          the start time in milliseconds
+   * @param end
+   *          the end time in milliseconds
+   * @param value
+   *          the value scheduled for this interval
+   */
+  public void add(long start, long end, A value) {
+    root = insert(root, new Node<>(start, end, value, random.nextInt()));
+    size++;
+  }
+
+  /**
+   * Returns all intervals intersecting the closed range from <code>start</code> to <code>end</code>, i.e. all
+   * intervals that start before or at <code>end</code> and end after or at <code>start</code>. The intervals are
+   * ordered by their start time.
+   *
+   * @param start
+   *          the start of the range in milliseconds
+   * @param end
+   *          the end of the range in milliseconds
+   * @return the intersecting intervals
+   */
+  public List<Entry<A>> find(long start, long end) {
+    final List<Entry<A>> result = new ArrayList<>();
+    collect(root, start, end, result);
+    return result;
+  }
+
+  /**
+   * Returns whether any interval overlaps the half-open range from <code>start</code> to <code>end</code>. Intervals
+   * only touching the range at its start or its end do not overlap.
+   *
+   * @param start
+   *          the start of the range in milliseconds
+   * @param end
+   *          the end of the range in milliseconds
+   * @return <code>true</code> if there is an overlapping interval
+   */
+  public boolean overlaps(long start, long end) {
+    for (Entry<A> entry : find(start, end)) {
+      if (entry.getStart() < end && start < entry.getEnd())
+        return true;
+    }
+    return false;
+  }
+
+  /** Returns the number of intervals in the tree. */
+  public int size() {
+    return size;
+  }
+
+  private static <A> Node<A> insert(Node<A> node, Node<A> inserted) {
+    if (node == null)
+      return inserted;
+    if (inserted.getStart() < node.getStart()) {
+      node.left = insert(node.left, inserted);
+      if (node.left.priority > node.priority)
+        node = rotateRight(node);
+    } else {
+      node.right = insert(node.right, inserted);
+      if (node.right.priority > node.priority)
+        node = rotateLeft(node);
+    }
+    node.update();
+    return node;
+  }
+
+  private static <A> Node<A> rotateRight(Node<A> node) {
+    final Node<A> left = node.left;
+    node.left = left.right;
+    node.update();
+    left.right = node;
+    left.update();
+    return left;
+  }
+
+  private static <A> Node<A> rotateLeft(Node<A> node) {
+    final Node<A> right = node.right;
+    node.right = right.left;
+    node.update();
+    right.left = node;
+    right.update();
+    return right;
+  }
+
+  private static <A> void collect(Node<A> node, long start, long end, List<Entry<A>> result) {
+    // no interval in this subtree ends after the start of the range
+    if (node == null || node.maxEnd < start)
+      return;
+    collect(node.left, start, end, result);
+    // nodes on the right start even later
+    if (node.getStart() > end)
+      return;
+    if (node.getEnd() >= start)
+      result.add(node);
+    collect(node.right, start, end, result);
+  }
+
+  /** An interval of the tree. */
+  public static class Entry<A> {
+
+    private final long start;
+    private final long end;
+    private final A value;
+
+    Entry(long start, long end, A value) {
+      this.start = start;
+      this.end = end;
+      this.value = value;
+    }
+
+    /** Returns the start time in milliseconds. */
+    public long getStart() {
+      return start;
+    }
+
+    /** Returns the end time in milliseconds. */
+    public long getEnd() {
+      return end;
+    }
+
+    /** Returns the value scheduled for this interval. */
+    public A getValue() {
+      return value;
+    }
+
+  }
+
+  /** A node of the tree, which is an interval knowing the latest end time of its subtree */
+  private static final class Node<A> extends Entry<A> {
+
+    private final int priority;
+    private long maxEnd;
+    private Node<A> left;
+    private Node<A> right;
+
+    Node(long start, long end, A value, int priority) {
+      super(start, end, value);
+      this.priority = priority;
+      this.maxEnd = end;
+    }
+
+    void update() {
+      maxEnd = getEnd();
+      if (left != null && left.maxEnd > maxEnd)
+        maxEnd = left.maxEnd;
+      if (right != null && right.maxEnd > maxEnd)
+        maxEnd = right.maxEnd;
+    }
+
+  }
+
+}
@@ -144,7 +144,6 @@ import org.apache.commons.lang3.text.WordUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeConstants;
 import org.joda.time.DateTimeZone;
-import org.joda.time.Interval;
 import org.osgi.framework.ServiceException;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
@@ -194,6 +193,15 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   /** The default cache expire time in seconds */
   private static final int DEFAULT_CACHE_EXPIRE = 60;
 
+  /** The maximum number of capture agents whose schedule is kept in memory to check for conflicts */
+  private static final int SCHEDULE_INDEX_CACHE_SIZE = 1000;
+
+  /**
+   * The time in milliseconds a schedule must not have been modified before it is kept in memory. Modification dates
+   * may be stored with a resolution of seconds, so modifications done right after another might not be detectable.
+   */
+  private static final long SCHEDULE_INDEX_SETTLE_TIME = 5000L;
+
   /** The Etag for an empty calendar */
   private static final String EMPTY_CALENDAR_ETAG = "mod0";
 
@@ -232,6 +240,10 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   protected Cache<String, String> lastModifiedCache = CacheBuilder.newBuilder()
           .expireAfterWrite(DEFAULT_CACHE_EXPIRE, TimeUnit.SECONDS).build();
 
+  /** The scheduled events by organization and capture agent, used to check for conflicts */
+  private final Cache<String, ScheduleIndex> scheduleIndexCache = CacheBuilder.newBuilder()
+          .maximumSize(SCHEDULE_INDEX_CACHE_SIZE).build();
+
   /** The transaction cleanup offset in millis */
   protected int transactionOffsetMillis = DateTimeConstants.MILLIS_PER_DAY * 10;
 
@@ -1418,13 +1430,14 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   }
 
   /*
-   * Returns a list of conflicting mediapackages.  This method checks for containment, starts-during, and ends-during.
+   * Adds the identifiers of the events conflicting with the given time range.  Only the events of the index which are
+   * close to the range are checked.  This method checks for containment, starts-during, and ends-during.
    */
-  private List<MediaPackage> checkScheduleConflicts(Date checkStart, Date checkEnd, ARecord[] records) {
-    final List<ARecord> result = new ArrayList<>();
-    for (final ARecord r : records) {
-      final Date start = r.getProperties().apply(Properties.getDate(START_DATE_CONFIG));
-      final Date end = r.getProperties().apply(Properties.getDate(END_DATE_CONFIG));
+  private void addScheduleConflicts(Date checkStart, Date checkEnd, IntervalTree<String> index, Set<String> conflicts) {
+    for (IntervalTree.Entry<String> event : index.find(checkStart.getTime() - EVENT_MINIMUM_SEPARATION_MILLISECONDS,
+            checkEnd.getTime() + EVENT_MINIMUM_SEPARATION_MILLISECONDS)) {
+      final Date start = new Date(event.getStart());
+      final Date end = new Date(event.getEnd());
       /*
       If the potential event starts during event r OR
       If the potential event ends during event r OR
@@ -1435,9 +1448,22 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
        || checkEnd.after(start) && checkEnd.before(end)
        || checkStart.before(start) && checkEnd.after(end)
        || eventWithinMinimumSeparation(checkStart, checkEnd, start, end)) {
-        result.add(r);
+        conflicts.add(event.getValue());
       }
     }
+  }
+
+  /*
+   * Returns the given events of a capture agent ordered by their start date.
+   */
+  private List<MediaPackage> getConflictingEvents(String captureAgentId, Set<String> mediaPackageIds) {
+    final List<ARecord> result = new ArrayList<>();
+    if (mediaPackageIds.isEmpty())
+      return new ArrayList<>();
+    for (final ARecord r : getScheduledEvents(Opt.some(captureAgentId))) {
+      if (mediaPackageIds.contains(r.getMediaPackageId()))
+        result.add(r);
+    }
     result.sort(new Comparator<ARecord>() {
       @Override
       public int compare(ARecord o1, ARecord o2) {
@@ -1466,13 +1492,47 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   @Override
   public List<MediaPackage> findConflictingEvents(String captureDeviceID, Date startDate, Date endDate)
           throws SchedulerException {
-    final ARecord[] alreadyScheduledEvents = getScheduledEvents(Opt.some(captureDeviceID));
-    return findConflictingEvents(startDate, endDate, alreadyScheduledEvents);
+    final Set<String> conflicts = new HashSet<>();
+    addScheduleConflicts(startDate, endDate, getScheduleIndex(captureDeviceID), conflicts);
+    return getConflictingEvents(captureDeviceID, conflicts);
   }
 
-  private List<MediaPackage> findConflictingEvents(Date startDate, Date endDate, ARecord[] alreadyScheduledEvents)
-          throws SchedulerException {
-    return checkScheduleConflicts(startDate, endDate, alreadyScheduledEvents);
+  /**
+   * Returns the index of the events scheduled for a capture agent. The index is kept in memory until the schedule of
+   * the capture agent is modified, which is detected by the last modification date of the agent's calendar.
+   *
+   * @param captureAgentId
+   *          the capture agent
+   * @return the scheduled events by start and end date
+   */
+  private IntervalTree<String> getScheduleIndex(String captureAgentId) throws SchedulerException {
+    final String key = securityService.getOrganization().getId() + "/" + captureAgentId;
+    long lastModified;
+    try {
+      lastModified = persistence.getLastModified(captureAgentId).getTime();
+    } catch (NotFoundException e) {
+      lastModified = -1L;
+    } catch (SchedulerServiceDatabaseException e) {
+      throw new SchedulerException(e);
+    }
+    final ScheduleIndex cached = scheduleIndexCache.getIfPresent(key);
+    if (cached != null && cached.lastModified == lastModified)
+      return cached.events;
+
+    AQueryBuilder query = assetManager.createQuery();
+    Props p = new Props(query);
+    Predicate predicate = withOrganization(query).and(withOwner(query)).and(query.hasPropertiesOf(p.namespace()))
+            .and(withVersion(query)).and(p.agent().eq(captureAgentId));
+    final IntervalTree<String> events = new IntervalTree<>();
+    for (ARecord r : query.select(p.start().target(), p.end().target()).where(predicate).run().getRecords()) {
+      final Date start = r.getProperties().apply(Properties.getDate(START_DATE_CONFIG));
+      final Date end = r.getProperties().apply(Properties.getDate(END_DATE_CONFIG));
+      events.add(start.getTime(), end.getTime(), r.getMediaPackageId());
+    }
+    logger.debug("Indexed {} events scheduled for capture agent '{}'", events.size(), captureAgentId);
+    if (System.currentTimeMillis() - lastModified > SCHEDULE_INDEX_SETTLE_TIME)
+      scheduleIndexCache.put(key, new ScheduleIndex(lastModified, events));
+    return events;
   }
 
   private List<String> preCollisionEventCheck(String trxId, String schedulingSource) throws SchedulerException {
@@ -1497,7 +1557,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
 
       // Check for conflicts
       List<String> conflictingRecords = new ArrayList<>();
-      Map<String, List<Interval>> invervalMap = new HashMap<>();
+      Map<String, IntervalTree<String>> invervalMap = new HashMap<>();
       for (ARecord record : result.getRecords()) {
         String agentId;
         Date start;
@@ -1519,28 +1579,17 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
                   .apply(Properties.getDate(END_DATE_CONFIG));
         }
 
-        Interval currentInterval = new Interval(start.getTime(), end.getTime());
-
-        List<Interval> intervals = invervalMap.get(agentId);
-        if (intervals == null)
-          intervals = new ArrayList<>();
-
-        boolean overlaps = false;
-        for (Interval i : intervals) {
-          if (!i.overlaps(currentInterval))
-            continue;
-
-          overlaps = true;
-          break;
+        IntervalTree<String> intervals = invervalMap.get(agentId);
+        if (intervals == null) {
+          intervals = new IntervalTree<>();
+          invervalMap.put(agentId, intervals);
         }
 
-        if (!overlaps) {
-          intervals.add(currentInterval);
+        if (!intervals.overlaps(start.getTime(), end.getTime())) {
+          intervals.add(start.getTime(), end.getTime(), record.getMediaPackageId());
         } else {
           conflictingRecords.add(record.getMediaPackageId());
         }
-
-        invervalMap.put(agentId, intervals);
       }
 
       return conflictingRecords;
@@ -1570,21 +1619,21 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     requireTrue(periods.size() > 0, "periods");
 
     try {
-      final ARecord[] alreadyScheduledEvents = getScheduledEvents(Opt.some(captureAgentId));
+      final IntervalTree<String> alreadyScheduledEvents = getScheduleIndex(captureAgentId);
       final TimeZone utc = TimeZone.getTimeZone("utc");
 
-      Set<MediaPackage> events = new HashSet<>();
+      Set<String> events = new HashSet<>();
 
       for (Period event : periods) {
         TimeZone.setDefault(utc);
         final Date startDate = event.getStart();
         final Date endDate = event.getEnd();
 
-        events.addAll(findConflictingEvents(startDate, endDate, alreadyScheduledEvents));
+        addScheduleConflicts(startDate, endDate, alreadyScheduledEvents, events);
       }
 
       TimeZone.setDefault(null);
-      return new ArrayList<>(events);
+      return getConflictingEvents(captureAgentId, events);
     } catch (Exception e) {
       logger.error("Failed to search for conflicting events: {}", getStackTrace(e));
       throw new SchedulerException(e);
@@ -2071,6 +2120,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   }
 
   private void touchLastEntry(String captureAgentId) throws SchedulerException {
+    scheduleIndexCache.invalidate(securityService.getOrganization().getId() + "/" + captureAgentId);
     // touch last entry
     try {
       logger.debug("Marking calendar feed for {} as modified", captureAgentId);
@@ -2634,6 +2684,19 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
 
   }
 
+  /** The events scheduled for a capture agent along with the last modification time of the agent's calendar */
+  private static final class ScheduleIndex {
+
+    private final long lastModified;
+    private final IntervalTree<String> events;
+
+    ScheduleIndex(long lastModified, IntervalTree<String> events) {
+      this.lastModified = lastModified;
+      this.events = events;
+    }
+
+  }
+
   private static class Props extends PropertySchema {
 
     Props(AQueryBuilder q) {
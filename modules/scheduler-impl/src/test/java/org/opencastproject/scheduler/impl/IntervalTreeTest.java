@@ -0,0 +1,109 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class IntervalTreeTest {
+
+  @Test
+  public void testFind() {
+    IntervalTree<String> tree = new IntervalTree<>();
+    tree.add(10, 20, "a");
+    tree.add(30, 40, "b");
+    tree.add(15, 35, "c");
+    assertEquals(3, tree.size());
+
+    assertEquals(values(tree.find(0, 5)), new ArrayList<String>());
+    assertEquals(values(tree.find(0, 10)), list("a"));
+    assertEquals(values(tree.find(20, 30)), list("a", "c", "b"));
+    assertEquals(values(tree.find(36, 50)), list("b"));
+    assertEquals(values(tree.find(41, 50)), new ArrayList<String>());
+  }
+
+  @Test
+  public void testOverlaps() {
+    IntervalTree<String> tree = new IntervalTree<>();
+    tree.add(10, 20, "a");
+    assertTrue(tree.overlaps(15, 25));
+    assertTrue(tree.overlaps(5, 30));
+    // touching intervals do not overlap
+    assertFalse(tree.overlaps(20, 30));
+    assertFalse(tree.overlaps(0, 10));
+  }
+
+  @Test
+  public void testFindMatchesFullScan() {
+    final Random random = new Random(42);
+    final IntervalTree<Integer> tree = new IntervalTree<>();
+    final List<long[]> intervals = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      long start = random.nextInt(100000);
+      long end = start + random.nextInt(i % 100 == 0 ? 20000 : 200);
+      tree.add(start, end, i);
+      intervals.add(new long[] { start, end });
+    }
+    for (int i = 0; i < 500; i++) {
+      long start = random.nextInt(100000);
+      long end = start + random.nextInt(500);
+      List<Integer> expected = new ArrayList<>();
+      for (int j = 0; j < intervals.size(); j++) {
+        if (intervals.get(j)[0] <= end && intervals.get(j)[1] >= start)
+          expected.add(j);
+      }
+      List<Integer> found = values(tree.find(start, end));
+      // results are ordered by start
+      for (int j = 1; j < found.size(); j++) {
+        assertTrue(intervals.get(found.get(j - 1))[0] <= intervals.get(found.get(j))[0]);
+      }
+      found.sort(null);
+      assertEquals(expected, found);
+    }
+  }
+
+  private static <A> List<A> values(List<IntervalTree.Entry<A>> entries) {
+    List<A> values = new ArrayList<>();
+    for (IntervalTree.Entry<A> entry : entries) {
+      values.add(entry.getValue());
+    }
+    return values;
+  }
+
+  @SafeVarargs
+  private static <A> List<A> list(A... values) {
+    List<A> list = new ArrayList<>();
+    for (A value : values) {
+      list.add(value);
+    }
+    return list;
+  }
+
+}
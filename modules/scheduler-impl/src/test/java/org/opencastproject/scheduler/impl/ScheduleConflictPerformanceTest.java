@@ -0,0 +1,115 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares two ways to check a series of recurring events for conflicts with the schedule of a busy room: scanning all
+ * scheduled events, and looking them up in an {@link IntervalTree}.
+ */
+@Ignore
+public class ScheduleConflictPerformanceTest {
+  private static final Logger logger = LoggerFactory.getLogger(ScheduleConflictPerformanceTest.class);
+
+  private static final int EVENTS = 10000;
+  private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+  private static final long START = 1500000000000L;
+
+  @Test
+  public void testScheduleRecurringEvents() {
+    // a lecture every day from 8 to 10 is already scheduled
+    final List<long[]> scheduled = recurring(START + 8 * HOUR, 2 * HOUR);
+    // add a lecture every day from 9 to 10, conflicting each day, and one from 12 to 13, conflicting never
+    final List<long[]> conflicting = recurring(START + 9 * HOUR, HOUR);
+    final List<long[]> free = recurring(START + 12 * HOUR, HOUR);
+
+    final IntervalTree<Integer> tree = new IntervalTree<>();
+    long time = System.nanoTime();
+    for (int i = 0; i < scheduled.size(); i++) {
+      tree.add(scheduled.get(i)[0], scheduled.get(i)[1], i);
+    }
+    logger.info("Indexing {} events took {} ms", EVENTS, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - time));
+
+    for (List<long[]> periods : Arrays.asList(conflicting, free)) {
+      time = System.nanoTime();
+      final Set<Integer> scanned = new HashSet<>();
+      for (long[] period : periods) {
+        for (int i = 0; i < scheduled.size(); i++) {
+          if (isConflicting(period, scheduled.get(i)))
+            scanned.add(i);
+        }
+      }
+      final long scanTime = System.nanoTime() - time;
+
+      time = System.nanoTime();
+      final Set<Integer> indexed = new HashSet<>();
+      for (long[] period : periods) {
+        final long separation = SchedulerServiceImpl.EVENT_MINIMUM_SEPARATION_MILLISECONDS;
+        for (IntervalTree.Entry<Integer> entry : tree.find(period[0] - separation, period[1] + separation)) {
+          if (isConflicting(period, new long[] { entry.getStart(), entry.getEnd() }))
+            indexed.add(entry.getValue());
+        }
+      }
+      final long indexTime = System.nanoTime() - time;
+
+      assertEquals(scanned, indexed);
+      logger.info("Checking {} recurring events found {} conflicts, scanning took {} ms, the index took {} ms", EVENTS,
+              indexed.size(), TimeUnit.NANOSECONDS.toMillis(scanTime), TimeUnit.NANOSECONDS.toMillis(indexTime));
+    }
+  }
+
+  private static List<long[]> recurring(long start, long duration) {
+    final List<long[]> periods = new ArrayList<>(EVENTS);
+    for (int i = 0; i < EVENTS; i++) {
+      periods.add(new long[] { start + i * DAY, start + i * DAY + duration });
+    }
+    return periods;
+  }
+
+  /** The conflict check of the scheduler service */
+  private static boolean isConflicting(long[] check, long[] event) {
+    final long separation = SchedulerServiceImpl.EVENT_MINIMUM_SEPARATION_MILLISECONDS;
+    return check[0] > event[0] && check[0] < event[1]
+            || check[1] > event[0] && check[1] < event[1]
+            || check[0] < event[0] && check[1] > event[1]
+            || Math.abs(check[0] - event[0]) < separation
+            || Math.abs(check[0] - event[1]) < separation
+            || Math.abs(check[1] - event[0]) < separation
+            || Math.abs(check[1] - event[1]) < separation;
+  }
+
+}
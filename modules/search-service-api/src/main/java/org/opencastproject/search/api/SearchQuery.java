@@ -42,11 +42,21 @@ public class SearchQuery {
   protected Date deletedDate = null;
   protected Sort sort = Sort.DATE_CREATED;
   protected boolean sortAscending = true;
+  protected Field[] fields = null;
 
   public enum Sort {
     DATE_CREATED, DATE_PUBLISHED, TITLE, SERIES_ID, MEDIA_PACKAGE_ID, CREATOR, CONTRIBUTOR, LANGUAGE, LICENSE, SUBJECT, DESCRIPTION, PUBLISHER
   }
 
+  /**
+   * The fields of a search result item that can be fetched selectively. The identifier, organization and media type of
+   * an item are always fetched.
+   */
+  public enum Field {
+    MEDIA_PACKAGE, TITLE, SUBJECT, DESCRIPTION, CREATOR, PUBLISHER, CONTRIBUTOR, DATE_CREATED, AVAILABILITY, LANGUAGE,
+    RIGHTS_HOLDER, SPATIAL, SERIES_ID, REPLACES, TYPE, ACCESS_RIGHTS, LICENSE, EXTENT, KEYWORDS, COVER, DATE_PUBLISHED
+  }
+
   public SearchQuery includeEpisodes(boolean includeEpisode) {
     this.includeEpisode = includeEpisode;
     return this;
@@ -146,6 +156,27 @@ public class SearchQuery {
     return deletedDate;
   }
 
+  /**
+   * Only fetch the given fields of the search result items instead of all of them. Language dependent fields like the
+   * title are only fetched in their language independent variant, and media segments are not fetched at all.
+   *
+   * @param fields
+   *          the fields to fetch, or <code>null</code> to fetch all fields
+   */
+  public SearchQuery withFields(Field... fields) {
+    this.fields = fields;
+    return this;
+  }
+
+  /**
+   * Return the fields to fetch of the search result items.
+   *
+   * @return the fields to fetch, or <code>null</code> if all fields are fetched
+   */
+  public Field[] getFields() {
+    return fields;
+  }
+
    /**
    * Sort the results by the specified field in ascending order.
    *
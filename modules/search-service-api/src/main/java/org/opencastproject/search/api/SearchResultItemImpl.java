@@ -23,6 +23,7 @@
 package org.opencastproject.search.api;
 
 import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.util.data.Function0;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -37,6 +39,7 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlID;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
 /**
@@ -63,6 +66,10 @@ public class SearchResultItemImpl implements SearchResultItem {
   @XmlElement(name = "mediapackage", namespace = "http://mediapackage.opencastproject.org")
   private MediaPackage mediaPackage = null;
 
+  /** Creates the media package the first time it is asked for */
+  @XmlTransient
+  private transient volatile Function0<MediaPackage> mediaPackageLoader = null;
+
   /** Dublin core field 'dc:extent' */
   @XmlElement
   private long dcExtent = -1;
@@ -580,6 +587,19 @@ public class SearchResultItemImpl implements SearchResultItem {
    */
   public void setMediaPackage(MediaPackage mediaPackage) {
     this.mediaPackage = mediaPackage;
+    this.mediaPackageLoader = null;
+  }
+
+  /**
+   * Sets a function that creates the media package associated with the search result item. The function is called the
+   * first time the media package is asked for, and its result is kept for subsequent calls.
+   *
+   * @param mediaPackageLoader
+   *          the function creating the media package
+   */
+  public void setMediaPackageLoader(Function0<MediaPackage> mediaPackageLoader) {
+    this.mediaPackage = null;
+    this.mediaPackageLoader = mediaPackageLoader;
   }
 
   /**
@@ -588,9 +608,29 @@ public class SearchResultItemImpl implements SearchResultItem {
    * @see org.opencastproject.search.api.SearchResultItem#getMediaPackage()
    */
   public MediaPackage getMediaPackage() {
+    if (mediaPackageLoader != null) {
+      synchronized (this) {
+        Function0<MediaPackage> loader = mediaPackageLoader;
+        if (loader != null) {
+          mediaPackage = loader.apply();
+          mediaPackageLoader = null;
+        }
+      }
+    }
     return mediaPackage;
   }
 
+  /**
+   * JAXB callback making sure that a lazily created media package is part of the serialized item.
+   *
+   * @param marshaller
+   *          the marshaller
+   */
+  @SuppressWarnings("unused")
+  private void beforeMarshal(Marshaller marshaller) {
+    getMediaPackage();
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -690,10 +730,31 @@ public class SearchResultItemImpl implements SearchResultItem {
    * Build a result item from an anonymously implemented interface to ensure you don't miss any fields.
    */
   public static SearchResultItemImpl fill(SearchResultItem from) {
+    SearchResultItemImpl item = fillFields(from);
+    item.setMediaPackage(from.getMediaPackage());
+    return item;
+  }
+
+  /**
+   * Build a result item from an anonymously implemented interface like {@link #fill(SearchResultItem)}, but only ask
+   * for the media package once it is needed. Use this if creating the media package is expensive.
+   */
+  public static SearchResultItemImpl fillLazily(final SearchResultItem from) {
+    SearchResultItemImpl item = fillFields(from);
+    item.setMediaPackageLoader(new Function0<MediaPackage>() {
+      @Override
+      public MediaPackage apply() {
+        return from.getMediaPackage();
+      }
+    });
+    return item;
+  }
+
+  /** Copies all fields but the media package. */
+  private static SearchResultItemImpl fillFields(SearchResultItem from) {
     SearchResultItemImpl item = new SearchResultItemImpl();
     item.setId(from.getId());
     item.setOrganization(from.getOrganization());
-    item.setMediaPackage(from.getMediaPackage());
     item.setDcExtent(from.getDcExtent());
     item.setDcTitle(from.getDcTitle());
     item.setDcSubject(from.getDcSubject());
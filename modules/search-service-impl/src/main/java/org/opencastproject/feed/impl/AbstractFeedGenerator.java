@@ -453,6 +453,18 @@ public abstract class AbstractFeedGenerator implements FeedGenerator {
     return ensureUrl(feedId, serverUrl);
   }
 
+  /**
+   * Returns the identifier of the series the feed for the given query is limited to. Feeds that are limited to a series
+   * only need to be generated again if that series changes.
+   *
+   * @param query
+   *          the query parameter
+   * @return the series identifier or <code>null</code> if the feed may contain episodes of any series
+   */
+  public String getSeries(String[] query) {
+    return null;
+  }
+
   /**
    * Loads and returns the feed data.
    *
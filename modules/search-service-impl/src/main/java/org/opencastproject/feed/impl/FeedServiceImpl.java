@@ -24,24 +24,34 @@ package org.opencastproject.feed.impl;
 
 import org.opencastproject.feed.api.Feed;
 import org.opencastproject.feed.api.FeedGenerator;
+import org.opencastproject.search.impl.SearchServiceImpl;
 import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.Role;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
 import org.opencastproject.util.doc.rest.RestParameter;
 import org.opencastproject.util.doc.rest.RestParameter.Type;
 import org.opencastproject.util.doc.rest.RestQuery;
 import org.opencastproject.util.doc.rest.RestResponse;
 import org.opencastproject.util.doc.rest.RestService;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.rometools.rome.io.FeedException;
 import com.rometools.rome.io.SyndFeedOutput;
 import com.rometools.rome.io.WireFeedOutput;
 
 import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -49,8 +59,11 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.Variant;
 
@@ -85,6 +98,18 @@ public class FeedServiceImpl {
   /** Name of the size parameter */
   private static final String PARAM_SIZE = "size";
 
+  /** The configuration key for the number of rendered feeds to cache */
+  public static final String CACHE_SIZE_KEY = "org.opencastproject.feed.cache.size";
+
+  /** The configuration key for the time in seconds rendered feeds are cached at most */
+  public static final String CACHE_EXPIRATION_KEY = "org.opencastproject.feed.cache.expiration";
+
+  /** The default number of rendered feeds to cache */
+  public static final int DEFAULT_CACHE_SIZE = 100;
+
+  /** The default time in seconds rendered feeds are cached at most */
+  public static final int DEFAULT_CACHE_EXPIRATION = 600;
+
   /** Logging facility */
   private static Logger logger = LoggerFactory.getLogger(FeedServiceImpl.class);
 
@@ -94,6 +119,46 @@ public class FeedServiceImpl {
   /** The security service */
   private SecurityService securityService = null;
 
+  /** The search service, which tells when cached feeds are outdated */
+  private volatile SearchServiceImpl searchService = null;
+
+  /** The rendered feeds, or <code>null</code> if caching is disabled */
+  private Cache<String, CachedFeed> cache = null;
+
+  /**
+   * OSGi callback on component activation.
+   *
+   * @param cc
+   *          the component context
+   */
+  void activate(ComponentContext cc) {
+    int size = DEFAULT_CACHE_SIZE;
+    int expiration = DEFAULT_CACHE_EXPIRATION;
+    if (cc != null) {
+      size = getIntProperty(cc, CACHE_SIZE_KEY, DEFAULT_CACHE_SIZE);
+      expiration = getIntProperty(cc, CACHE_EXPIRATION_KEY, DEFAULT_CACHE_EXPIRATION);
+    }
+    if (size > 0 && expiration > 0) {
+      cache = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(expiration, TimeUnit.SECONDS).build();
+      logger.info("Caching up to {} rendered feeds for at most {} seconds", size, expiration);
+    } else {
+      cache = null;
+      logger.info("Caching of rendered feeds is disabled");
+    }
+  }
+
+  private static int getIntProperty(ComponentContext cc, String key, int defaultValue) {
+    String value = StringUtils.trimToNull(cc.getBundleContext().getProperty(key));
+    if (value == null)
+      return defaultValue;
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      logger.warn("Configuration value {} for {} is malformed, setting to {}", value, key, defaultValue);
+      return defaultValue;
+    }
+  }
+
   /*
    * Note: We're using Regex matching for the path here, instead of normal JAX-RS paths.  Previously this class was a servlet,
    * which was fine except that it had auth issues.  Removing the servlet fixed the auth issues, but then the paths (as written
@@ -115,7 +180,7 @@ public class FeedServiceImpl {
           @RestResponse(description = "Return the feed of the appropriate type", responseCode = HttpServletResponse.SC_OK),
           @RestResponse(description = "", responseCode = HttpServletResponse.SC_BAD_REQUEST),
           @RestResponse(description = "", responseCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR) }, returnDescription = "")
-  public Response getFeed(@Context HttpServletRequest request) {
+  public Response getFeed(@Context HttpServletRequest request, @Context Request jaxrsRequest) {
     String contentType = null;
 
     logger.debug("Requesting RSS or Atom feed.");
@@ -135,42 +200,92 @@ public class FeedServiceImpl {
     else if (feedInfo.getType().equals(Feed.Type.RSS))
       contentType = "application/rss+xml";
 
-    // Have a feed generator create the requested feed
-    Feed feed = null;
-    for (FeedGenerator generator : feeds) {
-      if (generator.accept(feedInfo.getQuery())) {
-        feed = generator.createFeed(feedInfo.getType(), feedInfo.getQuery(), feedInfo.getSize(), organization);
-        if (feed == null) {
-          return Response.serverError().build();
+    // Serve the feed from the cache as long as the search index has not changed for it
+    final SearchServiceImpl search = searchService;
+    final Cache<String, CachedFeed> feedCache = search == null ? null : cache;
+    String key = getCacheKey(feedInfo, organization);
+    CachedFeed cachedFeed = feedCache == null ? null : feedCache.getIfPresent(key);
+    if (cachedFeed != null && !cachedFeed.isCurrent(search)) {
+      feedCache.invalidate(key);
+      cachedFeed = null;
+    }
+
+    if (cachedFeed == null) {
+      // Remember the index version before generating the feed, so that concurrent changes outdate it
+      long indexVersion = search == null ? 0L : search.getIndexVersion();
+
+      // Have a feed generator create the requested feed
+      Feed feed = null;
+      String series = null;
+      for (FeedGenerator generator : feeds) {
+        if (generator.accept(feedInfo.getQuery())) {
+          feed = generator.createFeed(feedInfo.getType(), feedInfo.getQuery(), feedInfo.getSize(), organization);
+          if (feed == null) {
+            return Response.serverError().build();
+          }
+          if (generator instanceof AbstractFeedGenerator)
+            series = ((AbstractFeedGenerator) generator).getSeries(feedInfo.getQuery());
+          break;
         }
-        break;
       }
-    }
 
-    // Have we found a feed generator?
-    if (feed == null) {
-      logger.debug("RSS/Atom feed could not be generated");
-      return Response.status(Status.NOT_FOUND).build();
+      // Have we found a feed generator?
+      if (feed == null) {
+        logger.debug("RSS/Atom feed could not be generated");
+        return Response.status(Status.NOT_FOUND).build();
+      }
+
+      String outputString = null;
+      try {
+        if (feedInfo.getType().equals(Feed.Type.RSS)) {
+          logger.debug("Creating RSS feed output.");
+          SyndFeedOutput output = new SyndFeedOutput();
+          outputString = output.outputString(new RomeRssFeed(feed, feedInfo));
+        } else {
+          logger.debug("Creating Atom feed output.");
+          WireFeedOutput output = new WireFeedOutput();
+          outputString = output.outputString(new RomeAtomFeed(feed, feedInfo));
+        }
+      } catch (FeedException e) {
+        return Response.serverError().build();
+      }
+
+      cachedFeed = new CachedFeed(outputString, feed.getEncoding(), indexVersion, series);
+      if (feedCache != null)
+        feedCache.put(key, cachedFeed);
     }
 
+    // Answer conditional requests of clients that already have the current feed
+    ResponseBuilder notModified = jaxrsRequest.evaluatePreconditions(cachedFeed.lastModified, cachedFeed.tag);
+    if (notModified != null)
+      return notModified.tag(cachedFeed.tag).lastModified(cachedFeed.lastModified).build();
+
     // Set character encoding
-    Variant v = new Variant(MediaType.valueOf(contentType), null, feed.getEncoding());
-    String outputString = null;
-    try {
-      if (feedInfo.getType().equals(Feed.Type.RSS)) {
-        logger.debug("Creating RSS feed output.");
-        SyndFeedOutput output = new SyndFeedOutput();
-        outputString = output.outputString(new RomeRssFeed(feed, feedInfo));
-      } else {
-        logger.debug("Creating Atom feed output.");
-        WireFeedOutput output = new WireFeedOutput();
-        outputString = output.outputString(new RomeAtomFeed(feed, feedInfo));
+    Variant v = new Variant(MediaType.valueOf(contentType), null, cachedFeed.encoding);
+    return Response.ok(cachedFeed.content, v).tag(cachedFeed.tag).lastModified(cachedFeed.lastModified).build();
+  }
+
+  /**
+   * Returns the key of a rendered feed in the cache. Since the feed contents depend on the permissions of the current
+   * user, the user's roles are part of the key.
+   *
+   * @param feedInfo
+   *          the requested feed
+   * @param organization
+   *          the current organization
+   * @return the cache key
+   */
+  private String getCacheKey(FeedInfo feedInfo, Organization organization) {
+    SortedSet<String> roles = new TreeSet<String>();
+    User user = securityService.getUser();
+    if (user != null) {
+      for (Role role : user.getRoles()) {
+        roles.add(role.getName());
       }
-    } catch (FeedException e) {
-      return Response.serverError().build();
     }
-
-    return Response.ok(outputString, v).build();
+    return StringUtils.join(new Object[] { organization == null ? null : organization.getId(), feedInfo.getType(),
+            feedInfo.getVersion(), StringUtils.join(feedInfo.getQuery(), "/"), feedInfo.getSize(),
+            StringUtils.join(roles, ",") }, "|");
   }
 
   /**
@@ -255,4 +370,54 @@ public class FeedServiceImpl {
     this.securityService = securityService;
   }
 
+  /**
+   * OSGi callback to set the search service.
+   *
+   * @param searchService
+   *          the search service
+   */
+  void setSearchService(SearchServiceImpl searchService) {
+    this.searchService = searchService;
+  }
+
+  /**
+   * OSGi callback to remove the search service.
+   *
+   * @param searchService
+   *          the search service
+   */
+  void unsetSearchService(SearchServiceImpl searchService) {
+    if (this.searchService == searchService)
+      this.searchService = null;
+  }
+
+  /** A rendered feed along with the information needed to tell whether it is still current */
+  private static final class CachedFeed {
+
+    private final String content;
+    private final String encoding;
+    private final long indexVersion;
+    private final String series;
+    private final Date lastModified;
+    private final EntityTag tag;
+
+    CachedFeed(String content, String encoding, long indexVersion, String series) {
+      this.content = content;
+      this.encoding = encoding;
+      this.indexVersion = indexVersion;
+      this.series = series;
+      // HTTP dates have a precision of seconds
+      this.lastModified = new Date(System.currentTimeMillis() / 1000L * 1000L);
+      this.tag = new EntityTag(Long.toHexString(indexVersion) + "-" + Integer.toHexString(content.hashCode()));
+    }
+
+    /** Returns whether the search index has not changed for this feed since it has been rendered */
+    boolean isCurrent(SearchServiceImpl search) {
+      if (series != null)
+        return search.getIndexVersion(series) <= indexVersion;
+      return search.getIndexVersion() == indexVersion;
+    }
+
+  }
+
 }
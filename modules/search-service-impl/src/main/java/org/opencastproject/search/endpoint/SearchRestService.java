@@ -138,6 +138,12 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
           @RestParameter(description = "Any series that matches this free-text query. If the additional boolean parameter \"episodes\" is \"true\", "
                   + "the result set will include this series episodes.", isRequired = false, name = "q", type = RestParameter.Type.STRING),
           @RestParameter(defaultValue = "false", description = "Whether to include this series episodes. This can be used in combination with \"id\" or \"q\".", isRequired = false, name = "episodes", type = RestParameter.Type.STRING),
+          @RestParameter(description = "A comma separated list of the fields to return for each item, e.g. "
+                  + "TITLE,DATE_CREATED. May include any of the following: MEDIA_PACKAGE, TITLE, SUBJECT, DESCRIPTION, "
+                  + "CREATOR, PUBLISHER, CONTRIBUTOR, DATE_CREATED, AVAILABILITY, LANGUAGE, RIGHTS_HOLDER, SPATIAL, "
+                  + "SERIES_ID, REPLACES, TYPE, ACCESS_RIGHTS, LICENSE, EXTENT, KEYWORDS, COVER, DATE_PUBLISHED. The "
+                  + "identifier, organization and media type are always returned. All fields are returned by default.",
+                  isRequired = false, name = "fields", type = RestParameter.Type.STRING),
           @RestParameter(name = "sort", isRequired = false, description = "The sort order.  May include any "
                   + "of the following: DATE_CREATED, DATE_PUBLISHED, TITLE, SERIES_ID, MEDIA_PACKAGE_ID, CREATOR, "
                   + "CONTRIBUTOR, LANGUAGE, LICENSE, SUBJECT, DESCRIPTION, PUBLISHER.  Add '_DESC' to reverse the sort order (e.g. TITLE_DESC).", type = RestParameter.Type.STRING),
@@ -152,6 +158,7 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
       @QueryParam("limit")    int     limit,
       @QueryParam("offset")   int     offset,
       @QueryParam("admin")    boolean admin,
+      @QueryParam("fields")   String  fields,
       @PathParam("format")    String  format
       ) throws SearchException, UnauthorizedException {
 
@@ -194,6 +201,7 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
     }
     query.withLimit(limit);
     query.withOffset(offset);
+    query.withFields(parseFields(fields));
 
     // Build the response
     ResponseBuilder rb = Response.ok();
@@ -221,6 +229,12 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
           @RestParameter(description = "The ID of the single episode to be returned, if it exists.", isRequired = false, name = "id", type = RestParameter.Type.STRING),
           @RestParameter(description = "Any episode that matches this free-text query.", isRequired = false, name = "q", type = RestParameter.Type.STRING),
           @RestParameter(description = "Any episode that belongs to specified series id.", isRequired = false, name = "sid", type = RestParameter.Type.STRING),
+          @RestParameter(description = "A comma separated list of the fields to return for each item, e.g. "
+                  + "TITLE,DATE_CREATED. May include any of the following: MEDIA_PACKAGE, TITLE, SUBJECT, DESCRIPTION, "
+                  + "CREATOR, PUBLISHER, CONTRIBUTOR, DATE_CREATED, AVAILABILITY, LANGUAGE, RIGHTS_HOLDER, SPATIAL, "
+                  + "SERIES_ID, REPLACES, TYPE, ACCESS_RIGHTS, LICENSE, EXTENT, KEYWORDS, COVER, DATE_PUBLISHED. The "
+                  + "identifier, organization and media type are always returned. All fields are returned by default.",
+                  isRequired = false, name = "fields", type = RestParameter.Type.STRING),
           // @RestParameter(defaultValue = "false", description =
           // "Whether to include this series episodes. This can be used in combination with \"id\" or \"q\".",
           // isRequired = false, name = "episodes", type = RestParameter.Type.STRING),
@@ -233,7 +247,8 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
   public Response getEpisode(@QueryParam("id") String id, @QueryParam("q") String text,
           @QueryParam("sid") String seriesId, @QueryParam("sort") String sort, @QueryParam("tag") String[] tags, @QueryParam("flavor") String[] flavors,
           @QueryParam("limit") int limit, @QueryParam("offset") int offset, @QueryParam("admin") boolean admin,
-          @PathParam("format") String format) throws SearchException, UnauthorizedException {
+          @QueryParam("fields") String fields, @PathParam("format") String format)
+          throws SearchException, UnauthorizedException {
     // CHECKSTYLE:ON
     // Prepare the flavors
     List<MediaPackageElementFlavor> flavorSet = new ArrayList<MediaPackageElementFlavor>();
@@ -250,7 +265,7 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
     SearchQuery search = new SearchQuery();
     search.withId(id).withSeriesId(seriesId)
             .withElementFlavors(flavorSet.toArray(new MediaPackageElementFlavor[flavorSet.size()]))
-            .withElementTags(tags).withLimit(limit).withOffset(offset);
+            .withElementTags(tags).withLimit(limit).withOffset(offset).withFields(parseFields(fields));
 
     if (StringUtils.isNotBlank(text)) {
       search.withText(text);
@@ -356,6 +371,28 @@ public class SearchRestService extends AbstractJobProducerEndpoint {
     return rb.build();
   }
 
+  /**
+   * Parses a comma separated list of search result item fields. Unknown fields are ignored.
+   *
+   * @param fields
+   *          the field list
+   * @return the fields, or <code>null</code> to return all fields
+   */
+  static SearchQuery.Field[] parseFields(String fields) {
+    if (StringUtils.isBlank(fields))
+      return null;
+    List<SearchQuery.Field> result = new ArrayList<SearchQuery.Field>();
+    for (String field : StringUtils.split(fields, ',')) {
+      String enumKey = StringUtils.trimToEmpty(field).toUpperCase();
+      try {
+        result.add(SearchQuery.Field.valueOf(enumKey));
+      } catch (IllegalArgumentException e) {
+        logger.warn("No field enum matches '{}'", enumKey);
+      }
+    }
+    return result.toArray(new SearchQuery.Field[result.size()]);
+  }
+
   /**
    * @see org.opencastproject.rest.AbstractJobProducerEndpoint#getService()
    */
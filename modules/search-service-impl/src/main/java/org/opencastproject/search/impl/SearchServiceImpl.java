@@ -34,6 +34,7 @@ import org.opencastproject.metadata.mpeg7.Mpeg7CatalogService;
 import org.opencastproject.search.api.SearchException;
 import org.opencastproject.search.api.SearchQuery;
 import org.opencastproject.search.api.SearchResult;
+import org.opencastproject.search.api.SearchResultItem;
 import org.opencastproject.search.api.SearchService;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabase;
 import org.opencastproject.search.impl.persistence.SearchServiceDatabaseException;
@@ -83,6 +84,9 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A Solr-based {@link SearchService} implementation.
@@ -119,6 +123,15 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The load introduced on the system by creating a delete job */
   private float deleteJobLoad = DEFAULT_DELETE_JOB_LOAD;
 
+  /** Incremented whenever the search index changes */
+  private final AtomicLong indexVersion = new AtomicLong();
+
+  /** The index version of the last change of all series at once */
+  private volatile long indexResetVersion = 0L;
+
+  /** The index version of the last change per series */
+  private final ConcurrentMap<String, Long> seriesVersions = new ConcurrentHashMap<String, Long>();
+
   /** counter how often the index has already been tried to populate */
   private int retriesToPopulateIndex = 0;
 
@@ -374,8 +387,11 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     Date now = new Date();
 
     try {
+      // The indexed copy may belong to another series, whose feeds change as well
+      String previousSeriesId = getIndexedSeriesId(mediaPackage.getIdentifier().toString());
       if (indexManager.add(mediaPackage, acl, now)) {
         logger.info("Added mediapackage `{}` to the search index, using ACL `{}`", mediaPackage, acl);
+        indexChanged(mediaPackage.getSeries(), previousSeriesId);
       } else {
         logger.warn("Failed to add mediapackage {} to the search index", mediaPackage.getIdentifier());
       }
@@ -443,7 +459,9 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
         throw new SearchException(e);
       }
 
-      return indexManager.delete(mediaPackageId, now);
+      boolean deleted = indexManager.delete(mediaPackageId, now);
+      indexChanged(result.getItems()[0].getDcIsPartOf());
+      return deleted;
     } catch (SolrServerException e) {
       logger.info("Could not delete media package with id {} from search index", mediaPackageId);
       throw new SearchException(e);
@@ -460,6 +478,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     try {
       logger.info("Clearing the search index");
       indexManager.clear();
+      indexReset();
     } catch (SolrServerException e) {
       throw new SearchException(e);
     }
@@ -497,6 +516,49 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     }
   }
 
+  /**
+   * Returns the current version of the search index, which changes whenever a media package is added or removed.
+   *
+   * @return the index version
+   */
+  public long getIndexVersion() {
+    return indexVersion.get();
+  }
+
+  /**
+   * Returns the version of the search index at which the given series has last changed.
+   *
+   * @param seriesId
+   *          the series identifier
+   * @return the index version of the last change
+   */
+  public long getIndexVersion(String seriesId) {
+    Long version = seriesVersions.get(seriesId);
+    return Math.max(indexResetVersion, version == null ? 0L : version);
+  }
+
+  /** Records a change of the search index affecting the given series, which may be <code>null</code>. */
+  void indexChanged(String... seriesIds) {
+    long version = indexVersion.incrementAndGet();
+    for (String seriesId : seriesIds) {
+      if (seriesId != null)
+        seriesVersions.put(seriesId, version);
+    }
+  }
+
+  /** Returns the series of the indexed copy of a media package, or <code>null</code> if there is none. */
+  private String getIndexedSeriesId(String mediaPackageId) throws SolrServerException {
+    SearchResultItem[] items = solrRequester.getForAdministrativeRead(
+            new SearchQuery().withId(mediaPackageId).withFields(SearchQuery.Field.SERIES_ID)).getItems();
+    return items.length > 0 ? items[0].getDcIsPartOf() : null;
+  }
+
+  /** Records a change of the search index affecting all series. */
+  private void indexReset() {
+    indexResetVersion = indexVersion.incrementAndGet();
+    seriesVersions.clear();
+  }
+
   protected void populateIndex(String systemUserName) {
     long instancesInSolr = 0L;
 
@@ -552,6 +614,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
       if (errors > 0)
         logger.error("Skipped {} erroneous search entries while populating the search index", errors);
       logger.info("Finished populating search index");
+      indexReset();
     }
   }
 
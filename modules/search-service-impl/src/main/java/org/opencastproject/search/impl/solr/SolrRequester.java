@@ -62,7 +62,9 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Properties;
@@ -171,7 +173,8 @@ public class SolrRequester {
 
     // Walk through response and create new items with title, creator, etc:
     for (final SolrDocument doc : solrResponse.getResults()) {
-      final SearchResultItemImpl item = SearchResultItemImpl.fill(new SearchResultItem() {
+      // The media package is only parsed once it is asked for, since listings usually don't need it
+      final SearchResultItemImpl item = SearchResultItemImpl.fillLazily(new SearchResultItem() {
         private final String dfltString = null;
 
         @Override
@@ -372,6 +375,10 @@ public class SolrRequester {
         }
       });
 
+      // Don't create or marshal a media package if it was not fetched
+      if (Schema.getOcMediapackage(doc) == null)
+        item.setMediaPackage(null);
+
       // Add the item to the result set
       result.addItem(item);
     }
@@ -762,7 +769,7 @@ public class SolrRequester {
       query.addSortField(getSortField(SearchQuery.Sort.DATE_CREATED), ORDER.desc);
     }
 
-    query.setFields("* score");
+    query.setFields(getFieldList(q.getFields()));
     return query;
   }
 
@@ -863,4 +870,83 @@ public class SolrRequester {
     }
   }
 
+  /**
+   * Returns the list of stored fields to fetch from the search index.
+   *
+   * @param fields
+   *          the requested fields, or <code>null</code> for all fields
+   * @return the field list
+   */
+  protected String getFieldList(SearchQuery.Field[] fields) {
+    if (fields == null)
+      return "* " + Schema.SCORE;
+    Set<String> fieldNames = new LinkedHashSet<String>();
+    fieldNames.add(Schema.ID);
+    fieldNames.add(Schema.OC_ORGANIZATION);
+    fieldNames.add(Schema.OC_MEDIATYPE);
+    fieldNames.add(Schema.SCORE);
+    for (SearchQuery.Field field : fields) {
+      fieldNames.addAll(Arrays.asList(getFieldNames(field)));
+    }
+    return StringUtils.join(fieldNames, " ");
+  }
+
+  /**
+   * Returns the names of the stored fields holding the given field of a search result item. Language dependent fields
+   * are mapped to their language independent variant only.
+   *
+   * @param field
+   *          the search result item field
+   * @return the field names in the search index
+   */
+  protected String[] getFieldNames(SearchQuery.Field field) {
+    switch (field) {
+      case MEDIA_PACKAGE:
+        return new String[] { Schema.OC_MEDIAPACKAGE };
+      case TITLE:
+        return new String[] { Schema.DC_TITLE_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case SUBJECT:
+        return new String[] { Schema.DC_SUBJECT_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case DESCRIPTION:
+        return new String[] { Schema.DC_DESCRIPTION_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case CREATOR:
+        return new String[] { Schema.DC_CREATOR_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case PUBLISHER:
+        return new String[] { Schema.DC_PUBLISHER_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case CONTRIBUTOR:
+        return new String[] { Schema.DC_CONTRIBUTOR_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case DATE_CREATED:
+        return new String[] { Schema.DC_CREATED };
+      case AVAILABILITY:
+        return new String[] { Schema.DC_AVAILABLE_PREFIX + Schema.SUFFIX_FROM,
+                Schema.DC_AVAILABLE_PREFIX + Schema.SUFFIX_TO };
+      case LANGUAGE:
+        return new String[] { Schema.DC_LANGUAGE };
+      case RIGHTS_HOLDER:
+        return new String[] { Schema.DC_RIGHTS_HOLDER_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case SPATIAL:
+        return new String[] { Schema.DC_SPATIAL_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case SERIES_ID:
+        return new String[] { Schema.DC_IS_PART_OF };
+      case REPLACES:
+        return new String[] { Schema.DC_REPLACES };
+      case TYPE:
+        return new String[] { Schema.DC_TYPE };
+      case ACCESS_RIGHTS:
+        return new String[] { Schema.DC_ACCESS_RIGHTS_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case LICENSE:
+        return new String[] { Schema.DC_LICENSE_PREFIX + Schema.LANGUAGE_UNDEFINED };
+      case EXTENT:
+        return new String[] { Schema.DC_EXTENT };
+      case KEYWORDS:
+        return new String[] { Schema.OC_KEYWORDS };
+      case COVER:
+        return new String[] { Schema.OC_COVER };
+      case DATE_PUBLISHED:
+        return new String[] { Schema.OC_MODIFIED };
+      default:
+        throw new IllegalArgumentException("No mapping found between search result field and index");
+    }
+  }
+
 }
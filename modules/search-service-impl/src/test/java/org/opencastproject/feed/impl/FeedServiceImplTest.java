@@ -0,0 +1,186 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.feed.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import org.opencastproject.feed.api.Feed;
+import org.opencastproject.feed.api.FeedGenerator;
+import org.opencastproject.search.impl.SearchIndexChanges;
+import org.opencastproject.search.impl.SearchServiceImpl;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.Organization;
+import org.opencastproject.security.api.SecurityService;
+
+import org.apache.cxf.jaxrs.impl.RequestImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+public class FeedServiceImplTest {
+
+  private static final String FEED_LINK = "http://localhost:8080/feeds/rss/2.0/test";
+
+  private FeedServiceImpl feedService;
+  private SearchServiceImpl searchService;
+  private HttpServletRequest servletRequest;
+
+  /** The number of feeds created by the feed generator */
+  private final AtomicInteger created = new AtomicInteger();
+
+  @Before
+  public void setUp() throws Exception {
+    SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(new DefaultOrganization()).anyTimes();
+    EasyMock.replay(securityService);
+
+    FeedGenerator generator = EasyMock.createNiceMock(FeedGenerator.class);
+    EasyMock.expect(generator.accept(EasyMock.<String[]> anyObject())).andReturn(true).anyTimes();
+    EasyMock.expect(generator.createFeed(EasyMock.<Feed.Type> anyObject(), EasyMock.<String[]> anyObject(),
+            EasyMock.anyInt(), EasyMock.<Organization> anyObject())).andAnswer(new IAnswer<Feed>() {
+              @Override
+              public Feed answer() throws Throwable {
+                created.incrementAndGet();
+                return new FeedImpl(Feed.Type.RSS, FEED_LINK, new PlainTextContent("Test Feed"),
+                        new PlainTextContent("Feed of the unit test"), FEED_LINK);
+              }
+            }).anyTimes();
+    EasyMock.replay(generator);
+
+    servletRequest = EasyMock.createNiceMock(HttpServletRequest.class);
+    EasyMock.expect(servletRequest.getPathInfo()).andReturn("/rss/2.0/test").anyTimes();
+    EasyMock.replay(servletRequest);
+
+    searchService = new SearchServiceImpl();
+    feedService = new FeedServiceImpl();
+    feedService.setSecurityService(securityService);
+    feedService.setSearchService(searchService);
+    feedService.addFeedGenerator(generator);
+    feedService.activate(null);
+  }
+
+  @Test
+  public void testCacheHit() throws Exception {
+    Response first = feedService.getFeed(servletRequest, newRequest(null, null));
+    Response second = feedService.getFeed(servletRequest, newRequest(null, null));
+    assertEquals(200, first.getStatus());
+    assertEquals(200, second.getStatus());
+    assertEquals(first.getEntity(), second.getEntity());
+    assertEquals(getETag(first), getETag(second));
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  public void testInvalidationOnIndexChange() throws Exception {
+    Response first = feedService.getFeed(servletRequest, newRequest(null, null));
+    assertEquals(1, created.get());
+
+    // A media package has been added to or removed from the index
+    SearchIndexChanges.indexChanged(searchService, "series");
+    Response second = feedService.getFeed(servletRequest, newRequest(null, null));
+    assertEquals(200, second.getStatus());
+    assertEquals(2, created.get());
+    assertFalse(getETag(first).equals(getETag(second)));
+
+    SearchIndexChanges.indexChanged(searchService, (String) null);
+    feedService.getFeed(servletRequest, newRequest(null, null));
+    assertEquals(3, created.get());
+  }
+
+  @Test
+  public void testIfNoneMatch() throws Exception {
+    String eTag = getETag(feedService.getFeed(servletRequest, newRequest(null, null)));
+    assertNotNull(eTag);
+
+    Response response = feedService.getFeed(servletRequest, newRequest(HttpHeaders.IF_NONE_MATCH, eTag));
+    assertEquals(304, response.getStatus());
+    assertEquals(eTag, getETag(response));
+
+    response = feedService.getFeed(servletRequest, newRequest(HttpHeaders.IF_NONE_MATCH, "\"outdated\""));
+    assertEquals(200, response.getStatus());
+    assertEquals(1, created.get());
+
+    // The tag changes with the index
+    SearchIndexChanges.indexChanged(searchService, "series");
+    response = feedService.getFeed(servletRequest, newRequest(HttpHeaders.IF_NONE_MATCH, eTag));
+    assertEquals(200, response.getStatus());
+  }
+
+  @Test
+  public void testIfModifiedSince() throws Exception {
+    feedService.getFeed(servletRequest, newRequest(null, null));
+
+    Date later = new Date(System.currentTimeMillis() + 3600000L);
+    Response response = feedService.getFeed(servletRequest,
+            newRequest(HttpHeaders.IF_MODIFIED_SINCE, formatHttpDate(later)));
+    assertEquals(304, response.getStatus());
+
+    Date earlier = new Date(System.currentTimeMillis() - 3600000L);
+    response = feedService.getFeed(servletRequest,
+            newRequest(HttpHeaders.IF_MODIFIED_SINCE, formatHttpDate(earlier)));
+    assertEquals(200, response.getStatus());
+    assertEquals(1, created.get());
+  }
+
+  /** Creates a GET request with the given header, if any. */
+  private static Request newRequest(String header, String value) {
+    Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+    if (header != null)
+      headers.put(header, Collections.singletonList(value));
+    Message message = new MessageImpl();
+    message.put(Message.HTTP_REQUEST_METHOD, "GET");
+    message.put(Message.PROTOCOL_HEADERS, headers);
+    return new RequestImpl(message);
+  }
+
+  private static String getETag(Response response) {
+    Object eTag = response.getMetadata().getFirst(HttpHeaders.ETAG);
+    return eTag == null ? null : eTag.toString();
+  }
+
+  private static String formatHttpDate(Date date) {
+    SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format.format(date);
+  }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.search.endpoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import org.opencastproject.search.api.SearchQuery;
+
+import org.junit.Test;
+
+public class SearchRestServiceTest {
+
+  @Test
+  public void testParseFields() {
+    assertNull(SearchRestService.parseFields(null));
+    assertNull(SearchRestService.parseFields(" "));
+    assertArrayEquals(new SearchQuery.Field[] { SearchQuery.Field.TITLE, SearchQuery.Field.DATE_CREATED },
+            SearchRestService.parseFields("title, DATE_CREATED,unknown"));
+    assertArrayEquals(new SearchQuery.Field[0], SearchRestService.parseFields("unknown"));
+  }
+
+}
@@ -24,6 +24,9 @@ package org.opencastproject.search.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.opencastproject.security.api.Permissions.Action.READ;
 import static org.opencastproject.security.api.Permissions.Action.WRITE;
 import static org.opencastproject.util.persistence.PersistenceUtil.newTestEntityManagerFactory;
@@ -78,7 +81,9 @@ import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.InputStream;
@@ -99,6 +104,9 @@ import java.util.Map;
  */
 public class SearchServiceImplTest {
 
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
   /** The search service */
   private SearchServiceImpl service = null;
 
@@ -315,6 +323,68 @@ public class SearchServiceImplTest {
     assertEquals(0, service.getByQuery(q).size());
   }
 
+  @Test
+  public void testFieldProjection() throws Exception {
+    MediaPackage mediaPackage = getMediaPackage("/manifest-simple.xml");
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, READ.toString(), true));
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, WRITE.toString(), true));
+
+    Job job = service.add(mediaPackage);
+    JobBarrier barrier = new JobBarrier(null, serviceRegistry, 1000, job);
+    barrier.waitForJobs();
+    assertEquals("Job to add mediapckage did not finish", Job.Status.FINISHED, job.getStatus());
+
+    // All fields are fetched by default, and the media package is only parsed once
+    SearchResultItem item = service.getByQuery(new SearchQuery().withId("10.0000/1")).getItems()[0];
+    assertNotNull(item.getOcMediapackage());
+    assertNotNull(item.getMediaPackage());
+    assertSame(item.getMediaPackage(), item.getMediaPackage());
+    String title = item.getDcTitle();
+    assertNotNull(title);
+
+    // Only the requested fields are fetched otherwise
+    SearchQuery q = new SearchQuery().withId("10.0000/1").withFields(SearchQuery.Field.TITLE);
+    item = service.getByQuery(q).getItems()[0];
+    assertEquals("10.0000/1", item.getId());
+    assertEquals(title, item.getDcTitle());
+    assertNull(item.getOcMediapackage());
+    assertNull(item.getMediaPackage());
+  }
+
+  @Test
+  public void testIndexVersionsOfSeries() throws Exception {
+    MediaPackage mediaPackage = getMediaPackage("/manifest-simple.xml");
+    mediaPackage.setSeries("foobar-serie");
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, WRITE.toString(), true));
+    long version = service.getIndexVersion();
+    Job job = service.add(mediaPackage);
+    new JobBarrier(null, serviceRegistry, 1000, job).waitForJobs();
+    assertEquals("Job to add mediapckage did not finish", Job.Status.FINISHED, job.getStatus());
+    long added = service.getIndexVersion("foobar-serie");
+    assertTrue(added > version);
+    assertTrue(service.getIndexVersion("other-series") < added);
+
+    // Moving the episode to another series changes both series
+    File catalog = testFolder.newFile("dublincore-other-series.xml");
+    String dublinCore = IOUtils.toString(getClass().getResourceAsStream("/dublincore.xml"), "UTF-8");
+    FileUtils.writeStringToFile(catalog, dublinCore.replace("foobar-serie", "other-series"), "UTF-8");
+    mediaPackage.getCatalog("catalog-1").setURI(catalog.toURI());
+    mediaPackage.setSeries("other-series");
+    job = service.add(mediaPackage);
+    new JobBarrier(null, serviceRegistry, 1000, job).waitForJobs();
+    assertEquals("Job to add mediapckage did not finish", Job.Status.FINISHED, job.getStatus());
+    long moved = service.getIndexVersion("other-series");
+    assertTrue(moved > added);
+    assertEquals(moved, service.getIndexVersion("foobar-serie"));
+
+    // Deleting the episode changes its series only
+    job = service.delete(mediaPackage.getIdentifier().toString());
+    new JobBarrier(null, serviceRegistry, 1000, job).waitForJobs();
+    assertEquals("Job to delete mediapckage did not finish", Job.Status.FINISHED, job.getStatus());
+    assertTrue(service.getIndexVersion("other-series") > moved);
+    assertEquals(moved, service.getIndexVersion("foobar-serie"));
+  }
+
   private MediaPackage getMediaPackage(String path) throws MediaPackageException {
     MediaPackageBuilderFactory builderFactory = MediaPackageBuilderFactory.newInstance();
     MediaPackageBuilder mediaPackageBuilder = builderFactory.newMediaPackageBuilder();
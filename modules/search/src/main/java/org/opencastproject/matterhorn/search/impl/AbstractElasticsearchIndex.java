@@ -61,6 +61,7 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.indices.IndexAlreadyExistsException;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.node.NodeBuilder;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.sort.SortOrder;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.ComponentException;
@@ -73,9 +74,15 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A search index implementation based on ElasticSearch.
@@ -91,6 +98,18 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** The Elasticsearch config directory key */
   public static final String ELASTICSEARCH_CONFIG_DIR_KEY = "org.opencastproject.elasticsearch.config.dir";
 
+  /** The configuration key for the maximum number of documents written to the index in a single bulk request */
+  public static final String BULK_SIZE_KEY = "org.opencastproject.elasticsearch.bulk.size";
+
+  /** The configuration key for the maximum time in milliseconds a document waits before it is written */
+  public static final String BULK_DELAY_KEY = "org.opencastproject.elasticsearch.bulk.delay";
+
+  /** The default maximum number of documents written in a single bulk request */
+  private static final int DEFAULT_BULK_SIZE = 100;
+
+  /** The default maximum time in milliseconds a document waits before it is written */
+  private static final long DEFAULT_BULK_DELAY = 1000L;
+
   /** Identifier of the root entry */
   private static final String ROOT_ID = "root";
 
@@ -118,6 +137,21 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** The path to the index settings */
   protected String indexSettingsPath;
 
+  /** The maximum number of documents written in a single bulk request, deferred writes are disabled if below 2 */
+  private int bulkSize = DEFAULT_BULK_SIZE;
+
+  /** The maximum time in milliseconds a document waits before it is written */
+  private long bulkDelay = DEFAULT_BULK_DELAY;
+
+  /** The documents waiting to be written, or <code>null</code> if deferred writes are disabled */
+  private BulkUpdateBuffer bulkUpdates = null;
+
+  /** Serializes the bulk requests, so that an older version of a document can not overwrite a newer one */
+  private final Object bulkWriteLock = new Object();
+
+  /** Writes waiting documents periodically */
+  private ScheduledExecutorService bulkFlusher = null;
+
   /**
    * Returns an array of document types for the index. For every one of these, the corresponding document type
    * definition will be loaded.
@@ -140,6 +174,26 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       throw new ComponentException("Configuration for key '" + ELASTICSEARCH_CONFIG_DIR_KEY + "' missing");
 
     indexSettingsPath = indexSettingsPathOption.get();
+
+    Option<String> bulkSizeOption = OsgiUtil.getOptContextProperty(ctx, BULK_SIZE_KEY);
+    if (bulkSizeOption.isSome()) {
+      try {
+        bulkSize = Integer.parseInt(StringUtils.trim(bulkSizeOption.get()));
+      } catch (NumberFormatException e) {
+        logger.warn("Bulk size '{}' is malformed, setting to {}", bulkSizeOption.get(), DEFAULT_BULK_SIZE);
+        bulkSize = DEFAULT_BULK_SIZE;
+      }
+    }
+
+    Option<String> bulkDelayOption = OsgiUtil.getOptContextProperty(ctx, BULK_DELAY_KEY);
+    if (bulkDelayOption.isSome()) {
+      try {
+        bulkDelay = Math.max(1L, Long.parseLong(StringUtils.trim(bulkDelayOption.get())));
+      } catch (NumberFormatException e) {
+        logger.warn("Bulk delay '{}' is malformed, setting to {}", bulkDelayOption.get(), DEFAULT_BULK_DELAY);
+        bulkDelay = DEFAULT_BULK_DELAY;
+      }
+    }
   }
 
   /**
@@ -175,6 +229,11 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       } else {
         logger.error("Cannot clear not existing index '{}'", getIndexName());
       }
+      if (bulkUpdates != null) {
+        synchronized (bulkUpdates) {
+          bulkUpdates.clear();
+        }
+      }
     } catch (Throwable t) {
       throw new IOException("Cannot clear index", t);
     }
@@ -211,6 +270,9 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
 
     logger.debug("Removing element with id '{}' from searching index", uid);
 
+    // Make sure a pending update does not bring the document back
+    flush(type, Collections.singletonList(uid));
+
     DeleteRequestBuilder deleteRequest = nodeClient.prepareDelete(index, type, uid);
     deleteRequest.setRefresh(true);
     DeleteResponse delete = deleteRequest.execute().actionGet();
@@ -223,15 +285,205 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   }
 
   /**
-   * Posts the input document to the search index.
+   * Posts the input document to the search index. The documents, as well as any documents still waiting to be written,
+   * are searchable once this method returns.
    *
    * @param documents
    *          the input documents
-   * @return the query response
+   * @return the query response, or <code>null</code> if the documents have been written by a concurrent request
    * @throws SearchIndexException
    *           if posting to the index fails
    */
   protected BulkResponse update(ElasticsearchDocument... documents) throws SearchIndexException {
+    if (bulkUpdates == null) {
+      BulkResponse response = write(Arrays.asList(documents), true);
+      throwOnFailure(response);
+      return response;
+    }
+
+    // Write pending documents along with the given ones, so that older versions do not overwrite them later on
+    synchronized (bulkUpdates) {
+      for (ElasticsearchDocument doc : documents) {
+        bulkUpdates.add(doc);
+      }
+    }
+    return writePending(true);
+  }
+
+  /**
+   * Queues the input documents to be written to the search index in a later bulk request. The documents are written
+   * once enough documents are waiting, once the configured delay has passed or once they are about to be read,
+   * whichever comes first.
+   * <p>
+   * Searches done through {@link #flush(String, Collection)} or after {@link #flush()} will see these documents, other
+   * searches may not see them until the next index refresh.
+   *
+   * @param documents
+   *          the input documents
+   * @throws SearchIndexException
+   *           if writing a full bulk request to the index fails
+   */
+  protected void updateDeferred(ElasticsearchDocument... documents) throws SearchIndexException {
+    if (bulkUpdates == null) {
+      throwOnFailure(write(Arrays.asList(documents), true));
+      return;
+    }
+
+    final boolean full;
+    synchronized (bulkUpdates) {
+      for (ElasticsearchDocument doc : documents) {
+        bulkUpdates.add(doc);
+      }
+      full = bulkUpdates.size() >= bulkSize;
+    }
+    if (full)
+      writePending(false);
+  }
+
+  /**
+   * Writes all documents that are waiting to be written and makes them searchable.
+   *
+   * @throws SearchIndexException
+   *           if writing to the index fails
+   */
+  public void flush() throws SearchIndexException {
+    if (bulkUpdates == null)
+      return;
+    writePending(true);
+  }
+
+  /**
+   * Writes all documents that are waiting to be written and makes them searchable, if any of the given documents is
+   * among them. This should be called before searching for these documents.
+   *
+   * @param type
+   *          the document type
+   * @param uids
+   *          the document identifiers
+   * @throws SearchIndexException
+   *           if writing to the index fails
+   */
+  protected void flush(String type, Collection<String> uids) throws SearchIndexException {
+    if (bulkUpdates == null)
+      return;
+    final boolean pending;
+    synchronized (bulkUpdates) {
+      pending = bulkUpdates.contains(type, uids);
+    }
+    if (pending)
+      writePending(true);
+  }
+
+  /**
+   * Writes the pending documents and, if requested, refreshes the index. The buffer is only locked while taking the
+   * documents out of it, so that documents can be queued while the bulk request is running.
+   * <p>
+   * If the bulk request fails, or if the index rejects some of the documents because it is too busy, these documents
+   * are queued again to be written by the next bulk request. Documents the index fails to write for other reasons are
+   * dropped. In both cases the caller gets an exception.
+   *
+   * @param refresh
+   *          whether the pending documents and all documents written before should be searchable immediately
+   * @return the response of the bulk request, or <code>null</code> if there were no pending documents
+   * @throws SearchIndexException
+   *           if writing to the index fails
+   */
+  private BulkResponse writePending(boolean refresh) throws SearchIndexException {
+    synchronized (bulkWriteLock) {
+      final List<ElasticsearchDocument> documents;
+      final boolean needsRefresh;
+      synchronized (bulkUpdates) {
+        needsRefresh = bulkUpdates.needsRefresh();
+        documents = bulkUpdates.drain();
+      }
+
+      BulkResponse response = null;
+      if (!documents.isEmpty()) {
+        try {
+          response = write(documents, refresh);
+        } catch (SearchIndexException e) {
+          synchronized (bulkUpdates) {
+            bulkUpdates.requeue(documents);
+          }
+          throw e;
+        }
+        requeueRejected(documents, response);
+      } else if (refresh && needsRefresh) {
+        try {
+          nodeClient.admin().indices().prepareRefresh(index).execute().actionGet();
+        } catch (Throwable t) {
+          throw new SearchIndexException("Cannot refresh index " + index, t);
+        }
+      }
+
+      if (refresh) {
+        synchronized (bulkUpdates) {
+          bulkUpdates.refreshed();
+        }
+      }
+      if (response != null)
+        throwOnFailure(response);
+      return response;
+    }
+  }
+
+  /**
+   * Queues the documents the index has rejected because it is too busy again.
+   *
+   * @param documents
+   *          the documents of the bulk request
+   * @param response
+   *          the response to the bulk request
+   */
+  private void requeueRejected(List<ElasticsearchDocument> documents, BulkResponse response) {
+    if (!response.hasFailures())
+      return;
+    List<ElasticsearchDocument> rejected = new ArrayList<>();
+    for (BulkItemResponse item : response.getItems()) {
+      if (item.isFailed() && item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS)
+        rejected.add(documents.get(item.getItemId()));
+    }
+    if (rejected.isEmpty())
+      return;
+    logger.info("Index '{}' rejected {} documents, writing them again with the next bulk request", index,
+            rejected.size());
+    synchronized (bulkUpdates) {
+      bulkUpdates.requeue(rejected);
+    }
+  }
+
+  /**
+   * Throws an exception if any of the documents of a bulk request could not be written.
+   *
+   * @param response
+   *          the response to the bulk request
+   * @throws SearchIndexException
+   *           if writing any of the documents failed
+   */
+  private void throwOnFailure(BulkResponse response) throws SearchIndexException {
+    if (!response.hasFailures())
+      return;
+    for (BulkItemResponse item : response.getItems()) {
+      if (item.isFailed()) {
+        logger.warn("Error updating {}: {}", item, item.getFailureMessage());
+        throw new SearchIndexException(item.getFailureMessage());
+      }
+    }
+  }
+
+  /**
+   * Writes the documents to the search index in a single bulk request.
+   *
+   * @param documents
+   *          the documents
+   * @param refresh
+   *          whether the documents should be searchable immediately
+   * @return the query response, which may contain failures of single documents
+   * @throws SearchIndexException
+   *           if the bulk request fails
+   */
+  private BulkResponse write(List<ElasticsearchDocument> documents, boolean refresh) throws SearchIndexException {
+    logger.debug("Writing {} documents to index {}", documents.size(), index);
 
     BulkRequestBuilder bulkRequest = nodeClient.prepareBulk();
     for (ElasticsearchDocument doc : documents) {
@@ -240,23 +492,11 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       bulkRequest.add(nodeClient.prepareIndex(index, type, uid).setSource(doc));
     }
 
-    // Make sure the operations are searchable immediately
-    bulkRequest.setRefresh(true);
+    // Make sure the operations are searchable immediately if requested
+    bulkRequest.setRefresh(refresh);
 
     try {
-      BulkResponse bulkResponse = bulkRequest.execute().actionGet();
-
-      // Check for errors
-      if (bulkResponse.hasFailures()) {
-        for (BulkItemResponse item : bulkResponse.getItems()) {
-          if (item.isFailed()) {
-            logger.warn("Error updating {}: {}", item, item.getFailureMessage());
-            throw new SearchIndexException(item.getFailureMessage());
-          }
-        }
-      }
-
-      return bulkResponse;
+      return bulkRequest.execute().actionGet();
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot update documents in index " + index, t);
     }
@@ -308,6 +548,25 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
 
     // Create the index
     createIndex(index);
+
+    // Start writing documents in bulk
+    if (bulkSize > 1) {
+      logger.info("Writing up to {} documents to index '{}' at once, waiting for up to {} ms", bulkSize, index,
+              bulkDelay);
+      bulkUpdates = new BulkUpdateBuffer();
+      bulkFlusher = Executors.newSingleThreadScheduledExecutor();
+      bulkFlusher.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            flush();
+          } catch (Throwable t) {
+            logger.error("Error writing pending documents to index '{}': {}", getIndexName(),
+                    ExceptionUtils.getStackTrace(t));
+          }
+        }
+      }, bulkDelay, bulkDelay, TimeUnit.MILLISECONDS);
+    }
   }
 
   /**
@@ -317,6 +576,15 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    *           if stopping the Elasticsearch node fails
    */
   protected void close() throws IOException {
+    if (bulkFlusher != null) {
+      bulkFlusher.shutdown();
+      try {
+        flush();
+      } catch (SearchIndexException e) {
+        logger.error("Error writing pending documents to index '{}': {}", index, ExceptionUtils.getStackTrace(e));
+      }
+    }
+
     try {
       if (nodeClient != null) {
         nodeClient.close();
@@ -0,0 +1,157 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.matterhorn.search.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects documents that are waiting to be written to the index in a single bulk request.
+ * <p>
+ * Writing the same document more than once before the buffer is drained only keeps the latest version. Documents that
+ * have been drained but not yet been made searchable by an index refresh are remembered until {@link #refreshed()} is
+ * called, so that readers can find out whether they need to wait for pending writes.
+ * <p>
+ * This class is not thread safe, callers need to synchronize on the buffer.
+ */
+class BulkUpdateBuffer {
+
+  /** The documents waiting to be written, by type and identifier */
+  private final Map<String, ElasticsearchDocument> pending = new LinkedHashMap<>();
+
+  /** Keys of the documents that have been written but are not yet searchable */
+  private final Set<String> unrefreshed = new HashSet<>();
+
+  /** The time the oldest pending document was added */
+  private long oldest = 0L;
+
+  /**
+   * Adds a document, replacing a pending older version of the same document.
+   *
+   * @param document
+   *          the document
+   */
+  void add(ElasticsearchDocument document) {
+    if (pending.isEmpty())
+      oldest = System.currentTimeMillis();
+    String key = key(document.getType(), document.getUID());
+    pending.remove(key);
+    pending.put(key, document);
+  }
+
+  /** Returns the number of documents waiting to be written */
+  int size() {
+    return pending.size();
+  }
+
+  /** Returns <code>true</code> if there are neither pending nor unrefreshed documents */
+  boolean isEmpty() {
+    return pending.isEmpty() && unrefreshed.isEmpty();
+  }
+
+  /** Returns <code>true</code> if there are documents that have been written but are not yet searchable */
+  boolean needsRefresh() {
+    return !unrefreshed.isEmpty();
+  }
+
+  /**
+   * Returns <code>true</code> if any of the given documents is either pending or not yet searchable.
+   *
+   * @param type
+   *          the document type
+   * @param uids
+   *          the document identifiers
+   * @return whether a reader of these documents needs to wait for pending writes
+   */
+  boolean contains(String type, Collection<String> uids) {
+    for (String uid : uids) {
+      String key = key(type, uid);
+      if (pending.containsKey(key) || unrefreshed.contains(key))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Removes and returns all pending documents in the order they were added. The documents are considered unrefreshed
+   * until {@link #refreshed()} is called.
+   *
+   * @return the pending documents
+   */
+  List<ElasticsearchDocument> drain() {
+    List<ElasticsearchDocument> documents = new ArrayList<>(pending.values());
+    unrefreshed.addAll(pending.keySet());
+    pending.clear();
+    oldest = 0L;
+    return documents;
+  }
+
+  /**
+   * Puts drained documents that could not be written back in front of the pending documents. Documents that have been
+   * replaced by a newer pending version in the meantime are dropped.
+   *
+   * @param documents
+   *          the documents to write again
+   */
+  void requeue(List<ElasticsearchDocument> documents) {
+    Map<String, ElasticsearchDocument> requeued = new LinkedHashMap<>();
+    for (ElasticsearchDocument document : documents) {
+      String key = key(document.getType(), document.getUID());
+      if (!pending.containsKey(key))
+        requeued.put(key, document);
+    }
+    if (requeued.isEmpty())
+      return;
+    if (pending.isEmpty())
+      oldest = System.currentTimeMillis();
+    requeued.putAll(pending);
+    pending.clear();
+    pending.putAll(requeued);
+  }
+
+  /** Marks all drained documents as searchable */
+  void refreshed() {
+    unrefreshed.clear();
+  }
+
+  /** Discards all pending documents */
+  void clear() {
+    pending.clear();
+    unrefreshed.clear();
+    oldest = 0L;
+  }
+
+  /** Returns the time in milliseconds the oldest pending document has been waiting, or <code>0</code> */
+  long getOldestAge() {
+    return pending.isEmpty() ? 0L : System.currentTimeMillis() - oldest;
+  }
+
+  private static String key(String type, String uid) {
+    return type + "/" + uid;
+  }
+
+}
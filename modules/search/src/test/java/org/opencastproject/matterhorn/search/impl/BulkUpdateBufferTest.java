@@ -0,0 +1,113 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.matterhorn.search.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.matterhorn.search.SearchMetadata;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test case for {@link BulkUpdateBuffer}.
+ */
+public class BulkUpdateBufferTest {
+
+  private static ElasticsearchDocument document(String type, String uid) {
+    return new ElasticsearchDocument(uid, type, new ArrayList<SearchMetadata<?>>());
+  }
+
+  @Test
+  public void testLatestVersionWins() {
+    BulkUpdateBuffer buffer = new BulkUpdateBuffer();
+    ElasticsearchDocument first = document("event", "a");
+    ElasticsearchDocument second = document("event", "b");
+    ElasticsearchDocument updated = document("event", "a");
+    buffer.add(first);
+    buffer.add(second);
+    buffer.add(updated);
+    assertEquals(2, buffer.size());
+
+    List<ElasticsearchDocument> drained = buffer.drain();
+    assertEquals(2, drained.size());
+    assertSame(second, drained.get(0));
+    assertSame(updated, drained.get(1));
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void testContainsUntilRefreshed() {
+    BulkUpdateBuffer buffer = new BulkUpdateBuffer();
+    assertTrue(buffer.isEmpty());
+    buffer.add(document("event", "a"));
+    assertTrue(buffer.contains("event", Arrays.asList("x", "a")));
+    assertFalse(buffer.contains("series", Collections.singletonList("a")));
+    assertFalse(buffer.contains("event", Collections.singletonList("b")));
+
+    buffer.drain();
+    assertTrue(buffer.needsRefresh());
+    assertTrue(buffer.contains("event", Collections.singletonList("a")));
+
+    buffer.refreshed();
+    assertFalse(buffer.contains("event", Collections.singletonList("a")));
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void testRequeueKeepsNewerVersions() {
+    BulkUpdateBuffer buffer = new BulkUpdateBuffer();
+    buffer.add(document("event", "a"));
+    buffer.add(document("event", "b"));
+    List<ElasticsearchDocument> failed = buffer.drain();
+    ElasticsearchDocument updated = document("event", "b");
+    ElasticsearchDocument added = document("event", "c");
+    buffer.add(updated);
+    buffer.add(added);
+
+    buffer.requeue(failed);
+    List<ElasticsearchDocument> drained = buffer.drain();
+    assertEquals(3, drained.size());
+    assertSame(failed.get(0), drained.get(0));
+    assertSame(updated, drained.get(1));
+    assertSame(added, drained.get(2));
+  }
+
+  @Test
+  public void testClear() {
+    BulkUpdateBuffer buffer = new BulkUpdateBuffer();
+    buffer.add(document("event", "a"));
+    buffer.drain();
+    buffer.add(document("event", "b"));
+    buffer.clear();
+    assertTrue(buffer.isEmpty());
+    assertEquals(0L, buffer.getOldestAge());
+  }
+
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of hosts that repeatedly fail to accept dispatched jobs.
+ * <p>
+ * Once a host has failed the configured number of times in a row, the circuit for that host is opened and the job
+ * dispatcher will not try to reach the host until the reset timeout has passed. After that, a single dispatch attempt
+ * is let through. A failure of that attempt keeps the circuit open for another reset timeout while a success closes it.
+ * If the attempt ends without an answer on the host's health, e.g. because the host is busy, it is
+ * {@link #release(String) released} and the next dispatch attempt may probe the host.
+ */
+public class HostCircuitBreaker {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(HostCircuitBreaker.class);
+
+  /** Number of consecutive failures after which the circuit of a host is opened */
+  private final int failureThreshold;
+
+  /** Time in milliseconds after which an open circuit is tried again */
+  private final long resetTimeout;
+
+  /** The state per host */
+  private final ConcurrentMap<String, HostState> hosts = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new circuit breaker.
+   *
+   * @param failureThreshold
+   *          the number of consecutive failures after which a host is skipped, <code>0</code> to disable
+   * @param resetTimeout
+   *          the time in milliseconds after which a skipped host is tried again
+   */
+  public HostCircuitBreaker(int failureThreshold, long resetTimeout) {
+    this.failureThreshold = failureThreshold;
+    this.resetTimeout = resetTimeout;
+  }
+
+  /**
+   * Returns <code>true</code> if jobs may currently be dispatched to the given host, which is the case for a host with
+   * an open circuit only if its reset timeout has passed and nobody is probing it. This does not take the probe, see
+   * {@link #acquire(String)}.
+   *
+   * @param host
+   *          the host's base URL
+   * @return whether the host may be contacted
+   */
+  public boolean isAvailable(String host) {
+    return check(host, false);
+  }
+
+  /**
+   * Returns <code>true</code> if a job may be dispatched to the given host right now. For a host with an open circuit,
+   * this takes the single probe, which must be given back by either {@link #success(String)},
+   * {@link #failure(String)} or {@link #release(String)} once the dispatch attempt is over.
+   *
+   * @param host
+   *          the host's base URL
+   * @return whether the host may be contacted
+   */
+  public boolean acquire(String host) {
+    return check(host, true);
+  }
+
+  private boolean check(String host, boolean probe) {
+    if (failureThreshold <= 0)
+      return true;
+    HostState state = hosts.get(host);
+    if (state == null)
+      return true;
+    synchronized (state) {
+      if (state.openedAt < 0)
+        return true;
+      if (state.probing || System.currentTimeMillis() - state.openedAt < resetTimeout)
+        return false;
+      // Let this caller probe the host and keep everybody else out until the probe is over
+      if (probe)
+        state.probing = true;
+      return true;
+    }
+  }
+
+  /**
+   * Gives back the probe of a host with an open circuit without an answer on the host's health, e.g. because no
+   * request has been sent or because the host is busy, so that the next dispatch attempt may probe the host. This has
+   * no effect if no probe has been taken.
+   *
+   * @param host
+   *          the host's base URL
+   */
+  public void release(String host) {
+    HostState state = hosts.get(host);
+    if (state == null)
+      return;
+    synchronized (state) {
+      state.probing = false;
+    }
+  }
+
+  /**
+   * Records a successful dispatch to the given host, which closes its circuit.
+   *
+   * @param host
+   *          the host's base URL
+   */
+  public void success(String host) {
+    HostState state = hosts.remove(host);
+    if (state != null && state.openedAt >= 0)
+      logger.info("Host {} is accepting jobs again", host);
+  }
+
+  /**
+   * Records a failed dispatch to the given host, which may open its circuit.
+   *
+   * @param host
+   *          the host's base URL
+   */
+  public void failure(String host) {
+    if (failureThreshold <= 0)
+      return;
+    HostState state = hosts.computeIfAbsent(host, h -> new HostState());
+    synchronized (state) {
+      state.failures++;
+      state.probing = false;
+      if (state.failures >= failureThreshold) {
+        if (state.openedAt < 0)
+          logger.warn("Host {} failed to accept {} jobs in a row, skipping it for {} ms", host, state.failures,
+                  resetTimeout);
+        state.openedAt = System.currentTimeMillis();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of hosts that are currently skipped.
+   *
+   * @return the number of hosts with an open circuit
+   */
+  public int getOpenCircuits() {
+    int open = 0;
+    for (HostState state : hosts.values()) {
+      synchronized (state) {
+        if (state.openedAt >= 0)
+          open++;
+      }
+    }
+    return open;
+  }
+
+  /** The failure state of a single host */
+  private static final class HostState {
+
+    /** The number of consecutive failures */
+    private int failures = 0;
+
+    /** The time the circuit was opened, or <code>-1</code> if closed */
+    private long openedAt = -1;
+
+    /** Whether a dispatch attempt is currently probing the host */
+    private boolean probing = false;
+
+  }
+
+}
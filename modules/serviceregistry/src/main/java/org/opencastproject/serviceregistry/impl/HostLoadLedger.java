@@ -0,0 +1,298 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import org.opencastproject.serviceregistry.api.SystemLoad;
+import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory ledger of the load of each host, updated incrementally whenever a job starts or stops loading a host.
+ * <p>
+ * Loads are kept as fixed point numbers so that they can be updated atomically. Job status transitions on other nodes
+ * are reported to the ledger through the message broker. Since messages may get lost, the ledger is reconciled with
+ * the database periodically.
+ * <p>
+ * No update takes a lock. Each update swaps the entry of its job, and the host loads follow from the swapped entries.
+ * A reconciliation corrects an entry only by compare-and-set against the entry it has read, and it leaves alone the
+ * jobs that have been updated since the database was read. So a reconciliation never overwrites a newer update with
+ * the state found in the database.
+ */
+public class HostLoadLedger {
+
+  /** The number of fixed point units per load unit */
+  private static final long UNITS = 1000L;
+
+  /** The load each job is putting on a host, a job that has been removed while reconciling has no host */
+  private final ConcurrentMap<Long, JobLoad> jobs = new ConcurrentHashMap<>();
+
+  /** The load per host */
+  private final ConcurrentMap<String, AtomicLong> hosts = new ConcurrentHashMap<>();
+
+  /** The jobs updated since the start of a reconciliation, or <code>null</code> if not reconciling */
+  private volatile Set<Long> changes = null;
+
+  /** The number of reconciliations with the database */
+  private final AtomicLong reconciliations = new AtomicLong();
+
+  /** The total absolute difference between ledger and database found during the last reconciliation */
+  private volatile float lastDrift = 0.0f;
+
+  /** The time of the last reconciliation */
+  private volatile long lastReconciliation = 0L;
+
+  /**
+   * Records that the given job is loading the given host. Recording the same job again moves its load to the new
+   * host.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param host
+   *          the host processing the job
+   * @param load
+   *          the job's load
+   */
+  public void add(long jobId, String host, float load) {
+    Set<Long> recorded = changes;
+    if (recorded != null)
+      recorded.add(jobId);
+    JobLoad jobLoad = new JobLoad(host, toUnits(load));
+    unload(jobs.put(jobId, jobLoad));
+    load(jobLoad);
+  }
+
+  /**
+   * Records that the given job is no longer loading any host.
+   *
+   * @param jobId
+   *          the job identifier
+   */
+  public void remove(long jobId) {
+    Set<Long> recorded = changes;
+    if (recorded != null) {
+      recorded.add(jobId);
+      // keep an entry, so that a reconciliation that has read the job before notices the change
+      unload(jobs.put(jobId, new JobLoad(null, 0L)));
+    } else {
+      unload(jobs.remove(jobId));
+    }
+  }
+
+  /**
+   * Returns the load of a host as recorded in the ledger.
+   *
+   * @param host
+   *          the host's base URL
+   * @return the current load
+   */
+  public float getLoad(String host) {
+    AtomicLong counter = hosts.get(host);
+    return counter == null ? 0.0f : fromUnits(counter.get());
+  }
+
+  /**
+   * Returns the loads of the given hosts as recorded in the ledger.
+   *
+   * @param hosts
+   *          the hosts' base URLs
+   * @return the system load
+   */
+  public SystemLoad getSystemLoad(Collection<String> hosts) {
+    SystemLoad systemLoad = new SystemLoad();
+    for (String host : hosts) {
+      systemLoad.addNodeLoad(new NodeLoad(host, getLoad(host)));
+    }
+    return systemLoad;
+  }
+
+  /**
+   * Starts recording updates to the ledger. Call this before reading the jobs from the database that are then passed to
+   * {@link #reconcile(Collection)}.
+   */
+  public void startReconciliation() {
+    changes = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+  }
+
+  /** Stops recording updates to the ledger without reconciling it, e. g. because the database could not be read. */
+  public void abortReconciliation() {
+    changes = null;
+  }
+
+  /**
+   * Corrects the ledger to the given jobs and their loads as found in the database. Jobs updated since
+   * {@link #startReconciliation()} keep the state of the ledger.
+   *
+   * @param rows
+   *          the loading jobs as rows of job identifier, host and load
+   * @return the total absolute difference between the ledger and the database
+   */
+  public float reconcile(Collection<Object[]> rows) {
+    Set<Long> recorded = changes;
+    if (recorded == null)
+      recorded = Collections.emptySet();
+
+    Map<Long, JobLoad> database = new HashMap<>();
+    for (Object[] row : rows) {
+      long jobId = ((Number) row[0]).longValue();
+      String host = String.valueOf(row[1]);
+      long units = row[2] == null ? 0L : toUnits(((Number) row[2]).floatValue());
+      database.put(jobId, new JobLoad(host, units));
+    }
+
+    long drift = 0L;
+    for (Map.Entry<Long, JobLoad> job : database.entrySet()) {
+      drift += correct(job.getKey(), job.getValue(), recorded);
+    }
+    for (Long jobId : jobs.keySet()) {
+      if (!database.containsKey(jobId))
+        drift += correct(jobId, null, recorded);
+    }
+    changes = null;
+
+    lastDrift = fromUnits(drift);
+    lastReconciliation = System.currentTimeMillis();
+    reconciliations.incrementAndGet();
+    return lastDrift;
+  }
+
+  /**
+   * Corrects the entry of a single job to the state found in the database, unless the job has been updated in the
+   * meantime.
+   *
+   * @return the absolute difference in units between the ledger and the database
+   */
+  private long correct(long jobId, JobLoad expected, Set<Long> recorded) {
+    // read the entry before checking for updates, an update recorded later on changes the entry
+    JobLoad current = jobs.get(jobId);
+    if (recorded.contains(jobId))
+      return 0L;
+    if (expected == null) {
+      if (current == null || !jobs.remove(jobId, current))
+        return 0L;
+      unload(current);
+      return current.host == null ? 0L : current.units;
+    }
+    if (current != null && expected.host.equals(current.host) && expected.units == current.units)
+      return 0L;
+    boolean corrected = current == null ? jobs.putIfAbsent(jobId, expected) == null
+            : jobs.replace(jobId, current, expected);
+    if (!corrected)
+      return 0L;
+    unload(current);
+    load(expected);
+    if (current == null || current.host == null)
+      return expected.units;
+    if (current.host.equals(expected.host))
+      return Math.abs(expected.units - current.units);
+    return current.units + expected.units;
+  }
+
+  private void load(JobLoad jobLoad) {
+    if (jobLoad != null && jobLoad.host != null)
+      counter(jobLoad.host).addAndGet(jobLoad.units);
+  }
+
+  private void unload(JobLoad jobLoad) {
+    if (jobLoad != null && jobLoad.host != null)
+      counter(jobLoad.host).addAndGet(-jobLoad.units);
+  }
+
+  private AtomicLong counter(String host) {
+    AtomicLong counter = hosts.get(host);
+    if (counter == null) {
+      hosts.putIfAbsent(host, new AtomicLong());
+      counter = hosts.get(host);
+    }
+    return counter;
+  }
+
+  /**
+   * Returns the loads of all hosts known to the ledger.
+   *
+   * @return the loads by host
+   */
+  public Map<String, Float> getLoads() {
+    Map<String, Float> loads = new HashMap<>();
+    for (Map.Entry<String, AtomicLong> entry : hosts.entrySet()) {
+      loads.put(entry.getKey(), fromUnits(entry.getValue().get()));
+    }
+    return loads;
+  }
+
+  /** Returns the number of jobs currently loading any host */
+  public int getJobCount() {
+    int count = 0;
+    for (JobLoad jobLoad : jobs.values()) {
+      if (jobLoad.host != null)
+        count++;
+    }
+    return count;
+  }
+
+  /** Returns the total absolute difference between ledger and database found during the last reconciliation */
+  public float getLastDrift() {
+    return lastDrift;
+  }
+
+  /** Returns the time of the last reconciliation in milliseconds since the epoch, or <code>0</code> */
+  public long getLastReconciliation() {
+    return lastReconciliation;
+  }
+
+  /** Returns the number of reconciliations done so far */
+  public long getReconciliations() {
+    return reconciliations.get();
+  }
+
+  static long toUnits(float load) {
+    return Math.round(load * UNITS);
+  }
+
+  static float fromUnits(long units) {
+    return (float) units / UNITS;
+  }
+
+  /**
+   * The load a single job is putting on a host. Entries are compared by identity, so every update creates a new
+   * instance.
+   */
+  private static final class JobLoad {
+
+    private final String host;
+    private final long units;
+
+    JobLoad(String host, long units) {
+      this.host = host;
+      this.units = units;
+    }
+
+  }
+
+}
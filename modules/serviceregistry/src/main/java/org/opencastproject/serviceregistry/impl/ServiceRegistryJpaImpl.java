@@ -39,6 +39,10 @@ import static org.opencastproject.util.OsgiUtil.getOptContextProperty;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.jpa.JpaJob;
+import org.opencastproject.message.broker.api.BaseMessage;
+import org.opencastproject.message.broker.api.MessageReceiver;
+import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.message.broker.api.serviceregistry.ServiceRegistryItem;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
@@ -51,12 +55,14 @@ import org.opencastproject.serviceregistry.api.HostRegistration;
 import org.opencastproject.serviceregistry.api.IncidentService;
 import org.opencastproject.serviceregistry.api.Incidents;
 import org.opencastproject.serviceregistry.api.JaxbServiceStatistics;
+import org.opencastproject.serviceregistry.api.JobPayload;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.serviceregistry.api.ServiceStatistics;
 import org.opencastproject.serviceregistry.api.SystemLoad;
 import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
+import org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.HostsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.JobsStatistics;
 import org.opencastproject.serviceregistry.impl.jmx.ServicesStatistics;
@@ -72,6 +78,7 @@ import com.entwinemedia.fn.Fn;
 import com.entwinemedia.fn.Fn2;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.apache.http.HttpResponse;
@@ -90,6 +97,7 @@ import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -105,9 +113,20 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.ObjectInstance;
 import javax.persistence.EntityManager;
@@ -153,6 +172,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Jobs statistics JMX type */
   private static final String JMX_JOBS_STATISTICS_TYPE = "JobsStatistics";
 
+  /** Host loads statistics JMX type */
+  private static final String JMX_HOST_LOADS_STATISTICS_TYPE = "HostLoadsStatistics";
+
   /** The JMX business object for hosts statistics */
   private HostsStatistics hostsStatistics;
 
@@ -180,6 +202,36 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the retrieval of service statistics: Do not consider jobs older than max_job_age (in days) */
   protected static final String OPT_SERVICE_STATISTICS_MAX_JOB_AGE = "org.opencastproject.statistics.services.max_job_age";
 
+  /** Configuration key for dispatching jobs based on a single snapshot of the cluster state per round */
+  protected static final String OPT_DISPATCH_BATCH = "dispatch.batch";
+
+  /** Configuration key for the number of jobs that are dispatched concurrently */
+  protected static final String OPT_DISPATCH_THREADS = "dispatch.threads";
+
+  /** Configuration key for the number of jobs that are concurrently dispatched to a single host */
+  protected static final String OPT_DISPATCH_THREADS_PER_HOST = "dispatch.threads.host";
+
+  /** Configuration key for the socket timeout of dispatch requests in milliseconds */
+  protected static final String OPT_DISPATCH_TIMEOUT = "dispatch.timeout";
+
+  /** Configuration key for the number of consecutive failures after which a host is skipped during dispatching */
+  protected static final String OPT_DISPATCH_HOST_FAILURES = "dispatch.host.failures";
+
+  /** Configuration key for the time in seconds after which a skipped host is tried again */
+  protected static final String OPT_DISPATCH_HOST_RESET = "dispatch.host.reset";
+
+  /** Configuration key for waking up the job dispatcher as soon as jobs are queued */
+  protected static final String OPT_DISPATCH_WAKEUP = "dispatch.wakeup";
+
+  /** Configuration key for the time in milliseconds to wait for further queued jobs before waking up the dispatcher */
+  protected static final String OPT_DISPATCH_WAKEUP_DELAY = "dispatch.wakeup.delay";
+
+  /** Configuration key for keeping track of host loads in memory instead of querying them from the database */
+  protected static final String OPT_HOSTLOADS_LEDGER = "hostloads.ledger";
+
+  /** Configuration key for the interval in seconds at which the in-memory host loads are reconciled */
+  protected static final String OPT_HOSTLOADS_LEDGER_RECONCILE = "hostloads.ledger.reconcile";
+
   /** The http client to use when connecting to remote servers */
   protected TrustedHttpClient client = null;
 
@@ -196,6 +248,36 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    * (larger value will fetch more entries from the database at the same time and increase RAM usage) */
   static final int DEFAULT_DISPATCH_JOBS_LIMIT = 100;
 
+  /** Default setting on batched job dispatching */
+  static final boolean DEFAULT_DISPATCH_BATCH = false;
+
+  /** Default number of jobs that are dispatched concurrently */
+  static final int DEFAULT_DISPATCH_THREADS = 1;
+
+  /** Default number of jobs that are concurrently dispatched to a single host */
+  static final int DEFAULT_DISPATCH_THREADS_PER_HOST = 2;
+
+  /** Default socket timeout of dispatch requests, <code>0</code> uses the timeout of the http client */
+  static final int DEFAULT_DISPATCH_TIMEOUT = 0;
+
+  /** Default number of consecutive failures after which a host is skipped, <code>0</code> disables skipping */
+  static final int DEFAULT_DISPATCH_HOST_FAILURES = 3;
+
+  /** Default time in seconds after which a skipped host is tried again */
+  static final long DEFAULT_DISPATCH_HOST_RESET = 60;
+
+  /** Default setting on waking up the job dispatcher as soon as jobs are queued */
+  static final boolean DEFAULT_DISPATCH_WAKEUP = true;
+
+  /** Default time in milliseconds to wait for further queued jobs before waking up the dispatcher */
+  static final long DEFAULT_DISPATCH_WAKEUP_DELAY = 250;
+
+  /** Default setting on keeping track of host loads in memory */
+  static final boolean DEFAULT_HOSTLOADS_LEDGER = false;
+
+  /** Default interval in seconds at which the in-memory host loads are reconciled with the database */
+  static final long DEFAULT_HOSTLOADS_LEDGER_RECONCILE = 30;
+
   /** Default setting on job statistics collection */
   static final boolean DEFAULT_JOB_STATISTICS = true;
 
@@ -246,13 +328,59 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Whether to collect detailed job statistics */
   protected boolean collectJobstats = DEFAULT_JOB_STATISTICS;
 
+  /** Whether to dispatch jobs based on a single snapshot of services, hosts and running jobs per round */
+  protected boolean dispatchBatch = DEFAULT_DISPATCH_BATCH;
+
+  /** The thread pool used to dispatch jobs concurrently, or <code>null</code> to dispatch them one by one */
+  protected ExecutorService dispatchExecutor = null;
+
+  /** The number of jobs that are concurrently dispatched to a single host */
+  protected int dispatchThreadsPerHost = DEFAULT_DISPATCH_THREADS_PER_HOST;
+
+  /** The socket timeout of dispatch requests in milliseconds */
+  protected int dispatchTimeout = DEFAULT_DISPATCH_TIMEOUT;
+
+  /** Limits the number of concurrent dispatch requests per host */
+  protected final Map<String, Semaphore> dispatchPermits = new ConcurrentHashMap<>();
+
+  /** Whether to wake up the job dispatcher as soon as jobs are queued */
+  protected boolean dispatchWakeUp = DEFAULT_DISPATCH_WAKEUP;
+
+  /** The time in milliseconds to wait for further queued jobs before waking up the dispatcher */
+  protected long dispatchWakeUpDelay = DEFAULT_DISPATCH_WAKEUP_DELAY;
+
+  /** The job dispatcher of this node, or <code>null</code> if dispatching is disabled */
+  protected JobDispatcher jobDispatcher = null;
+
+  /** Whether a wake up of the job dispatcher is already scheduled */
+  private final AtomicBoolean dispatchWakeUpPending = new AtomicBoolean(false);
+
+  /** The message sender used to notify dispatching nodes about queued jobs */
+  protected MessageSender messageSender = null;
+
+  /** The message receiver used to listen for queued jobs on other nodes */
+  protected MessageReceiver messageReceiver = null;
+
+  /** Listens for jobs queued on other nodes */
+  private JobQueueWatcher jobQueueWatcher = null;
+
+  /** Keeps track of hosts which keep refusing dispatched jobs */
+  protected HostCircuitBreaker hostCircuitBreaker = new HostCircuitBreaker(DEFAULT_DISPATCH_HOST_FAILURES,
+          TimeUnit.SECONDS.toMillis(DEFAULT_DISPATCH_HOST_RESET));
+
+  /** Whether host loads are taken from the in-memory ledger instead of the database */
+  protected boolean hostLoadsLedger = DEFAULT_HOSTLOADS_LEDGER;
+
+  /** Keeps track of the load of every host in memory */
+  protected final HostLoadLedger hostLoadLedger = new HostLoadLedger();
+
   /** Maximum age of jobs being considering for service statistics */
   protected int maxJobAge = DEFAULT_SERVICE_STATISTICS_MAX_JOB_AGE;
 
   /** A static list of statuses that influence how load balancing is calculated */
   protected static final List<Status> JOB_STATUSES_INFLUENCING_LOAD_BALANCING;
 
-  protected static HashMap<Long, Float> jobCache = new HashMap<Long, Float>();
+  protected static final Map<Long, Float> jobCache = new ConcurrentHashMap<Long, Float>();
 
   static {
     JOB_STATUSES_INFLUENCING_LOAD_BALANCING = new ArrayList<Status>();
@@ -260,13 +388,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   }
 
   /** The dispatcher priority list */
-  protected final Map<Long, String> dispatchPriorityList = new HashMap<>();
+  protected final Map<Long, String> dispatchPriorityList = new ConcurrentHashMap<>();
 
   /** Whether to accept a job whose load exceeds the host’s max load */
   protected Boolean acceptJobLoadsExeedingMaxLoad = true;
 
-  // Current system load
-  protected float systemLoad = 0.0f;
+  // Current system load, in fixed point units of the host load ledger
+  protected final AtomicLong systemLoad = new AtomicLong();
 
   /** OSGi DI */
   void setEntityManagerFactory(EntityManagerFactory emf) {
@@ -302,6 +430,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       jmxBeans.add(JmxUtil.registerMXBean(hostsStatistics, JMX_HOSTS_STATISTICS_TYPE));
       jmxBeans.add(JmxUtil.registerMXBean(servicesStatistics, JMX_SERVICES_STATISTICS_TYPE));
       jmxBeans.add(JmxUtil.registerMXBean(jobsStatistics, JMX_JOBS_STATISTICS_TYPE));
+      jmxBeans.add(JmxUtil.registerMXBean(new HostLoadsStatistics(hostLoadLedger), JMX_HOST_LOADS_STATISTICS_TYPE));
     } catch (ServiceRegistryException e) {
       logger.error("Error registering JMX statistic beans", e);
     }
@@ -354,13 +483,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               .getOrElse(DEFAULT_ACCEPT_JOB_LOADS_EXCEEDING);
     }
 
-    systemLoad = getHostLoads(emf.createEntityManager()).get(hostName).getLoadFactor();
-    logger.info("Current system load: {}", systemLoad);
+    systemLoad.set(HostLoadLedger.toUnits(queryHostLoads(emf.createEntityManager()).get(hostName).getLoadFactor()));
+    logger.info("Current system load: {}", getOwnLoad());
   }
 
   @Override
   public float getOwnLoad() {
-    return systemLoad;
+    return HostLoadLedger.fromUnits(systemLoad.get());
   }
 
   @Override
@@ -388,6 +517,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     if (scheduledExecutor != null) {
       scheduledExecutor.shutdownNow();
     }
+    if (dispatchExecutor != null) {
+      dispatchExecutor.shutdownNow();
+    }
+    stopJobQueueWatcher();
   }
 
   /**
@@ -592,6 +725,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       tx.commit();
 
       setJobUri(jpaJob);
+      if (dispatchable)
+        signalJobQueued(jpaJob);
       Job job = jpaJob.toJob();
       return job;
     } catch (RollbackException e) {
@@ -789,6 +924,102 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    String dispatchBatchString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_BATCH));
+    if (StringUtils.isNotBlank(dispatchBatchString)) {
+      dispatchBatch = BooleanUtils.toBoolean(dispatchBatchString);
+    } else {
+      dispatchBatch = DEFAULT_DISPATCH_BATCH;
+    }
+    logger.info("Batched job dispatching is {}", dispatchBatch ? "enabled" : "disabled");
+
+    String dispatchWakeUpString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_WAKEUP));
+    dispatchWakeUp = dispatchWakeUpString == null ? DEFAULT_DISPATCH_WAKEUP
+            : BooleanUtils.toBoolean(dispatchWakeUpString);
+
+    dispatchWakeUpDelay = DEFAULT_DISPATCH_WAKEUP_DELAY;
+    String dispatchWakeUpDelayString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_WAKEUP_DELAY));
+    if (dispatchWakeUpDelayString != null) {
+      try {
+        dispatchWakeUpDelay = Math.max(0, Long.parseLong(dispatchWakeUpDelayString));
+      } catch (NumberFormatException e) {
+        logger.warn("Dispatch wake up delay '{}' is malformed, setting to {}", dispatchWakeUpDelayString,
+                DEFAULT_DISPATCH_WAKEUP_DELAY);
+      }
+    }
+
+    String hostLoadsLedgerString = StringUtils.trimToNull((String) properties.get(OPT_HOSTLOADS_LEDGER));
+    hostLoadsLedger = hostLoadsLedgerString == null ? DEFAULT_HOSTLOADS_LEDGER
+            : BooleanUtils.toBoolean(hostLoadsLedgerString);
+
+    long hostLoadsLedgerReconcile = DEFAULT_HOSTLOADS_LEDGER_RECONCILE;
+    String hostLoadsLedgerReconcileString = StringUtils
+            .trimToNull((String) properties.get(OPT_HOSTLOADS_LEDGER_RECONCILE));
+    if (hostLoadsLedgerReconcileString != null) {
+      try {
+        hostLoadsLedgerReconcile = Math.max(1, Long.parseLong(hostLoadsLedgerReconcileString));
+      } catch (NumberFormatException e) {
+        logger.warn("Host loads reconciliation interval '{}' is malformed, setting to {}",
+                hostLoadsLedgerReconcileString, DEFAULT_HOSTLOADS_LEDGER_RECONCILE);
+      }
+    }
+
+    int dispatchThreads = DEFAULT_DISPATCH_THREADS;
+    String dispatchThreadsString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_THREADS));
+    if (dispatchThreadsString != null) {
+      try {
+        dispatchThreads = Math.max(1, Integer.parseInt(dispatchThreadsString));
+      } catch (NumberFormatException e) {
+        logger.warn("Number of dispatch threads '{}' is malformed, setting to {}", dispatchThreadsString,
+                DEFAULT_DISPATCH_THREADS);
+      }
+    }
+
+    dispatchThreadsPerHost = DEFAULT_DISPATCH_THREADS_PER_HOST;
+    String dispatchThreadsPerHostString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_THREADS_PER_HOST));
+    if (dispatchThreadsPerHostString != null) {
+      try {
+        dispatchThreadsPerHost = Math.max(1, Integer.parseInt(dispatchThreadsPerHostString));
+      } catch (NumberFormatException e) {
+        logger.warn("Number of dispatch threads per host '{}' is malformed, setting to {}",
+                dispatchThreadsPerHostString, DEFAULT_DISPATCH_THREADS_PER_HOST);
+      }
+    }
+    dispatchPermits.clear();
+
+    dispatchTimeout = DEFAULT_DISPATCH_TIMEOUT;
+    String dispatchTimeoutString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_TIMEOUT));
+    if (dispatchTimeoutString != null) {
+      try {
+        dispatchTimeout = Math.max(0, Integer.parseInt(dispatchTimeoutString));
+      } catch (NumberFormatException e) {
+        logger.warn("Dispatch timeout '{}' is malformed, setting to {}", dispatchTimeoutString,
+                DEFAULT_DISPATCH_TIMEOUT);
+      }
+    }
+
+    int hostFailures = DEFAULT_DISPATCH_HOST_FAILURES;
+    String hostFailuresString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_HOST_FAILURES));
+    if (hostFailuresString != null) {
+      try {
+        hostFailures = Integer.parseInt(hostFailuresString);
+      } catch (NumberFormatException e) {
+        logger.warn("Number of host failures '{}' is malformed, setting to {}", hostFailuresString,
+                DEFAULT_DISPATCH_HOST_FAILURES);
+      }
+    }
+
+    long hostReset = DEFAULT_DISPATCH_HOST_RESET;
+    String hostResetString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCH_HOST_RESET));
+    if (hostResetString != null) {
+      try {
+        hostReset = Long.parseLong(hostResetString);
+      } catch (NumberFormatException e) {
+        logger.warn("Host reset timeout '{}' is malformed, setting to {}", hostResetString,
+                DEFAULT_DISPATCH_HOST_RESET);
+      }
+    }
+    hostCircuitBreaker = new HostCircuitBreaker(hostFailures, TimeUnit.SECONDS.toMillis(hostReset));
+
     String maxJobAgeString = StringUtils.trimToNull((String) properties.get(OPT_SERVICE_STATISTICS_MAX_JOB_AGE));
     if (maxJobAgeString != null) {
       try {
@@ -808,7 +1039,18 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       dispatchDelay = dispatchInterval;
     }
 
-    scheduledExecutor = Executors.newScheduledThreadPool(2);
+    // Heartbeat, regular dispatching, dispatching on wake up and host loads reconciliation
+    scheduledExecutor = Executors.newScheduledThreadPool(4);
+
+    if (dispatchExecutor != null) {
+      dispatchExecutor.shutdown();
+      dispatchExecutor = null;
+    }
+    if (dispatchThreads > 1) {
+      logger.info("Dispatching up to {} jobs concurrently, at most {} per host", dispatchThreads,
+              dispatchThreadsPerHost);
+      dispatchExecutor = Executors.newFixedThreadPool(dispatchThreads);
+    }
 
     // Schedule the service heartbeat if the interval is > 0
     if (heartbeatInterval > 0) {
@@ -817,11 +1059,127 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               TimeUnit.SECONDS);
     }
 
+    // Keep the in-memory host loads in line with the database, starting with an initial reconciliation
+    if (hostLoadsLedger) {
+      logger.info("Keeping track of host loads in memory, reconciling every {}s", hostLoadsLedgerReconcile);
+      HostLoadReconciliation reconciliation = new HostLoadReconciliation();
+      reconciliation.run();
+      scheduledExecutor.scheduleWithFixedDelay(reconciliation, hostLoadsLedgerReconcile, hostLoadsLedgerReconcile,
+              TimeUnit.SECONDS);
+    }
+
     // Schedule the job dispatching.
+    stopJobQueueWatcher();
     if (dispatchInterval > 0) {
       logger.debug("Starting job dispatching at a custom interval of {}s", dispatchInterval / 1000);
-      scheduledExecutor.scheduleWithFixedDelay(new JobDispatcher(), dispatchDelay, dispatchInterval,
+      jobDispatcher = new JobDispatcher();
+      scheduledExecutor.scheduleWithFixedDelay(jobDispatcher, dispatchDelay, dispatchInterval,
               TimeUnit.MILLISECONDS);
+      if (dispatchWakeUp)
+        logger.info("Waking up job dispatching {} ms after jobs have been queued", dispatchWakeUpDelay);
+      if (dispatchWakeUp || hostLoadsLedger)
+        startJobQueueWatcher();
+    } else {
+      jobDispatcher = null;
+    }
+  }
+
+  /**
+   * Notifies the job dispatcher that the given job is waiting to be dispatched. If this node is dispatching jobs, the
+   * local dispatcher is woken up, otherwise all dispatching nodes are notified through a topic of the message broker.
+   *
+   * @param job
+   *          the queued job
+   */
+  protected void signalJobQueued(JpaJob job) {
+    if (!dispatchWakeUp)
+      return;
+
+    if (jobDispatcher != null) {
+      wakeUpDispatcher();
+      return;
+    }
+
+    MessageSender sender = messageSender;
+    if (sender == null)
+      return;
+    try {
+      sender.sendObjectMessage(ServiceRegistryItem.SERVICEREGISTRY_TOPIC, MessageSender.DestinationType.Topic,
+              ServiceRegistryItem.jobQueued(job.getId(), job.getJobType()));
+    } catch (Exception e) {
+      logger.debug("Unable to notify dispatching nodes about queued job {}", job.getId(), e);
+    }
+  }
+
+  /**
+   * Notifies the dispatching nodes that the given job started or stopped loading its host, so that they can update
+   * their host load ledgers without waiting for the next reconciliation. Nothing is sent if this node is dispatching
+   * jobs itself, since its ledger has already been updated.
+   *
+   * @param job
+   *          the job whose status changed
+   */
+  protected void signalJobLoadChanged(JpaJob job) {
+    MessageSender sender = messageSender;
+    if (jobDispatcher != null || sender == null)
+      return;
+
+    ServiceRegistryItem item;
+    if (JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(job.getStatus())
+            && job.getProcessorServiceRegistration() != null) {
+      item = ServiceRegistryItem.jobLoadAdded(job.getId(), job.getJobType(),
+              job.getProcessorServiceRegistration().getHost(), job.getJobLoad());
+    } else {
+      item = ServiceRegistryItem.jobLoadRemoved(job.getId(), job.getJobType());
+    }
+    try {
+      sender.sendObjectMessage(ServiceRegistryItem.SERVICEREGISTRY_TOPIC, MessageSender.DestinationType.Topic, item);
+    } catch (Exception e) {
+      logger.debug("Unable to notify dispatching nodes about the load of job {}", job.getId(), e);
+    }
+  }
+
+  /**
+   * Schedules a round of dispatching on this node unless one is already pending. Multiple jobs queued within the wake
+   * up delay are dispatched in the same round.
+   */
+  protected void wakeUpDispatcher() {
+    final JobDispatcher dispatcher = jobDispatcher;
+    final ScheduledExecutorService executor = scheduledExecutor;
+    if (dispatcher == null || executor == null)
+      return;
+    if (!dispatchWakeUpPending.compareAndSet(false, true))
+      return;
+
+    try {
+      executor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          dispatchWakeUpPending.set(false);
+          dispatcher.run();
+        }
+      }, dispatchWakeUpDelay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      dispatchWakeUpPending.set(false);
+      logger.debug("Job dispatching is shutting down, not waking it up");
+    }
+  }
+
+  /** Starts listening for jobs queued on other nodes if a message receiver is available. */
+  private synchronized void startJobQueueWatcher() {
+    if (jobQueueWatcher != null || messageReceiver == null)
+      return;
+    jobQueueWatcher = new JobQueueWatcher(messageReceiver);
+    Thread thread = new Thread(jobQueueWatcher, "Job queue watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Stops listening for jobs queued on other nodes. */
+  private synchronized void stopJobQueueWatcher() {
+    if (jobQueueWatcher != null) {
+      jobQueueWatcher.stopListening();
+      jobQueueWatcher = null;
     }
   }
 
@@ -896,12 +1254,31 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               && job.getProcessorServiceRegistration().getHost().equals(getRegistryHostname())) {
         processCachedLoadChange(job);
       }
+      if (hostLoadsLedger && !TYPE_WORKFLOW.equals(job.getJobType())) {
+        if (JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(job.getStatus())
+                && job.getProcessorServiceRegistration() != null) {
+          hostLoadLedger.add(job.getId(), job.getProcessorServiceRegistration().getHost(), job.getJobLoad());
+        } else {
+          hostLoadLedger.remove(job.getId());
+        }
+        if (JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(oldJob.getStatus())
+                != JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(job.getStatus())) {
+          signalJobLoadChanged(job);
+        }
+      }
 
       // All WorkflowService Jobs will be ignored
       if (oldJob.getStatus() != job.getStatus() && !TYPE_WORKFLOW.equals(job.getJobType())) {
         updateServiceForFailover(em, job);
       }
 
+      // Let the dispatcher know about jobs that are waiting to be dispatched. Jobs that are put back into the queue by
+      // the dispatcher itself will be picked up by the next regular round of dispatching.
+      if (oldJob.getStatus() != job.getStatus() && oldJob.getStatus() != Status.DISPATCHING && job.isDispatchable()
+              && (job.getStatus() == Status.QUEUED || job.getStatus() == Status.RESTART)) {
+        signalJobQueued(job);
+      }
+
       return jpaJob;
     } catch (PersistenceException e) {
       throw new ServiceRegistryException(e);
@@ -929,30 +1306,30 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    * @param job
    *   The job to apply to the load cache
    */
-  private synchronized void processCachedLoadChange(JpaJob job) {
-    if (JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(job.getStatus()) && jobCache.get(job.getId()) == null) {
+  private void processCachedLoadChange(JpaJob job) {
+    if (JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(job.getStatus())
+            && jobCache.putIfAbsent(job.getId(), job.getJobLoad()) == null) {
       logger.debug("{} Adding to load cache: Job {}, type {}, status {}", Thread.currentThread().getId(), job.getId(),
               job.getJobType(), job.getStatus());
-      systemLoad += job.getJobLoad();
-      jobCache.put(job.getId(), job.getJobLoad());
-    } else if (jobCache.get(job.getId()) != null && Status.FINISHED.equals(job.getStatus())
-            || Status.FAILED.equals(job.getStatus()) || Status.WAITING.equals(job.getStatus())) {
+      systemLoad.addAndGet(HostLoadLedger.toUnits(job.getJobLoad()));
+    } else if ((Status.FINISHED.equals(job.getStatus()) || Status.FAILED.equals(job.getStatus())
+            || Status.WAITING.equals(job.getStatus())) && jobCache.remove(job.getId()) != null) {
       logger.debug("{} Removing from load cache: Job {}, type {}, status {}", Thread.currentThread().getId(),
               job.getId(), job.getJobType(), job.getStatus());
-      systemLoad -= job.getJobLoad();
-      jobCache.remove(job.getId());
+      systemLoad.addAndGet(-HostLoadLedger.toUnits(job.getJobLoad()));
     } else {
       logger.debug("{} Ignoring for load cache: Job {}, type {}, status {}", Thread.currentThread().getId(),
               job.getId(), job.getJobType(), job.getStatus());
     }
-    logger.debug("{} Current host load: {}", Thread.currentThread().getId(), systemLoad);
+    logger.debug("{} Current host load: {}", Thread.currentThread().getId(), getOwnLoad());
   }
 
-  private synchronized void removeFromLoadCache(Long jobId) {
-    if (jobCache.get(jobId) != null) {
+  private void removeFromLoadCache(Long jobId) {
+    hostLoadLedger.remove(jobId);
+    Float load = jobCache.remove(jobId);
+    if (load != null) {
       logger.debug("{} Removing deleted job from load cache: Job {}", Thread.currentThread().getId(), jobId);
-      systemLoad -= jobCache.get(jobId);
-      jobCache.remove(jobId);
+      systemLoad.addAndGet(-HostLoadLedger.toUnits(load));
     }
   }
 
@@ -1789,6 +2166,54 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  @Override
+  public List<JobPayload> getJobPayloads(String operation, int limit, JobPayload after)
+          throws ServiceRegistryException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      // Seek to the last payload of the previous page instead of skipping rows, so every page is read from the index
+      Query query;
+      if (after == null) {
+        query = em.createNamedQuery("Job.payload.first");
+      } else {
+        query = em.createNamedQuery("Job.payload.after");
+        query.setParameter("dateCreated", after.getDateCreated(), TemporalType.TIMESTAMP);
+        query.setParameter("id", after.getId());
+      }
+      query.setParameter("operation", operation);
+      query.setMaxResults(limit);
+      logger.debug("Requesting {} job payloads using query: {}", limit, query);
+      List<JobPayload> payloads = new ArrayList<JobPayload>();
+      for (Object result : query.getResultList()) {
+        Object[] row = (Object[]) result;
+        payloads.add(new JobPayload(((Number) row[0]).longValue(), (Date) row[1], (String) row[2]));
+      }
+      return payloads;
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  @Override
+  public int getJobCount(String operation) throws ServiceRegistryException {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      TypedQuery<Number> query = em.createNamedQuery("Job.countByOperationOnly", Number.class);
+      query.setParameter("operation", operation);
+      return query.getSingleResult().intValue();
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -1909,6 +2334,72 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
   }
 
+  /**
+   * Return the ids of those jobs from the given set that currently have at least one descendant job in the given
+   * status. Like {@link #getChildJobs(long)}, this takes all descendants into account: those pointing to the job as
+   * their root job as well as the children of its children.
+   *
+   * @param em the entity manager
+   * @param jobIds set with job id's interested in
+   * @param status the status of the descendant jobs
+   * @return the job id's from the given set that have descendants with the given status
+   * @throws ServiceRegistryException if there is a problem communicating with the jobs database
+   */
+  @SuppressWarnings("unchecked")
+  protected Set<Long> getJobsWithChildrenInStatus(EntityManager em, Set<Long> jobIds, Status status)
+          throws ServiceRegistryException {
+    final Set<Long> result = new HashSet<>();
+    if (jobIds == null || jobIds.isEmpty())
+      return result;
+
+    try {
+      // The descendants of root jobs refer to them directly
+      Query query = em.createNamedQuery("Job.roots.childstatus");
+      query.setParameter("ids", jobIds);
+      query.setParameter("status", status.ordinal());
+      for (Object id : query.getResultList()) {
+        result.add(((Number) id).longValue());
+      }
+
+      // The descendants of any other job are found by walking down the job tree, one generation per query. Each job on
+      // the way keeps track of the jobs from the given set it is descending from.
+      Map<Long, Set<Long>> generation = new HashMap<>();
+      for (Long jobId : jobIds) {
+        if (!result.contains(jobId))
+          generation.put(jobId, Collections.singleton(jobId));
+      }
+      while (!generation.isEmpty()) {
+        query = em.createNamedQuery("Job.parents.children");
+        query.setParameter("ids", generation.keySet());
+        Map<Long, Set<Long>> children = new HashMap<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+          Set<Long> ancestors = generation.get(((Number) row[1]).longValue());
+          if (((Number) row[2]).intValue() == status.ordinal()) {
+            result.addAll(ancestors);
+          } else {
+            long childId = ((Number) row[0]).longValue();
+            Set<Long> childAncestors = children.get(childId);
+            if (childAncestors == null)
+              children.put(childId, childAncestors = new HashSet<>());
+            childAncestors.addAll(ancestors);
+          }
+        }
+
+        // There is no need to look any further for jobs that are already known to have such descendants
+        generation = new HashMap<>();
+        for (Map.Entry<Long, Set<Long>> child : children.entrySet()) {
+          Set<Long> ancestors = child.getValue();
+          ancestors.removeAll(result);
+          if (!ancestors.isEmpty())
+            generation.put(child.getKey(), ancestors);
+        }
+      }
+      return result;
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   protected List<Object[]> getAvgOperations(EntityManager em) throws ServiceRegistryException {
     Query query = null;
@@ -2212,6 +2703,25 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    * @return the map of hosts to job counts
    */
   SystemLoad getHostLoads(EntityManager em) {
+    if (hostLoadsLedger) {
+      List<String> hosts = new ArrayList<String>();
+      for (HostRegistration h : getHostRegistrations(em)) {
+        hosts.add(h.getBaseUrl());
+      }
+      return hostLoadLedger.getSystemLoad(hosts);
+    }
+    return queryHostLoads(em);
+  }
+
+  /**
+   * Gets a map of hosts to the number of jobs currently loading that host, as stored in the database
+   *
+   * @param em
+   *          the entity manager
+   *
+   * @return the map of hosts to job counts
+   */
+  SystemLoad queryHostLoads(EntityManager em) {
     final SystemLoad systemLoad = new SystemLoad();
 
     // Find all jobs that are currently running on any given host, or get all of them
@@ -2430,6 +2940,32 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     this.organizationDirectoryService = organizationDirectory;
   }
 
+  /** OSGi DI. */
+  public void setMessageSender(MessageSender messageSender) {
+    this.messageSender = messageSender;
+  }
+
+  /** OSGi DI. */
+  public void unsetMessageSender(MessageSender messageSender) {
+    if (this.messageSender == messageSender)
+      this.messageSender = null;
+  }
+
+  /** OSGi DI. */
+  public void setMessageReceiver(MessageReceiver messageReceiver) {
+    this.messageReceiver = messageReceiver;
+    if (jobDispatcher != null && (dispatchWakeUp || hostLoadsLedger))
+      startJobQueueWatcher();
+  }
+
+  /** OSGi DI. */
+  public void unsetMessageReceiver(MessageReceiver messageReceiver) {
+    if (this.messageReceiver == messageReceiver) {
+      stopJobQueueWatcher();
+      this.messageReceiver = null;
+    }
+  }
+
   /** OSGi DI. */
   public void setIncidentService(IncidentService incidentService) {
     // Manually resolve the cyclic dependency between the incident service and the service registry
@@ -2895,7 +3431,13 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   class JobDispatcher implements Runnable {
 
     /** A list with job types that cannot be dispatched in each interation */
-    private List<String> undispatchableJobTypes = null;
+    private Set<String> undispatchableJobTypes = null;
+
+    /** The number of jobs considered for dispatching in the current round */
+    private final AtomicInteger jobsPlanned = new AtomicInteger();
+
+    /** The number of jobs dispatched in the current round */
+    private final AtomicInteger jobsDispatched = new AtomicInteger();
 
     /**
      * {@inheritDoc}
@@ -2903,11 +3445,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      * @see java.lang.Thread#run()
      */
     @Override
-    public void run() {
+    public synchronized void run() {
 
       logger.debug("Starting job dispatching");
 
-      undispatchableJobTypes = new ArrayList<String>();
+      final long roundStart = System.currentTimeMillis();
+      jobsPlanned.set(0);
+      jobsDispatched.set(0);
+      undispatchableJobTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
       EntityManager em = null;
       try {
         em = emf.createEntityManager();
@@ -2982,7 +3527,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           em.close();
       }
 
-      logger.debug("Finished job dispatching");
+      final long roundDuration = System.currentTimeMillis() - roundStart;
+      if (jobsStatistics != null)
+        jobsStatistics.updateDispatchRound(roundDuration, jobsPlanned.get(), jobsDispatched.get());
+      logger.debug("Finished job dispatching in {} ms: {} jobs planned, {} dispatched", roundDuration,
+              jobsPlanned.get(), jobsDispatched.get());
     }
 
     /**
@@ -2995,51 +3544,116 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       //Get the current system load
       SystemLoad systemLoad = getHostLoads(em);
 
-      for (JpaJob job : jobsToDispatch) {
-
-        // Remember the job type
-        String jobType = job.getJobType();
-
-        // Skip jobs that we already know can't be dispatched except of jobs in the priority list
-        String jobSignature = new StringBuilder(jobType).append('@').append(job.getOperation()).toString();
-        if (undispatchableJobTypes.contains(jobSignature) && !dispatchPriorityList.keySet().contains(job.getId())) {
-          logger.trace("Skipping dispatching of jobs {} with type '{}' for this round of dispatching", job.getId(),
-                  jobType);
-          continue;
+      // In batch mode, load services, hosts and the running state of parent jobs once for the whole list of jobs
+      DispatchSnapshot snapshot = null;
+      if (dispatchBatch) {
+        try {
+          snapshot = new DispatchSnapshot(em, jobsToDispatch);
+        } catch (ServiceRegistryException e) {
+          logger.warn("Unable to create dispatch snapshot, falling back to per job lookups", e);
         }
+      }
 
-        // Set the job's user and organization prior to dispatching
-        String creator = job.getCreator();
-        String creatorOrganization = job.getOrganization();
+      if (dispatchExecutor == null) {
+        for (JpaJob job : jobsToDispatch) {
+          dispatchDispatchableJob(em, job, systemLoad, snapshot);
+        }
+        return;
+      }
 
-        // Try to load the organization.
-        Organization organization = null;
+      // Dispatch the jobs concurrently, each with its own entity manager, and wait for all of them to be done
+      final SystemLoad sharedSystemLoad = systemLoad;
+      final DispatchSnapshot sharedSnapshot = snapshot;
+      List<Future<?>> dispatches = new ArrayList<>(jobsToDispatch.size());
+      for (final JpaJob job : jobsToDispatch) {
+        dispatches.add(dispatchExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            EntityManager jobEm = null;
+            try {
+              jobEm = emf.createEntityManager();
+              dispatchDispatchableJob(jobEm, job, sharedSystemLoad, sharedSnapshot);
+            } finally {
+              if (jobEm != null)
+                jobEm.close();
+            }
+          }
+        }));
+      }
+      for (Future<?> dispatch : dispatches) {
         try {
-          organization = organizationDirectoryService.getOrganization(creatorOrganization);
-          securityService.setOrganization(organization);
-        } catch (NotFoundException e) {
-          logger.debug("Skipping dispatching of job for non-existing organization '{}'", creatorOrganization);
-          continue;
+          dispatch.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (ExecutionException e) {
+          logger.warn("Error dispatching job", e.getCause());
         }
+      }
+    }
 
-        // Try to load the user
-        User user = userDirectoryService.loadUser(creator);
-        if (user == null) {
-          logger.warn("Unable to dispatch job {}: creator '{}' is not available", job.getId(), creator);
-          continue;
-        }
-        securityService.setUser(user);
+    /**
+     * Dispatch a single job.
+     *
+     * @param em the entity manager
+     * @param job the job to dispatch
+     * @param systemLoad the current system load, updated if the job is dispatched
+     * @param snapshot the snapshot of the cluster state, or <code>null</code> to look it up for this job
+     */
+    private void dispatchDispatchableJob(EntityManager em, JpaJob job, SystemLoad systemLoad,
+            DispatchSnapshot snapshot) {
+      jobsPlanned.incrementAndGet();
+
+      // Remember the job type
+      String jobType = job.getJobType();
+
+      // Skip jobs that we already know can't be dispatched except of jobs in the priority list
+      String jobSignature = new StringBuilder(jobType).append('@').append(job.getOperation()).toString();
+      if (undispatchableJobTypes.contains(jobSignature) && !dispatchPriorityList.keySet().contains(job.getId())) {
+        logger.trace("Skipping dispatching of jobs {} with type '{}' for this round of dispatching", job.getId(),
+                jobType);
+        return;
+      }
 
-        // Start dispatching
-        try {
-          List<ServiceRegistration> services = getServiceRegistrations(em);
-          List<HostRegistration> hosts = $(getHostRegistrations(em)).filter(filterOutPriorityHosts._2(job.getId()))
-                  .toList();
-          List<ServiceRegistration> candidateServices = null;
-
-          // Depending on whether this running job is trying to reach out to other services or whether this is an
-          // attempt to execute the next operation in a workflow, choose either from a limited or from the full list
-          // of services
+      // Set the job's user and organization prior to dispatching
+      String creator = job.getCreator();
+      String creatorOrganization = job.getOrganization();
+
+      // Try to load the organization.
+      Organization organization = null;
+      try {
+        organization = organizationDirectoryService.getOrganization(creatorOrganization);
+        securityService.setOrganization(organization);
+      } catch (NotFoundException e) {
+        logger.debug("Skipping dispatching of job for non-existing organization '{}'", creatorOrganization);
+        return;
+      }
+
+      // Try to load the user
+      User user = userDirectoryService.loadUser(creator);
+      if (user == null) {
+        logger.warn("Unable to dispatch job {}: creator '{}' is not available", job.getId(), creator);
+        return;
+      }
+      securityService.setUser(user);
+
+      // Start dispatching
+      try {
+        List<ServiceRegistration> services = snapshot != null ? snapshot.services : getServiceRegistrations(em);
+        List<HostRegistration> hosts = $(snapshot != null ? snapshot.hosts : getHostRegistrations(em))
+                .filter(filterOutPriorityHosts._2(job.getId())).toList();
+        List<ServiceRegistration> candidateServices = null;
+
+        // Depending on whether this running job is trying to reach out to other services or whether this is an
+        // attempt to execute the next operation in a workflow, choose either from a limited or from the full list
+        // of services
+        boolean hasParentJob = false;
+        boolean parentHasRunningChildren = false;
+        if (snapshot != null) {
+          hasParentJob = job.getParentJob() != null;
+          parentHasRunningChildren = hasParentJob
+                  && snapshot.parentsWithRunningChildren.contains(job.getParentJob().getId());
+        } else {
           Job parentJob = null;
           try {
             if (job.getParentJob() != null)
@@ -3050,8 +3664,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
           // When a job A starts a series of child jobs, then those child jobs should only be dispatched at the
           // same time if there is processing capacity available.
-          boolean parentHasRunningChildren = false;
           if (parentJob != null) {
+            hasParentJob = true;
             for (Job child : getChildJobs(parentJob.getId())) {
               if (Status.RUNNING.equals(child.getStatus())) {
                 parentHasRunningChildren = true;
@@ -3059,48 +3673,57 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               }
             }
           }
+        }
 
-          // If this is a root job (a new workflow or a new workflow operation), then only dispatch if there is
-          // capacity, i. e. the workflow service is ok dispatching the next workflow or the next workflow operation.
-          if (parentJob == null || TYPE_WORKFLOW.equals(jobType) || parentHasRunningChildren) {
+        // If this is a root job (a new workflow or a new workflow operation), then only dispatch if there is
+        // capacity, i. e. the workflow service is ok dispatching the next workflow or the next workflow operation.
+        boolean requireCapacity = !hasParentJob || TYPE_WORKFLOW.equals(jobType) || parentHasRunningChildren;
+        synchronized (systemLoad) {
+          if (requireCapacity) {
             logger.trace("Using available capacity only for dispatching of {} to a service of type '{}'", job,
                     jobType);
             candidateServices = getServiceRegistrationsWithCapacity(jobType, services, hosts, systemLoad);
           } else {
-            logger.trace("Using full list of services for dispatching of {} to a service of type '{}'", job, jobType);
+            logger.trace("Using full list of services for dispatching of {} to a service of type '{}'", job,
+                    jobType);
             candidateServices = getServiceRegistrationsByLoad(jobType, services, hosts, systemLoad);
           }
+        }
 
-          // Try to dispatch the job
-          String hostAcceptingJob = null;
-          try {
-            hostAcceptingJob = dispatchJob(em, job, candidateServices);
-            try {
-              systemLoad.updateNodeLoad(hostAcceptingJob, job.getJobLoad());
-            } catch (NotFoundException e) {
-              logger.debug("Host {} not found in load list, this is a bug.", hostAcceptingJob);
-            }
+        // Try to dispatch the job
+        String hostAcceptingJob = null;
+        try {
+          hostAcceptingJob = dispatchJob(em, job, candidateServices, systemLoad, requireCapacity);
+          if (hostLoadsLedger)
+            hostLoadLedger.add(job.getId(), hostAcceptingJob, job.getJobLoad());
 
-            dispatchPriorityList.remove(job.getId());
-          } catch (ServiceUnavailableException e) {
-            logger.debug("Jobs of type {} currently cannot be dispatched", job.getOperation());
-            // Don't mark workflow jobs as undispatchable to not impact worklfow operations
-            if (!TYPE_WORKFLOW.equals(jobType))
-              undispatchableJobTypes.add(jobSignature);
-            continue;
-          } catch (UndispatchableJobException e) {
-            logger.debug("Job {} currently cannot be dispatched", job.getId());
-            continue;
-          }
+          dispatchPriorityList.remove(job.getId());
+          jobsDispatched.incrementAndGet();
 
-          logger.debug("Job {} dispatched to {}", job.getId(), hostAcceptingJob);
-        } catch (ServiceRegistryException e) {
-          Throwable cause = (e.getCause() != null) ? e.getCause() : e;
-          logger.error("Error dispatching job " + job, cause);
-        } finally {
-          securityService.setUser(null);
-          securityService.setOrganization(null);
+          // The dispatched job is now running, which affects the descendants of all its ancestors in this round
+          if (snapshot != null) {
+            for (JpaJob ancestor = job.getParentJob(); ancestor != null; ancestor = ancestor.getParentJob()) {
+              snapshot.parentsWithRunningChildren.add(ancestor.getId());
+            }
+          }
+        } catch (ServiceUnavailableException e) {
+          logger.debug("Jobs of type {} currently cannot be dispatched", job.getOperation());
+          // Don't mark workflow jobs as undispatchable to not impact worklfow operations
+          if (!TYPE_WORKFLOW.equals(jobType))
+            undispatchableJobTypes.add(jobSignature);
+          return;
+        } catch (UndispatchableJobException e) {
+          logger.debug("Job {} currently cannot be dispatched", job.getId());
+          return;
         }
+
+        logger.debug("Job {} dispatched to {}", job.getId(), hostAcceptingJob);
+      } catch (ServiceRegistryException e) {
+        Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+        logger.error("Error dispatching job " + job, cause);
+      } finally {
+        securityService.setUser(null);
+        securityService.setOrganization(null);
       }
     }
 
@@ -3114,6 +3737,10 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      *          the job to dispatch
      * @param services
      *          a list of service registrations
+     * @param systemLoad
+     *          the current system load, which the job's load is booked on for the host accepting the job
+     * @param requireCapacity
+     *          whether the job may only be dispatched to hosts that have capacity left
      * @return the host that accepted the dispatched job, or <code>null</code> if no services took the job.
      * @throws ServiceRegistryException
      *           if the service registrations are unavailable
@@ -3122,7 +3749,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      * @throws UndispatchableJobException
      *           if the current job cannot be processed
      */
-    protected String dispatchJob(EntityManager em, JpaJob job, List<ServiceRegistration> services)
+    protected String dispatchJob(EntityManager em, JpaJob job, List<ServiceRegistration> services,
+            SystemLoad systemLoad, boolean requireCapacity)
             throws ServiceRegistryException, ServiceUnavailableException, UndispatchableJobException {
 
       if (services.size() == 0) {
@@ -3152,70 +3780,120 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           continue;
         }
 
-        try {
-          job = updateInternal(em, job);
-        } catch (Exception e) {
-          // In theory, we should catch javax.persistence.OptimisticLockException. Unfortunately, eclipselink throws
-          // org.eclipse.persistence.exceptions.OptimisticLockException. In order to avoid importing the implementation
-          // specific APIs, we just catch Exception.
-          logger.debug("Unable to dispatch {}.  This is likely caused by another service registry dispatching the job",
-                  job);
-          throw new UndispatchableJobException("Job " + job.getId() + " is already being dispatched");
+        // Skip hosts that have been failing to accept jobs recently
+        if (!hostCircuitBreaker.isAvailable(registration.getHost())) {
+          logger.trace("Not dispatching {} to {} since the host has been failing recently", job, registration);
+          continue;
+        }
+
+        // Book the job's load on the host before contacting it, so concurrent dispatchers take it into account
+        if (!reserveLoad(systemLoad, registration, job, requireCapacity)) {
+          logger.trace("Not dispatching {} to {} since the host has no capacity left", job, registration);
+          continue;
         }
 
-        triedDispatching = true;
+        boolean dispatched = false;
+        try {
+          try {
+            job = updateInternal(em, job);
+          } catch (Exception e) {
+            // In theory, we should catch javax.persistence.OptimisticLockException. Unfortunately, eclipselink
+            // throws org.eclipse.persistence.exceptions.OptimisticLockException. In order to avoid importing the
+            // implementation specific APIs, we just catch Exception.
+            logger.debug("Unable to dispatch {}.  This is likely caused by another service registry dispatching "
+                    + "the job", job);
+            throw new UndispatchableJobException("Job " + job.getId() + " is already being dispatched");
+          }
 
-        String serviceUrl = UrlSupport.concat(registration.getHost(), registration.getPath(), "dispatch");
-        HttpPost post = new HttpPost(serviceUrl);
+          triedDispatching = true;
 
-        // Add current organization and user so they can be used during execution at the remote end
-        post.addHeader(ORGANIZATION_HEADER, securityService.getOrganization().getId());
-        post.addHeader(USER_HEADER, securityService.getUser().getUsername());
+          String serviceUrl = UrlSupport.concat(registration.getHost(), registration.getPath(), "dispatch");
+          HttpPost post = new HttpPost(serviceUrl);
 
-        List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
-        params.add(new BasicNameValuePair("id", Long.toString(job.getId())));
-        params.add(new BasicNameValuePair("operation", job.getOperation()));
-        post.setEntity(new UrlEncodedFormEntity(params, UTF_8));
+          // Add current organization and user so they can be used during execution at the remote end
+          post.addHeader(ORGANIZATION_HEADER, securityService.getOrganization().getId());
+          post.addHeader(USER_HEADER, securityService.getUser().getUsername());
 
-        // Post the request
-        HttpResponse response = null;
-        int responseStatusCode;
-        try {
-          logger.debug("Trying to dispatch job {} of type '{}' to {}",
-                  new String[] { Long.toString(job.getId()), job.getJobType(), registration.getHost() });
-          if (!START_WORKFLOW.equals(job.getOperation()))
-            setCurrentJob(job.toJob());
-          response = client.execute(post);
-          responseStatusCode = response.getStatusLine().getStatusCode();
-          if (responseStatusCode == HttpStatus.SC_NO_CONTENT) {
-            return registration.getHost();
-          } else if (responseStatusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
-            logger.debug("Service {} is currently refusing to accept jobs of type {}", registration,
-                    job.getOperation());
-            continue;
-          } else if (responseStatusCode == HttpStatus.SC_PRECONDITION_FAILED) {
-            job.setStatus(Status.FAILED);
-            job = updateJob(job);
-            logger.debug("Service {} refused to accept {}", registration, job);
-            throw new UndispatchableJobException(IOUtils.toString(response.getEntity().getContent()));
-          } else if (responseStatusCode == HttpStatus.SC_METHOD_NOT_ALLOWED) {
-            logger.debug("Service {} is not yet reachable", registration);
-            continue;
-          } else {
-            logger.warn("Service {} failed ({}) accepting {}", registration, responseStatusCode, job);
+          List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
+          params.add(new BasicNameValuePair("id", Long.toString(job.getId())));
+          params.add(new BasicNameValuePair("operation", job.getOperation()));
+          post.setEntity(new UrlEncodedFormEntity(params, UTF_8));
+
+          // Post the request
+          HttpResponse response = null;
+          int responseStatusCode;
+          Semaphore permits = getDispatchPermits(registration.getHost());
+          boolean permitAcquired = false;
+          boolean circuitAcquired = false;
+          try {
+            logger.debug("Trying to dispatch job {} of type '{}' to {}",
+                    new String[] { Long.toString(job.getId()), job.getJobType(), registration.getHost() });
+            if (!START_WORKFLOW.equals(job.getOperation()))
+              setCurrentJob(job.toJob());
+            permits.acquire();
+            permitAcquired = true;
+            // Only take the probe of a failing host right before the request is sent
+            if (!hostCircuitBreaker.acquire(registration.getHost())) {
+              logger.trace("Not dispatching {} to {} since the host is being probed", job, registration);
+              continue;
+            }
+            circuitAcquired = true;
+            if (dispatchTimeout > 0) {
+              response = client.execute(post, dispatchTimeout, dispatchTimeout);
+            } else {
+              response = client.execute(post);
+            }
+            responseStatusCode = response.getStatusLine().getStatusCode();
+            if (responseStatusCode == HttpStatus.SC_NO_CONTENT) {
+              hostCircuitBreaker.success(registration.getHost());
+              circuitAcquired = false;
+              dispatched = true;
+              return registration.getHost();
+            } else if (responseStatusCode == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+              // The host is busy rather than failing, so this doesn't count against its circuit
+              logger.debug("Service {} is currently refusing to accept jobs of type {}", registration,
+                      job.getOperation());
+              continue;
+            } else if (responseStatusCode == HttpStatus.SC_PRECONDITION_FAILED) {
+              job.setStatus(Status.FAILED);
+              job = updateJob(job);
+              logger.debug("Service {} refused to accept {}", registration, job);
+              throw new UndispatchableJobException(IOUtils.toString(response.getEntity().getContent()));
+            } else if (responseStatusCode == HttpStatus.SC_METHOD_NOT_ALLOWED) {
+              logger.debug("Service {} is not yet reachable", registration);
+              hostCircuitBreaker.failure(registration.getHost());
+              circuitAcquired = false;
+              continue;
+            } else {
+              logger.warn("Service {} failed ({}) accepting {}", registration, responseStatusCode, job);
+              continue;
+            }
+          } catch (UndispatchableJobException e) {
+            throw e;
+          } catch (TrustedHttpClientException e) {
+            // Will try another node. If no other node, it will be re-queued
+            logger.warn("Unable to dispatch job {}", job.getId(), e);
+            hostCircuitBreaker.failure(registration.getHost());
+            circuitAcquired = false;
             continue;
+          } catch (InterruptedException e) {
+            logger.debug("Interrupted while dispatching job {}", job.getId());
+            Thread.currentThread().interrupt();
+            break;
+          } catch (Exception e) {
+            logger.warn("Unable to dispatch job {}", job.getId(), e);
+          } finally {
+            client.close(response);
+            // Nothing has been learned about the host's health, so let the next attempt probe it
+            if (circuitAcquired)
+              hostCircuitBreaker.release(registration.getHost());
+            if (permitAcquired)
+              permits.release();
+            setCurrentJob(null);
           }
-        } catch (UndispatchableJobException e) {
-          throw e;
-        } catch (TrustedHttpClientException e) {
-          // Will try another node. If no other node, it will be re-queued
-          logger.warn("Unable to dispatch job {}", job.getId(), e);
-          continue;
-        } catch (Exception e) {
-          logger.warn("Unable to dispatch job {}", job.getId(), e);
         } finally {
-          client.close(response);
-          setCurrentJob(null);
+          if (!dispatched)
+            releaseLoad(systemLoad, registration.getHost(), job);
         }
       }
 
@@ -3243,6 +3921,71 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       throw new UndispatchableJobException("Job " + job.getId() + " is currently undispatchable");
     }
 
+    /**
+     * Books the load of the job on the host of the given service registration. If capacity is required, the load is
+     * only booked if the host's current load, including the loads booked by concurrent dispatchers, is still below its
+     * maximum load.
+     *
+     * @param systemLoad
+     *          the current system load
+     * @param registration
+     *          the service registration the job is about to be dispatched to
+     * @param job
+     *          the job
+     * @param requireCapacity
+     *          whether the host needs to have capacity left
+     * @return <code>true</code> if the load has been booked
+     */
+    private boolean reserveLoad(SystemLoad systemLoad, ServiceRegistration registration, JpaJob job,
+            boolean requireCapacity) {
+      String host = registration.getHost();
+      synchronized (systemLoad) {
+        NodeLoad nodeLoad = systemLoad.get(host);
+        if (nodeLoad == null) {
+          logger.debug("Host {} not found in load list, this is a bug.", host);
+          return true;
+        }
+        if (requireCapacity && nodeLoad.getLoadFactor() >= registration.getHostRegistration().getMaxLoad())
+          return false;
+        nodeLoad.setLoadFactor(nodeLoad.getLoadFactor() + job.getJobLoad());
+        return true;
+      }
+    }
+
+    /**
+     * Removes the load of a job that has not been dispatched from the host it has been booked on.
+     *
+     * @param systemLoad
+     *          the current system load
+     * @param host
+     *          the host's base URL
+     * @param job
+     *          the job
+     */
+    private void releaseLoad(SystemLoad systemLoad, String host, JpaJob job) {
+      synchronized (systemLoad) {
+        NodeLoad nodeLoad = systemLoad.get(host);
+        if (nodeLoad != null)
+          nodeLoad.setLoadFactor(nodeLoad.getLoadFactor() - job.getJobLoad());
+      }
+    }
+
+    /**
+     * Returns the permits limiting the number of concurrent dispatch requests to the given host.
+     *
+     * @param host
+     *          the host's base URL
+     * @return the permits for the host
+     */
+    private Semaphore getDispatchPermits(String host) {
+      Semaphore permits = dispatchPermits.get(host);
+      if (permits == null) {
+        dispatchPermits.putIfAbsent(host, new Semaphore(dispatchThreadsPerHost));
+        permits = dispatchPermits.get(host);
+      }
+      return permits;
+    }
+
     private final Fn2<HostRegistration, Long, Boolean> filterOutPriorityHosts = new Fn2<HostRegistration, Long, Boolean>() {
       @Override
       public Boolean apply(HostRegistration host, Long jobId) {
@@ -3277,6 +4020,137 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
   }
 
+  /**
+   * The state of the cluster as needed for planning the dispatching of a list of jobs, loaded in bulk at the beginning
+   * of a dispatching round instead of once per job.
+   */
+  final class DispatchSnapshot {
+
+    /** All service registrations */
+    private final List<ServiceRegistration> services;
+
+    /** All host registrations */
+    private final List<HostRegistration> hosts;
+
+    /** The ids of the parent jobs which have running descendant jobs */
+    private final Set<Long> parentsWithRunningChildren;
+
+    DispatchSnapshot(EntityManager em, List<JpaJob> jobs) throws ServiceRegistryException {
+      services = getServiceRegistrations(em);
+      hosts = getHostRegistrations(em);
+      Set<Long> parentIds = new HashSet<>();
+      for (JpaJob job : jobs) {
+        if (job.getParentJob() != null)
+          parentIds.add(job.getParentJob().getId());
+      }
+      parentsWithRunningChildren = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+      parentsWithRunningChildren.addAll(getJobsWithChildrenInStatus(em, parentIds, Status.RUNNING));
+    }
+
+  }
+
+  /** Listens for jobs that have been queued on other nodes and wakes up the local job dispatcher. */
+  class JobQueueWatcher implements Runnable {
+
+    /** The message receiver to listen with */
+    private final MessageReceiver receiver;
+
+    /** Whether to keep on listening */
+    private volatile boolean listening = true;
+
+    /** The current message future */
+    private volatile FutureTask<Serializable> future = null;
+
+    JobQueueWatcher(MessageReceiver receiver) {
+      this.receiver = receiver;
+    }
+
+    public void stopListening() {
+      listening = false;
+      FutureTask<Serializable> f = future;
+      if (f != null)
+        f.cancel(true);
+    }
+
+    @Override
+    public void run() {
+      logger.info("Starting to listen for queued job messages");
+      while (listening) {
+        future = receiver.receiveSerializable(ServiceRegistryItem.SERVICEREGISTRY_TOPIC,
+                MessageSender.DestinationType.Topic);
+        try {
+          future.run();
+          Serializable message = future.get();
+          if (message instanceof BaseMessage
+                  && ((BaseMessage) message).getObject() instanceof ServiceRegistryItem) {
+            ServiceRegistryItem item = (ServiceRegistryItem) ((BaseMessage) message).getObject();
+            switch (item.getType()) {
+              case JobLoadAdded:
+                logger.trace("Job {} of type {} is loading {}", item.getJobId(), item.getJobType(), item.getHost());
+                if (hostLoadsLedger)
+                  hostLoadLedger.add(item.getJobId(), item.getHost(), item.getLoad());
+                break;
+              case JobLoadRemoved:
+                logger.trace("Job {} of type {} is no longer loading its host", item.getJobId(), item.getJobType());
+                if (hostLoadsLedger)
+                  hostLoadLedger.remove(item.getJobId());
+                // The host may have capacity for another job now
+                if (dispatchWakeUp)
+                  wakeUpDispatcher();
+                break;
+              default:
+                logger.trace("Job {} of type {} has been queued", item.getJobId(), item.getJobType());
+                wakeUpDispatcher();
+            }
+          }
+        } catch (CancellationException e) {
+          logger.trace("Listening for queued job messages has been cancelled.");
+        } catch (InterruptedException e) {
+          logger.trace("Listening for queued job messages has been interrupted.");
+          listening = false;
+        } catch (Throwable t) {
+          logger.warn("Problem while getting queued job messages", t);
+        }
+      }
+      logger.info("Stopping listening for queued job messages");
+    }
+
+  }
+
+  /**
+   * Replaces the in-memory host loads with the loads found in the database. This picks up any job status changes on
+   * other nodes that have not been reported to the host load ledger, e. g. because a message got lost.
+   */
+  class HostLoadReconciliation implements Runnable {
+
+    @Override
+    public void run() {
+      EntityManager em = null;
+      try {
+        hostLoadLedger.startReconciliation();
+        em = emf.createEntityManager();
+        Query q = em.createNamedQuery("ServiceRegistration.jobloads");
+        List<Integer> statuses = new LinkedList<Integer>();
+        for (Status status : JOB_STATUSES_INFLUENCING_LOAD_BALANCING) {
+          statuses.add(status.ordinal());
+        }
+        q.setParameter("statuses", statuses);
+        q.setParameter("workflow_type", TYPE_WORKFLOW);
+        @SuppressWarnings("unchecked")
+        List<Object[]> jobs = q.getResultList();
+        float drift = hostLoadLedger.reconcile(jobs);
+        logger.debug("Reconciled host loads of {} jobs, drift was {}", jobs.size(), drift);
+      } catch (Throwable t) {
+        hostLoadLedger.abortReconciliation();
+        logger.warn("Error reconciling host loads", t);
+      } finally {
+        if (em != null)
+          em.close();
+      }
+    }
+
+  }
+
   /** A periodic check on each service registration to ensure that it is still alive. */
   class JobProducerHeartbeat implements Runnable {
 
@@ -0,0 +1,84 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl.jmx;
+
+import org.opencastproject.serviceregistry.impl.HostLoadLedger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+public class HostLoadsStatistics implements HostLoadsStatisticsMXBean {
+
+  private static final String DELIMITER = ";";
+
+  private final HostLoadLedger ledger;
+
+  public HostLoadsStatistics(HostLoadLedger ledger) {
+    this.ledger = ledger;
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getLoads()
+   */
+  @Override
+  public String[] getLoads() {
+    List<String> loads = new ArrayList<String>();
+    for (Entry<String, Float> entry : ledger.getLoads().entrySet()) {
+      loads.add(entry.getKey() + DELIMITER + entry.getValue());
+    }
+    return loads.toArray(new String[loads.size()]);
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getJobCount()
+   */
+  @Override
+  public int getJobCount() {
+    return ledger.getJobCount();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getLastDrift()
+   */
+  @Override
+  public float getLastDrift() {
+    return ledger.getLastDrift();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getLastReconciliation()
+   */
+  @Override
+  public long getLastReconciliation() {
+    return ledger.getLastReconciliation();
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostLoadsStatisticsMXBean#getReconciliations()
+   */
+  @Override
+  public long getReconciliations() {
+    return ledger.getReconciliations();
+  }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl.jmx;
+
+/**
+ * JMX Bean interface exposing the in-memory host load ledger.
+ */
+public interface HostLoadsStatisticsMXBean {
+
+  /**
+   * Gets a list of the host loads as recorded in the ledger
+   *
+   * @return an array including the host loads
+   */
+  String[] getLoads();
+
+  /**
+   * Gets the number of jobs loading any host as recorded in the ledger
+   *
+   * @return the number of loading jobs
+   */
+  int getJobCount();
+
+  /**
+   * Gets the total difference between the ledger and the database found during the last reconciliation
+   *
+   * @return the difference in load units
+   */
+  float getLastDrift();
+
+  /**
+   * Gets the time of the last reconciliation with the database
+   *
+   * @return the time in milliseconds since the epoch
+   */
+  long getLastReconciliation();
+
+  /**
+   * Gets the number of reconciliations with the database
+   *
+   * @return the number of reconciliations
+   */
+  long getReconciliations();
+
+}
@@ -43,6 +43,13 @@ public class JobsStatistics extends NotificationBroadcasterSupport implements Jo
   private Map<String, Long> avgRunTimes = new HashMap<String, Long>();
   private Map<String, Long> avgQueueTimes = new HashMap<String, Long>();
 
+  // Dispatching rounds
+  private volatile long lastDispatchRoundDuration = 0;
+  private volatile int lastDispatchRoundJobsPlanned = 0;
+  private volatile int lastDispatchRoundJobsDispatched = 0;
+  private long dispatchRounds = 0;
+  private long dispatchRoundsDuration = 0;
+
   // Job Table runTime, queueTime
   private long sequenceNumber = 1;
   private final String hostName;
@@ -73,6 +80,14 @@ public class JobsStatistics extends NotificationBroadcasterSupport implements Jo
     sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber++, "Job updated"));
   }
 
+  public synchronized void updateDispatchRound(long duration, int jobsPlanned, int jobsDispatched) {
+    lastDispatchRoundDuration = duration;
+    lastDispatchRoundJobsPlanned = jobsPlanned;
+    lastDispatchRoundJobsDispatched = jobsDispatched;
+    dispatchRounds++;
+    dispatchRoundsDuration += duration;
+  }
+
   @Override
   public MBeanNotificationInfo[] getNotificationInfo() {
     String[] types = new String[] { JmxUtil.OPENCAST_UPDATE_NOTIFICATION };
@@ -267,6 +282,40 @@ public class JobsStatistics extends NotificationBroadcasterSupport implements Jo
     return toJobCountArray(hostName, Status.FAILED);
   }
 
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.JobsStatisticsMXBean#getLastDispatchRoundDuration()
+   */
+  @Override
+  public long getLastDispatchRoundDuration() {
+    return lastDispatchRoundDuration;
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.JobsStatisticsMXBean#getLastDispatchRoundJobsPlanned()
+   */
+  @Override
+  public int getLastDispatchRoundJobsPlanned() {
+    return lastDispatchRoundJobsPlanned;
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.JobsStatisticsMXBean#getLastDispatchRoundJobsDispatched()
+   */
+  @Override
+  public int getLastDispatchRoundJobsDispatched() {
+    return lastDispatchRoundJobsDispatched;
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.JobsStatisticsMXBean#getAverageDispatchRoundDuration()
+   */
+  @Override
+  public synchronized long getAverageDispatchRoundDuration() {
+    if (dispatchRounds == 0)
+      return 0;
+    return dispatchRoundsDuration / dispatchRounds;
+  }
+
   private int countJobs(String hostName, Status status) {
     int i = 0;
     for (Entry<Tuple3<String, String, Status>, Long> entry : jobCounts.entrySet()) {
@@ -180,4 +180,32 @@ public interface JobsStatisticsMXBean {
    */
   String[] getAverageJobQueueTime();
 
+  /**
+   * Gets the duration of the last job dispatching round in milliseconds
+   *
+   * @return the duration of the last dispatching round
+   */
+  long getLastDispatchRoundDuration();
+
+  /**
+   * Gets the number of jobs that have been considered for dispatching in the last dispatching round
+   *
+   * @return the number of jobs planned in the last dispatching round
+   */
+  int getLastDispatchRoundJobsPlanned();
+
+  /**
+   * Gets the number of jobs that have been dispatched in the last dispatching round
+   *
+   * @return the number of jobs dispatched in the last dispatching round
+   */
+  int getLastDispatchRoundJobsDispatched();
+
+  /**
+   * Gets the average duration of the job dispatching rounds in milliseconds
+   *
+   * @return the average duration of the dispatching rounds
+   */
+  long getAverageDispatchRoundDuration();
+
 }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HostCircuitBreakerTest {
+
+  private static final String HOST = "http://localhost:8080";
+  private static final String HOST_OTHER = "http://otherhost:8080";
+
+  @Test
+  public void testOpensAfterConsecutiveFailures() {
+    HostCircuitBreaker breaker = new HostCircuitBreaker(2, 60000);
+    assertTrue(breaker.isAvailable(HOST));
+    breaker.failure(HOST);
+    assertTrue(breaker.isAvailable(HOST));
+    breaker.failure(HOST);
+    assertFalse(breaker.isAvailable(HOST));
+    assertTrue(breaker.isAvailable(HOST_OTHER));
+    assertEquals(1, breaker.getOpenCircuits());
+  }
+
+  @Test
+  public void testSuccessResetsFailures() {
+    HostCircuitBreaker breaker = new HostCircuitBreaker(2, 60000);
+    breaker.failure(HOST);
+    breaker.success(HOST);
+    breaker.failure(HOST);
+    assertTrue(breaker.isAvailable(HOST));
+  }
+
+  @Test
+  public void testRetriedAfterReset() {
+    HostCircuitBreaker breaker = new HostCircuitBreaker(1, 0);
+    breaker.failure(HOST);
+    assertTrue(breaker.isAvailable(HOST));
+  }
+
+  @Test
+  public void testSingleProbeWhenHalfOpen() throws Exception {
+    HostCircuitBreaker breaker = new HostCircuitBreaker(1, 50);
+    breaker.failure(HOST);
+    assertFalse(breaker.isAvailable(HOST));
+    assertFalse(breaker.acquire(HOST));
+    Thread.sleep(100);
+    // checking the host doesn't take the probe
+    assertTrue(breaker.isAvailable(HOST));
+    assertTrue(breaker.isAvailable(HOST));
+    assertTrue(breaker.acquire(HOST));
+    assertFalse(breaker.isAvailable(HOST));
+    assertFalse(breaker.acquire(HOST));
+    assertEquals(1, breaker.getOpenCircuits());
+    breaker.success(HOST);
+    assertTrue(breaker.isAvailable(HOST));
+    assertTrue(breaker.acquire(HOST));
+    assertEquals(0, breaker.getOpenCircuits());
+  }
+
+  @Test
+  public void testReleasedProbe() throws Exception {
+    HostCircuitBreaker breaker = new HostCircuitBreaker(1, 50);
+    breaker.failure(HOST);
+    Thread.sleep(100);
+    assertTrue(breaker.acquire(HOST));
+    assertFalse(breaker.acquire(HOST));
+    // the host was busy, so the next attempt may probe it right away
+    breaker.release(HOST);
+    assertTrue(breaker.acquire(HOST));
+    // a failed probe keeps the host skipped for another reset timeout
+    breaker.failure(HOST);
+    assertFalse(breaker.acquire(HOST));
+    Thread.sleep(100);
+    assertTrue(breaker.acquire(HOST));
+    assertEquals(1, breaker.getOpenCircuits());
+  }
+
+  @Test
+  public void testDisabled() {
+    HostCircuitBreaker breaker = new HostCircuitBreaker(0, 60000);
+    for (int i = 0; i < 10; i++) {
+      breaker.failure(HOST);
+    }
+    assertTrue(breaker.isAvailable(HOST));
+    assertTrue(breaker.acquire(HOST));
+    assertEquals(0, breaker.getOpenCircuits());
+  }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class HostLoadLedgerTest {
+
+  private static final String HOST = "http://localhost:8080";
+  private static final String HOST_OTHER = "http://otherhost:8080";
+
+  private static final float DELTA = 0.0001f;
+
+  @Test
+  public void testAddAndRemove() {
+    HostLoadLedger ledger = new HostLoadLedger();
+    ledger.add(1L, HOST, 1.5f);
+    ledger.add(2L, HOST, 0.1f);
+    ledger.add(3L, HOST_OTHER, 2.0f);
+    assertEquals(1.6f, ledger.getLoad(HOST), DELTA);
+    assertEquals(2.0f, ledger.getLoad(HOST_OTHER), DELTA);
+    assertEquals(3, ledger.getJobCount());
+
+    ledger.remove(1L);
+    ledger.remove(1L);
+    assertEquals(0.1f, ledger.getLoad(HOST), DELTA);
+    assertEquals(2, ledger.getJobCount());
+  }
+
+  @Test
+  public void testAddingAgainMovesLoad() {
+    HostLoadLedger ledger = new HostLoadLedger();
+    ledger.add(1L, HOST, 1.0f);
+    ledger.add(1L, HOST_OTHER, 1.0f);
+    assertEquals(0.0f, ledger.getLoad(HOST), DELTA);
+    assertEquals(1.0f, ledger.getLoad(HOST_OTHER), DELTA);
+    assertEquals(1, ledger.getJobCount());
+  }
+
+  @Test
+  public void testReconcile() {
+    HostLoadLedger ledger = new HostLoadLedger();
+    ledger.add(1L, HOST, 1.0f);
+    ledger.add(2L, HOST, 2.0f);
+
+    List<Object[]> jobs = new ArrayList<Object[]>();
+    jobs.add(new Object[] { 2L, HOST, 2.0f });
+    jobs.add(new Object[] { 3L, HOST_OTHER, 0.5f });
+    assertEquals(1.5f, ledger.reconcile(jobs), DELTA);
+
+    assertEquals(2.0f, ledger.getLoad(HOST), DELTA);
+    assertEquals(0.5f, ledger.getLoad(HOST_OTHER), DELTA);
+    assertEquals(1L, ledger.getReconciliations());
+
+    ledger.remove(2L);
+    assertEquals(0.0f, ledger.getLoad(HOST), DELTA);
+  }
+
+  @Test
+  public void testReconcileKeepsUpdatesMadeWhileReading() {
+    HostLoadLedger ledger = new HostLoadLedger();
+    ledger.add(1L, HOST, 1.0f);
+    ledger.add(2L, HOST, 2.0f);
+
+    ledger.startReconciliation();
+    // The database is read while job 1 finishes and job 3 starts
+    List<Object[]> jobs = new ArrayList<Object[]>();
+    jobs.add(new Object[] { 1L, HOST, 1.0f });
+    jobs.add(new Object[] { 2L, HOST, 2.0f });
+    ledger.remove(1L);
+    ledger.add(3L, HOST_OTHER, 0.5f);
+    ledger.reconcile(jobs);
+
+    assertEquals(2.0f, ledger.getLoad(HOST), DELTA);
+    assertEquals(0.5f, ledger.getLoad(HOST_OTHER), DELTA);
+    assertEquals(2, ledger.getJobCount());
+
+    // Updates after the reconciliation are no longer recorded
+    ledger.startReconciliation();
+    ledger.abortReconciliation();
+    ledger.remove(3L);
+    ledger.reconcile(jobs);
+    assertEquals(3.0f, ledger.getLoad(HOST), DELTA);
+    assertEquals(0.0f, ledger.getLoad(HOST_OTHER), DELTA);
+  }
+
+  @Test
+  public void testConcurrentUpdatesWhileReconciling() throws Exception {
+    final HostLoadLedger ledger = new HostLoadLedger();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      final long offset = i * 1000L;
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (long jobId = offset; jobId < offset + 1000L; jobId++) {
+            ledger.add(jobId, HOST, 1.0f);
+            ledger.add(jobId, HOST_OTHER, 0.5f);
+            ledger.remove(jobId);
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (int i = 0; i < 100; i++) {
+      ledger.startReconciliation();
+      ledger.reconcile(Collections.<Object[]> emptyList());
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(0.0f, ledger.getLoad(HOST), DELTA);
+    assertEquals(0.0f, ledger.getLoad(HOST_OTHER), DELTA);
+    assertEquals(0, ledger.getJobCount());
+  }
+
+}
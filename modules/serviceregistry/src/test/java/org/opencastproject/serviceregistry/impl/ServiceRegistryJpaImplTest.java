@@ -37,6 +37,7 @@ import org.opencastproject.security.api.TrustedHttpClient;
 import org.opencastproject.security.api.TrustedHttpClientException;
 import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
+import org.opencastproject.serviceregistry.api.JobPayload;
 import org.opencastproject.serviceregistry.api.ServiceRegistration;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.systems.OpencastConstants;
@@ -66,12 +67,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.beans.PropertyVetoException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executors;
 
 import javax.management.ObjectInstance;
+import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
 public class ServiceRegistryJpaImplTest {
@@ -357,6 +364,88 @@ public class ServiceRegistryJpaImplTest {
     }
   }
 
+  @Test
+  public void testDispatchingJobsInBatchMode() throws Exception {
+    if (serviceRegistryJpaImpl.scheduledExecutor != null)
+      serviceRegistryJpaImpl.scheduledExecutor.shutdown();
+    serviceRegistryJpaImpl.scheduledExecutor = Executors.newScheduledThreadPool(1);
+    serviceRegistryJpaImpl.activate(null);
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put("dispatchinterval", "1000");
+    properties.put("dispatch.batch", "true");
+    serviceRegistryJpaImpl.updated(properties);
+    registerTestHostAndService();
+    Job testJob = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, true, null);
+    Job testJob2 = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, true, null);
+    JobBarrier barrier = new JobBarrier(null, serviceRegistryJpaImpl, testJob, testJob2);
+    try {
+      barrier.waitForJobs(2000);
+      Assert.fail();
+    } catch (Exception e) {
+      Assert.assertEquals(TEST_HOST, serviceRegistryJpaImpl.getJob(testJob.getId()).getProcessingHost());
+      Assert.assertTrue(StringUtils.isBlank(serviceRegistryJpaImpl.getJob(testJob2.getId()).getProcessingHost()));
+    }
+  }
+
+  @Test
+  public void testRunningDescendantsInBatchMode() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    registerTestHostAndService();
+    // root -> child -> grandchild -> running great-grandchild, root -> child -> finished grandchild, root alone
+    Job root = createChildJob(null, Status.RUNNING);
+    Job child = createChildJob(root, Status.WAITING);
+    Job grandchild = createChildJob(child, Status.WAITING);
+    Job greatGrandchild = createChildJob(grandchild, Status.RUNNING);
+    Job otherChild = createChildJob(root, Status.WAITING);
+    createChildJob(otherChild, Status.FINISHED);
+    Job otherRoot = createChildJob(null, Status.RUNNING);
+
+    Set<Long> jobIds = new HashSet<>();
+    Set<Long> expected = new HashSet<>();
+    for (Job job : Arrays.asList(root, child, grandchild, greatGrandchild, otherChild, otherRoot)) {
+      jobIds.add(job.getId());
+      // This is how jobs are checked one at a time when not dispatching in batch mode
+      for (Job descendant : serviceRegistryJpaImpl.getChildJobs(job.getId())) {
+        if (Status.RUNNING.equals(descendant.getStatus()))
+          expected.add(job.getId());
+      }
+    }
+    Assert.assertEquals(new HashSet<>(Arrays.asList(root.getId(), child.getId(), grandchild.getId())), expected);
+
+    EntityManager em = emf.createEntityManager();
+    try {
+      Assert.assertEquals(expected, serviceRegistryJpaImpl.getJobsWithChildrenInStatus(em, jobIds, Status.RUNNING));
+    } finally {
+      em.close();
+    }
+  }
+
+  private Job createChildJob(Job parent, Status status) throws Exception {
+    Job job = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, parent);
+    job.setStatus(status);
+    return serviceRegistryJpaImpl.updateJob(job);
+  }
+
+  @Test
+  public void testDispatchingWakesUpOnQueuedJobs() throws Exception {
+    if (serviceRegistryJpaImpl.scheduledExecutor != null)
+      serviceRegistryJpaImpl.scheduledExecutor.shutdown();
+    serviceRegistryJpaImpl.scheduledExecutor = Executors.newScheduledThreadPool(1);
+    serviceRegistryJpaImpl.activate(null);
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put("dispatchinterval", "60000");
+    properties.put("dispatch.wakeup.delay", "10");
+    serviceRegistryJpaImpl.updated(properties);
+    registerTestHostAndService();
+    Job testJob = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, true, null);
+    long timeout = System.currentTimeMillis() + 5000;
+    while (StringUtils.isBlank(serviceRegistryJpaImpl.getJob(testJob.getId()).getProcessingHost())
+            && System.currentTimeMillis() < timeout) {
+      Thread.sleep(100);
+    }
+    Assert.assertEquals(TEST_HOST, serviceRegistryJpaImpl.getJob(testJob.getId()).getProcessingHost());
+  }
+
   @Test
   public void testUpdateJobFailed() throws Exception {
     serviceRegistryJpaImpl.activate(null);
@@ -392,4 +481,27 @@ public class ServiceRegistryJpaImplTest {
     Assert.assertEquals(runTime, updatedJob.getRunTime());
   }
 
+  @Test
+  public void testGetJobPayloadsPaged() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    registerTestHostAndService();
+    for (int i = 0; i < 5; i++) {
+      serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, "PAGED", null, "payload" + i, false, null);
+    }
+    Assert.assertEquals(5, serviceRegistryJpaImpl.getJobCount("PAGED"));
+    List<String> payloads = new ArrayList<String>();
+    JobPayload last = null;
+    while (true) {
+      List<JobPayload> page = serviceRegistryJpaImpl.getJobPayloads("PAGED", 2, last);
+      if (page.isEmpty())
+        break;
+      Assert.assertTrue(page.size() <= 2);
+      for (JobPayload payload : page) {
+        payloads.add(payload.getPayload());
+      }
+      last = page.get(page.size() - 1);
+    }
+    Assert.assertEquals(Arrays.asList("payload0", "payload1", "payload2", "payload3", "payload4"), payloads);
+  }
+
 }
@@ -28,6 +28,7 @@ import org.opencastproject.silencedetection.api.MediaSegments;
 import org.opencastproject.silencedetection.api.SilenceDetectionFailedException;
 import org.opencastproject.silencedetection.impl.SilenceDetectionProperties;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.SilenceAnalysis;
 import org.opencastproject.workspace.api.Workspace;
 
 import com.google.common.io.LineReader;
@@ -40,15 +41,11 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Properties;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Find silent sequences in audio stream using Gstreamer.
@@ -147,11 +144,106 @@ public class FFmpegSilenceDetector {
     }
     logger.info("Track {} loaded, duration is {} s", filePath, track.getDuration() / 1000);
 
+    SilenceAnalysis analysis = getKeptAnalysis(track, workspace, thresholdDB, minSilenceLength);
+    if (analysis == null) {
+      analysis = runSilenceDetection(thresholdDB, minSilenceLength);
+    }
+    List<long[]> silences = analysis.getSilences(minSilenceLength, track.getDuration());
+
+    LinkedList<MediaSegment> segmentsTmp = new LinkedList<MediaSegment>();
+    if (silences.size() == 0) {
+      /* No silence found -> Add one segment for the whole track */
+      logger.info("No silence found. Adding one large segment.");
+      segmentsTmp.add(new MediaSegment(0, track.getDuration()));
+    } else {
+      long lastSilenceEnd = 0;
+      long lastSilenceStart = 0;
+      for (long[] silence : silences) {
+        /* Silence start -> End of segments */
+        lastSilenceStart = silence[0];
+        logger.debug("Found silence start at {}", lastSilenceStart);
+        if (lastSilenceStart - lastSilenceEnd > minVoiceLength) {
+          /* Found a valid segment */
+          long segmentStart = java.lang.Math.max(0, lastSilenceEnd - preSilenceLength);
+          logger.info("Adding segment from {} to {}", segmentStart, lastSilenceStart);
+          segmentsTmp.add(new MediaSegment(segmentStart, lastSilenceStart));
+        }
+
+        /* Silence end */
+        long silenceEnd = silence[1];
+        if (silenceEnd > lastSilenceEnd) {
+          logger.debug("Found silence end at {}", silenceEnd);
+          lastSilenceEnd = silenceEnd;
+        }
+      }
+      /* Add last segment if it is no silence and the segment is long enough */
+      if (lastSilenceStart < lastSilenceEnd && track.getDuration() - lastSilenceEnd > minVoiceLength) {
+        long segmentStart = java.lang.Math.max(0, lastSilenceEnd - preSilenceLength);
+        logger.info("Adding final segment from {} to {}", segmentStart, track.getDuration());
+        segmentsTmp.add(new MediaSegment(segmentStart, track.getDuration()));
+      }
+    }
+
+    logger.info("Segmentation of track {} yielded {} segments", trackId, segmentsTmp.size());
+    segments = segmentsTmp;
+
+  }
+
+  /**
+   * Returns the silence analysis of the track if another service has kept one in the workspace while decoding the
+   * track, e.g. the waveform service. The analysis is removed from the workspace, since it is not needed any more.
+   *
+   * @param track the track to analyze
+   * @param workspace the workspace
+   * @param thresholdDB the silence threshold
+   * @param minSilenceLength the minimum silence length in milliseconds
+   * @return the analysis or <code>null</code> if there is no usable analysis
+   */
+  private SilenceAnalysis getKeptAnalysis(Track track, Workspace workspace, String thresholdDB,
+          long minSilenceLength) {
+    String fileName = SilenceAnalysis.getFileName(track, thresholdDB);
+    if (fileName == null)
+      return null;
+
+    SilenceAnalysis analysis = null;
+    try (InputStream in = workspace.read(workspace.getCollectionURI(SilenceAnalysis.COLLECTION_ID, fileName))) {
+      analysis = SilenceAnalysis.read(in);
+    } catch (NotFoundException e) {
+      logger.debug("No silence analysis of track {} has been kept", trackId);
+      return null;
+    } catch (IOException e) {
+      logger.warn("Unable to read the kept silence analysis of track {}: {}", trackId, e.getMessage());
+    }
+
+    try {
+      workspace.deleteFromCollection(SilenceAnalysis.COLLECTION_ID, fileName);
+    } catch (NotFoundException e) {
+      logger.debug("Silence analysis of track {} has already been removed", trackId);
+    } catch (IOException e) {
+      logger.warn("Unable to remove the kept silence analysis of track {}: {}", trackId, e.getMessage());
+    }
+
+    if (analysis != null && analysis.getMinLength() > minSilenceLength) {
+      logger.info("Kept silence analysis of track {} misses silences shorter than {} ms", trackId,
+          analysis.getMinLength());
+      return null;
+    }
+    if (analysis != null)
+      logger.info("Reusing the silence analysis of track {} instead of decoding it again", trackId);
+    return analysis;
+  }
+
+  /**
+   * Runs the FFmpeg silencedetect filter on the track.
+   *
+   * @param thresholdDB the silence threshold
+   * @param minSilenceLength the minimum silence length in milliseconds
+   * @return the silence analysis
+   */
+  private SilenceAnalysis runSilenceDetection(String thresholdDB, long minSilenceLength) throws IOException {
     logger.info("Starting silence detection of {}", filePath);
     String mediaPath = filePath.replaceAll(" ", "\\ ");
-    DecimalFormat decimalFmt = new DecimalFormat("0.000", new DecimalFormatSymbols(Locale.US));
-    String minSilenceLengthInSeconds = decimalFmt.format((double) minSilenceLength / 1000.0);
-    String filter = "silencedetect=noise=" + thresholdDB + ":duration=" + minSilenceLengthInSeconds;
+    String filter = SilenceAnalysis.createFilter(thresholdDB, minSilenceLength);
     String[] command = new String[] {binary, "-nostats", "-i", mediaPath, "-filter:a", filter, "-f", "null", "-"};
     String commandline = StringUtils.join(command, " ");
 
@@ -183,61 +275,7 @@ public class FFmpegSilenceDetector {
      * [silencedetect @ 0x2968e40] silence_start: 466.486
      * [silencedetect @ 0x2968e40] silence_end: 469.322 | silence_duration: 2.83592
      */
-
-    LinkedList<MediaSegment> segmentsTmp = new LinkedList<MediaSegment>();
-    if (segmentsStrings.size() == 0) {
-      /* No silence found -> Add one segment for the whole track */
-      logger.info("No silence found. Adding one large segment.");
-      segmentsTmp.add(new MediaSegment(0, track.getDuration()));
-    } else {
-      long lastSilenceEnd = 0;
-      long lastSilenceStart = 0;
-      Pattern patternStart = Pattern.compile("silence_start\\:\\ \\d+\\.\\d+");
-      Pattern patternEnd = Pattern.compile("silence_end\\:\\ \\d+\\.\\d+");
-      for (String seginfo : segmentsStrings) {
-        /* Match silence ends */
-        Matcher matcher = patternEnd.matcher(seginfo);
-        String time = "";
-        while (matcher.find()) {
-          time = matcher.group().substring(13);
-        }
-        if (!"".equals(time)) {
-          long silenceEnd = (long) (Double.parseDouble(time) * 1000);
-          if (silenceEnd > lastSilenceEnd) {
-            logger.debug("Found silence end at {}", silenceEnd);
-            lastSilenceEnd = silenceEnd;
-          }
-          continue;
-        }
-
-        /* Match silence start -> End of segments */
-        matcher = patternStart.matcher(seginfo);
-        time = "";
-        while (matcher.find()) {
-          time = matcher.group().substring(15);
-        }
-        if (!"".equals(time)) {
-          lastSilenceStart = (long) (Double.parseDouble(time) * 1000);
-          logger.debug("Found silence start at {}", lastSilenceStart);
-          if (lastSilenceStart - lastSilenceEnd > minVoiceLength) {
-            /* Found a valid segment */
-            long segmentStart = java.lang.Math.max(0, lastSilenceEnd - preSilenceLength);
-            logger.info("Adding segment from {} to {}", segmentStart, lastSilenceStart);
-            segmentsTmp.add(new MediaSegment(segmentStart, lastSilenceStart));
-          }
-        }
-      }
-      /* Add last segment if it is no silence and the segment is long enough */
-      if (lastSilenceStart < lastSilenceEnd && track.getDuration() - lastSilenceEnd > minVoiceLength) {
-        long segmentStart = java.lang.Math.max(0, lastSilenceEnd - preSilenceLength);
-        logger.info("Adding final segment from {} to {}", segmentStart, track.getDuration());
-        segmentsTmp.add(new MediaSegment(segmentStart, track.getDuration()));
-      }
-    }
-
-    logger.info("Segmentation of track {} yielded {} segments", trackId, segmentsTmp.size());
-    segments = segmentsTmp;
-
+    return SilenceAnalysis.parseFFmpegOutput(minSilenceLength, segmentsStrings);
   }
 
   private Long parseLong(Properties properties, String key, Long defaultValue) {
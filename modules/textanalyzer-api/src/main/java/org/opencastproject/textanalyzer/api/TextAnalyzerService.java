@@ -26,6 +26,8 @@ import org.opencastproject.job.api.Job;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackageException;
 
+import java.util.List;
+
 /**
  * Api for text analysis implementations, aimed at extracting text from an image.
  */
@@ -50,4 +52,18 @@ public interface TextAnalyzerService {
    */
   Job extract(Attachment image) throws TextAnalyzerException, MediaPackageException;
 
+  /**
+   * Takes the given images and returns a receipt that can be used to get a single catalog containing the text of all
+   * images. The catalog contains one video content per image, in the order of the images.
+   *
+   * @param images
+   *          elements to analyze
+   * @return the metadata
+   * @throws TextAnalyzerException
+   *           if the text in these images can not be analyzed
+   * @throws MediaPackageException
+   *           if one of the attachments is not valid
+   */
+  Job extract(List<Attachment> images) throws TextAnalyzerException, MediaPackageException;
+
 }
@@ -26,6 +26,7 @@ import org.opencastproject.job.api.AbstractJobProducer;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.Catalog;
+import org.opencastproject.mediapackage.MediaPackageElement;
 import org.opencastproject.mediapackage.MediaPackageElementBuilderFactory;
 import org.opencastproject.mediapackage.MediaPackageElementParser;
 import org.opencastproject.mediapackage.MediaPackageElements;
@@ -41,8 +42,10 @@ import org.opencastproject.metadata.mpeg7.Video;
 import org.opencastproject.metadata.mpeg7.VideoSegment;
 import org.opencastproject.metadata.mpeg7.VideoText;
 import org.opencastproject.metadata.mpeg7.VideoTextImpl;
+import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
@@ -56,6 +59,7 @@ import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -68,8 +72,14 @@ import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Media analysis service that takes takes an image and returns text as extracted from that image.
@@ -81,7 +91,7 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
 
   /** List of available operations on jobs */
   private enum Operation {
-    Extract
+    Extract, ExtractBatch
   };
 
   /** Resulting collection in the working file repository */
@@ -96,6 +106,27 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
   /** The approximate load placed on the system by creating a text analysis job */
   private float analysisJobLoad = DEFAULT_ANALYSIS_JOB_LOAD;
 
+  /** The approximate load placed on the system by creating a batch text analysis job */
+  public static final float DEFAULT_BATCH_ANALYSIS_JOB_LOAD = 0.8f;
+
+  /** The key to look for in the service configuration file to override the {@link DEFAULT_BATCH_ANALYSIS_JOB_LOAD} */
+  public static final String BATCH_ANALYSIS_JOB_LOAD_KEY = "job.load.analysis.batch";
+
+  /** The approximate load placed on the system by creating a batch text analysis job */
+  private float batchAnalysisJobLoad = DEFAULT_BATCH_ANALYSIS_JOB_LOAD;
+
+  /** The key to look for in the service configuration file to override the {@link DEFAULT_BATCH_THREADS} */
+  public static final String BATCH_THREADS_KEY = "batch.threads";
+
+  /** The default number of images of a batch analyzed in parallel */
+  public static final int DEFAULT_BATCH_THREADS = 4;
+
+  /** Analyzes the images of a batch in parallel, or <code>null</code> to analyze them one after the other */
+  private ExecutorService batchExecutor = null;
+
+  /** The number of threads of the batch executor */
+  private int batchThreads = 1;
+
   /** The text extraction implemenetation */
   private TextExtractor textExtractor = null;
 
@@ -139,6 +170,13 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
     super.activate(cc);
   }
 
+  /**
+   * OSGi callback on component deactivation.
+   */
+  public void deactivate() {
+    setBatchThreads(1);
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -154,54 +192,106 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.textanalyzer.api.TextAnalyzerService#extract(java.util.List)
+   */
+  @Override
+  public Job extract(List<Attachment> images) throws TextAnalyzerException, MediaPackageException {
+    try {
+      return serviceRegistry.createJob(JOB_TYPE, Operation.ExtractBatch.toString(),
+              Arrays.asList(MediaPackageElementParser.getArrayAsXml(images)), batchAnalysisJobLoad);
+    } catch (ServiceRegistryException e) {
+      throw new TextAnalyzerException("Unable to create job", e);
+    }
+  }
+
   /**
    * Starts text extraction on the image and returns a receipt containing the final result in the form of an
    * Mpeg7Catalog.
    *
    * @param image
    *          the element to analyze
-   * @param block
-   *          <code>true</code> to make this operation synchronous
    * @return a receipt containing the resulting mpeg-7 catalog
    * @throws TextAnalyzerException
    */
-  private Catalog extract(Job job, Attachment image) throws TextAnalyzerException, MediaPackageException {
-
-    final Attachment attachment = image;
-    final URI imageUrl = attachment.getURI();
+  private Catalog extract(Job job, Attachment image) throws TextAnalyzerException {
+    return extract(job, Collections.singletonList(image));
+  }
 
-    File imageFile = null;
+  /**
+   * Starts text extraction on the images and returns a receipt containing the final result in the form of a single
+   * Mpeg7Catalog with one video content per image. Images are analyzed in parallel using the batch executor.
+   *
+   * @param images
+   *          the elements to analyze
+   * @return a receipt containing the resulting mpeg-7 catalog
+   * @throws TextAnalyzerException
+   */
+  private Catalog extract(Job job, List<Attachment> images) throws TextAnalyzerException {
+    List<Future<VideoText[]>> futures = new ArrayList<Future<VideoText[]>>();
     try {
       Mpeg7CatalogImpl mpeg7 = Mpeg7CatalogImpl.newInstance();
 
-      logger.info("Starting text extraction from {}", imageUrl);
-      try {
-        imageFile = workspace.get(imageUrl);
-      } catch (NotFoundException e) {
-        throw new TextAnalyzerException("Image " + imageUrl + " not found in workspace", e);
-      } catch (IOException e) {
-        throw new TextAnalyzerException("Unable to access " + imageUrl + " in workspace", e);
-      }
-      VideoText[] videoTexts = analyze(imageFile, image.getIdentifier());
-
-      // Create a temporal decomposition
-      MediaTime mediaTime = new MediaTimeImpl(0, 0);
-      Video avContent = mpeg7.addVideoContent(image.getIdentifier(), mediaTime, null);
-      TemporalDecomposition<VideoSegment> temporalDecomposition = (TemporalDecomposition<VideoSegment>) avContent
-              .getTemporalDecomposition();
-
-      // Add a segment
-      VideoSegment videoSegment = temporalDecomposition.createSegment("segment-0");
-      videoSegment.setMediaTime(mediaTime);
-
-      // Add the video text to the spacio temporal decomposition of the segment
-      SpatioTemporalDecomposition spatioTemporalDecomposition = videoSegment.createSpatioTemporalDecomposition(true,
-              false);
-      for (VideoText videoText : videoTexts) {
-        spatioTemporalDecomposition.addVideoText(videoText);
+      List<VideoText[]> results = new ArrayList<VideoText[]>();
+      final ExecutorService executor = batchExecutor;
+      if (executor == null || images.size() < 2) {
+        for (Attachment image : images) {
+          results.add(analyze(image));
+        }
+      } else {
+        final Organization organization = securityService.getOrganization();
+        final User user = securityService.getUser();
+        for (final Attachment image : images) {
+          futures.add(executor.submit(new Callable<VideoText[]>() {
+            @Override
+            public VideoText[] call() throws Exception {
+              securityService.setOrganization(organization);
+              securityService.setUser(user);
+              try {
+                return analyze(image);
+              } finally {
+                securityService.setOrganization(null);
+                securityService.setUser(null);
+              }
+            }
+          }));
+        }
+        try {
+          for (Future<VideoText[]> future : futures) {
+            results.add(future.get());
+          }
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof TextAnalyzerException)
+            throw (TextAnalyzerException) e.getCause();
+          throw new TextAnalyzerException(e.getCause());
+        }
       }
 
-      logger.info("Text extraction of {} finished, {} lines found", attachment.getURI(), videoTexts.length);
+      for (int i = 0; i < images.size(); i++) {
+        Attachment image = images.get(i);
+        VideoText[] videoTexts = results.get(i);
+
+        // Create a temporal decomposition
+        MediaTime mediaTime = new MediaTimeImpl(0, 0);
+        Video avContent = mpeg7.addVideoContent(image.getIdentifier(), mediaTime, null);
+        TemporalDecomposition<VideoSegment> temporalDecomposition = (TemporalDecomposition<VideoSegment>) avContent
+                .getTemporalDecomposition();
+
+        // Add a segment
+        VideoSegment videoSegment = temporalDecomposition.createSegment("segment-0");
+        videoSegment.setMediaTime(mediaTime);
+
+        // Add the video text to the spacio temporal decomposition of the segment
+        SpatioTemporalDecomposition spatioTemporalDecomposition = videoSegment.createSpatioTemporalDecomposition(true,
+                false);
+        for (VideoText videoText : videoTexts) {
+          spatioTemporalDecomposition.addVideoText(videoText);
+        }
+
+        logger.info("Text extraction of {} finished, {} lines found", image.getURI(), videoTexts.length);
+      }
 
       URI uri;
       InputStream in;
@@ -219,23 +309,51 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
               .newElement(Catalog.TYPE, MediaPackageElements.TEXTS);
       catalog.setURI(uri);
 
-      logger.debug("Created MPEG7 catalog for {}", imageUrl);
+      logger.debug("Created MPEG7 catalog for {} images", images.size());
 
       return catalog;
     } catch (Exception e) {
-      logger.warn("Error extracting text from " + imageUrl, e);
+      logger.warn("Error extracting text from " + images, e);
       if (e instanceof TextAnalyzerException) {
         throw (TextAnalyzerException) e;
       } else {
         throw new TextAnalyzerException(e);
       }
     } finally {
-      try {
-        workspace.delete(imageUrl);
-      } catch (Exception e) {
-        logger.warn("Unable to delete temporary text analysis image {}: {}", imageUrl, e);
+      for (Future<VideoText[]> future : futures) {
+        future.cancel(true);
       }
+      for (Attachment image : images) {
+        try {
+          workspace.delete(image.getURI());
+        } catch (Exception e) {
+          logger.warn("Unable to delete temporary text analysis image {}: {}", image.getURI(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the video text elements found on the given image.
+   *
+   * @param image
+   *          the element to analyze
+   * @return the video text found on the image
+   * @throws TextAnalyzerException
+   *           if accessing the image fails
+   */
+  private VideoText[] analyze(Attachment image) throws TextAnalyzerException {
+    URI imageUrl = image.getURI();
+    logger.info("Starting text extraction from {}", imageUrl);
+    File imageFile;
+    try {
+      imageFile = workspace.get(imageUrl);
+    } catch (NotFoundException e) {
+      throw new TextAnalyzerException("Image " + imageUrl + " not found in workspace", e);
+    } catch (IOException e) {
+      throw new TextAnalyzerException("Unable to access " + imageUrl + " in workspace", e);
     }
+    return analyze(imageFile, image.getIdentifier());
   }
 
   /**
@@ -255,6 +373,13 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
           Attachment element = (Attachment) MediaPackageElementParser.getFromXml(arguments.get(0));
           Catalog catalog = extract(job, element);
           return MediaPackageElementParser.getAsXml(catalog);
+        case ExtractBatch:
+          List<Attachment> images = new ArrayList<Attachment>();
+          for (MediaPackageElement image : MediaPackageElementParser.getArrayFromXml(arguments.get(0))) {
+            images.add((Attachment) image);
+          }
+          Catalog batchCatalog = extract(job, images);
+          return MediaPackageElementParser.getAsXml(batchCatalog);
         default:
           throw new IllegalStateException("Don't know how to handle operation '" + operation + "'");
       }
@@ -432,8 +557,38 @@ public class TextAnalyzerServiceImpl extends AbstractJobProducer implements Text
     return organizationDirectoryService;
   }
 
+  /**
+   * Sets the number of images of a batch analyzed in parallel.
+   *
+   * @param threads
+   *          the number of threads, <code>1</code> to analyze the images one after the other
+   */
+  private synchronized void setBatchThreads(int threads) {
+    if (threads == batchThreads)
+      return;
+    if (batchExecutor != null)
+      batchExecutor.shutdown();
+    batchExecutor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    batchThreads = threads;
+    logger.info("Analyzing up to {} images of a batch in parallel", threads);
+  }
+
   @Override
   public void updated(@SuppressWarnings("rawtypes") Dictionary properties) throws ConfigurationException {
     analysisJobLoad = LoadUtil.getConfiguredLoadValue(properties, ANALYSIS_JOB_LOAD_KEY, DEFAULT_ANALYSIS_JOB_LOAD, serviceRegistry);
+    batchAnalysisJobLoad = LoadUtil.getConfiguredLoadValue(properties, BATCH_ANALYSIS_JOB_LOAD_KEY,
+            DEFAULT_BATCH_ANALYSIS_JOB_LOAD, serviceRegistry);
+
+    int threads = DEFAULT_BATCH_THREADS;
+    String threadsValue = StringUtils.trimToNull((String) properties.get(BATCH_THREADS_KEY));
+    if (threadsValue != null) {
+      try {
+        threads = Math.max(1, Integer.parseInt(threadsValue));
+      } catch (NumberFormatException e) {
+        logger.warn("Configuration value {} for {} is malformed, setting to {}", threadsValue, BATCH_THREADS_KEY,
+                DEFAULT_BATCH_THREADS);
+      }
+    }
+    setBatchThreads(threads);
   }
 }
@@ -0,0 +1,136 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.userdirectory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long the user and role providers take to answer the queries of the user directory.
+ */
+public class ProviderStatistics implements ProviderStatisticsMXBean {
+
+  private static final String DELIMITER = ";";
+
+  /** The latencies by provider name */
+  private final ConcurrentMap<String, Latency> latencies = new ConcurrentHashMap<>();
+
+  /**
+   * Records a finished provider query.
+   *
+   * @param provider
+   *          the provider name
+   * @param nanos
+   *          the time the query took in nanoseconds
+   * @param failed
+   *          whether the query threw an exception
+   */
+  public void record(String provider, long nanos, boolean failed) {
+    Latency latency = getLatency(provider);
+    latency.calls.incrementAndGet();
+    latency.nanos.addAndGet(nanos);
+    long max = latency.maxNanos.get();
+    while (nanos > max && !latency.maxNanos.compareAndSet(max, nanos)) {
+      max = latency.maxNanos.get();
+    }
+    if (failed)
+      latency.failures.incrementAndGet();
+  }
+
+  /**
+   * Records a provider query which did not finish in time.
+   *
+   * @param provider
+   *          the provider name
+   */
+  public void timeout(String provider) {
+    getLatency(provider).timeouts.incrementAndGet();
+  }
+
+  private Latency getLatency(String provider) {
+    Latency latency = latencies.get(provider);
+    if (latency == null) {
+      latencies.putIfAbsent(provider, new Latency());
+      latency = latencies.get(provider);
+    }
+    return latency;
+  }
+
+  /**
+   * @see org.opencastproject.userdirectory.ProviderStatisticsMXBean#getProviderLatencies()
+   */
+  @Override
+  public String[] getProviderLatencies() {
+    List<String> result = new ArrayList<String>();
+    for (Entry<String, Latency> entry : latencies.entrySet()) {
+      Latency latency = entry.getValue();
+      long calls = latency.calls.get();
+      long average = calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latency.nanos.get() / calls);
+      result.add(entry.getKey() + DELIMITER + calls + DELIMITER + average + DELIMITER
+              + TimeUnit.NANOSECONDS.toMillis(latency.maxNanos.get()) + DELIMITER + latency.timeouts.get() + DELIMITER
+              + latency.failures.get());
+    }
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * @see org.opencastproject.userdirectory.ProviderStatisticsMXBean#getTimeouts()
+   */
+  @Override
+  public long getTimeouts() {
+    long timeouts = 0;
+    for (Latency latency : latencies.values()) {
+      timeouts += latency.timeouts.get();
+    }
+    return timeouts;
+  }
+
+  /**
+   * @see org.opencastproject.userdirectory.ProviderStatisticsMXBean#getFailures()
+   */
+  @Override
+  public long getFailures() {
+    long failures = 0;
+    for (Latency latency : latencies.values()) {
+      failures += latency.failures.get();
+    }
+    return failures;
+  }
+
+  /** The latency counters of a single provider */
+  private static final class Latency {
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+  }
+
+}
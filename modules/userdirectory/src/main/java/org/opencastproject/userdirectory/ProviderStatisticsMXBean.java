@@ -0,0 +1,52 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.userdirectory;
+
+/**
+ * JMX Bean interface exposing the latencies of the user and role providers queried by the user directory.
+ */
+public interface ProviderStatisticsMXBean {
+
+  /**
+   * Gets the latencies per provider, each formatted as
+   * <code>provider;calls;average milliseconds;maximum milliseconds;timeouts;failures</code>
+   *
+   * @return an array including the latencies of each provider
+   */
+  String[] getProviderLatencies();
+
+  /**
+   * Gets the number of provider queries which did not finish in time
+   *
+   * @return the number of timeouts
+   */
+  long getTimeouts();
+
+  /**
+   * Gets the number of provider queries which failed
+   *
+   * @return the number of failures
+   */
+  long getFailures();
+
+}
@@ -24,6 +24,10 @@ package org.opencastproject.userdirectory;
 import static org.opencastproject.security.api.UserProvider.ALL_ORGANIZATIONS;
 import static org.opencastproject.util.data.Tuple.tuple;
 
+import org.opencastproject.message.broker.api.BaseMessage;
+import org.opencastproject.message.broker.api.MessageReceiver;
+import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.message.broker.api.MessageSender.DestinationType;
 import org.opencastproject.security.api.GroupProvider;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -39,12 +43,16 @@ import org.opencastproject.security.api.UserProvider;
 import org.opencastproject.util.data.Collections;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 
 import com.entwinemedia.fn.Stream;
 import com.entwinemedia.fn.StreamOp;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -57,13 +65,25 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.management.ObjectInstance;
 
 /**
  * Federates user and role providers, and exposes a spring UserDetailsService so user lookups can be used by spring
@@ -83,6 +103,24 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
   /** The configuration property for the user cache expiry time */
   public static final String USER_CACHE_EXPIRY_KEY = "org.opencastproject.userdirectory.cache.expiry";
 
+  /** The configuration property for the time after which cached users are reloaded in the background */
+  public static final String USER_CACHE_REFRESH_KEY = "org.opencastproject.userdirectory.cache.refresh";
+
+  /** The configuration property for the time user and role providers may take to answer */
+  public static final String PROVIDER_TIMEOUT_KEY = "org.opencastproject.userdirectory.provider.timeout";
+
+  /** The configuration property for the number of threads querying the providers */
+  public static final String PROVIDER_THREADS_KEY = "org.opencastproject.userdirectory.provider.threads";
+
+  /** The topic used to tell the other nodes of the cluster about invalidated users */
+  public static final String INVALIDATION_TOPIC = "USERDIRECTORY.INVALIDATION";
+
+  /** The JMX bean type of the provider statistics */
+  private static final String JMX_PROVIDER_STATISTICS_TYPE = "UserProviderStatistics";
+
+  /** Time to wait for a message receiver before listening for invalidations again, in milliseconds */
+  private static final long RECEIVER_RETRY_INTERVAL = 10000L;
+
   /** The list of user providers */
   protected List<UserProvider> userProviders = new CopyOnWriteArrayList<UserProvider>();
 
@@ -92,15 +130,44 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
   /** The security service */
   protected SecurityService securityService = null;
 
+  /** The message sender used to broadcast invalidations, if available */
+  protected volatile MessageSender messageSender = null;
+
+  /** The message receiver used to listen for invalidations, if available */
+  protected volatile MessageReceiver messageReceiver = null;
+
   /** A token to store in the miss cache */
   private Object nullToken = new Object();
 
   private final CacheLoader<Tuple<String, String>, Object> userLoader = new CacheLoader<Tuple<String, String>, Object>() {
     @Override
-    public Object load(Tuple<String, String> orgUser) {
-      User user = loadUser.apply(orgUser);
+    public Object load(Tuple<String, String> orgUser) throws IncompleteUserException {
+      User user = loadUser(orgUser, false);
       return user == null ? nullToken : user;
     }
+
+    /** Reloads a user in the background while the cached one is still served */
+    @Override
+    public ListenableFuture<Object> reload(final Tuple<String, String> orgUser, Object oldValue) {
+      final Organization organization = securityService.getOrganization();
+      final User currentUser = securityService.getUser();
+      ListenableFutureTask<Object> task = ListenableFutureTask.create(new Callable<Object>() {
+        @Override
+        public Object call() throws IncompleteUserException {
+          securityService.setOrganization(organization);
+          securityService.setUser(currentUser);
+          try {
+            User user = loadUser(orgUser, true);
+            return user == null ? nullToken : user;
+          } finally {
+            securityService.setOrganization(null);
+            securityService.setUser(null);
+          }
+        }
+      });
+      reloadExecutor.execute(task);
+      return task;
+    }
   };
 
   /** The user cache */
@@ -112,6 +179,30 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
   /** Expiry time for elements in the user cache */
   private int cacheExpiryTimeInMinutes = 1;
 
+  /** Time after which elements in the user cache are reloaded in the background, 0 to disable */
+  private int cacheRefreshTimeInSeconds = 30;
+
+  /** Time in milliseconds a provider may take to answer, 0 to wait forever */
+  private long providerTimeout = 10000L;
+
+  /** The number of threads querying the providers */
+  private int providerThreads = 20;
+
+  /** Queries the providers in parallel */
+  private ExecutorService providerExecutor = null;
+
+  /** Reloads cached users, waiting for the provider queries */
+  private ExecutorService reloadExecutor = null;
+
+  /** The latencies of the providers */
+  private final ProviderStatistics providerStatistics = new ProviderStatistics();
+
+  /** The registered provider statistics bean */
+  private ObjectInstance providerStatisticsBean = null;
+
+  /** Listens for invalidations from other nodes */
+  private InvalidationWatcher invalidationWatcher = null;
+
   /**
    * Callback to activate the component.
    *
@@ -142,16 +233,77 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
       } else {
         logger.info("Using default value {} for user cache expiry time", cacheExpiryTimeInMinutes);
       }
+
+      stringValue = cc.getBundleContext().getProperty(USER_CACHE_REFRESH_KEY);
+      if (StringUtils.isNotBlank(stringValue)) {
+        try {
+          cacheRefreshTimeInSeconds = Integer.parseInt(StringUtils.trimToNull(stringValue));
+        } catch (Exception e) {
+          logger.warn("Ignoring invalid value {} for user cache refresh time", stringValue);
+        }
+      } else {
+        logger.info("Using default value {} for user cache refresh time", cacheRefreshTimeInSeconds);
+      }
+
+      stringValue = cc.getBundleContext().getProperty(PROVIDER_TIMEOUT_KEY);
+      if (StringUtils.isNotBlank(stringValue)) {
+        try {
+          providerTimeout = Long.parseLong(StringUtils.trimToNull(stringValue));
+        } catch (Exception e) {
+          logger.warn("Ignoring invalid value {} for provider timeout", stringValue);
+        }
+      } else {
+        logger.info("Using default value {} for provider timeout", providerTimeout);
+      }
+
+      stringValue = cc.getBundleContext().getProperty(PROVIDER_THREADS_KEY);
+      if (StringUtils.isNotBlank(stringValue)) {
+        try {
+          providerThreads = Math.max(1, Integer.parseInt(StringUtils.trimToNull(stringValue)));
+        } catch (Exception e) {
+          logger.warn("Ignoring invalid value {} for provider threads", stringValue);
+        }
+      } else {
+        logger.info("Using default value {} for provider threads", providerThreads);
+      }
     }
 
+    // Reloads run on their own threads since they wait for the provider queries
+    providerExecutor = Executors.newFixedThreadPool(providerThreads);
+    reloadExecutor = Executors.newFixedThreadPool(providerThreads);
+
     // Create the user cache
-    cache = CacheBuilder.newBuilder().expireAfterWrite(cacheExpiryTimeInMinutes, TimeUnit.MINUTES).maximumSize(cacheSize).build(userLoader);
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+            .expireAfterWrite(cacheExpiryTimeInMinutes, TimeUnit.MINUTES).maximumSize(cacheSize);
+    long expirySeconds = TimeUnit.MINUTES.toSeconds(cacheExpiryTimeInMinutes);
+    if (cacheRefreshTimeInSeconds > 0 && cacheRefreshTimeInSeconds < expirySeconds)
+      cacheBuilder.refreshAfterWrite(cacheRefreshTimeInSeconds, TimeUnit.SECONDS);
+    cache = cacheBuilder.build(userLoader);
+
+    providerStatisticsBean = JmxUtil.registerMXBean(providerStatistics, JMX_PROVIDER_STATISTICS_TYPE);
+
+    invalidationWatcher = new InvalidationWatcher();
+    invalidationWatcher.start();
 
-    logger.info("Activated UserAndRoleDirectoryService with user cache of size {}, expiry time {} minutes",
-      cacheSize, cacheExpiryTimeInMinutes);
+    logger.info("Activated UserAndRoleDirectoryService with user cache of size {}, expiry time {} minutes, "
+            + "refresh time {} seconds", cacheSize, cacheExpiryTimeInMinutes, cacheRefreshTimeInSeconds);
 
   }
 
+  /**
+   * Callback to deactivate the component.
+   */
+  protected void deactivate() {
+    if (invalidationWatcher != null)
+      invalidationWatcher.stopListening();
+    if (providerStatisticsBean != null)
+      JmxUtil.unregisterMXBean(providerStatisticsBean);
+    if (providerExecutor != null)
+      providerExecutor.shutdownNow();
+    if (reloadExecutor != null)
+      reloadExecutor.shutdownNow();
+  }
+
   /**
    * Adds a user provider.
    *
@@ -257,7 +409,15 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
       throw new IllegalStateException("No organization is set");
     }
 
-    Object user = cache.getUnchecked(tuple(org.getId(), userName));
+    Object user;
+    try {
+      user = cache.getUnchecked(tuple(org.getId(), userName));
+    } catch (UncheckedExecutionException e) {
+      // Users missing the answer of a provider are not cached
+      if (e.getCause() instanceof IncompleteUserException)
+        return ((IncompleteUserException) e.getCause()).getUser();
+      throw e;
+    }
     if (user == nullToken) {
       cache.invalidate(tuple(org.getId(), userName));
       return null;
@@ -266,84 +426,221 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
     }
   }
 
-  /** Load a user of an organization. */
-  private final Function<Tuple<String, String>, User> loadUser = new Function<Tuple<String, String>, User>() {
-    @Override
-    public User apply(Tuple<String, String> orgUser) {
-      // Collect all of the roles known from each of the user providers for this user
-      User user = null;
-      for (UserProvider userProvider : userProviders) {
-        String providerOrgId = userProvider.getOrganization();
-        if (!ALL_ORGANIZATIONS.equals(providerOrgId) && !orgUser.getA().equals(providerOrgId)) {
-          continue;
-        }
-        User providerUser = userProvider.loadUser(orgUser.getB());
-        if (providerUser == null) {
-          continue;
-        }
+  /**
+   * Loads a user of an organization by querying all user and role providers in parallel.
+   *
+   * @param orgUser
+   *          the organization identifier and user name
+   * @param refresh
+   *          whether a cached user is being refreshed, in which case a provider not answering in time fails the whole
+   *          load so that the cached user is kept instead of being replaced by an incomplete one
+   * @return the user or <code>null</code> if no provider knows the user
+   * @throws IncompleteUserException
+   *           if a provider did not answer in time when loading a user for the first time
+   */
+  private User loadUser(final Tuple<String, String> orgUser, boolean refresh) throws IncompleteUserException {
+    List<String> timedOut = new ArrayList<String>();
+    List<UserProvider> providers = new ArrayList<UserProvider>();
+    for (UserProvider userProvider : userProviders) {
+      String providerOrgId = userProvider.getOrganization();
+      if (ALL_ORGANIZATIONS.equals(providerOrgId) || orgUser.getA().equals(providerOrgId))
+        providers.add(userProvider);
+    }
 
-        User tmpUser = JaxbUser.fromUser(providerUser);
-        if (user == null) {
-          user = tmpUser;
-        } else {
-          user = mergeUsers(user, tmpUser);
-        }
+    // Return super users without merging to avoid unnecessary requests to other user providers
+    User user = null;
+    if (!providers.isEmpty() && InMemoryUserAndRoleProvider.PROVIDER_NAME.equals(providers.get(0).getName())) {
+      User providerUser = providers.get(0).loadUser(orgUser.getB());
+      if (providerUser != null) {
+        user = JaxbUser.fromUser(providerUser);
+        providers.clear();
+      } else {
+        providers.remove(0);
+      }
+    }
 
-        // Return super users without merging to avoid unnecessary requests to other user providers
-        if (InMemoryUserAndRoleProvider.PROVIDER_NAME.equals(userProvider.getName())) {
-          user = tmpUser;
-          break;
-        }
+    // Collect all of the roles known from each of the user providers for this user
+    List<User> providerUsers = queryProviders(providers, new Function<UserProvider, User>() {
+      @Override
+      public User apply(UserProvider userProvider) {
+        return userProvider.loadUser(orgUser.getB());
+      }
+    }, refresh, timedOut);
+    for (User providerUser : providerUsers) {
+      if (providerUser == null) {
+        continue;
+      }
+
+      User tmpUser = JaxbUser.fromUser(providerUser);
+      if (user == null) {
+        user = tmpUser;
+      } else {
+        user = mergeUsers(user, tmpUser);
       }
+    }
+
+    if (user == null) {
+      if (!timedOut.isEmpty())
+        throw new IncompleteUserException(null, timedOut);
+      return null;
+    }
 
-      if (user == null)
-        return null;
+    // Add additional roles from role providers
+    Set<JaxbRole> roles = new HashSet<JaxbRole>();
+    for (Role role : user.getRoles()) {
+      roles.add(JaxbRole.fromRole(role));
+    }
 
-      // Add additional roles from role providers
-      Set<JaxbRole> roles = new HashSet<JaxbRole>();
-      for (Role role : user.getRoles()) {
-        roles.add(JaxbRole.fromRole(role));
+    // Consult roleProviders if this is not an internal system user
+    if (!InMemoryUserAndRoleProvider.PROVIDER_NAME.equals(user.getProvider())) {
+      final String userName = user.getUsername();
+      List<List<Role>> providerRoles = queryProviders(roleProviders, new Function<RoleProvider, List<Role>>() {
+        @Override
+        public List<Role> apply(RoleProvider roleProvider) {
+          return roleProvider.getRolesForUser(userName);
+        }
+      }, refresh, timedOut);
+      for (List<Role> rolesForUser : providerRoles) {
+        if (rolesForUser == null)
+          continue;
+        for (Role role : rolesForUser) {
+          roles.add(JaxbRole.fromRole(role));
+        }
       }
+    }
 
-      // Consult roleProviders if this is not an internal system user
-      if (!InMemoryUserAndRoleProvider.PROVIDER_NAME.equals(user.getProvider())) {
+    // Resolve any transitive roles granted via group membership
+    Set<JaxbRole> derivedRoles = new HashSet<JaxbRole>();
+    for (Role role : roles) {
+      if (Role.Type.EXTERNAL_GROUP.equals(role.getType())) {
+        // Load roles granted to this group
+        logger.debug("Resolving transitive roles for user {} from external group {}", user.getUsername(),
+                role.getName());
         for (RoleProvider roleProvider : roleProviders) {
-          for (Role role : roleProvider.getRolesForUser(user.getUsername())) {
-            roles.add(JaxbRole.fromRole(role));
+          if (roleProvider instanceof GroupProvider) {
+            List<Role> groupRoles = ((GroupProvider) roleProvider).getRolesForGroup(role.getName());
+            if (groupRoles != null) {
+              for (Role groupRole : groupRoles) {
+                derivedRoles.add(JaxbRole.fromRole(groupRole));
+              }
+              logger.debug("Adding {} derived role(s) for user {} from internal group {}", derivedRoles.size(),
+                      user.getUsername(), role.getName());
+            } else {
+              logger.warn("Cannot resolve externallly provided group reference for user {} to internal group {}",
+                      user.getUsername(), role.getName());
+            }
           }
         }
       }
+    }
+    roles.addAll(derivedRoles);
+
+    // Create and return the final user
+    JaxbUser mergedUser = new JaxbUser(user.getUsername(), user.getPassword(), user.getName(), user.getEmail(),
+            user.getProvider(), user.canLogin(), JaxbOrganization.fromOrganization(user.getOrganization()), roles);
+    mergedUser.setManageable(user.isManageable());
+    if (!timedOut.isEmpty())
+      throw new IncompleteUserException(mergedUser, timedOut);
+    return mergedUser;
+  }
 
-      // Resolve any transitive roles granted via group membership
-      Set<JaxbRole> derivedRoles = new HashSet<JaxbRole>();
-      for (Role role : roles) {
-        if (Role.Type.EXTERNAL_GROUP.equals(role.getType())) {
-          // Load roles granted to this group
-          logger.debug("Resolving transitive roles for user {} from external group {}", user.getUsername(), role.getName());
-          for (RoleProvider roleProvider : roleProviders) {
-            if (roleProvider instanceof GroupProvider) {
-              List<Role> groupRoles = ((GroupProvider) roleProvider).getRolesForGroup(role.getName());
-              if (groupRoles != null) {
-                for (Role groupRole : groupRoles) {
-                  derivedRoles.add(JaxbRole.fromRole(groupRole));
-                }
-                logger.debug("Adding {} derived role(s) for user {} from internal group {}", derivedRoles.size(), user.getUsername(), role.getName());
-              } else {
-                logger.warn("Cannot resolve externallly provided group reference for user {} to internal group {}", user.getUsername(), role.getName());
-              }
-            }
+  /**
+   * Runs a query against each of the given providers in parallel and waits for all of them to answer within the
+   * configured provider timeout.
+   *
+   * @param providers
+   *          the providers to query
+   * @param query
+   *          the query to run
+   * @param failOnTimeout
+   *          whether a provider not answering in time should fail the query, otherwise its result is <code>null</code>
+   * @param timedOut
+   *          collects the names of the providers not answering in time
+   * @return the results in the order of the providers
+   */
+  private <P, T> List<T> queryProviders(List<P> providers, final Function<P, T> query, boolean failOnTimeout,
+          List<String> timedOut) {
+    List<T> results = new ArrayList<T>();
+    if (providers.size() == 1 && providerTimeout <= 0) {
+      P provider = providers.get(0);
+      results.add(queryProvider(provider, query));
+      return results;
+    }
+
+    final Organization organization = securityService.getOrganization();
+    final User user = securityService.getUser();
+    List<Future<T>> futures = new ArrayList<Future<T>>();
+    for (final P provider : providers) {
+      futures.add(providerExecutor.submit(new Callable<T>() {
+        @Override
+        public T call() {
+          securityService.setOrganization(organization);
+          securityService.setUser(user);
+          try {
+            return queryProvider(provider, query);
+          } finally {
+            securityService.setOrganization(null);
+            securityService.setUser(null);
+          }
+        }
+      }));
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(providerTimeout);
+    for (int i = 0; i < futures.size(); i++) {
+      Future<T> future = futures.get(i);
+      try {
+        if (providerTimeout > 0) {
+          results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } else {
+          results.add(future.get());
+        }
+      } catch (TimeoutException e) {
+        String provider = getProviderName(providers.get(i));
+        providerStatistics.timeout(provider);
+        if (failOnTimeout) {
+          for (Future<T> f : futures) {
+            f.cancel(true);
           }
+          throw new IllegalStateException(provider + " did not answer within " + providerTimeout + " ms");
         }
+        future.cancel(true);
+        logger.warn("{} did not answer within {} ms, ignoring it", provider, providerTimeout);
+        timedOut.add(provider);
+        results.add(null);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException)
+          throw (RuntimeException) e.getCause();
+        if (e.getCause() instanceof Error)
+          throw (Error) e.getCause();
+        throw new IllegalStateException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for " + getProviderName(providers.get(i)), e);
       }
-      roles.addAll(derivedRoles);
+    }
+    return results;
+  }
 
-      // Create and return the final user
-      JaxbUser mergedUser = new JaxbUser(user.getUsername(), user.getPassword(), user.getName(), user.getEmail(),
-              user.getProvider(), user.canLogin(), JaxbOrganization.fromOrganization(user.getOrganization()), roles);
-      mergedUser.setManageable(user.isManageable());
-      return mergedUser;
+  /** Runs a query against a single provider and records its latency. */
+  private <P, T> T queryProvider(P provider, Function<P, T> query) {
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      T result = query.apply(provider);
+      failed = false;
+      return result;
+    } finally {
+      providerStatistics.record(getProviderName(provider), System.nanoTime() - start, failed);
     }
-  };
+  }
+
+  /** Returns the name of a provider to be used in log messages and statistics. */
+  private static String getProviderName(Object provider) {
+    if (provider instanceof UserProvider && ((UserProvider) provider).getName() != null)
+      return ((UserProvider) provider).getName();
+    return provider.getClass().getSimpleName();
+  }
 
   /**
    * {@inheritDoc}
@@ -476,6 +773,26 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
 
   @Override
   public void invalidate(String userName) {
+    invalidateLocally(userName);
+
+    // Tell the other nodes of the cluster
+    MessageSender sender = messageSender;
+    if (sender != null) {
+      try {
+        sender.sendObjectMessage(INVALIDATION_TOPIC, DestinationType.Topic, userName);
+      } catch (Exception e) {
+        logger.warn("Unable to broadcast the invalidation of user {}: {}", userName, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Invalidates a user of the current organization on this node only.
+   *
+   * @param userName
+   *          the user name
+   */
+  private void invalidateLocally(String userName) {
     for (UserProvider userProvider : userProviders) {
       userProvider.invalidate(userName);
     }
@@ -488,6 +805,124 @@ public class UserAndRoleDirectoryServiceImpl implements UserDirectoryService, Us
     logger.trace("Invalidated user {} from user directories", userName);
   }
 
+  /**
+   * Sets the message sender used to broadcast invalidations.
+   *
+   * @param messageSender
+   *          the message sender
+   */
+  public void setMessageSender(MessageSender messageSender) {
+    this.messageSender = messageSender;
+  }
+
+  /**
+   * Removes the message sender.
+   *
+   * @param messageSender
+   *          the message sender
+   */
+  public void unsetMessageSender(MessageSender messageSender) {
+    if (this.messageSender == messageSender)
+      this.messageSender = null;
+  }
+
+  /**
+   * Sets the message receiver used to listen for invalidations.
+   *
+   * @param messageReceiver
+   *          the message receiver
+   */
+  public void setMessageReceiver(MessageReceiver messageReceiver) {
+    this.messageReceiver = messageReceiver;
+  }
+
+  /**
+   * Removes the message receiver.
+   *
+   * @param messageReceiver
+   *          the message receiver
+   */
+  public void unsetMessageReceiver(MessageReceiver messageReceiver) {
+    if (this.messageReceiver == messageReceiver)
+      this.messageReceiver = null;
+  }
+
+  /** Signals that a user has been loaded without the answers of some providers, so it must not be cached */
+  private static final class IncompleteUserException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final User user;
+
+    IncompleteUserException(User user, List<String> timedOut) {
+      super("No answer from " + timedOut);
+      this.user = user;
+    }
+
+    /** Returns the user as known to the providers that did answer, or <code>null</code> if none of them knows it */
+    User getUser() {
+      return user;
+    }
+
+  }
+
+  /** Listens for users invalidated on other nodes of the cluster */
+  private class InvalidationWatcher implements Runnable {
+
+    private volatile boolean listening = true;
+    private volatile FutureTask<Serializable> future;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Thread thread = new Thread(this, "User directory invalidation watcher");
+
+    void start() {
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    void stopListening() {
+      listening = false;
+      if (future != null)
+        future.cancel(true);
+      thread.interrupt();
+      executor.shutdownNow();
+    }
+
+    @Override
+    public void run() {
+      while (listening) {
+        MessageReceiver receiver = messageReceiver;
+        if (receiver == null) {
+          try {
+            Thread.sleep(RECEIVER_RETRY_INTERVAL);
+          } catch (InterruptedException e) {
+            logger.trace("Waiting for a message receiver has been interrupted");
+          }
+          continue;
+        }
+        future = receiver.receiveSerializable(INVALIDATION_TOPIC, DestinationType.Topic);
+        executor.execute(future);
+        try {
+          BaseMessage message = (BaseMessage) future.get();
+          if (message == null || !(message.getObject() instanceof String))
+            continue;
+          securityService.setOrganization(message.getOrganization());
+          securityService.setUser(message.getUser());
+          invalidateLocally((String) message.getObject());
+        } catch (CancellationException e) {
+          logger.trace("Listening for user invalidations has been cancelled");
+        } catch (InterruptedException e) {
+          logger.trace("Listening for user invalidations has been interrupted");
+        } catch (Exception e) {
+          logger.warn("Unable to process user invalidation message: {}", e.getMessage());
+        } finally {
+          securityService.setOrganization(null);
+          securityService.setUser(null);
+        }
+      }
+    }
+
+  }
+
   private static final Comparator<Role> roleComparator = new Comparator<Role>() {
     @Override
     public int compare(Role role1, Role role2) {
@@ -23,8 +23,11 @@ package org.opencastproject.userdirectory;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.message.broker.api.MessageSender.DestinationType;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -37,13 +40,17 @@ import org.opencastproject.security.api.UserProvider;
 
 import org.apache.commons.collections4.IteratorUtils;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tests the combined user and role directory service.
@@ -217,4 +224,55 @@ public class UserAndRoleDirectoryServiceImplTest {
             || "ROLE_MATH_2012".equals(roles.get(0).getName()));
   }
 
+  @Test
+  public void testInvalidateIsBroadcast() {
+    MessageSender messageSender = EasyMock.createMock(MessageSender.class);
+    messageSender.sendObjectMessage(UserAndRoleDirectoryServiceImpl.INVALIDATION_TOPIC, DestinationType.Topic,
+            userName);
+    EasyMock.expectLastCall().once();
+    EasyMock.replay(messageSender);
+
+    directory.setMessageSender(messageSender);
+    directory.invalidate(userName);
+    EasyMock.verify(messageSender);
+
+    // The user is loaded again after the invalidation
+    assertEquals(userName, directory.loadUser(userName).getUsername());
+  }
+
+  @Test
+  public void testUserMissingProviderAnswerIsNotCached() {
+    final User user = new JaxbUser(userName, "secret", org, role1);
+    final AtomicBoolean slow = new AtomicBoolean(true);
+    UserProvider provider = EasyMock.createNiceMock(UserProvider.class);
+    EasyMock.expect(provider.getOrganization()).andReturn(org.getId()).anyTimes();
+    EasyMock.expect(provider.loadUser(userName)).andAnswer(new IAnswer<User>() {
+      @Override
+      public User answer() throws Throwable {
+        if (slow.getAndSet(false))
+          Thread.sleep(2000);
+        return user;
+      }
+    }).anyTimes();
+    SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    EasyMock.expect(securityService.getOrganization()).andReturn(org).anyTimes();
+    BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+    EasyMock.expect(bundleContext.getProperty(UserAndRoleDirectoryServiceImpl.PROVIDER_TIMEOUT_KEY)).andReturn("100")
+            .anyTimes();
+    ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+    EasyMock.replay(provider, securityService, bundleContext, cc);
+
+    UserAndRoleDirectoryServiceImpl directory = new UserAndRoleDirectoryServiceImpl();
+    directory.activate(cc);
+    directory.setSecurityService(securityService);
+    directory.addUserProvider(provider);
+
+    // The only provider does not answer in time, so the user is unknown for now
+    assertNull(directory.loadUser(userName));
+    // The incomplete answer has not been cached
+    assertEquals(userName, directory.loadUser(userName).getUsername());
+    directory.deactivate();
+  }
+
 }
@@ -0,0 +1,464 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+
+package org.opencastproject.usertracking.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+
+/**
+ * Aggregates footprints into the changes of the number of views along the timeline of each media package.
+ * <p>
+ * A footprint from second <code>a</code> to second <code>b</code> is one more view at <code>a</code> and one less at
+ * <code>b</code>. The number of views at any position is the sum of all changes up to that position. The changes
+ * caused by the footprints this node received are collected in memory and added to the changes in the database by
+ * {@link #flush()}, so that the footprints a player sends while playing a media package cancel each other out before
+ * they reach the database. Since every node only adds its own changes, the aggregation is safe to run on any number of
+ * nodes. The changes of the footprints recorded before the aggregation existed are added once by the database upgrade.
+ * <p>
+ * Players extend the last footprint of a session every few seconds. These extensions are collected in memory as well
+ * and written to the database in a single transaction by {@link #flush()}, so that they neither need to look up the
+ * session nor its last footprint.
+ */
+public class FootprintAggregator {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(FootprintAggregator.class);
+
+  /** The maximum number of sessions whose last footprint is remembered */
+  private static final int MAX_SESSIONS = 10000;
+
+  /** The factory used to generate the entity manager */
+  private final EntityManagerFactory emf;
+
+  /** Serializes flushes */
+  private final Object flushLock = new Object();
+
+  /** The changes not yet written to the database by media package and position */
+  private Map<String, Map<Integer, Integer>> pending = new HashMap<>();
+
+  /** The changes currently written to the database by media package and position */
+  private Map<String, Map<Integer, Integer>> flushing = new HashMap<>();
+
+  /** The footprint extensions not yet written to the database by footprint identifier */
+  private Map<Long, Extension> extensions = new HashMap<>();
+
+  /** The last footprint of recent sessions by session identifier */
+  private final Map<String, LastFootprint> sessions = new LinkedHashMap<String, LastFootprint>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Entry<String, LastFootprint> eldest) {
+      return size() > MAX_SESSIONS;
+    }
+  };
+
+  /**
+   * Creates a new aggregator.
+   *
+   * @param emf
+   *          the factory used to generate the entity manager
+   */
+  public FootprintAggregator(EntityManagerFactory emf) {
+    this.emf = emf;
+  }
+
+  /**
+   * Adds a footprint which has been written to the database and remembers it as the last footprint of its session.
+   *
+   * @param sessionId
+   *          the session or <code>null</code> if sessions are not tracked
+   * @param footprint
+   *          the footprint
+   */
+  public synchronized void add(String sessionId, UserActionImpl footprint) {
+    change(footprint.getMediapackageId(), footprint.getInpoint(), footprint.getOutpoint(), 1);
+    remember(sessionId, footprint);
+  }
+
+  /**
+   * Extends the last footprint of a session if the given footprint continues it. The extension is written to the
+   * database by the next {@link #flush()}.
+   *
+   * @param sessionId
+   *          the session
+   * @param footprint
+   *          the footprint to add, which becomes the extended footprint if this method returns <code>true</code>
+   * @return whether the last footprint of the session has been extended, otherwise it is not known or is not continued
+   *         by the given footprint
+   */
+  public synchronized boolean extend(String sessionId, UserActionImpl footprint) {
+    final LastFootprint last = sessions.get(sessionId);
+    if (last == null || !last.mediapackageId.equals(footprint.getMediapackageId())
+            || last.outpoint != footprint.getInpoint())
+      return false;
+    change(last.mediapackageId, last.outpoint, footprint.getOutpoint(), 1);
+    Extension extension = extensions.get(last.id);
+    if (extension == null) {
+      extension = new Extension(last.mediapackageId, last.userId, last.inpoint, last.outpoint);
+      extensions.put(last.id, extension);
+    }
+    extension.outpoint = footprint.getOutpoint();
+    last.outpoint = footprint.getOutpoint();
+    footprint.setId(last.id);
+    footprint.setInpoint(last.inpoint);
+    return true;
+  }
+
+  /**
+   * Applies the extension of a footprint which has not yet been written to the database, and forgets about it so that
+   * it is not written by the next {@link #flush()}. This must be called before the footprint is modified in the
+   * database.
+   *
+   * @param footprint
+   *          the footprint loaded from the database
+   */
+  public synchronized void applyExtension(UserActionImpl footprint) {
+    final Extension extension = extensions.remove(footprint.getId());
+    if (extension != null)
+      footprint.setOutpoint(extension.outpoint);
+  }
+
+  /**
+   * Returns the end of a footprint including extensions that have not yet been written to the database.
+   *
+   * @param footprint
+   *          the footprint loaded from the database
+   * @return the end of the footprint
+   */
+  public synchronized int getOutpoint(UserActionImpl footprint) {
+    final Extension extension = extensions.get(footprint.getId());
+    return extension == null ? footprint.getOutpoint() : extension.outpoint;
+  }
+
+  /**
+   * Records that a footprint which has already been added has been extended.
+   *
+   * @param sessionId
+   *          the session or <code>null</code> if sessions are not tracked
+   * @param footprint
+   *          the extended footprint
+   * @param outpoint
+   *          the end of the footprint before it has been extended
+   */
+  public synchronized void extended(String sessionId, UserActionImpl footprint, int outpoint) {
+    change(footprint.getMediapackageId(), outpoint, footprint.getOutpoint(), 1);
+    remember(sessionId, footprint);
+  }
+
+  private void remember(String sessionId, UserActionImpl footprint) {
+    if (sessionId != null)
+      sessions.put(sessionId, new LastFootprint(footprint.getId(), footprint.getMediapackageId(),
+              footprint.getSession() == null ? null : footprint.getSession().getUserId(), footprint.getInpoint(),
+              footprint.getOutpoint()));
+  }
+
+  /** Adds one view from <code>inpoint</code> to <code>outpoint</code> */
+  private void change(String mediapackageId, int inpoint, int outpoint, int views) {
+    // footprints without a duration are not counted, see countFootprints()
+    if (inpoint >= outpoint)
+      return;
+    Map<Integer, Integer> changes = pending.get(mediapackageId);
+    if (changes == null) {
+      changes = new HashMap<>();
+      pending.put(mediapackageId, changes);
+    }
+    merge(changes, inpoint, views);
+    merge(changes, outpoint, -views);
+  }
+
+  /**
+   * Returns the changes of the number of views of a media package.
+   *
+   * @param mediapackageId
+   *          the media package
+   * @param userId
+   *          the user to count the views of or <code>null</code> to count the views of all users
+   * @return the changes by position
+   */
+  public SortedMap<Integer, Integer> getChanges(String mediapackageId, String userId) {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      final SortedMap<Integer, Integer> changes = new TreeMap<>();
+      if (StringUtils.trimToNull(userId) != null) {
+        // views are only aggregated for all users
+        changes.putAll(countFootprints(em, mediapackageId, userId));
+        synchronized (this) {
+          mergeAll(changes, getUnwritten(mediapackageId, userId));
+        }
+        return changes;
+      }
+      final Query q = em.createNamedQuery("findFootprintChangesOfMediapackage");
+      q.setParameter("mediapackageId", mediapackageId);
+      for (Object change : q.getResultList()) {
+        merge(changes, ((FootprintChangeImpl) change).getTimepoint(), ((FootprintChangeImpl) change).getDelta());
+      }
+      synchronized (this) {
+        mergeAll(changes, flushing.get(mediapackageId));
+        mergeAll(changes, pending.get(mediapackageId));
+      }
+      return changes;
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Writes the collected footprint extensions to the database and adds the collected changes of all media packages that
+   * have been watched since the last flush to the ones in the database.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      writeExtensions();
+
+      final List<String> mediapackageIds;
+      synchronized (this) {
+        mediapackageIds = new ArrayList<>(pending.keySet());
+      }
+      if (!mediapackageIds.isEmpty())
+        logger.debug("Writing footprints of {} media packages", mediapackageIds.size());
+      for (String mediapackageId : mediapackageIds) {
+        try {
+          write(mediapackageId);
+        } catch (Exception e) {
+          logger.warn("Unable to write footprints of media package {}, trying again later", mediapackageId, e);
+          synchronized (this) {
+            final Map<Integer, Integer> changes = flushing.remove(mediapackageId);
+            if (changes != null) {
+              if (!pending.containsKey(mediapackageId))
+                pending.put(mediapackageId, new HashMap<Integer, Integer>());
+              mergeAll(pending.get(mediapackageId), changes);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Writes the collected footprint extensions to the database in a single transaction. */
+  private void writeExtensions() {
+    final Map<Long, Extension> written;
+    synchronized (this) {
+      if (extensions.isEmpty())
+        return;
+      written = extensions;
+      extensions = new HashMap<>();
+    }
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      for (Entry<Long, Extension> extension : written.entrySet()) {
+        final Query q = em.createNamedQuery("updateFootprintOutpoint");
+        q.setParameter("id", extension.getKey());
+        q.setParameter("outpoint", extension.getValue().outpoint);
+        q.setParameter("length", extension.getValue().outpoint - extension.getValue().inpoint);
+        q.executeUpdate();
+      }
+      tx.commit();
+      logger.debug("Extended {} footprints", written.size());
+    } catch (Exception e) {
+      logger.warn("Unable to extend {} footprints, trying again later", written.size(), e);
+      synchronized (this) {
+        for (Entry<Long, Extension> extension : written.entrySet()) {
+          final Extension later = extensions.get(extension.getKey());
+          if (later != null)
+            later.written = extension.getValue().written;
+          else
+            extensions.put(extension.getKey(), extension.getValue());
+        }
+      }
+    } finally {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Adds the collected changes of a media package to the ones in the database. A position which has not been changed
+   * before gets a new row. If another node inserts the same row concurrently, the transaction fails and the changes are
+   * written by the next flush.
+   */
+  private void write(String mediapackageId) {
+    final Map<Integer, Integer> changes;
+    synchronized (this) {
+      changes = pending.remove(mediapackageId);
+      if (changes == null)
+        return;
+      flushing.put(mediapackageId, changes);
+    }
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      int written = 0;
+      for (Entry<Integer, Integer> change : changes.entrySet()) {
+        if (change.getValue() == 0)
+          continue;
+        final Query q = em.createNamedQuery("updateFootprintChange");
+        q.setParameter("delta", change.getValue());
+        q.setParameter("mediapackageId", mediapackageId);
+        q.setParameter("timepoint", change.getKey());
+        if (q.executeUpdate() == 0)
+          em.persist(new FootprintChangeImpl(mediapackageId, change.getKey(), change.getValue()));
+        written++;
+      }
+      tx.commit();
+      synchronized (this) {
+        flushing.remove(mediapackageId);
+      }
+      logger.debug("Wrote {} footprint changes of media package {}", written, mediapackageId);
+    } finally {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Returns the changes caused by footprint extensions which have not yet been written to the database, of all users
+   * if <code>userId</code> is <code>null</code>.
+   */
+  private Map<Integer, Integer> getUnwritten(String mediapackageId, String userId) {
+    final Map<Integer, Integer> changes = new HashMap<>();
+    for (Extension extension : extensions.values()) {
+      if (extension.mediapackageId.equals(mediapackageId) && extension.written < extension.outpoint
+              && (userId == null || userId.equals(extension.userId))) {
+        merge(changes, extension.written, 1);
+        merge(changes, extension.outpoint, -1);
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Counts the changes of the number of views of a media package from its footprints.
+   *
+   * @param em
+   *          the entity manager
+   * @param mediapackageId
+   *          the media package
+   * @param userId
+   *          the user to count the footprints of or <code>null</code> to count the footprints of all users
+   * @return the changes by position
+   */
+  static SortedMap<Integer, Integer> countFootprints(EntityManager em, String mediapackageId, String userId) {
+    final SortedMap<Integer, Integer> changes = new TreeMap<>();
+    final boolean byUser = StringUtils.trimToNull(userId) != null;
+    final Query starts = em.createNamedQuery(byUser ? "countUserActionInpointsByTypeAndMediapackageIdByUser"
+            : "countUserActionInpointsByTypeAndMediapackageId");
+    final Query ends = em.createNamedQuery(byUser ? "countUserActionOutpointsByTypeAndMediapackageIdByUser"
+            : "countUserActionOutpointsByTypeAndMediapackageId");
+    for (Query q : new Query[] { starts, ends }) {
+      q.setParameter("type", UserTrackingServiceImpl.FOOTPRINT_KEY);
+      q.setParameter("mediapackageId", mediapackageId);
+      if (byUser)
+        q.setParameter("userid", userId);
+      final int sign = q == starts ? 1 : -1;
+      for (Object row : q.getResultList()) {
+        final Object[] count = (Object[]) row;
+        merge(changes, ((Number) count[0]).intValue(), sign * ((Number) count[1]).intValue());
+      }
+    }
+    return changes;
+  }
+
+  private static void merge(Map<Integer, Integer> changes, int position, int delta) {
+    final Integer current = changes.get(position);
+    changes.put(position, current == null ? delta : current + delta);
+  }
+
+  private static void mergeAll(Map<Integer, Integer> changes, Map<Integer, Integer> other) {
+    if (other == null)
+      return;
+    for (Entry<Integer, Integer> change : other.entrySet()) {
+      merge(changes, change.getKey(), change.getValue());
+    }
+  }
+
+  /** The last footprint of a session */
+  private static final class LastFootprint {
+    private final long id;
+    private final String mediapackageId;
+    private final String userId;
+    private final int inpoint;
+    private int outpoint;
+
+    LastFootprint(long id, String mediapackageId, String userId, int inpoint, int outpoint) {
+      this.id = id;
+      this.mediapackageId = mediapackageId;
+      this.userId = userId;
+      this.inpoint = inpoint;
+      this.outpoint = outpoint;
+    }
+  }
+
+  /** The extension of a footprint not yet written to the database */
+  private static final class Extension {
+    private final String mediapackageId;
+    private final String userId;
+    private final int inpoint;
+    /** The end of the footprint in the database */
+    private int written;
+    /** The new end of the footprint */
+    private int outpoint;
+
+    Extension(String mediapackageId, String userId, int inpoint, int written) {
+      this.mediapackageId = mediapackageId;
+      this.userId = userId;
+      this.inpoint = inpoint;
+      this.written = written;
+      this.outpoint = written;
+    }
+  }
+
+}
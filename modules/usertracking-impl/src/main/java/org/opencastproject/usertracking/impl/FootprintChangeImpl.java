@@ -0,0 +1,93 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The change of the number of views at a certain position of a media package, aggregated from footprints.
+ */
+@Entity(name = "FootprintChange")
+@Access(AccessType.FIELD)
+@Table(name = "oc_user_footprint_change",
+       uniqueConstraints = @UniqueConstraint(columnNames = { "mediapackage", "timepoint" }))
+@NamedQueries({
+        @NamedQuery(name = "findFootprintChangesOfMediapackage", query = "SELECT c FROM FootprintChange c WHERE c.mediapackageId = :mediapackageId"),
+        @NamedQuery(name = "updateFootprintChange", query = "UPDATE FootprintChange c SET c.delta = c.delta + :delta WHERE c.mediapackageId = :mediapackageId AND c.timepoint = :timepoint") })
+public class FootprintChangeImpl {
+
+  @Id
+  @Column(name = "id")
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+
+  @Column(name = "mediapackage", length = 128, nullable = false)
+  private String mediapackageId;
+
+  /** The position in seconds */
+  @Column(name = "timepoint", nullable = false)
+  private int timepoint;
+
+  /** The number of views starting (positive) or ending (negative) at this position */
+  @Column(name = "delta", nullable = false)
+  private int delta;
+
+  /**
+   * No Arg Constructor for JPA
+   */
+  public FootprintChangeImpl() {
+  }
+
+  public FootprintChangeImpl(String mediapackageId, int timepoint, int delta) {
+    this.mediapackageId = mediapackageId;
+    this.timepoint = timepoint;
+    this.delta = delta;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public int getTimepoint() {
+    return timepoint;
+  }
+
+  public int getDelta() {
+    return delta;
+  }
+
+}
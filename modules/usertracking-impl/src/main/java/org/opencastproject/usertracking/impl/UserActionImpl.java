@@ -60,6 +60,7 @@ import javax.xml.bind.annotation.XmlType;
         @NamedQuery(name = "countSessionsGroupByMediapackageByIntervall", query = "SELECT a.mediapackageId, COUNT(distinct a.session.sessionId), SUM(a.length) FROM UserAction a WHERE :begin <= a.created AND a.created <= :end GROUP BY a.mediapackageId"),
         @NamedQuery(name = "countSessionsOfMediapackage", query = "SELECT COUNT(distinct a.session) FROM UserAction a WHERE a.mediapackageId = :mediapackageId"),
         @NamedQuery(name = "findLastUserFootprintOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session AND a.type = \'FOOTPRINT\'  ORDER BY a.created DESC"),
+        @NamedQuery(name = "updateFootprintOutpoint", query = "UPDATE UserAction a SET a.outpoint = :outpoint, a.length = :length WHERE a.id = :id"),
         @NamedQuery(name = "findLastUserActionsOfSession", query = "SELECT a FROM UserAction a  WHERE a.session = :session ORDER BY a.created DESC"),
         @NamedQuery(name = "findUserActionsByType", query = "SELECT a FROM UserAction a WHERE a.type = :type"),
         @NamedQuery(name = "findUserActionsByTypeAndMediapackageId", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type"),
@@ -74,7 +75,11 @@ import javax.xml.bind.annotation.XmlType;
         @NamedQuery(name = "findDistinctEpisodeIdTotalByIntervall", query = "SELECT COUNT(distinct a.mediapackageId) FROM UserAction a WHERE :begin <= a.created AND a.created <= :end"),
         @NamedQuery(name = "findTotalByTypeAndIntervall", query = "SELECT COUNT(a) FROM UserAction a WHERE :begin <= a.created AND a.created <= :end AND a.type = :type"),
         @NamedQuery(name = "findUserActionsByMediaPackageAndTypeAscendingByDate", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type ORDER BY a.created"),
-        @NamedQuery(name = "findUserActionsByMediaPackageAndTypeDescendingByDate", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type ORDER BY a.created DESC") })
+        @NamedQuery(name = "findUserActionsByMediaPackageAndTypeDescendingByDate", query = "SELECT a FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type ORDER BY a.created DESC"),
+        @NamedQuery(name = "countUserActionInpointsByTypeAndMediapackageId", query = "SELECT a.inpoint, COUNT(a) FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type AND a.inpoint < a.outpoint GROUP BY a.inpoint"),
+        @NamedQuery(name = "countUserActionOutpointsByTypeAndMediapackageId", query = "SELECT a.outpoint, COUNT(a) FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type AND a.inpoint < a.outpoint GROUP BY a.outpoint"),
+        @NamedQuery(name = "countUserActionInpointsByTypeAndMediapackageIdByUser", query = "SELECT a.inpoint, COUNT(a) FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type AND a.session.userId = :userid AND a.inpoint < a.outpoint GROUP BY a.inpoint"),
+        @NamedQuery(name = "countUserActionOutpointsByTypeAndMediapackageIdByUser", query = "SELECT a.outpoint, COUNT(a) FROM UserAction a WHERE a.mediapackageId = :mediapackageId AND a.type = :type AND a.session.userId = :userid AND a.inpoint < a.outpoint GROUP BY a.outpoint") })
 @XmlType(name = "action", namespace = "http://usertracking.opencastproject.org")
 @XmlRootElement(name = "action", namespace = "http://usertracking.opencastproject.org")
 @XmlAccessorType(XmlAccessType.FIELD)
@@ -49,6 +49,12 @@ import java.util.Collection;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -74,12 +80,26 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
 
+  /** The interval in seconds in which collected footprints are written to the database */
+  public static final String FOOTPRINT_FLUSH_INTERVAL = "org.opencastproject.usertracking.footprint.flush.interval";
+
+  /** The default footprint flush interval in seconds */
+  public static final long DEFAULT_FOOTPRINT_FLUSH_INTERVAL = 10L;
+
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
   private boolean detailedTracking = false;
   private boolean logIp = true;
   private boolean logUser = true;
   private boolean logSession = true;
+  private long footprintFlushInterval = DEFAULT_FOOTPRINT_FLUSH_INTERVAL;
+
+  /** Aggregates footprints for the heat maps */
+  private FootprintAggregator footprints = null;
+
+  /** Writes the aggregated footprints to the database */
+  private ScheduledExecutorService footprintFlusher = null;
+  private ScheduledFuture<?> footprintFlush = null;
 
   /** The factory used to generate the entity manager */
   protected EntityManagerFactory emf = null;
@@ -96,6 +116,36 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
    */
   public void activate() {
     logger.debug("activate()");
+    footprints = new FootprintAggregator(emf);
+    footprintFlusher = Executors.newSingleThreadScheduledExecutor();
+    scheduleFootprintFlush();
+  }
+
+  /**
+   * Deactivation callback, writing the footprints collected so far.
+   */
+  public void deactivate() {
+    logger.debug("deactivate()");
+    footprintFlusher.shutdownNow();
+    footprints.flush();
+  }
+
+  /** (Re)schedules writing the collected footprints to the database */
+  private synchronized void scheduleFootprintFlush() {
+    if (footprintFlusher == null)
+      return;
+    if (footprintFlush != null)
+      footprintFlush.cancel(false);
+    footprintFlush = footprintFlusher.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          footprints.flush();
+        } catch (Throwable t) {
+          logger.warn("Unable to write footprints", t);
+        }
+      }
+    }, footprintFlushInterval, footprintFlushInterval, TimeUnit.SECONDS);
   }
 
   @Override
@@ -121,6 +171,17 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (val != null && String.class.isInstance(val)) {
       logSession = Boolean.valueOf((String) val);
     }
+    val = props.get(FOOTPRINT_FLUSH_INTERVAL);
+    if (val != null && String.class.isInstance(val) && StringUtils.trimToNull((String) val) != null) {
+      try {
+        long interval = Long.parseLong(StringUtils.trimToNull((String) val));
+        footprintFlushInterval = interval > 0 ? interval : DEFAULT_FOOTPRINT_FLUSH_INTERVAL;
+      } catch (NumberFormatException e) {
+        footprintFlushInterval = DEFAULT_FOOTPRINT_FLUSH_INTERVAL;
+        logger.warn("Footprint flush interval '{}' is malformed, setting to {}", val, footprintFlushInterval);
+      }
+      scheduleFootprintFlush();
+    }
 
   }
 
@@ -146,6 +207,14 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+
+    // Footprints continuing the last one of their session are written in batches later on
+    final String sessionId = logSession ? session.getSessionId() : null;
+    if (sessionId != null && footprints.extend(sessionId, (UserActionImpl) a)) {
+      a.setSession(session);
+      return a;
+    }
+
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
@@ -158,22 +227,24 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
       Collection<UserAction> userActions = q.getResultList();
 
       if (userActions.size() >= 1) {
-        UserAction last = userActions.iterator().next();
+        UserActionImpl last = (UserActionImpl) userActions.iterator().next();
+        footprints.applyExtension(last);
         if (last.getMediapackageId().equals(a.getMediapackageId()) && last.getType().equals(a.getType())
                 && last.getOutpoint() == a.getInpoint()) {
           //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
+          int lastOutpoint = last.getOutpoint();
           last.setOutpoint(a.getOutpoint());
+          tx.commit();
+          footprints.extended(sessionId, last, lastOutpoint);
           a = last;
           a.setId(last.getId());
-        } else {
-          a.setSession(userSession);
-          em.persist(a);
+          return a;
         }
-      } else {
-        a.setSession(userSession);
-        em.persist(a);
       }
+      a.setSession(userSession);
+      em.persist(a);
       tx.commit();
+      footprints.add(sessionId, (UserActionImpl) a);
       return a;
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
@@ -616,54 +687,29 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   }
 
   public FootprintList getFootprints(String mediapackageId, String userId) {
-    EntityManager em = null;
     if (! logUser) userId = null;
-    try {
-      em = emf.createEntityManager();
-      Query q = null;
-      if (StringUtils.trimToNull(userId) == null) {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC");
-      } else {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC");
-        q.setParameter("userid", userId);
-      }
-      q.setParameter("type", FOOTPRINT_KEY);
-      q.setParameter("mediapackageId", mediapackageId);
-      @SuppressWarnings("unchecked")
-      Collection<UserAction> userActions = q.getResultList();
-
-      int[] resultArray = new int[1];
-      boolean first = true;
-
-      for (UserAction a : userActions) {
-        if (first) {
-          // Get one more item than the known outpoint to append a footprint of 0 views at the end of the result set
-          resultArray = new int[a.getOutpoint() + 1];
-          first = false;
-        }
-        for (int i = a.getInpoint(); i < a.getOutpoint(); i++) {
-          resultArray[i]++;
-        }
-      }
-      FootprintList list = new FootprintsListImpl();
-      int current = -1;
-      int last = -1;
-      for (int i = 0; i < resultArray.length; i++) {
-        current = resultArray[i];
-        if (last != current) {
-          Footprint footprint = new FootprintImpl();
-          footprint.setPosition(i);
-          footprint.setViews(current);
-          list.add(footprint);
-        }
-        last = current;
-      }
-      return list;
-    } finally {
-      if (em != null && em.isOpen()) {
-        em.close();
-      }
+    SortedMap<Integer, Integer> changes = footprints.getChanges(mediapackageId, userId);
+
+    // The views at each position are the sum of all changes up to that position. The list starts at position 0 and
+    // ends with the last position at which the views drop, usually to 0 views.
+    FootprintList list = new FootprintsListImpl();
+    int views = changes.containsKey(0) ? changes.get(0) : 0;
+    int last = views;
+    Footprint first = new FootprintImpl();
+    first.setPosition(0);
+    first.setViews(views);
+    list.add(first);
+    for (Entry<Integer, Integer> change : changes.tailMap(1).entrySet()) {
+      views += change.getValue();
+      if (views != last) {
+        Footprint footprint = new FootprintImpl();
+        footprint.setPosition(change.getKey());
+        footprint.setViews(views);
+        list.add(footprint);
+      }
+      last = views;
     }
+    return list;
   }
 
   /**
@@ -688,6 +734,9 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (result == null) {
       throw new NotFoundException("No UserAction found with id='" + id + "'");
     } else {
+      // include extensions of footprints not yet written to the database
+      if (FOOTPRINT_KEY.equals(result.getType()))
+        result.setOutpoint(footprints.getOutpoint(result));
       return result;
     }
   }
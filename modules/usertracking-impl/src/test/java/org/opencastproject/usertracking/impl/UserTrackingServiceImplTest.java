@@ -40,14 +40,18 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Properties;
 
+import javax.persistence.EntityManagerFactory;
+
 public class UserTrackingServiceImplTest {
   private UserTrackingServiceImpl service = null;
+  private EntityManagerFactory emf = null;
 
   @Before
   public void setUp() throws Exception {
     // Set up the annotation service
+    emf = newTestEntityManagerFactory(UserTrackingServiceImpl.PERSISTENCE_UNIT);
     service = new UserTrackingServiceImpl();
-    service.setEntityManagerFactory(newTestEntityManagerFactory(UserTrackingServiceImpl.PERSISTENCE_UNIT));
+    service.setEntityManagerFactory(emf);
     service.activate();
   }
 
@@ -178,6 +182,60 @@ public class UserTrackingServiceImplTest {
     verifyFootprintViewsAndPositions(list, 2, 30, 0);
   }
 
+  /**
+   * Tests that the footprints are the same before and after they have been written to the database
+   * @throws Exception
+   */
+  @Test
+  public void testFootprintAggregation() throws Exception {
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session1", "mp", "me", "127.0.0.1", 10, 20);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session1", "mp", "me", "127.0.0.1", 20, 30);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session2", "mp", "other", "127.0.0.1", 0, 20);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session2", "mp", "other", "127.0.0.1", 5, 5);
+    verifyAggregatedFootprints();
+
+    // The first flush writes the changes to the database
+    service.deactivate();
+    verifyAggregatedFootprints();
+    service = new UserTrackingServiceImpl();
+    service.setEntityManagerFactory(emf);
+    service.activate();
+    verifyAggregatedFootprints();
+
+    // Later flushes only add the changes
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session1", "mp", "me", "127.0.0.1", 30, 40);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session3", "mp", "me", "127.0.0.1", 30, 40);
+    FootprintList list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 0, 0, 1);
+    verifyFootprintViewsAndPositions(list, 1, 10, 2);
+    verifyFootprintViewsAndPositions(list, 2, 20, 1);
+    verifyFootprintViewsAndPositions(list, 3, 30, 2);
+    verifyFootprintViewsAndPositions(list, 4, 40, 0);
+    service.deactivate();
+    service = new UserTrackingServiceImpl();
+    service.setEntityManagerFactory(emf);
+    service.activate();
+    list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 0, 0, 1);
+    verifyFootprintViewsAndPositions(list, 1, 10, 2);
+    verifyFootprintViewsAndPositions(list, 2, 20, 1);
+    verifyFootprintViewsAndPositions(list, 3, 30, 2);
+    verifyFootprintViewsAndPositions(list, 4, 40, 0);
+    list = getFootprintList("mp", "me", 4);
+    verifyFootprintViewsAndPositions(list, 0, 0, 0);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 30, 2);
+    verifyFootprintViewsAndPositions(list, 3, 40, 0);
+  }
+
+  private void verifyAggregatedFootprints() {
+    FootprintList list = getFootprintList("mp", null, 4);
+    verifyFootprintViewsAndPositions(list, 0, 0, 1);
+    verifyFootprintViewsAndPositions(list, 1, 10, 2);
+    verifyFootprintViewsAndPositions(list, 2, 20, 1);
+    verifyFootprintViewsAndPositions(list, 3, 30, 0);
+  }
+
   /**
    * Tests basic user action lists and reports
    * @throws Exception
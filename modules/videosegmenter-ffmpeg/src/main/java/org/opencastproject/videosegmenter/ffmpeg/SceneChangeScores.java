@@ -0,0 +1,183 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The scene change scores of all frames of a video, as calculated by the FFmpeg select filter. Knowing the scores, the
+ * frames FFmpeg would select for any changes threshold can be determined without decoding the video again.
+ *
+ * Only frames with a score above zero are stored, since those are the only ones that could ever be selected.
+ */
+public class SceneChangeScores {
+
+  /** Pattern matching the time of a frame printed by the FFmpeg metadata filter */
+  private static final Pattern TIME_PATTERN = Pattern.compile("pts_time:(\\d+(\\.\\d+)?)");
+
+  /** Pattern matching the scene score of a frame printed by the FFmpeg metadata filter */
+  private static final Pattern SCORE_PATTERN = Pattern.compile("lavfi\\.scene_score=(\\d+(\\.\\d+)?)");
+
+  /** The frame times in milliseconds */
+  private long[] times = new long[1024];
+
+  /** The scene change scores of the frames */
+  private float[] scores = new float[1024];
+
+  /** The number of frames */
+  private int size = 0;
+
+  /**
+   * Adds the score of a frame. Frames have to be added in chronological order.
+   *
+   * @param time
+   *          the frame time in milliseconds
+   * @param score
+   *          the frame's scene change score
+   */
+  public void add(long time, float score) {
+    if (score <= 0)
+      return;
+    if (size == times.length) {
+      times = Arrays.copyOf(times, size * 2);
+      scores = Arrays.copyOf(scores, size * 2);
+    }
+    times[size] = time;
+    scores[size] = score;
+    size++;
+  }
+
+  /**
+   * Returns the number of frames with a score above zero.
+   *
+   * @return the number of frames
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the times of the frames which FFmpeg would select as scene changes for the given threshold, which is
+   * equivalent to the filter <code>select=gt(scene\,changesThreshold)</code>.
+   *
+   * @param changesThreshold
+   *          the changes threshold
+   * @return the times of the selected frames in milliseconds
+   */
+  public List<Long> getChangeTimes(float changesThreshold) {
+    List<Long> changeTimes = new LinkedList<Long>();
+    for (int i = 0; i < size; i++) {
+      if (scores[i] > changesThreshold)
+        changeTimes.add(times[i]);
+    }
+    return changeTimes;
+  }
+
+  /**
+   * Parses the output of FFmpeg's <code>metadata=print</code> filter run after a scene selection, which prints the
+   * time of every frame followed by its scene score:
+   *
+   * <pre>
+   * [Parsed_metadata_1 @ 0x1f2b520] frame:11   pts:12      pts_time:12
+   * [Parsed_metadata_1 @ 0x1f2b520] lavfi.scene_score=0.254630
+   * </pre>
+   *
+   * @param reader
+   *          the FFmpeg output
+   * @return the scene change scores
+   * @throws IOException
+   *           if reading the output fails
+   */
+  public static SceneChangeScores parseFFmpegOutput(BufferedReader reader) throws IOException {
+    SceneChangeScores sceneScores = new SceneChangeScores();
+    long time = -1;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (!line.startsWith("[Parsed_metadata"))
+        continue;
+      Matcher matcher = TIME_PATTERN.matcher(line);
+      if (matcher.find()) {
+        time = Math.round(Double.parseDouble(matcher.group(1)) * 1000);
+        continue;
+      }
+      matcher = SCORE_PATTERN.matcher(line);
+      if (matcher.find() && time >= 0) {
+        sceneScores.add(time, Float.parseFloat(matcher.group(1)));
+        time = -1;
+      }
+    }
+    return sceneScores;
+  }
+
+  /**
+   * Reads scene change scores as written by {@link #toString()}.
+   *
+   * @param in
+   *          the input stream, which is not closed
+   * @return the scene change scores
+   * @throws IOException
+   *           if reading fails or the input is malformed
+   */
+  public static SceneChangeScores read(InputStream in) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    SceneChangeScores sceneScores = new SceneChangeScores();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.trim().isEmpty())
+        continue;
+      String[] values = line.trim().split("\\s+");
+      if (values.length != 2)
+        throw new IOException("Malformed scene change score '" + line + "'");
+      try {
+        sceneScores.add(Long.parseLong(values[0]), Float.parseFloat(values[1]));
+      } catch (NumberFormatException e) {
+        throw new IOException("Malformed scene change score '" + line + "'", e);
+      }
+    }
+    return sceneScores;
+  }
+
+  /**
+   * Returns the scores with one frame per line, consisting of the frame time in milliseconds and its score.
+   *
+   * @return the serialized scores
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(size * 16);
+    for (int i = 0; i < size; i++) {
+      sb.append(times[i]).append(' ').append(scores[i]).append('\n');
+    }
+    return sb.toString();
+  }
+
+}
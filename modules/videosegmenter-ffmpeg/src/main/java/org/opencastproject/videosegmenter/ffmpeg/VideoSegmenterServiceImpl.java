@@ -44,6 +44,7 @@ import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.videosegmenter.api.VideoSegmenterException;
@@ -60,10 +61,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Dictionary;
@@ -81,6 +86,12 @@ import java.util.regex.Pattern;
  * <pre>
  * ffmpeg -nostats -i in.mp4 -filter:v 'select=gt(scene\,0.04),showinfo' -f null - 2&gt;&amp;1 | grep Parsed_showinfo_1
  * </pre>
+ *
+ * or, if the video should only be decoded once,
+ *
+ * <pre>
+ * ffmpeg -nostats -i in.mp4 -filter:v 'select=gt(scene\,0),metadata=print' -f null - 2&gt;&amp;1 | grep Parsed_metadata
+ * </pre>
  */
 public class VideoSegmenterServiceImpl extends AbstractJobProducer implements
 VideoSegmenterService, ManagedService {
@@ -147,6 +158,18 @@ VideoSegmenterService, ManagedService {
   /** Default value for the option whether segments numbers depend on track duration */
   public static final boolean DEFAULT_DURATION_DEPENDENT = false;
 
+  /** Name of the constant used to retrieve the option whether the video is decoded only once */
+  public static final String OPT_SINGLE_DECODE = "singleDecode";
+
+  /** Default value for the option whether the video is decoded only once */
+  public static final boolean DEFAULT_SINGLE_DECODE = true;
+
+  /** Name of the constant used to retrieve the option whether scene change scores are kept for re-segmentation */
+  public static final String OPT_CACHE_SCORES = "cacheScores";
+
+  /** Default value for the option whether scene change scores are kept for re-segmentation */
+  public static final boolean DEFAULT_CACHE_SCORES = false;
+
   /** The load introduced on the system by a segmentation job */
   public static final float DEFAULT_SEGMENTER_JOB_LOAD = 0.3f;
 
@@ -187,6 +210,12 @@ VideoSegmenterService, ManagedService {
   /** The boolean that defines whether segment numbers are interpreted as absolute or relative to track duration */
   protected boolean durationDependent = DEFAULT_DURATION_DEPENDENT;
 
+  /** Whether the scene change scores are calculated once and the optimization is done on those scores */
+  protected boolean singleDecode = DEFAULT_SINGLE_DECODE;
+
+  /** Whether the scene change scores of a track are stored in the workspace and reused for the same track */
+  protected boolean cacheScores = DEFAULT_CACHE_SCORES;
+
   /** Reference to the receipt service */
   protected ServiceRegistry serviceRegistry = null;
 
@@ -311,6 +340,18 @@ VideoSegmenterService, ManagedService {
       }
     }
 
+    // Decode the video only once
+    if (properties.get(OPT_SINGLE_DECODE) != null) {
+      singleDecode = Boolean.parseBoolean((String) properties.get(OPT_SINGLE_DECODE));
+      logger.info("Single decoding of videos is set to {}", singleDecode);
+    }
+
+    // Keep scene change scores for re-segmentation
+    if (properties.get(OPT_CACHE_SCORES) != null) {
+      cacheScores = Boolean.parseBoolean((String) properties.get(OPT_CACHE_SCORES));
+      logger.info("Caching of scene change scores is set to {}", cacheScores);
+    }
+
     segmenterJobLoad = LoadUtil.getConfiguredLoadValue(properties, SEGMENTER_JOB_LOAD_KEY, DEFAULT_SEGMENTER_JOB_LOAD, serviceRegistry);
   }
 
@@ -415,6 +456,11 @@ VideoSegmenterService, ManagedService {
 
       logger.info("Starting video segmentation of {}", mediaUrl);
 
+      // if enabled, decode the video only once and run the whole optimization on its scene change scores
+      SceneChangeScores sceneScores = null;
+      if (singleDecode) {
+        sceneScores = getSceneChangeScores(track, mediaFile);
+      }
 
       // optimization loop to get a segmentation with a number of segments close
       // to the desired number of segments
@@ -425,8 +471,13 @@ VideoSegmenterService, ManagedService {
             contentTime, contentLocator);
 
 
-        // run the segmentation with FFmpeg
-        segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+        // run the segmentation with FFmpeg or on the scene change scores
+        if (sceneScores != null) {
+          segments = createSegments(track, videoContent, sceneScores.getChangeTimes(changesThresholdLocal));
+          logger.info("Segmentation of {} yields {} segments", mediaUrl, segments.size());
+        } else {
+          segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+        }
 
 
         // calculate errors for "normal" and filtered segmentation
@@ -662,10 +713,50 @@ VideoSegmenterService, ManagedService {
     // fmt:rgb24 sar:0/1 s:320x240 i:P iskey:1 type:I checksum:8DF39EA9
     // plane_checksum:[8DF39EA9]
 
+    List<Long> changeTimes = new LinkedList<Long>();
+    Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
+    for (String seginfo : segmentsStrings) {
+      Matcher matcher = pattern.matcher(seginfo);
+      String time = "";
+      while (matcher.find()) {
+        time = matcher.group().substring(9);
+      }
+      if ("".equals(time)) {
+        // continue if the showinfo does not contain any time information. This may happen since the FFmpeg showinfo
+        // filter is used for multiple purposes.
+        continue;
+      }
+      try {
+        changeTimes.add((long) Math.round(Float.parseFloat(time) * 1000));
+      } catch (NumberFormatException e) {
+        logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+        throw new VideoSegmenterException(e);
+      }
+    }
+
+    LinkedList<Segment> segments = createSegments(track, videoContent, changeTimes);
+
+   logger.info("Segmentation of {} yields {} segments",
+           mediaFile.toURI().toURL(), segments.size());
+
+    return segments;
+  }
+
+  /**
+   * Creates segments from the times of the detected scene changes, adds them to the given videoContent of a catalog
+   * and returns a list with the resulting segments. Scene changes that would result in segments shorter than the
+   * prefilter stability threshold are ignored.
+   *
+   * @param track the element to analyze
+   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
+   * @param changeTimes the times of the scene changes in milliseconds in chronological order
+   * @return a list of the resulting segments
+   */
+  protected LinkedList<Segment> createSegments(Track track, Video videoContent, List<Long> changeTimes) {
     int segmentcount = 1;
     LinkedList<Segment> segments = new LinkedList<Segment>();
 
-    if (segmentsStrings.size() == 0) {
+    if (changeTimes.isEmpty()) {
       Segment s = videoContent.getTemporalDecomposition()
           .createSegment("segment-" + segmentcount);
       s.setMediaTime(new MediaRelTimeImpl(0, track.getDuration()));
@@ -673,24 +764,8 @@ VideoSegmenterService, ManagedService {
     } else {
       long starttime = 0;
       long endtime = 0;
-      Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
-      for (String seginfo : segmentsStrings) {
-        Matcher matcher = pattern.matcher(seginfo);
-        String time = "";
-        while (matcher.find()) {
-          time = matcher.group().substring(9);
-        }
-        if ("".equals(time)) {
-          // continue if the showinfo does not contain any time information. This may happen since the FFmpeg showinfo
-          // filter is used for multiple purposes.
-          continue;
-        }
-        try {
-          endtime = Math.round(Float.parseFloat(time) * 1000);
-        } catch (NumberFormatException e) {
-          logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
-          throw new VideoSegmenterException(e);
-        }
+      for (long changeTime : changeTimes) {
+        endtime = changeTime;
         long segmentLength = endtime - starttime;
         if (1000 * stabilityThresholdPrefilter < segmentLength) {
           Segment segment = videoContent.getTemporalDecomposition()
@@ -711,11 +786,75 @@ VideoSegmenterService, ManagedService {
               track.getDuration() - endtime);
       segments.add(s);
     }
+    return segments;
+  }
 
-   logger.info("Segmentation of {} yields {} segments",
-           mediaFile.toURI().toURL(), segments.size());
+  /**
+   * Returns the scene change scores of a track, either from the workspace if they have been kept from an earlier
+   * segmentation of the same track or by decoding the track once with FFmpeg.
+   *
+   * @param track the track to analyze
+   * @param mediaFile the file of the track
+   * @return the scene change scores
+   * @throws IOException
+   * @throws VideoSegmenterException
+   */
+  protected SceneChangeScores getSceneChangeScores(Track track, File mediaFile)
+          throws IOException, VideoSegmenterException {
+    Checksum checksum = track.getChecksum();
+    String fileName = checksum == null ? null : "scenescores-" + checksum.getType().getName() + "-"
+            + checksum.getValue() + ".txt";
+
+    if (cacheScores && fileName != null) {
+      try (InputStream in = new FileInputStream(workspace.get(workspace.getCollectionURI(COLLECTION_ID, fileName)))) {
+        SceneChangeScores sceneScores = SceneChangeScores.read(in);
+        logger.info("Reusing {} scene change scores of {}", sceneScores.size(), track);
+        return sceneScores;
+      } catch (NotFoundException e) {
+        logger.debug("No scene change scores of {} found in the workspace", track);
+      } catch (IOException e) {
+        logger.warn("Unable to read the scene change scores of {}: {}", track, e.getMessage());
+      }
+    }
 
-    return segments;
+    SceneChangeScores sceneScores = runSceneDetectionFFmpeg(mediaFile);
+
+    if (cacheScores && fileName != null) {
+      try (InputStream in = new ByteArrayInputStream(sceneScores.toString().getBytes(StandardCharsets.UTF_8))) {
+        workspace.putInCollection(COLLECTION_ID, fileName, in);
+      } catch (IOException e) {
+        logger.warn("Unable to keep the scene change scores of {}: {}", track, e.getMessage());
+      }
+    }
+    return sceneScores;
+  }
+
+  /**
+   * Decodes the video once with FFmpeg to calculate the scene change score of every frame.
+   *
+   * @param mediaFile the file of the track to analyze
+   * @return the scene change scores
+   * @throws IOException
+   * @throws VideoSegmenterException
+   */
+  protected SceneChangeScores runSceneDetectionFFmpeg(File mediaFile) throws IOException, VideoSegmenterException {
+    String[] command = new String[] { binary, "-nostats", "-i", mediaFile.getAbsolutePath(),
+      "-filter:v", "select=gt(scene\\,0),metadata=print:key=lavfi.scene_score", "-f", "null", "-"};
+
+    logger.info("Detecting scene change scores using command: {}", (Object) command);
+
+    ProcessBuilder pbuilder = new ProcessBuilder(command);
+    Process process = pbuilder.start();
+    SceneChangeScores sceneScores;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+      sceneScores = SceneChangeScores.parseFFmpegOutput(reader);
+    } catch (NumberFormatException e) {
+      logger.error("Unable to parse FFmpeg output, likely FFmpeg version mismatch!", e);
+      throw new VideoSegmenterException(e);
+    }
+
+    logger.info("Found {} frames with a scene change score in {}", sceneScores.size(), mediaFile);
+    return sceneScores;
   }
 
   /**
@@ -0,0 +1,75 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Test class for the scene change scores.
+ */
+public class SceneChangeScoresTest {
+
+  private static final String FFMPEG_OUTPUT = "Stream mapping:\n"
+          + "[Parsed_metadata_1 @ 0x1f2b520] frame:0    pts:1       pts_time:1\n"
+          + "[Parsed_metadata_1 @ 0x1f2b520] lavfi.scene_score=0.010000\n"
+          + "[Parsed_metadata_1 @ 0x1f2b520] frame:1    pts:12      pts_time:12\n"
+          + "[Parsed_metadata_1 @ 0x1f2b520] lavfi.scene_score=0.254630\n"
+          + "[Parsed_metadata_1 @ 0x1f2b520] frame:2    pts:15      pts_time:15.5\n"
+          + "[Parsed_metadata_1 @ 0x1f2b520] lavfi.scene_score=0.030000\n"
+          + "frame=  500 fps=0.0 q=-0.0 Lsize=N/A time=00:00:20.00 bitrate=N/A speed= 200x\n";
+
+  @Test
+  public void testParseFFmpegOutput() throws Exception {
+    SceneChangeScores scores = SceneChangeScores.parseFFmpegOutput(new BufferedReader(new StringReader(FFMPEG_OUTPUT)));
+    assertEquals(3, scores.size());
+    assertEquals(Arrays.asList(1000L, 12000L, 15500L), scores.getChangeTimes(0.0f));
+    assertEquals(Arrays.asList(12000L, 15500L), scores.getChangeTimes(0.025f));
+    assertEquals(Arrays.asList(12000L), scores.getChangeTimes(0.1f));
+    assertEquals(Collections.<Long> emptyList(), scores.getChangeTimes(0.3f));
+  }
+
+  @Test
+  public void testReadWrittenScores() throws Exception {
+    SceneChangeScores scores = new SceneChangeScores();
+    for (int i = 0; i < 3000; i++) {
+      scores.add(i * 40L, (i % 100) / 100.0f);
+    }
+    // frames with a score of zero can never be selected and are not kept
+    assertEquals(2970, scores.size());
+
+    SceneChangeScores read = SceneChangeScores.read(
+            new ByteArrayInputStream(scores.toString().getBytes(StandardCharsets.UTF_8)));
+    assertEquals(scores.size(), read.size());
+    assertEquals(scores.getChangeTimes(0.5f), read.getChangeTimes(0.5f));
+  }
+
+}
@@ -38,8 +38,10 @@ import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.util.IoSupport;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.SilenceAnalysis;
 import org.opencastproject.waveform.api.WaveformService;
 import org.opencastproject.waveform.api.WaveformServiceException;
+import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 import org.opencastproject.workspace.api.Workspace;
 
 import org.apache.commons.io.FileUtils;
@@ -52,16 +54,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 
@@ -144,6 +152,30 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
   /** The key to look for in the service configuration file to override the DEFAULT_WAVEFORM_FILTER_POST */
   public static final String WAVEFORM_FILTER_POST_CONFIG_KEY = "waveform.filter.post";
 
+  /** The default value if a silence analysis should be done while decoding the audio for the waveform */
+  public static final boolean DEFAULT_SILENCE_PREFETCH = true;
+
+  /** The key to look for in the service configuration file to override the DEFAULT_SILENCE_PREFETCH */
+  public static final String SILENCE_PREFETCH_CONFIG_KEY = "silencedetection.prefetch";
+
+  /** The default silence threshold of the silence analysis */
+  public static final String DEFAULT_SILENCE_PREFETCH_THRESHOLD_DB = "-40dB";
+
+  /** The key to look for in the service configuration file to override the DEFAULT_SILENCE_PREFETCH_THRESHOLD_DB */
+  public static final String SILENCE_PREFETCH_THRESHOLD_DB_CONFIG_KEY = "silencedetection.prefetch.threshold.db";
+
+  /** The default minimum silence length in milliseconds of the silence analysis */
+  public static final long DEFAULT_SILENCE_PREFETCH_MIN_LENGTH = 1000L;
+
+  /** The key to look for in the service configuration file to override the DEFAULT_SILENCE_PREFETCH_MIN_LENGTH */
+  public static final String SILENCE_PREFETCH_MIN_LENGTH_CONFIG_KEY = "silencedetection.prefetch.min.length";
+
+  /** The default number of days after which silence analyses not picked up by the silence detection are removed */
+  public static final long DEFAULT_SILENCE_PREFETCH_CLEANUP_DAYS = 1L;
+
+  /** The key to look for in the service configuration file to override the DEFAULT_SILENCE_PREFETCH_CLEANUP_DAYS */
+  public static final String SILENCE_PREFETCH_CLEANUP_DAYS_CONFIG_KEY = "silencedetection.prefetch.cleanup.days";
+
   /** Resulting collection in the working file repository */
   public static final String COLLECTION_ID = "waveform";
 
@@ -183,12 +215,30 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
   /** Filter to be appended to the showwavespic filter */
   private String waveformFilterPost = DEFAULT_WAVEFORM_FILTER_POST;
 
+  /** Whether a silence analysis is done while decoding the audio for the waveform */
+  private boolean silencePrefetch = DEFAULT_SILENCE_PREFETCH;
+
+  /** The silence threshold of the silence analysis */
+  private String silencePrefetchThresholdDB = DEFAULT_SILENCE_PREFETCH_THRESHOLD_DB;
+
+  /** The minimum silence length in milliseconds of the silence analysis */
+  private long silencePrefetchMinLength = DEFAULT_SILENCE_PREFETCH_MIN_LENGTH;
+
+  /** The number of days after which silence analyses not picked up by the silence detection are removed */
+  private long silencePrefetchCleanupDays = DEFAULT_SILENCE_PREFETCH_CLEANUP_DAYS;
+
+  /** Removes silence analyses which have not been picked up by the silence detection */
+  private ScheduledExecutorService silenceAnalysisCleanup = null;
+
   /** Reference to the service registry */
   private ServiceRegistry serviceRegistry = null;
 
   /** The workspace to use when retrieving remote media files */
   private Workspace workspace = null;
 
+  /** The working file repository holding the silence analyses */
+  private WorkingFileRepository workingFileRepository = null;
+
   /** The security service */
   private SecurityService securityService = null;
 
@@ -209,6 +259,17 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
     final String path = cc.getBundleContext().getProperty(FFMPEG_BINARY_CONFIG_KEY);
     binary = (path == null ? DEFAULT_FFMPEG_BINARY : path);
     logger.debug("ffmpeg binary set to {}", binary);
+    // Silence analyses are removed by the silence detection, those never picked up are removed after some time
+    silenceAnalysisCleanup = Executors.newSingleThreadScheduledExecutor();
+    silenceAnalysisCleanup.scheduleWithFixedDelay(new SilenceAnalysisCleanup(), 1, 24, TimeUnit.HOURS);
+  }
+
+  /**
+   * Deactivates the waveform service, stopping the removal of silence analyses.
+   */
+  public void deactivate() {
+    if (silenceAnalysisCleanup != null)
+      silenceAnalysisCleanup.shutdownNow();
   }
 
   @Override
@@ -297,6 +358,38 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
     } else {
       waveformFilterPost = null;
     }
+
+    val = properties.get(SILENCE_PREFETCH_CONFIG_KEY);
+    silencePrefetch = val == null ? DEFAULT_SILENCE_PREFETCH : Boolean.parseBoolean((String) val);
+
+    val = properties.get(SILENCE_PREFETCH_THRESHOLD_DB_CONFIG_KEY);
+    if (val != null && StringUtils.isNotBlank((String) val)) {
+      silencePrefetchThresholdDB = StringUtils.trim((String) val);
+    } else {
+      silencePrefetchThresholdDB = DEFAULT_SILENCE_PREFETCH_THRESHOLD_DB;
+    }
+
+    val = properties.get(SILENCE_PREFETCH_MIN_LENGTH_CONFIG_KEY);
+    silencePrefetchMinLength = DEFAULT_SILENCE_PREFETCH_MIN_LENGTH;
+    if (val != null) {
+      try {
+        silencePrefetchMinLength = Long.parseLong((String) val);
+      } catch (NumberFormatException ex) {
+        logger.warn("The configuration value for {} should be an integer but is {}",
+                SILENCE_PREFETCH_MIN_LENGTH_CONFIG_KEY, val);
+      }
+    }
+
+    val = properties.get(SILENCE_PREFETCH_CLEANUP_DAYS_CONFIG_KEY);
+    silencePrefetchCleanupDays = DEFAULT_SILENCE_PREFETCH_CLEANUP_DAYS;
+    if (val != null) {
+      try {
+        silencePrefetchCleanupDays = Long.parseLong((String) val);
+      } catch (NumberFormatException ex) {
+        logger.warn("The configuration value for {} should be an integer but is {}",
+                SILENCE_PREFETCH_CLEANUP_DAYS_CONFIG_KEY, val);
+      }
+    }
   }
 
   /**
@@ -368,51 +461,46 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
     String waveformFilePath = FilenameUtils.removeExtension(mediaFile.getAbsolutePath())
             .concat('-' + track.getIdentifier()).concat("-waveform.png");
 
-    // create ffmpeg command
-    String[] command = new String[] {
-      binary,
-      "-nostats",
-      "-i", mediaFile.getAbsolutePath(),
-      "-lavfi", createWaveformFilter(track),
-      "-an", "-vn", "-sn", "-y",
-      waveformFilePath
-    };
-    logger.debug("Start waveform ffmpeg process: {}", StringUtils.join(command, " "));
-    logger.info("Create waveform image file for track '{}' at {}", track.getIdentifier(), waveformFilePath);
-
-    // run ffmpeg
-    ProcessBuilder pb = new ProcessBuilder(command);
-    pb.redirectErrorStream(true);
-    Process ffmpegProcess = null;
+    // analyze silences in the same ffmpeg process if the silence detection is able to identify the track later on
+    String silenceFileName = silencePrefetch ? SilenceAnalysis.getFileName(track, silencePrefetchThresholdDB) : null;
+    List<String> silenceLines = null;
     int exitCode = 1;
-    BufferedReader errStream = null;
-    try {
-      ffmpegProcess = pb.start();
-
-      errStream = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()));
-      String line = errStream.readLine();
-      while (line != null) {
-        logger.debug(line);
-        line = errStream.readLine();
-      }
-
-      exitCode = ffmpegProcess.waitFor();
-    } catch (IOException ex) {
-      throw new WaveformServiceException("Start ffmpeg process failed", ex);
-    } catch (InterruptedException ex) {
-      throw new WaveformServiceException("Waiting for encoder process exited was interrupted unexpectly", ex);
-    } finally {
-      IoSupport.closeQuietly(ffmpegProcess);
-      IoSupport.closeQuietly(errStream);
+    if (silenceFileName != null) {
+      silenceLines = new ArrayList<String>();
+      String silenceFilter = SilenceAnalysis.createFilter(silencePrefetchThresholdDB, silencePrefetchMinLength);
+      String[] command = new String[] {
+        binary,
+        "-nostats",
+        "-i", mediaFile.getAbsolutePath(),
+        "-filter_complex", "[0:a]asplit=2[waveform][silence];[waveform]" + createWaveformFilter(track)
+                + "[image];[silence]" + silenceFilter + "[silences]",
+        "-map", "[image]", "-y", waveformFilePath,
+        "-map", "[silences]", "-f", "null", "-"
+      };
+      logger.info("Create waveform image file and silence analysis for track '{}' at {}", track.getIdentifier(),
+              waveformFilePath);
+      exitCode = runFFmpeg(command, waveformFilePath, silenceLines);
       if (exitCode != 0) {
-        try {
-          FileUtils.forceDelete(new File(waveformFilePath));
-        } catch (IOException e) {
-          // it is ok, no output file was generated by ffmpeg
-        }
+        logger.warn("Creating the waveform along with the silence analysis failed with exit code {}, "
+                + "trying without silence analysis", exitCode);
+        silenceLines = null;
       }
     }
 
+    if (exitCode != 0) {
+      // create ffmpeg command
+      String[] command = new String[] {
+        binary,
+        "-nostats",
+        "-i", mediaFile.getAbsolutePath(),
+        "-lavfi", createWaveformFilter(track),
+        "-an", "-vn", "-sn", "-y",
+        waveformFilePath
+      };
+      logger.info("Create waveform image file for track '{}' at {}", track.getIdentifier(), waveformFilePath);
+      exitCode = runFFmpeg(command, waveformFilePath, null);
+    }
+
     if (exitCode != 0)
       throw new WaveformServiceException("The encoder process exited abnormally with exit code " + exitCode);
 
@@ -437,6 +525,18 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
       FileUtils.deleteQuietly(new File(waveformFilePath));
     }
 
+    // keep the silence analysis for the silence detection
+    if (silenceLines != null) {
+      SilenceAnalysis analysis = SilenceAnalysis.parseFFmpegOutput(silencePrefetchMinLength, silenceLines);
+      try (InputStream in = new ByteArrayInputStream(analysis.toString().getBytes(StandardCharsets.UTF_8))) {
+        workspace.putInCollection(SilenceAnalysis.COLLECTION_ID, silenceFileName, in);
+        logger.debug("Kept silence analysis of track '{}' with {} silences", track.getIdentifier(),
+                analysis.getSilences().size());
+      } catch (IOException ex) {
+        logger.warn("Unable to keep the silence analysis of track '{}': {}", track.getIdentifier(), ex.getMessage());
+      }
+    }
+
     // create media package element
     MediaPackageElementBuilder mpElementBuilder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
     // it is up to the workflow operation handler to set the attachment flavor
@@ -446,6 +546,57 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
     return waveformMpe;
   }
 
+  /**
+   * Run an ffmpeg process creating a waveform image file.
+   *
+   * @param command the ffmpeg command
+   * @param waveformFilePath the waveform image file, which is removed if the process fails
+   * @param silenceLines the list to add the output of the silence detection filter to, or <code>null</code>
+   * @return the exit code of the process
+   * @throws WaveformServiceException if the process cannot be run
+   */
+  private int runFFmpeg(String[] command, String waveformFilePath, List<String> silenceLines)
+          throws WaveformServiceException {
+    logger.debug("Start waveform ffmpeg process: {}", StringUtils.join(command, " "));
+
+    // run ffmpeg
+    ProcessBuilder pb = new ProcessBuilder(command);
+    pb.redirectErrorStream(true);
+    Process ffmpegProcess = null;
+    int exitCode = 1;
+    BufferedReader errStream = null;
+    try {
+      ffmpegProcess = pb.start();
+
+      errStream = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()));
+      String line = errStream.readLine();
+      while (line != null) {
+        logger.debug(line);
+        if (silenceLines != null && line.contains("silence_")) {
+          silenceLines.add(line);
+        }
+        line = errStream.readLine();
+      }
+
+      exitCode = ffmpegProcess.waitFor();
+    } catch (IOException ex) {
+      throw new WaveformServiceException("Start ffmpeg process failed", ex);
+    } catch (InterruptedException ex) {
+      throw new WaveformServiceException("Waiting for encoder process exited was interrupted unexpectly", ex);
+    } finally {
+      IoSupport.closeQuietly(ffmpegProcess);
+      IoSupport.closeQuietly(errStream);
+      if (exitCode != 0) {
+        try {
+          FileUtils.forceDelete(new File(waveformFilePath));
+        } catch (IOException e) {
+          // it is ok, no output file was generated by ffmpeg
+        }
+      }
+    }
+    return exitCode;
+  }
+
   /**
    * Create an ffmpeg waveform filter with parameters based on input track and service configuration.
    *
@@ -533,4 +684,20 @@ public class WaveformServiceImpl extends AbstractJobProducer implements Waveform
   public void setWorkspace(Workspace workspace) {
     this.workspace = workspace;
   }
+
+  public void setWorkingFileRepository(WorkingFileRepository workingFileRepository) {
+    this.workingFileRepository = workingFileRepository;
+  }
+
+  /** Removes the silence analyses which have not been picked up by the silence detection in time */
+  class SilenceAnalysisCleanup implements Runnable {
+    @Override
+    public void run() {
+      try {
+        workingFileRepository.cleanupOldFilesFromCollection(SilenceAnalysis.COLLECTION_ID, silencePrefetchCleanupDays);
+      } catch (Exception e) {
+        logger.warn("Unable to remove old silence analyses: {}", e.getMessage());
+      }
+    }
+  }
 }
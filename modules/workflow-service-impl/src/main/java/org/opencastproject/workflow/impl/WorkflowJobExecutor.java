@@ -0,0 +1,184 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded thread pool running the jobs of the workflow service.
+ * <p>
+ * Jobs are taken from the queue by priority and, within the same priority, in the order they were submitted. The pool
+ * keeps track of how many jobs are waiting and how long they waited, so that the workflow service can stop accepting
+ * new jobs once too many of them are queued.
+ */
+public class WorkflowJobExecutor extends ThreadPoolExecutor {
+
+  /** The priority of a job, from highest to lowest */
+  public enum Priority {
+    HIGH, NORMAL, LOW
+  }
+
+  /** Submission counter used to keep jobs of the same priority in order */
+  private final AtomicLong sequence = new AtomicLong();
+
+  /** The number of jobs that are waiting for a thread */
+  private final AtomicInteger queued = new AtomicInteger();
+
+  /** The number of jobs that have been started */
+  private final AtomicLong started = new AtomicLong();
+
+  /** The total time in milliseconds that started jobs have been waiting */
+  private final AtomicLong totalWaitTime = new AtomicLong();
+
+  /** The time in milliseconds that the last started job has been waiting */
+  private volatile long lastWaitTime = 0L;
+
+  /** The number of queued jobs at which the executor is considered saturated */
+  private volatile int maxQueued;
+
+  /**
+   * Creates a new executor.
+   *
+   * @param threads
+   *          the maximum number of jobs running at the same time
+   * @param maxQueued
+   *          the number of queued jobs at which the executor is considered saturated
+   */
+  public WorkflowJobExecutor(int threads, int maxQueued) {
+    super(threads, threads, 60L, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>());
+    this.maxQueued = maxQueued;
+    allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Queues a job for execution.
+   *
+   * @param task
+   *          the job to run
+   * @param priority
+   *          the job's priority
+   */
+  public void execute(Runnable task, Priority priority) {
+    queued.incrementAndGet();
+    try {
+      super.execute(new PrioritizedTask(task, priority, sequence.getAndIncrement()));
+    } catch (RuntimeException e) {
+      queued.decrementAndGet();
+      throw e;
+    }
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    if (task instanceof PrioritizedTask) {
+      super.execute(task);
+    } else {
+      execute(task, Priority.NORMAL);
+    }
+  }
+
+  @Override
+  protected void beforeExecute(Thread thread, Runnable task) {
+    super.beforeExecute(thread, task);
+    if (task instanceof PrioritizedTask) {
+      long waitTime = System.currentTimeMillis() - ((PrioritizedTask) task).submitted;
+      queued.decrementAndGet();
+      started.incrementAndGet();
+      totalWaitTime.addAndGet(waitTime);
+      lastWaitTime = waitTime;
+    }
+  }
+
+  /**
+   * Changes the number of threads and the saturation limit of a running executor.
+   *
+   * @param threads
+   *          the maximum number of jobs running at the same time
+   * @param maxQueued
+   *          the number of queued jobs at which the executor is considered saturated
+   */
+  public void resize(int threads, int maxQueued) {
+    if (threads > getMaximumPoolSize()) {
+      setMaximumPoolSize(threads);
+      setCorePoolSize(threads);
+    } else {
+      setCorePoolSize(threads);
+      setMaximumPoolSize(threads);
+    }
+    this.maxQueued = maxQueued;
+  }
+
+  /** Returns <code>true</code> if no more jobs should be queued */
+  public boolean isSaturated() {
+    return queued.get() >= maxQueued;
+  }
+
+  /** Returns the number of jobs waiting for a thread */
+  public int getQueuedJobs() {
+    return queued.get();
+  }
+
+  /** Returns the average time in milliseconds that jobs have been waiting for a thread */
+  public long getAverageWaitTime() {
+    long count = started.get();
+    return count == 0 ? 0L : totalWaitTime.get() / count;
+  }
+
+  /** Returns the time in milliseconds that the last started job has been waiting for a thread */
+  public long getLastWaitTime() {
+    return lastWaitTime;
+  }
+
+  /** A job together with its position in the queue */
+  private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+    private final Runnable task;
+    private final Priority priority;
+    private final long sequence;
+    private final long submitted = System.currentTimeMillis();
+
+    PrioritizedTask(Runnable task, Priority priority, long sequence) {
+      this.task = task;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      task.run();
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask other) {
+      int result = priority.compareTo(other.priority);
+      if (result == 0)
+        result = Long.compare(sequence, other.sequence);
+      return result;
+    }
+
+  }
+
+}
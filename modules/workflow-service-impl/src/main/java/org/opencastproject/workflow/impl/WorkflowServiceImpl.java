@@ -65,6 +65,7 @@ import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.security.util.SecurityUtil;
 import org.opencastproject.series.api.SeriesException;
 import org.opencastproject.series.api.SeriesService;
+import org.opencastproject.serviceregistry.api.JobPayload;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
 import org.opencastproject.serviceregistry.api.UndispatchableJobException;
@@ -132,10 +133,14 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -180,6 +185,18 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** The default value for {@link #workflowStatsCollect} */
   public static final Boolean DEFAULT_STATS_COLLECT_CONFIG = false;
 
+  /** The configuration key for the maximum number of workflow jobs running at the same time */
+  public static final String EXECUTOR_THREADS_CONFIG_KEY = "executor.threads";
+
+  /** The default maximum number of workflow jobs running at the same time */
+  public static final int DEFAULT_EXECUTOR_THREADS = 100;
+
+  /** The configuration key for the number of queued workflow jobs at which no new jobs are accepted */
+  public static final String EXECUTOR_QUEUE_LIMIT_CONFIG_KEY = "executor.queue.limit";
+
+  /** The default number of queued workflow jobs at which no new jobs are accepted */
+  public static final int DEFAULT_EXECUTOR_QUEUE_LIMIT = 100;
+
   /** Constant value indicating a <code>null</code> parent id */
   private static final String NULL_PARENT_ID = "-";
 
@@ -192,6 +209,12 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
    */
   private static final float WORKFLOW_JOB_LOAD = 0.0f;
 
+  /** The number of workflows loaded at once when repopulating an index */
+  private static final int REPOPULATE_PAGE_SIZE = 500;
+
+  /** The maximum number of threads parsing and sending workflows when repopulating an index */
+  private static final int REPOPULATE_MAX_THREADS = 8;
+
   /** The list of registered JMX beans */
   private final List<ObjectInstance> jmxBeans = new ArrayList<ObjectInstance>();
 
@@ -218,9 +241,18 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /** The list of workflow listeners */
   private final List<WorkflowListener> listeners = new CopyOnWriteArrayList<WorkflowListener>();
 
-  /** The thread pool to use for firing listeners and handling dispatched jobs */
+  /** The thread pool to use for firing listeners */
   protected ThreadPoolExecutor executorService;
 
+  /** The thread pool to use for handling dispatched jobs */
+  protected WorkflowJobExecutor jobExecutor;
+
+  /** The maximum number of workflow jobs running at the same time */
+  protected int executorThreads = DEFAULT_EXECUTOR_THREADS;
+
+  /** The number of queued workflow jobs at which no new jobs are accepted */
+  protected int executorQueueLimit = DEFAULT_EXECUTOR_QUEUE_LIMIT;
+
   /** The workspace */
   protected Workspace workspace = null;
 
@@ -285,9 +317,11 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   public void activate(ComponentContext componentContext) {
     this.componentContext = componentContext;
     executorService = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    jobExecutor = new WorkflowJobExecutor(executorThreads, executorQueueLimit);
     try {
       logger.info("Generating JMX workflow statistics");
       workflowsStatistics = new WorkflowsStatistics(getBeanStatistics(), getHoldWorkflows());
+      workflowsStatistics.setJobExecutor(jobExecutor);
       jmxBeans.add(JmxUtil.registerMXBean(workflowsStatistics, JMX_WORKFLOWS_STATISTICS_TYPE));
     } catch (WorkflowDatabaseException e) {
       logger.error("Error registarting JMX statistic beans", e);
@@ -301,6 +335,8 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     for (ObjectInstance mxbean : jmxBeans) {
       JmxUtil.unregisterMXBean(mxbean);
     }
+    if (jobExecutor != null)
+      jobExecutor.shutdown();
     super.deactivate();
   }
 
@@ -1390,7 +1426,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
       try {
         job = serviceRegistry.updateJob(job);
         messageSender.sendObjectMessage(WorkflowItem.WORKFLOW_QUEUE, MessageSender.DestinationType.Queue,
-                WorkflowItem.updateInstance(workflowInstance));
+                WorkflowItem.updateInstance(workflowInstance, xml));
         index(workflowInstance);
       } catch (ServiceRegistryException e) {
         logger.error(
@@ -1411,12 +1447,15 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         workflowsStatistics.updateWorkflow(getBeanStatistics(), getHoldWorkflows());
       }
 
-      try {
-        WorkflowInstance clone = WorkflowParser.parseWorkflowInstance(WorkflowParser.toXml(workflowInstance));
-        fireListeners(originalWorkflowInstance, clone);
-      } catch (Exception e) {
-        // Can't happen, since we are converting from an in-memory object
-        throw new IllegalStateException("In-memory workflow instance could not be serialized", e);
+      // Listeners get their own copy of the workflow instance, which is parsed from the payload serialized above
+      if (!listeners.isEmpty()) {
+        try {
+          WorkflowInstance clone = WorkflowParser.parseWorkflowInstance(xml);
+          fireListeners(originalWorkflowInstance, clone);
+        } catch (Exception e) {
+          // Can't happen, since the payload has just been serialized from the in-memory workflow instance
+          throw new IllegalStateException("Serialized workflow instance could not be parsed", e);
+        }
       }
     } finally {
       lock.unlock();
@@ -1729,7 +1768,8 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   /**
    * {@inheritDoc}
    *
-   * If we are already running the maximum number of workflows, don't accept another START_WORKFLOW job
+   * If we are already running the maximum number of workflows, don't accept another START_WORKFLOW job. Also, if too
+   * many jobs are waiting to be run, only jobs resuming a workflow are accepted.
    *
    * @see org.opencastproject.job.api.AbstractJobProducer#isReadyToAccept(org.opencastproject.job.api.Job)
    */
@@ -1737,6 +1777,12 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
   public boolean isReadyToAccept(Job job) throws ServiceRegistryException, UndispatchableJobException {
     String operation = job.getOperation();
 
+    if (jobExecutor != null && jobExecutor.isSaturated() && !Operation.RESUME.toString().equals(operation)) {
+      logger.debug("Not accepting job %s, %d workflow jobs are already waiting to be run", job.getId(),
+              jobExecutor.getQueuedJobs());
+      return false;
+    }
+
     // Only restrict execution of new jobs
     if (!Operation.START_WORKFLOW.toString().equals(operation))
       return true;
@@ -1827,7 +1873,8 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         logger.info("Starting initially delayed workflow %s, %d more waiting", job.getId(), delayedWorkflows.size());
       }
 
-      executorService.submit(new JobRunner(job, serviceRegistry.getCurrentJob()));
+      jobExecutor.execute(new FutureTask<Void>(new JobRunner(job, serviceRegistry.getCurrentJob())),
+              getPriority(job));
     } catch (Exception e) {
       if (e instanceof ServiceRegistryException)
         throw (ServiceRegistryException) e;
@@ -1838,6 +1885,22 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     }
   }
 
+  /**
+   * Returns the priority with which a job is run. Jobs resuming a workflow have usually been triggered by a user and go
+   * first, followed by the operations of running workflows. Starting new workflows comes last.
+   *
+   * @param job
+   *          the job
+   * @return the job's priority
+   */
+  private WorkflowJobExecutor.Priority getPriority(Job job) {
+    if (Operation.RESUME.toString().equals(job.getOperation()))
+      return WorkflowJobExecutor.Priority.HIGH;
+    else if (Operation.START_WORKFLOW.toString().equals(job.getOperation()))
+      return WorkflowJobExecutor.Priority.LOW;
+    return WorkflowJobExecutor.Priority.NORMAL;
+  }
+
   /**
    * Processes the workflow job.
    *
@@ -2214,6 +2277,34 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         workflowStatsCollect = DEFAULT_STATS_COLLECT_CONFIG;
       }
     }
+
+    executorThreads = DEFAULT_EXECUTOR_THREADS;
+    String executorThreadsConfiguration = StringUtils.trimToNull((String) properties.get(EXECUTOR_THREADS_CONFIG_KEY));
+    if (executorThreadsConfiguration != null) {
+      try {
+        executorThreads = Math.max(1, Integer.parseInt(executorThreadsConfiguration));
+      } catch (NumberFormatException e) {
+        logger.warn("Number of executor threads '%s' is malformed, setting to %d", executorThreadsConfiguration,
+                DEFAULT_EXECUTOR_THREADS);
+      }
+    }
+
+    executorQueueLimit = DEFAULT_EXECUTOR_QUEUE_LIMIT;
+    String executorQueueLimitConfiguration = StringUtils
+            .trimToNull((String) properties.get(EXECUTOR_QUEUE_LIMIT_CONFIG_KEY));
+    if (executorQueueLimitConfiguration != null) {
+      try {
+        executorQueueLimit = Math.max(1, Integer.parseInt(executorQueueLimitConfiguration));
+      } catch (NumberFormatException e) {
+        logger.warn("Executor queue limit '%s' is malformed, setting to %d", executorQueueLimitConfiguration,
+                DEFAULT_EXECUTOR_QUEUE_LIMIT);
+      }
+    }
+
+    if (jobExecutor != null)
+      jobExecutor.resize(executorThreads, executorQueueLimit);
+    logger.info("Running up to %d workflow jobs at the same time, accepting new jobs while less than %d are waiting",
+            executorThreads, executorQueueLimit);
   }
 
   /**
@@ -2391,42 +2482,48 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
 
   @Override
   public void repopulate(final String indexName) throws Exception {
-    List<String> workflows =  serviceRegistry.getJobPayloads(Operation.START_WORKFLOW.toString());
-
     final String destinationId = WorkflowItem.WORKFLOW_QUEUE_PREFIX + indexName.substring(0, 1).toUpperCase()
             + indexName.substring(1);
-    if (workflows.size() > 0) {
-      final int total = workflows.size();
+    final int total = serviceRegistry.getJobCount(Operation.START_WORKFLOW.toString());
+    if (total > 0) {
       logger.info("Populating index '{}' with {} workflows", indexName, total);
       final int responseInterval = (total < 100) ? 1 : (total / 100);
-      int current = 0;
-      for (final String workflow : workflows) {
-        current += 1;
-        if (StringUtils.isEmpty(workflow)) {
-          logger.warn("Skipping restoring of workflow no {}: Payload is empty", current);
-          continue;
-        }
-        WorkflowInstance instance;
-        try {
-          instance = WorkflowParser.parseWorkflowInstance(workflow);
-        } catch (WorkflowParsingException e) {
-          logger.warn("Skipping restoring of workflow. Error parsing: {}", workflow, e);
-          continue;
-        }
-        Organization organization = instance.getOrganization();
-        SecurityUtil.runAs(securityService, organization,
-                SecurityUtil.createSystemUser(componentContext, organization), new Effect0() {
-                  @Override
-                  public void run() {
-                    // Send message to update index item
-                    messageSender.sendObjectMessage(destinationId, MessageSender.DestinationType.Queue,
-                            WorkflowItem.updateInstance(instance));
-                  }
-                });
-        if ((current % responseInterval == 0) || (current == total)) {
-          logger.info("Updating {} workflow index {}/{}: {} percent complete.", indexName, current, total,
-                  current * 100 / total);
+      final AtomicInteger current = new AtomicInteger();
+      final long start = System.currentTimeMillis();
+
+      // Parse and send the workflows of one page while the next page is loaded. The bounded queue makes the loading
+      // thread do some of the work itself instead of loading more pages into memory once the workers fall behind.
+      final int threads = Math.max(1, Math.min(REPOPULATE_MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+      ThreadPoolExecutor repopulateExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<Runnable>(REPOPULATE_PAGE_SIZE), new ThreadPoolExecutor.CallerRunsPolicy());
+      try {
+        JobPayload last = null;
+        while (true) {
+          List<JobPayload> workflows = serviceRegistry.getJobPayloads(Operation.START_WORKFLOW.toString(),
+                  REPOPULATE_PAGE_SIZE, last);
+          if (workflows.isEmpty())
+            break;
+          for (final JobPayload workflow : workflows) {
+            repopulateExecutor.execute(new Runnable() {
+              @Override
+              public void run() {
+                int no = current.incrementAndGet();
+                repopulateWorkflow(destinationId, workflow.getPayload(), no);
+                if ((no % responseInterval == 0) || (no == total)) {
+                  long elapsed = Math.max(1L, System.currentTimeMillis() - start);
+                  logger.info("Updating {} workflow index {}/{}: {} percent complete, {} workflows/sec.", indexName,
+                          no, total, no * 100 / total, no * MILLISECONDS_IN_SECONDS / elapsed);
+                }
+              }
+            });
+          }
+          if (workflows.size() < REPOPULATE_PAGE_SIZE)
+            break;
+          last = workflows.get(workflows.size() - 1);
         }
+      } finally {
+        repopulateExecutor.shutdown();
+        repopulateExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
       }
     }
     logger.info("Finished populating {} index with workflows", indexName);
@@ -2441,6 +2538,40 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
             });
   }
 
+  /**
+   * Parses a single workflow payload and sends it to the index.
+   *
+   * @param destinationId
+   *          the queue of the index
+   * @param workflow
+   *          the serialized workflow instance
+   * @param no
+   *          the number of the workflow, used for logging
+   */
+  private void repopulateWorkflow(final String destinationId, String workflow, int no) {
+    if (StringUtils.isEmpty(workflow)) {
+      logger.warn("Skipping restoring of workflow no {}: Payload is empty", no);
+      return;
+    }
+    final WorkflowInstance instance;
+    try {
+      instance = WorkflowParser.parseWorkflowInstance(workflow);
+    } catch (WorkflowParsingException e) {
+      logger.warn("Skipping restoring of workflow. Error parsing: {}", workflow, e);
+      return;
+    }
+    Organization organization = instance.getOrganization();
+    SecurityUtil.runAs(securityService, organization, SecurityUtil.createSystemUser(componentContext, organization),
+            new Effect0() {
+              @Override
+              public void run() {
+                // Send message to update index item
+                messageSender.sendObjectMessage(destinationId, MessageSender.DestinationType.Queue,
+                        WorkflowItem.updateInstance(instance));
+              }
+            });
+  }
+
   @Override
   public MessageReceiver getMessageReceiver() {
     return messageReceiver;
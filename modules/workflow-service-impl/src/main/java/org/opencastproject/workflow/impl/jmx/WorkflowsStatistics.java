@@ -24,6 +24,7 @@ package org.opencastproject.workflow.impl.jmx;
 import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workflow.api.WorkflowInstance;
 import org.opencastproject.workflow.api.WorkflowStatistics;
+import org.opencastproject.workflow.impl.WorkflowJobExecutor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -42,6 +43,7 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
 
   private Map<String, Long> workflowCounts = new HashMap<String, Long>();
   private WorkflowStatistics workflowStatistics;
+  private WorkflowJobExecutor jobExecutor;
 
   public WorkflowsStatistics(WorkflowStatistics workflowStatistics, List<WorkflowInstance> workflows) {
     updateWorkflow(workflowStatistics, workflows);
@@ -60,6 +62,10 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
     sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber++, "Workflow updated"));
   }
 
+  public void setJobExecutor(WorkflowJobExecutor jobExecutor) {
+    this.jobExecutor = jobExecutor;
+  }
+
   @Override
   public MBeanNotificationInfo[] getNotificationInfo() {
     String[] types = new String[] { JmxUtil.OPENCAST_UPDATE_NOTIFICATION };
@@ -173,4 +179,36 @@ public class WorkflowsStatistics extends NotificationBroadcasterSupport implemen
     return new String[0];
   }
 
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowsStatisticsMXBean#getQueuedJobs()
+   */
+  @Override
+  public int getQueuedJobs() {
+    return jobExecutor == null ? 0 : jobExecutor.getQueuedJobs();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowsStatisticsMXBean#getRunningJobs()
+   */
+  @Override
+  public int getRunningJobs() {
+    return jobExecutor == null ? 0 : jobExecutor.getActiveCount();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowsStatisticsMXBean#getAverageJobWaitTime()
+   */
+  @Override
+  public long getAverageJobWaitTime() {
+    return jobExecutor == null ? 0L : jobExecutor.getAverageWaitTime();
+  }
+
+  /**
+   * @see org.opencastproject.workflow.impl.jmx.WorkflowsStatisticsMXBean#getLastJobWaitTime()
+   */
+  @Override
+  public long getLastJobWaitTime() {
+    return jobExecutor == null ? 0L : jobExecutor.getLastWaitTime();
+  }
+
 }
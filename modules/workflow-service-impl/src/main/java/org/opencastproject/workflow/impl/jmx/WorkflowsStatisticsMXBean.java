@@ -110,4 +110,32 @@ public interface WorkflowsStatisticsMXBean {
    */
   String[] getAverageWorkflowHoldTime();
 
+  /**
+   * Gets the number of workflow jobs waiting to be run
+   *
+   * @return the number of queued workflow jobs
+   */
+  int getQueuedJobs();
+
+  /**
+   * Gets the number of workflow jobs currently being run
+   *
+   * @return the number of running workflow jobs
+   */
+  int getRunningJobs();
+
+  /**
+   * Gets the average time workflow jobs have been waiting to be run
+   *
+   * @return the average wait time in milliseconds
+   */
+  long getAverageJobWaitTime();
+
+  /**
+   * Gets the time the last started workflow job has been waiting to be run
+   *
+   * @return the wait time in milliseconds
+   */
+  long getLastJobWaitTime();
+
 }
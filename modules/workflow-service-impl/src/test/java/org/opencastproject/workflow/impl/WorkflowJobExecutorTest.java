@@ -0,0 +1,98 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.workflow.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WorkflowJobExecutorTest {
+
+  private WorkflowJobExecutor executor;
+
+  @Before
+  public void setUp() {
+    executor = new WorkflowJobExecutor(1, 2);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testJobsAreRunByPriority() throws Exception {
+    final CountDownLatch blocker = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(4);
+    final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          blocker.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, WorkflowJobExecutor.Priority.NORMAL);
+    executor.execute(record("low", order, done), WorkflowJobExecutor.Priority.LOW);
+    executor.execute(record("normal", order, done), WorkflowJobExecutor.Priority.NORMAL);
+    executor.execute(record("high", order, done), WorkflowJobExecutor.Priority.HIGH);
+    executor.execute(record("normal2", order, done), WorkflowJobExecutor.Priority.NORMAL);
+
+    // The first job may or may not have been started already
+    assertTrue(executor.getQueuedJobs() >= 4);
+    assertTrue(executor.isSaturated());
+
+    blocker.countDown();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(4, order.size());
+    assertEquals("high", order.get(0));
+    assertEquals("normal", order.get(1));
+    assertEquals("normal2", order.get(2));
+    assertEquals("low", order.get(3));
+    assertEquals(0, executor.getQueuedJobs());
+    assertFalse(executor.isSaturated());
+  }
+
+  private static Runnable record(final String name, final List<String> order, final CountDownLatch done) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        order.add(name);
+        done.countDown();
+      }
+    };
+  }
+
+}